@@ -17,11 +17,21 @@
 
 package org.snaccooperative.data;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
 
+import java.util.AbstractList;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.RandomAccess;
 
 /**
  * Abstract data class
@@ -34,6 +44,7 @@ import java.util.List;
  * @author Robbie Hott
  * @author Tom Laudeman
  */
+@JsonIgnoreProperties(value = { "empty" }, allowGetters = true)
 @JsonInclude(JsonInclude.Include.NON_DEFAULT)
 public abstract class AbstractData {
 
@@ -55,6 +66,11 @@ public abstract class AbstractData {
 
     public static final int MAX_LIST_SIZE = Integer.MAX_VALUE;
 
+    /**
+     * @var int Lists up to this size are compared by sameElements() without a hash map
+     */
+    private static final int SMALL_LIST_SIZE = 8;
+
     /**
      * @var string dataType The data type of this object.
      *
@@ -103,7 +119,11 @@ public abstract class AbstractData {
 
     /**
      * var snacdataSNACControlMetadata[] snacControlMetadata The snac control metadata entries for this piece of data.
+     *
+     * Serialized from the field rather than the getter, so that writing an object leaves an empty
+     * list shared.
      */
+    @JsonProperty
     protected List<SNACControlMetadata> snacControlMetadata;
 
     /**
@@ -111,31 +131,62 @@ public abstract class AbstractData {
      */
     protected String operation;
 
+    /**
+     * @var int The hash code, once cached by cacheHashCode()
+     */
+    private int hashCode = 0;
+
+    /**
+     * @var boolean Whether the hash code has been cached
+     */
+    private boolean hashCached = false;
+
+    /**
+     * @var boolean Whether this object is frozen, and may no longer be changed
+     */
+    private boolean frozen = false;
+
     /**
      * Constructor
      */
     public AbstractData() {
-        this.snacControlMetadata = new ArrayList<>();
-        this.dateList = new ArrayList<>();
+        this.snacControlMetadata = Collections.emptyList();
+        this.dateList = Collections.emptyList();
     }
 
     /**
      * Is Equal
      *
      * This function tests whether the current object is equal to the parameter.  They
-     * must match exactly.  It allows for a parameter to enable skipping of the ID/version/operation
-     * matching.
+     * must match exactly, including their IDs and versions.
      */
     public boolean equals(Object other) {
+        return this.equals(other, true, false);
+    }
+
+    /**
+     * Is Equal
+     *
+     * This function tests whether the current object is equal to the parameter.  It allows for
+     * a parameter to enable skipping of the ID/version matching, here and in all sub-elements.
+     *
+     * @param other The object to compare
+     * @param strict Whether or not to check ID/Version
+     * @param checkSubcomponents Whether or not to check SNACControlMetadata, nameEntries contributors & components
+     * @return boolean true if equal, false otherwise
+     */
+    public boolean equals(Object other, boolean strict, boolean checkSubcomponents) {
 
         if (other == null || !(other instanceof AbstractData))
             return false;
 
         AbstractData a = (AbstractData) other;
-        if (this.getID() != a.getID())
-            return false;
-        if (this.getVersion() != a.getVersion())
-            return false;
+        if (strict) {
+            if (this.getID() != a.getID())
+                return false;
+            if (this.getVersion() != a.getVersion())
+                return false;
+        }
         //if (this.getOperation() != other->getOperation())
         //    return false;
 
@@ -144,7 +195,12 @@ public abstract class AbstractData {
             return false;
 
         if (this.getMaxDateCount() > 0) {
-            if (!(this.getDateList().containsAll(a.getDateList()) && a.getDateList().containsAll(this.getDateList())))
+            if (!AbstractData.sameElements(this.dateList, a.dateList, strict, checkSubcomponents))
+                return false;
+        }
+
+        if (checkSubcomponents) {
+            if (!AbstractData.sameElements(this.snacControlMetadata, a.snacControlMetadata, strict, checkSubcomponents))
                 return false;
         }
 
@@ -190,65 +246,91 @@ public abstract class AbstractData {
 
         return true;
 
-    }
+    }*/
 
     /**
      * diff Array
      *
-     * Goes through arrays of AbstractData and performs a diff.  It returns an array of
-     * three different arrays: intersection (the shared components), first (the items
-     * of the first not appearing in the second), and second (the items of the
-     * second not appearing in the first).
+     * Goes through lists of AbstractData and performs a diff, filling three lists: intersection
+     * (the shared components), first (the items of the first not appearing in the second), and
+     * second (the items of the second not appearing in the first).  Each item of the second list
+     * matches at most one item of the first, so duplicates are kept in step.
      *
-     * @param snacdataAbstractData[] first first array
-     * @param snacdataAbstractData[] second second array
-     * @param boolean strict optional whether or not to check ID/Version/Operation
-     * @return mixed[] An associative array of AbstractData[] with "intersection," "first," and "second" keys
-    protected function diffArray(first, second, strict = true) {
-        return = array(
-            "intersection" => array(),
-            "first" => array(),
-            "second" => array()
-        );
-
-        if (first == null && second == null)
-            return return;
-        if (first == null) {
-            return["second"] = second;
-            return return;
+     * The items of the second list are indexed by hash code under the given parameters, so the
+     * diff takes linear time in the length of the lists.  Items the index leaves unmatched are
+     * then compared one by one, since a term with an ID may equal the same term without one yet
+     * hash differently; this only costs more than linear time when many items are left over.
+     *
+     * @param first first list, or null
+     * @param second second list, or null
+     * @param strict whether or not to check ID/Version
+     * @param checkSubcomponents Whether or not to check SNACControlMetadata, nameEntries contributors & components
+     * @param intersection Receives the items of the first list that are in the second
+     * @param onlyFirst Receives the items of the first list that are not in the second
+     * @param onlySecond Receives the items of the second list that are not in the first
+     */
+    protected static <T> void diffArray(List<T> first, List<T> second, boolean strict, boolean checkSubcomponents,
+            List<T> intersection, List<T> onlyFirst, List<T> onlySecond) {
+        if (first == null || first.isEmpty()) {
+            if (second != null)
+                onlySecond.addAll(second);
+            return;
         }
-        if (second == null) {
-            return["first"] = first;
-            return return;
+        if (second == null || second.isEmpty()) {
+            onlyFirst.addAll(first);
+            return;
         }
 
-        tmp = array();
-        foreach (first as data) {
-            seen = false;
-            foreach (second as k => odata) {
-                if (data != null && data->equals(odata, strict)
-                        && !isset(tmp[k])) {
-                    // in case there are duplicates in first
-                    tmp[k] = true;
-                    seen = true;
-                    array_push(return["intersection"], data);
-                }
-            }
-            if (!seen) {
-                array_push(return["first"], data);
+        // The positions in second of each distinct item, in order
+        Map<Object, ArrayDeque<Integer>> positions = new HashMap<>(second.size() * 4 / 3 + 1);
+        for (int k = 0; k < second.size(); k++) {
+            Object key = DataKey.of(second.get(k), strict, checkSubcomponents);
+            ArrayDeque<Integer> at = positions.get(key);
+            if (at == null) {
+                at = new ArrayDeque<>(1);
+                positions.put(key, at);
             }
+            at.add(k);
         }
 
-        foreach (second as k => odata) {
-            // make use of our key-bitmap to not have an inner loop
-            if (!isset(tmp[k])) {
-                array_push(return["second"], odata);
+        boolean[] matched = new boolean[second.size()];
+        int unmatched = second.size();
+        List<T> rest = null;
+        for (T data : first) {
+            ArrayDeque<Integer> at = data == null ? null : positions.get(DataKey.of(data, strict, checkSubcomponents));
+            if (at != null && !at.isEmpty()) {
+                matched[at.poll()] = true;
+                unmatched--;
+                intersection.add(data);
+            } else {
+                if (rest == null)
+                    rest = new ArrayList<>();
+                rest.add(data);
             }
         }
 
-        return return;
+        // Compare what is left by hand, in the order of the first list
+        if (rest != null) {
+            for (T data : rest) {
+                int k = data == null || unmatched == 0 ? second.size() : 0;
+                while (k < second.size() && (matched[k] || !DataKey.same(data, second.get(k), strict, checkSubcomponents)))
+                    k++;
+                if (k < second.size()) {
+                    matched[k] = true;
+                    unmatched--;
+                    intersection.add(data);
+                } else {
+                    onlyFirst.add(data);
+                }
+            }
+        }
 
-    }*/
+        // make use of our key-bitmap to not have an inner loop
+        for (int k = 0; k < second.size(); k++) {
+            if (!matched[k])
+                onlySecond.add(second.get(k));
+        }
+    }
 
     /**
      * Set the data type for this object
@@ -295,8 +377,11 @@ public abstract class AbstractData {
      * a list, always, even if empty.
      *
      */
+    @JsonIgnore
     public List<SNACDate> getDateList()
     {
+        if (this.isSharedList(this.dateList))
+            this.dateList = new ArrayList<>();
         return this.dateList;
     }
 
@@ -311,6 +396,8 @@ public abstract class AbstractData {
     {
         if (this.maxDateCount != 0 &&
                 this.dateList.size() < this.maxDateCount) {
+            this.modified("dates");
+            this.dateList = mutableList(this.dateList);
             this.dateList.add(dateObj);
             return true;
         }
@@ -329,6 +416,7 @@ public abstract class AbstractData {
     public boolean setDateList(List<SNACDate> dateList)
     {
         if (this.maxDateCount > 0 && dateList.size() < this.maxDateCount) {
+            this.modified("dates");
             this.dateList = dateList;
             return true;
         }
@@ -390,6 +478,7 @@ public abstract class AbstractData {
      *
      */
     public void setID(int id) {
+        this.modified("id");
         this.id = id;
     }
 
@@ -411,6 +500,7 @@ public abstract class AbstractData {
      *
      */
     public void setVersion(int version) {
+        this.modified("version");
         this.version = version;
     }
 
@@ -419,6 +509,8 @@ public abstract class AbstractData {
      *
      */
     public void addSNACControlMetadata(SNACControlMetadata metadata) {
+        this.modified("snacControlMetadata");
+        this.snacControlMetadata = mutableList(this.snacControlMetadata);
         this.snacControlMetadata.add(metadata);
     }
 
@@ -427,7 +519,8 @@ public abstract class AbstractData {
      *
      */
     public void setSnacControlMetadata(List<SNACControlMetadata> metadata) {
-        this.snacControlMetadata = new ArrayList<>(metadata);
+        this.modified("snacControlMetadata");
+        this.snacControlMetadata = keepList(metadata);
     }
 
     /**
@@ -435,7 +528,10 @@ public abstract class AbstractData {
      *
      * @return snacdataSNACControlMetadata[] Array of snac control metadata about this data
      */
+    @JsonIgnore
     public List<SNACControlMetadata> getSnacControlMetadata() {
+        if (this.isSharedList(this.snacControlMetadata))
+            this.snacControlMetadata = new ArrayList<>();
         return this.snacControlMetadata;
     }
 
@@ -445,6 +541,7 @@ public abstract class AbstractData {
      * @return boolean true on success, false on failure
      */
     public boolean setOperation(String operation) {
+        this.modified("operation");
         if (operation != null && (operation.equals(AbstractData.OPERATION_UPDATE) ||
             operation.equals(AbstractData.OPERATION_DELETE) ||
             operation.equals(AbstractData.OPERATION_INSERT))) {
@@ -463,29 +560,686 @@ public abstract class AbstractData {
         return this.operation;
     }
 
+    /**
+     * Hash Code
+     *
+     * Returns a hash code built from the same fields that equals() compares, so that objects
+     * that are equal hash alike and the data can be kept in hash-based collections.  Subclasses
+     * add their fields by overriding computeHashCode(); one that overrides this method instead
+     * must keep it consistent with equals(), and loses the cache kept by cacheHashCode().
+     *
+     * @return int The hash code
+     */
+    public int hashCode() {
+        if (this.hashCached)
+            return this.hashCode;
+        return this.computeHashCode(true, false);
+    }
+
+    /**
+     * Hash Code
+     *
+     * Returns a hash code consistent with equals(Object, boolean, boolean) called with the same
+     * parameters.
+     *
+     * @param strict Whether or not to hash ID/Version
+     * @param checkSubcomponents Whether or not to hash SNACControlMetadata, nameEntries contributors & components
+     * @return int The hash code
+     */
+    public int hashCode(boolean strict, boolean checkSubcomponents) {
+        if (strict && !checkSubcomponents)
+            return this.hashCode();
+        return this.computeHashCode(strict, checkSubcomponents);
+    }
+
+    /**
+     * Compute the hash code
+     *
+     * The hook through which subclasses hash their fields.  Whatever the parameters, two objects
+     * for which equals(Object, strict, checkSubcomponents) is true must get the same result,
+     * and the result must not depend on the order of any list that equals() compares as a
+     * multiset.  Subclasses that compare more fields in equals() override this, combining the
+     * result of super.computeHashCode() with the hash codes of their own fields.  Sub-elements
+     * are hashed with the same parameters, through hashData() and hashUnordered().
+     *
+     * @param strict Whether or not to hash ID/Version
+     * @param checkSubcomponents Whether or not to hash SNACControlMetadata, nameEntries contributors & components
+     * @return int The hash code of the fields compared by equals()
+     */
+    protected int computeHashCode(boolean strict, boolean checkSubcomponents) {
+        int hash = 0;
+        if (strict) {
+            hash = this.getID();
+            hash = 31 * hash + this.getVersion();
+        }
+        hash = 31 * hash + this.getMaxDateCount();
+        if (this.getMaxDateCount() > 0)
+            hash = 31 * hash + hashUnordered(this.dateList, strict, checkSubcomponents);
+        if (checkSubcomponents)
+            hash = 31 * hash + hashUnordered(this.snacControlMetadata, strict, checkSubcomponents);
+        return hash;
+    }
+
+    /**
+     * Cache the hash code
+     *
+     * Computes the hash code once and keeps it, so that later calls to hashCode() cost nothing.
+     * For data that will not be modified again, such as a snapshot that is about to be used as a
+     * key or set member.  The setters of this object drop the cached value, but changes made
+     * directly to its sub-elements do not.
+     */
+    public void cacheHashCode() {
+        this.hashCode = this.computeHashCode(true, false);
+        this.hashCached = true;
+    }
+
+    /**
+     * Is the hash code cached
+     *
+     * @return boolean True if cacheHashCode() has been called
+     */
+    protected boolean isHashCodeCached() {
+        return this.hashCached;
+    }
+
+    /**
+     * Make a list mutable
+     *
+     * Lists that are empty share one immutable empty list until something is added to them, since
+     * most sections of most records are empty.  Called by the add methods before adding.
+     *
+     * @param list The list, which may be the shared empty list or null
+     * @return List The list itself if it is an ArrayList, otherwise a new ArrayList of its elements
+     */
+    protected static <T> List<T> mutableList(List<T> list) {
+        if (list instanceof ArrayList)
+            return list;
+        return list == null ? new ArrayList<>() : new ArrayList<>(list);
+    }
+
+    /**
+     * Whether a getter must give a list its own storage before handing it out
+     *
+     * Empty lists share one immutable empty list, which the getters replace with a new ArrayList
+     * before returning it, so that callers may still add to the list they get.  Serialization,
+     * equals() and hashCode() read the fields instead, so they leave empty lists shared.  The
+     * lists of a frozen object are read-only and are handed out as they are.
+     *
+     * @param list The list held by this object
+     * @return boolean True if the list is the shared empty list, or null, and this object is not frozen
+     */
+    protected boolean isSharedList(List<?> list) {
+        return !this.frozen && (list == null || list == Collections.emptyList());
+    }
+
+    /**
+     * Keep a list given to a set method
+     *
+     * Called by the set methods.  A list with elements is kept, not copied, so later changes the
+     * caller makes to it change this object too.  The read-only list of a frozen object is
+     * copied, so that this object may still be changed.
+     *
+     * @param list The list given
+     * @return List The list itself, or the shared empty list if it is null or empty
+     */
+    protected static <T> List<T> keepList(List<T> list) {
+        if (list == null || list.isEmpty())
+            return Collections.emptyList();
+        if (list instanceof FrozenList)
+            return new ArrayList<>(list);
+        return list;
+    }
+
+    /**
+     * Copy a list
+     *
+     * @param list The elements
+     * @return List A new ArrayList of the elements, or the shared empty list if there are none
+     */
+    protected static <T> List<T> copyList(Collection<? extends T> list) {
+        if (list == null || list.isEmpty())
+            return Collections.emptyList();
+        return new ArrayList<>(list);
+    }
+
+    /**
+     * Trim a list
+     *
+     * @param list The list, which may be null
+     * @return List The shared empty list if the list is empty, otherwise the list, trimmed to
+     * its size if it is an ArrayList
+     */
+    protected static <T> List<T> trimList(List<T> list) {
+        if (list == null)
+            return null;
+        if (list.isEmpty())
+            return Collections.emptyList();
+        if (list instanceof ArrayList)
+            ((ArrayList<T>) list).trimToSize();
+        return list;
+    }
+
+    /**
+     * Trim to size
+     *
+     * Trims the lists of this object and every sub-element in its tree to their sizes, and
+     * replaces the empty ones with the shared empty list, to save memory once the data is no
+     * longer being built up.
+     */
+    public void trimToSize() {
+        this.accept(new Trimmer());
+    }
+
+    /**
+     * Trim the lists of this object
+     *
+     * Subclasses that hold lists of their own call this and then trim them with trimList().
+     */
+    protected void trimLists() {
+        this.dateList = trimList(this.dateList);
+        this.snacControlMetadata = trimList(this.snacControlMetadata);
+    }
+
+    /**
+     * Deep copy
+     *
+     * Copies this object and every sub-element in its tree, keeping IDs and versions and sharing
+     * read-only terms.  The copy is never frozen, so this is how to get a copy of a frozen object
+     * to change.
+     *
+     * @return AbstractData A copy of this object, of the same class
+     * @see DataCopier
+     */
+    public AbstractData deepCopy() {
+        return this.deepCopy(true, true);
+    }
+
+    /**
+     * Deep copy
+     *
+     * Copies this object and every sub-element in its tree, field by field.
+     *
+     * @param keepIDs Whether to keep the IDs and versions of the copied objects
+     * @param shareTerms Whether to share the read-only terms, rather than copy them
+     * @return AbstractData A copy of this object, of the same class
+     * @see DataCopier
+     */
+    public AbstractData deepCopy(boolean keepIDs, boolean shareTerms) {
+        return new DataCopier(keepIDs, shareTerms).copy(this);
+    }
+
+    /**
+     * Create an empty object of this class, to copy into
+     *
+     * @return AbstractData A new object of this class
+     */
+    protected abstract AbstractData newInstance();
+
+    /**
+     * Copy the fields of an object into this one
+     *
+     * Called on a new object from newInstance().  Subclasses with fields of their own call this
+     * and then copy them, with the copier for the data objects and terms they hold.
+     *
+     * @param data The object copied, of the same class as this one
+     * @param copier The copier
+     */
+    protected void copyFrom(AbstractData data, DataCopier copier) {
+        this.dataType = data.dataType;
+        if (copier.keepsIDs()) {
+            this.id = data.id;
+            this.version = data.version;
+        }
+        this.maxDateCount = data.maxDateCount;
+        this.operation = data.operation;
+        this.dateList = copier.copyAll(data.dateList);
+        this.snacControlMetadata = copier.copyAll(data.snacControlMetadata);
+    }
+
+    /**
+     * Is this object frozen
+     *
+     * @return boolean True if this object belongs to a frozen Constellation, and may not be changed
+     */
+    @JsonIgnore
+    public boolean isFrozen() {
+        return this.frozen;
+    }
+
+    /**
+     * Freeze this object's tree
+     *
+     * Makes this object and every sub-element in its tree, and the sources their SCMs cite,
+     * read-only.  Each list is replaced by an unmodifiable list over an array of its elements,
+     * each term is made read-only, and each hash code is cached.  Once frozen, an object is never
+     * changed again, so it may be read from any number of threads without locking, as long as it
+     * is published safely (as ConstellationSnapshot does).  Objects that are already frozen are
+     * skipped.
+     */
+    void freezeTree() {
+        this.accept(new Freezer());
+    }
+
+    /**
+     * Freeze the fields of this object
+     *
+     * Subclasses that hold lists or terms of their own call this and then freeze them with
+     * freezeList() and freezeTerm().
+     */
+    protected void freezeFields() {
+        this.dateList = freezeList(this.dateList);
+        this.snacControlMetadata = freezeList(this.snacControlMetadata);
+    }
+
+    /**
+     * Freeze a list
+     *
+     * @param list The list, which may be null
+     * @return List The shared empty list if the list is empty, otherwise an unmodifiable list
+     * over an array of its elements
+     */
+    protected static <T> List<T> freezeList(List<T> list) {
+        if (list == null)
+            return null;
+        if (list.isEmpty())
+            return Collections.emptyList();
+        if (list instanceof FrozenList)
+            return list;
+        return new FrozenList<>(list.toArray());
+    }
+
+    /**
+     * Freeze a term
+     *
+     * The term given may still be held, and changed, by its caller or by other records, so it is
+     * never made read-only itself.
+     *
+     * @param term The term, which may be null
+     * @return Term The TermRegistry's shared instance of the term, or else a read-only copy of it
+     */
+    protected static Term freezeTerm(Term term) {
+        Term shared = TermRegistry.canonical(term);
+        if (shared == null || shared.isShared())
+            return shared;
+        return shared.deepCopy().share();
+    }
+
+    /**
+     * Compare two data objects
+     *
+     * @return boolean true if both are null, or they are equal under the given parameters
+     */
+    protected static boolean sameData(AbstractData a, AbstractData b, boolean strict, boolean checkSubcomponents) {
+        if (a == b)
+            return true;
+        if (a == null || b == null)
+            return false;
+        return a.equals(b, strict, checkSubcomponents);
+    }
+
+    /**
+     * Hash a data object
+     *
+     * @return int The hash code of the object under the given parameters, or 0 if it is null
+     */
+    protected static int hashData(AbstractData data, boolean strict, boolean checkSubcomponents) {
+        if (data == null)
+            return 0;
+        return data.hashCode(strict, checkSubcomponents);
+    }
+
+    /**
+     * Compare two lists as multisets
+     *
+     * The lists are equal if they hold the same elements the same number of times, in any
+     * order.  Lists of different sizes are rejected at once; otherwise the elements of one are
+     * counted in a hash map and matched off against the other, so the comparison takes linear
+     * time rather than the quadratic time of containsAll() in each direction.  Elements the map
+     * leaves unmatched, as when a term with an ID equals the same term without one but hashes
+     * differently, are then matched by hand.
+     *
+     * @return boolean true if the lists hold the same elements, or are both null
+     */
+    protected static boolean sameElements(List<?> a, List<?> b) {
+        return AbstractData.sameElements(a, b, true, false);
+    }
+
+    /**
+     * Compare two lists as multisets, with the given parameters
+     *
+     * Data elements are compared with equals(Object, boolean, boolean), and other elements with
+     * equals().
+     *
+     * @param strict Whether or not to check ID/Version
+     * @param checkSubcomponents Whether or not to check SNACControlMetadata, nameEntries contributors & components
+     * @return boolean true if the lists hold the same elements, or are both null
+     */
+    protected static boolean sameElements(List<?> a, List<?> b, boolean strict, boolean checkSubcomponents) {
+        if (a == b)
+            return true;
+        if (a == null || b == null || a.size() != b.size())
+            return false;
+        int size = a.size();
+        // Matching by hand is cheaper than building a map for a handful of elements
+        if (size <= SMALL_LIST_SIZE)
+            return AbstractData.matchByHand(a, b, strict, checkSubcomponents);
+        Map<Object, int[]> counts = new HashMap<>(size * 4 / 3 + 1);
+        for (Object element : a) {
+            Object key = DataKey.of(element, strict, checkSubcomponents);
+            int[] count = counts.get(key);
+            if (count == null)
+                counts.put(key, new int[] { 1 });
+            else
+                count[0]++;
+        }
+        List<Object> restOfB = null;
+        for (Object element : b) {
+            int[] count = counts.get(DataKey.of(element, strict, checkSubcomponents));
+            if (count == null || count[0] == 0) {
+                if (restOfB == null)
+                    restOfB = new ArrayList<>();
+                restOfB.add(element);
+            } else {
+                count[0]--;
+            }
+        }
+        if (restOfB == null)
+            return true;
+
+        // The lists are the same size, so as many elements of a are left over
+        List<Object> restOfA = new ArrayList<>(restOfB.size());
+        for (Object element : a) {
+            int[] count = counts.get(DataKey.of(element, strict, checkSubcomponents));
+            if (count[0] > 0) {
+                count[0]--;
+                restOfA.add(element);
+            }
+        }
+        return AbstractData.matchByHand(restOfA, restOfB, strict, checkSubcomponents);
+    }
+
+    /**
+     * Match each element of one list to a different, equal element of another of the same size
+     *
+     * @return boolean true if every element is matched
+     */
+    private static boolean matchByHand(List<?> a, List<?> b, boolean strict, boolean checkSubcomponents) {
+        int size = b.size();
+        boolean[] matched = new boolean[size];
+        for (Object element : a) {
+            int i = 0;
+            while (i < size && (matched[i] || !DataKey.same(element, b.get(i), strict, checkSubcomponents)))
+                i++;
+            if (i == size)
+                return false;
+            matched[i] = true;
+        }
+        return true;
+    }
+
+    /**
+     * Hash a list whose order equals() ignores
+     *
+     * Lists compared by sameElements() are equal whenever they hold the same elements the same
+     * number of times, so the hash is the sum of the hash codes of the elements.
+     *
+     * @return int The hash code of the list, or 0 if it is null
+     */
+    protected static int hashUnordered(List<?> list) {
+        return AbstractData.hashUnordered(list, true, false);
+    }
+
+    /**
+     * Hash a list whose order equals() ignores, with the given parameters
+     *
+     * @param strict Whether or not to hash ID/Version
+     * @param checkSubcomponents Whether or not to hash SNACControlMetadata, nameEntries contributors & components
+     * @return int The hash code of the list, or 0 if it is null
+     */
+    protected static int hashUnordered(List<?> list, boolean strict, boolean checkSubcomponents) {
+        if (list == null)
+            return 0;
+        int hash = 0;
+        for (Object element : list)
+            hash += DataKey.hash(element, strict, checkSubcomponents);
+        return hash;
+    }
+
+    /**
+     * Hash a double compared with ==, for which 0.0 and -0.0 are equal
+     *
+     * @return int The hash code of the value
+     */
+    protected static int hashDouble(double value) {
+        return Double.hashCode(value == 0.0 ? 0.0 : value);
+    }
+
+    /**
+     * Note a modified property
+     *
+     * Called by the setters (and add and remove methods) of every property, before they change
+     * the property.  Classes that keep anything derived from a property's value, such as the JSON
+     * it was parsed from, drop it here, after calling this.  Drops the cached hash code.
+     *
+     * @param property The JSON name of the property
+     * @throws UnsupportedOperationException If this object is frozen
+     */
+    protected void modified(String property) {
+        if (this.frozen)
+            throw new UnsupportedOperationException("This " + this.dataType + " is frozen and may not be "
+                + "changed; thaw() a copy of its Constellation instead");
+        this.hashCached = false;
+    }
+
     /**
      * Cleanse sub elements
+     *
+     * Removes the ID and Version from every sub-element in this object's tree, and sets their
+     * operations to INSERT, or to the given operation if it is not null.  Records that are only
+     * referred to, such as the Resource of a ResourceRelation, are left alone, as are the
+     * maintenance events and images of a Constellation.
+     *
+     * @param operation The operation to set, or null for INSERT
      */
     public void cleanseSubElements(String operation) {
         String newOperation = AbstractData.OPERATION_INSERT;
         if (operation != null) {
             newOperation = operation;
         }
-        if (this.dateList != null) {
-            for (SNACDate d : this.dateList) {
-                d.setID(0);
-                d.setVersion(0);
-                d.setOperation(newOperation);
-                d.cleanseSubElements(newOperation);
-            }
+        this.modified("dates");
+        this.modified("snacControlMetadata");
+        this.accept(new Cleanser(this, newOperation));
+    }
+
+    /**
+     * Accept a visitor
+     *
+     * Walks the tree of this object, depth first: calls the visitor's enter() on this object,
+     * then (unless enter() returned false) visits each sub-element in turn, then calls leave().
+     *
+     * @param visitor The visitor
+     */
+    public final void accept(DataVisitor visitor) {
+        if (visitor.enter(this))
+            this.acceptChildren(visitor);
+        visitor.leave(this);
+    }
+
+    /**
+     * Visit the sub-elements
+     *
+     * Passes the visitor to each sub-element of this object.  Subclasses that hold other data
+     * call this and then visit their own.
+     *
+     * @param visitor The visitor
+     */
+    protected void acceptChildren(DataVisitor visitor) {
+        acceptAll(visitor, this.dateList);
+        acceptAll(visitor, this.snacControlMetadata);
+    }
+
+    /**
+     * Pass a visitor to a sub-element, if it is not null
+     */
+    protected static void accept(DataVisitor visitor, AbstractData element) {
+        if (element != null)
+            element.accept(visitor);
+    }
+
+    /**
+     * Pass a visitor to each sub-element of a list, if it is not null
+     */
+    protected static void acceptAll(DataVisitor visitor, List<? extends AbstractData> elements) {
+        if (elements == null)
+            return;
+        for (int i = 0; i < elements.size(); i++)
+            accept(visitor, elements.get(i));
+    }
+
+    /**
+     * Update SCM Citations
+     *
+     * Points each SCM of this object and its sub-elements that cites one of the given sources,
+     * by ID, at the source it maps to instead.
+     *
+     * @param sources The source to cite in place of each source ID
+     */
+    protected void updateSCMCitations(Map<Integer, Source> sources) {
+        this.accept(new CitationUpdater(this, sources, null, null));
+    }
+
+    /**
+     * Cleanser
+     *
+     * Removes the IDs and versions of the sub-elements it visits, and sets their operation.
+     */
+    private static final class Cleanser extends DataVisitor {
+
+        private final AbstractData root;
+        private final String operation;
+
+        Cleanser(AbstractData root, String operation) {
+            this.root = root;
+            this.operation = operation;
+        }
+
+        public boolean enter(AbstractData data) {
+            if (data == this.root)
+                return true;
+            if (data instanceof Constellation || data instanceof Resource
+                    || data instanceof MaintenanceEvent || data instanceof Image)
+                return false;
+            data.setID(0);
+            data.setVersion(0);
+            data.setOperation(this.operation);
+            data.modified("dates");
+            data.modified("snacControlMetadata");
+            return true;
+        }
+    }
+
+    /**
+     * Citation Updater
+     *
+     * Points the SCMs of each object it visits at replacement sources, either by the ID of the
+     * source cited, or in place of one given source.  Nested records, such as the Resource of a
+     * ResourceRelation, cite their own sources and are skipped.
+     */
+    static final class CitationUpdater extends DataVisitor {
+
+        private final AbstractData root;
+        private final Map<Integer, Source> sources;
+        private final Source oldSource;
+        private final Source newSource;
+
+        CitationUpdater(AbstractData root, Map<Integer, Source> sources, Source oldSource, Source newSource) {
+            this.root = root;
+            this.sources = sources;
+            this.oldSource = oldSource;
+            this.newSource = newSource;
         }
-        if (snacControlMetadata != null) {
-            for (SNACControlMetadata scm : snacControlMetadata) {
-                scm.setID(0);
-                scm.setVersion(0);
-                scm.setOperation(newOperation);
-                scm.cleanseSubElements(newOperation);
+
+        public boolean enter(AbstractData data) {
+            List<SNACControlMetadata> scms = data.snacControlMetadata;
+            if (scms != null) {
+                for (int i = 0; i < scms.size(); i++) {
+                    SNACControlMetadata scm = scms.get(i);
+                    Source citation = scm == null ? null : scm.getCitation();
+                    if (citation == null)
+                        continue;
+                    Source replacement = citation == this.oldSource ? this.newSource
+                        : this.sources == null ? null : this.sources.get(citation.getID());
+                    if (replacement != null && replacement != citation) {
+                        data.modified("snacControlMetadata");
+                        scm.setCitation(replacement);
+                    }
+                }
             }
+            return data == this.root || !(data instanceof Constellation || data instanceof Resource);
+        }
+    }
+
+    /**
+     * Trimmer
+     *
+     * Trims the lists of each object it visits.
+     */
+    private static final class Trimmer extends DataVisitor {
+
+        public boolean enter(AbstractData data) {
+            // Frozen lists are already as small as they can be
+            if (data.frozen)
+                return false;
+            data.trimLists();
+            return true;
+        }
+    }
+
+    /**
+     * Freezer
+     *
+     * Freezes each object it visits, and the sources cited by the SCMs it visits.  The hash code
+     * of each object is cached once its sub-elements are frozen.
+     */
+    private static final class Freezer extends DataVisitor {
+
+        public boolean enter(AbstractData data) {
+            if (data.frozen)
+                return false;
+            data.freezeFields();
+            data.frozen = true;
+            data.hashCached = false;
+            if (data instanceof SNACControlMetadata)
+                accept(this, ((SNACControlMetadata) data).getCitation());
+            return true;
+        }
+
+        public void leave(AbstractData data) {
+            if (!data.hashCached)
+                data.cacheHashCode();
+        }
+    }
+
+    /**
+     * Frozen List
+     *
+     * An unmodifiable list over an array, holding the elements of a frozen object's list.
+     */
+    private static final class FrozenList<T> extends AbstractList<T> implements RandomAccess {
+
+        private final Object[] elements;
+
+        FrozenList(Object[] elements) {
+            this.elements = elements;
+        }
+
+        @SuppressWarnings("unchecked")
+        public T get(int index) {
+            return (T) this.elements[index];
+        }
+
+        public int size() {
+            return this.elements.length;
         }
     }
 }
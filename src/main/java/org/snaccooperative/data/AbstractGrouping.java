@@ -111,5 +111,43 @@ public class AbstractGrouping {
         this.description = description;
     }
 
+    /**
+     * Deep copy
+     *
+     * @return AbstractGrouping A copy of this object, with its ID
+     */
+    public AbstractGrouping deepCopy()
+    {
+        return this.deepCopy(true);
+    }
+
+    /**
+     * Deep copy
+     *
+     * @param keepID Whether the copy keeps this object's ID
+     * @return AbstractGrouping A copy of this object
+     */
+    public AbstractGrouping deepCopy(boolean keepID)
+    {
+        AbstractGrouping copy = this.newInstance();
+        copy.dataType = this.dataType;
+        if (keepID)
+            copy.id = this.id;
+        copy.label = this.label;
+        copy.description = this.description;
+        return copy;
+    }
+
+    /**
+     * Create an empty object of this class, to copy into
+     *
+     * Subclasses with fields of their own override this and deepCopy(boolean).
+     *
+     * @return AbstractGrouping A new object of this class
+     */
+    protected AbstractGrouping newInstance()
+    {
+        return new AbstractGrouping();
+    }
 
 }
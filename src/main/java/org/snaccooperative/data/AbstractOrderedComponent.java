@@ -13,6 +13,8 @@
  */
 package org.snaccooperative.data;
 
+import java.util.Objects;
+
 /**
  * Abstract Ordered Component Class
  *
@@ -70,6 +72,7 @@ public abstract class AbstractOrderedComponent extends AbstractData {
      * Set the text of this component.
      */
     public void setText(String text) {
+        this.modified("text");
         this.text = text;
     }
 
@@ -79,7 +82,8 @@ public abstract class AbstractOrderedComponent extends AbstractData {
      * Set the type of component
      */
     public void setType(Term type) {
-        this.type = type;
+        this.modified("type");
+        this.type = TermRegistry.canonical(type);
     }
 
     /**
@@ -88,6 +92,7 @@ public abstract class AbstractOrderedComponent extends AbstractData {
      * Set the order of this component within the list.  This is an integer index.
      */
     public void setOrder(int i) {
+        this.modified("order");
         this.order = i;
     }
 
@@ -95,7 +100,7 @@ public abstract class AbstractOrderedComponent extends AbstractData {
     /**
      * {@inheritDoc}
      */
-    public boolean equals(Object other) {
+    public boolean equals(Object other, boolean strict, boolean checkSubcomponents) {
 
         if (other == null || !(other instanceof AbstractOrderedComponent))
             return false;
@@ -105,7 +110,7 @@ public abstract class AbstractOrderedComponent extends AbstractData {
         if (!a.getDataType().equals(this.getDataType()))
             return false;
 
-        if (! super.equals(other))
+        if (! super.equals(other, strict, checkSubcomponents))
             return false;
 
         if ((this.getText() != null && ! this.getText().equals(a.getText())) ||
@@ -119,4 +124,35 @@ public abstract class AbstractOrderedComponent extends AbstractData {
             return false;
         return true;
     }
+
+    /**
+     * {@inheritDoc}
+     */
+    protected int computeHashCode(boolean strict, boolean checkSubcomponents) {
+        int hash = super.computeHashCode(strict, checkSubcomponents);
+        hash = 31 * hash + Objects.hashCode(this.getDataType());
+        hash = 31 * hash + Objects.hashCode(this.getText());
+        hash = 31 * hash + this.getOrder();
+        hash = 31 * hash + Objects.hashCode(this.getType());
+        return hash;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    protected void freezeFields() {
+        super.freezeFields();
+        this.type = freezeTerm(this.type);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    protected void copyFrom(AbstractData data, DataCopier copier) {
+        super.copyFrom(data, copier);
+        AbstractOrderedComponent other = (AbstractOrderedComponent) data;
+        this.text = other.text;
+        this.type = copier.copy(other.type);
+        this.order = other.order;
+    }
 }
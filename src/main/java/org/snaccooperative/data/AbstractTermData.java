@@ -15,6 +15,8 @@
  */
 package org.snaccooperative.data;
 
+import java.util.Objects;
+
 /**
  * Term-holding abstract class
  *
@@ -40,7 +42,8 @@ public abstract class AbstractTermData extends AbstractData {
      * Set the term of this object
      */
     public void setTerm(Term term) {
-        this.term = term;
+        this.modified("term");
+        this.term = TermRegistry.canonical(term);
     }
 
     /**
@@ -56,7 +59,7 @@ public abstract class AbstractTermData extends AbstractData {
     /**
      * {@inheritDoc}
      */
-    public boolean equals(Object other) {
+    public boolean equals(Object other, boolean strict, boolean checkSubcomponents) {
 
 
         if (other == null || !(other instanceof AbstractTermData))
@@ -67,7 +70,7 @@ public abstract class AbstractTermData extends AbstractData {
         if (!a.getDataType().equals(this.getDataType()))
             return false;
 
-        if (!super.equals(other))
+        if (!super.equals(other, strict, checkSubcomponents))
             return false;
 
         if ((this.getTerm() != null && !this.getTerm().equals(a.getTerm())) ||
@@ -77,4 +80,30 @@ public abstract class AbstractTermData extends AbstractData {
         return true;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    protected int computeHashCode(boolean strict, boolean checkSubcomponents) {
+        int hash = super.computeHashCode(strict, checkSubcomponents);
+        hash = 31 * hash + Objects.hashCode(this.getDataType());
+        hash = 31 * hash + Objects.hashCode(this.getTerm());
+        return hash;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    protected void freezeFields() {
+        super.freezeFields();
+        this.term = freezeTerm(this.term);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    protected void copyFrom(AbstractData data, DataCopier copier) {
+        super.copyFrom(data, copier);
+        AbstractTermData other = (AbstractTermData) data;
+        this.term = copier.copy(other.term);
+    }
 }
@@ -15,6 +15,8 @@
  */
 package org.snaccooperative.data;
 
+import java.util.Objects;
+
 /**
  * Text-holding Abstract Class
  *
@@ -41,6 +43,7 @@ public abstract class AbstractTextData extends AbstractData {
      * Set the text of this object
      */
     public void setText(String text) {
+        this.modified("text");
         this.text = text;
     }
 
@@ -57,12 +60,12 @@ public abstract class AbstractTextData extends AbstractData {
     /**
      * {@inheritDoc}
      */
-    public boolean equals(Object other) {
+    public boolean equals(Object other, boolean strict, boolean checkSubcomponents) {
 
         if (other == null || ! (other instanceof AbstractTextData))
             return false;
 
-        if (!super.equals(other))
+        if (!super.equals(other, strict, checkSubcomponents))
             return false;
 
         AbstractTextData a = (AbstractTextData) other;
@@ -73,4 +76,21 @@ public abstract class AbstractTextData extends AbstractData {
         return true;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    protected int computeHashCode(boolean strict, boolean checkSubcomponents) {
+        int hash = super.computeHashCode(strict, checkSubcomponents);
+        hash = 31 * hash + Objects.hashCode(this.getText());
+        return hash;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    protected void copyFrom(AbstractData data, DataCopier copier) {
+        super.copyFrom(data, copier);
+        AbstractTextData other = (AbstractTextData) data;
+        this.text = other.text;
+    }
 }
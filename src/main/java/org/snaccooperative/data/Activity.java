@@ -13,6 +13,8 @@
  */
 package org.snaccooperative.data;
 
+import java.util.Objects;
+
 /**
  * Activity data storage class
  *
@@ -79,6 +81,13 @@ public class Activity extends AbstractData {
         this.setMaxDateCount(1);
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    protected AbstractData newInstance() {
+        return new Activity();
+    }
+
 
     /**
      * Get the Term for this activity
@@ -154,7 +163,8 @@ public class Activity extends AbstractData {
      */
     public void setTerm(Term term) {
 
-        this.term = term;
+        this.modified("term");
+        this.term = TermRegistry.canonical(term);
     }
 
     /**
@@ -162,7 +172,8 @@ public class Activity extends AbstractData {
      */
     public void setType(Term type) {
 
-        this.type = type;
+        this.modified("type");
+        this.type = TermRegistry.canonical(type);
     }
 
     /**
@@ -170,6 +181,7 @@ public class Activity extends AbstractData {
      */
     public void setVocabularySource(String vocab) {
 
+        this.modified("vocabularySource");
         this.vocabularySource = vocab;
     }
 
@@ -178,18 +190,19 @@ public class Activity extends AbstractData {
      */
     public void setNote(String note) {
 
+        this.modified("note");
         this.note = note;
     }
 
     /**
      * {@inheritDoc}
      */
-    public boolean equals(Object other) {
+    public boolean equals(Object other, boolean strict, boolean checkSubcomponents) {
 
         if (other == null || ! (other instanceof Activity))
             return false;
 
-        if (!super.equals(other))
+        if (!super.equals(other, strict, checkSubcomponents))
             return false;
 
         Activity f = (Activity) other;
@@ -210,4 +223,37 @@ public class Activity extends AbstractData {
 
         return true;
     }
+
+    /**
+     * {@inheritDoc}
+     */
+    protected int computeHashCode(boolean strict, boolean checkSubcomponents) {
+        int hash = super.computeHashCode(strict, checkSubcomponents);
+        hash = 31 * hash + Objects.hashCode(this.getVocabularySource());
+        hash = 31 * hash + Objects.hashCode(this.getNote());
+        hash = 31 * hash + Objects.hashCode(this.getTerm());
+        hash = 31 * hash + Objects.hashCode(this.getType());
+        return hash;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    protected void freezeFields() {
+        super.freezeFields();
+        this.term = freezeTerm(this.term);
+        this.type = freezeTerm(this.type);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    protected void copyFrom(AbstractData data, DataCopier copier) {
+        super.copyFrom(data, copier);
+        Activity other = (Activity) data;
+        this.term = copier.copy(other.term);
+        this.type = copier.copy(other.type);
+        this.note = other.note;
+        this.vocabularySource = other.vocabularySource;
+    }
 }
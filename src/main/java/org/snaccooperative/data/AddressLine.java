@@ -30,4 +30,11 @@ public class AddressLine extends AbstractOrderedComponent {
         this.setMaxDateCount(0);
         this.setDataType("AddressLine");
     }
+
+    /**
+     * {@inheritDoc}
+     */
+    protected AbstractData newInstance() {
+        return new AddressLine();
+    }
 }
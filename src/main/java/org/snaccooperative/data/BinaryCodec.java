@@ -0,0 +1,1058 @@
+/**
+ * Binary Codec File
+ *
+ * Contains the compact binary encoding for the data model.
+ *
+ * License:
+ *
+ *
+ * @author Robbie Hott
+ * @license https://opensource.org/licenses/BSD-3-Clause BSD 3-Clause
+ * @copyright 2015 the Rector and Visitors of the University of Virginia, and
+ *            the Regents of the University of California
+ */
+package org.snaccooperative.data;
+
+import com.fasterxml.jackson.core.Base64Variant;
+import com.fasterxml.jackson.core.JsonLocation;
+import com.fasterxml.jackson.core.JsonStreamContext;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.ObjectCodec;
+import com.fasterxml.jackson.core.Version;
+import com.fasterxml.jackson.core.base.GeneratorBase;
+import com.fasterxml.jackson.core.base.ParserMinimalBase;
+import com.fasterxml.jackson.core.io.ContentReference;
+import com.fasterxml.jackson.core.json.JsonReadContext;
+import com.fasterxml.jackson.core.json.JsonWriteContext;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Binary Codec
+ *
+ * A compact, versioned binary form of the JSON produced by the data model, for caching and for
+ * passing records between processes.  The encoding is token-for-token the same as the JSON form:
+ * objects are serialized and bound by the same Jackson serializers and deserializers as toJSON()
+ * and fromJSON(), and only the byte-level representation of each token differs.  Anything that
+ * round-trips through JSON therefore round-trips through the binary form, with the same result.
+ *
+ * Each token is written as a one-byte tag followed by its payload.  Integers are written as
+ * zigzag varints, and field names and short string values go through a per-stream string table:
+ * the first occurrence of a string is written in full and added to the table, and later
+ * occurrences are written as their index in the table.  Vocabulary terms, data types and field
+ * names, which repeat throughout every Constellation, are therefore only spelled out once per
+ * stream.
+ *
+ * A stream starts with the magic bytes "SNB" and a version byte, and may hold any number of
+ * records (all sharing one string table), followed by an end-of-stream tag.  Use encode() and
+ * decode() for a single record, or an Encoder and Decoder for many.
+ *
+ * @author Robbie Hott
+ */
+public final class BinaryCodec {
+
+    /**
+     * @var int Version of the encoding written by this class
+     */
+    public static final int VERSION = 1;
+
+    /**
+     * @var byte[] Magic bytes at the start of every stream
+     */
+    private static final byte[] MAGIC = { 'S', 'N', 'B' };
+
+    /**
+     * @var int Longest string, in chars, that is added to the string table
+     */
+    private static final int MAX_TABLE_STRING_LENGTH = 64;
+
+    /**
+     * @var int Most strings held in the string table of one stream
+     */
+    private static final int MAX_TABLE_SIZE = 65536;
+
+    /**
+     * @var int Size of the encoder and decoder buffers, in bytes
+     */
+    private static final int BUFFER_SIZE = 8192;
+
+    /**
+     * Token tags.  The NEW, REF and RAW tags of each kind of string must stay consecutive.
+     */
+    private static final int TAG_END_OF_STREAM = 0;
+    private static final int TAG_START_OBJECT = 1;
+    private static final int TAG_END_OBJECT = 2;
+    private static final int TAG_START_ARRAY = 3;
+    private static final int TAG_END_ARRAY = 4;
+    private static final int TAG_FIELD_NEW = 5;
+    private static final int TAG_FIELD_REF = 6;
+    private static final int TAG_FIELD_RAW = 7;
+    private static final int TAG_STRING_NEW = 8;
+    private static final int TAG_STRING_REF = 9;
+    private static final int TAG_STRING_RAW = 10;
+    private static final int TAG_INT = 11;
+    private static final int TAG_DOUBLE = 12;
+    private static final int TAG_BIG_INTEGER = 13;
+    private static final int TAG_BIG_DECIMAL = 14;
+    private static final int TAG_TRUE = 15;
+    private static final int TAG_FALSE = 16;
+    private static final int TAG_NULL = 17;
+
+    /**
+     * @var ObjectWriter Writer used by the encoder.  The encoder flushes by buffer, not per value.
+     */
+    private static final ObjectWriter WRITER = JSONCodec.compactWriter()
+        .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+
+    private BinaryCodec() {
+    }
+
+    /**
+     * Encode a single object
+     *
+     * @param value The Constellation, Resource or other model object to encode
+     * @return byte[] The binary form of the object
+     */
+    public static byte[] encode(Object value) throws IOException {
+        TokenWriter generator = new TokenWriter(null, 1024);
+        WRITER.writeValue(generator, value);
+        generator.close();
+        return generator.toByteArray();
+    }
+
+    /**
+     * Decode a single object
+     *
+     * @param data The binary form, as written by encode()
+     * @param type The class of the encoded object
+     * @return T The decoded object
+     */
+    public static <T> T decode(byte[] data, Class<T> type) throws IOException {
+        try (Decoder decoder = new Decoder(new ByteArrayInputStream(data))) {
+            T value = decoder.read(type);
+            if (value == null)
+                throw new EOFException("No record in binary data");
+            return value;
+        }
+    }
+
+    /**
+     * Encoder
+     *
+     * Writes any number of model objects to one binary stream, sharing a single string table
+     * between them.  The encoder is not thread-safe.
+     */
+    public static class Encoder implements Closeable, Flushable {
+
+        /**
+         * @var TokenWriter The generator that the objects are serialized through
+         */
+        private final TokenWriter generator;
+
+        /**
+         * Constructor
+         *
+         * Writes the stream header.  The stream is closed when this encoder is closed.
+         *
+         */
+        public Encoder(OutputStream out) throws IOException {
+            this.generator = new TokenWriter(out, BUFFER_SIZE);
+        }
+
+        /**
+         * Write an object
+         *
+         * @param value The Constellation, Resource or other model object to write
+         */
+        public void write(Object value) throws IOException {
+            if (this.generator.isClosed())
+                throw new IOException("Encoder is closed");
+            WRITER.writeValue(this.generator, value);
+        }
+
+        /**
+         * Flush any buffered output to the underlying stream
+         */
+        public void flush() throws IOException {
+            this.generator.flushToStream();
+        }
+
+        /**
+         * Write the end-of-stream tag and close the underlying stream
+         */
+        public void close() throws IOException {
+            this.generator.close();
+        }
+    }
+
+    /**
+     * Decoder
+     *
+     * Reads model objects back out of a binary stream written by an Encoder.  The decoder is not
+     * thread-safe.
+     */
+    public static class Decoder implements Closeable {
+
+        /**
+         * @var TokenReader The parser that the objects are bound from
+         */
+        private final TokenReader parser;
+
+        /**
+         * Constructor
+         *
+         * Reads and checks the stream header.  The stream is closed when this decoder is closed.
+         *
+         */
+        public Decoder(InputStream in) throws IOException {
+            this.parser = new TokenReader(in);
+        }
+
+        /**
+         * Get the version
+         *
+         * @return int The version of the encoding used by the stream
+         */
+        public int getVersion() {
+            return this.parser.streamVersion;
+        }
+
+        /**
+         * Read an object
+         *
+         * @param type The class of the next encoded object
+         * @return T The next object, or null at the end of the stream
+         */
+        public <T> T read(Class<T> type) throws IOException {
+            if (this.parser.nextToken() == null)
+                return null;
+            return JSONCodec.readerFor(type).readValue(this.parser);
+        }
+
+        /**
+         * Close the underlying stream
+         */
+        public void close() throws IOException {
+            this.parser.close();
+        }
+    }
+
+    /**
+     * Token Writer
+     *
+     * Jackson generator that writes tokens in the binary form.
+     */
+    private static final class TokenWriter extends GeneratorBase {
+
+        /**
+         * @var OutputStream The underlying output, or null to collect everything in the buffer
+         */
+        private final OutputStream out;
+
+        /**
+         * @var byte[] Output buffer
+         */
+        private byte[] buffer;
+
+        /**
+         * @var int Number of bytes in the output buffer
+         */
+        private int position = 0;
+
+        /**
+         * @var int[] Indexes of the strings in the string table, keyed by string
+         */
+        private final Map<String, Integer> table = new HashMap<>();
+
+        // GeneratorBase(int, ObjectCodec) is deprecated from Jackson 2.16, but its replacement
+        // taking an IOContext does not exist in the older releases the pom still allows
+        @SuppressWarnings("deprecation")
+        TokenWriter(OutputStream out, int bufferSize) throws IOException {
+            super(0, null);
+            this.out = out;
+            this.buffer = new byte[bufferSize];
+            for (byte b : MAGIC)
+                this.writeByte(b);
+            this.writeByte(VERSION);
+        }
+
+        @Override
+        public void writeStartArray() throws IOException {
+            this._verifyValueWrite("start an array");
+            this._writeContext = this._writeContext.createChildArrayContext();
+            this.writeByte(TAG_START_ARRAY);
+        }
+
+        @Override
+        public void writeEndArray() throws IOException {
+            if (!this._writeContext.inArray())
+                this._reportError("Current context not Array but " + this._writeContext.typeDesc());
+            this._writeContext = this._writeContext.clearAndGetParent();
+            this.writeByte(TAG_END_ARRAY);
+        }
+
+        @Override
+        public void writeStartObject() throws IOException {
+            this._verifyValueWrite("start an object");
+            this._writeContext = this._writeContext.createChildObjectContext();
+            this.writeByte(TAG_START_OBJECT);
+        }
+
+        @Override
+        public void writeEndObject() throws IOException {
+            if (!this._writeContext.inObject())
+                this._reportError("Current context not Object but " + this._writeContext.typeDesc());
+            this._writeContext = this._writeContext.clearAndGetParent();
+            this.writeByte(TAG_END_OBJECT);
+        }
+
+        @Override
+        public void writeFieldName(String name) throws IOException {
+            if (this._writeContext.writeFieldName(name) == JsonWriteContext.STATUS_EXPECT_VALUE)
+                this._reportError("Can not write a field name, expecting a value");
+            this.writeTableString(name, TAG_FIELD_NEW);
+        }
+
+        @Override
+        public void writeString(String text) throws IOException {
+            if (text == null) {
+                this.writeNull();
+                return;
+            }
+            this._verifyValueWrite("write a string");
+            this.writeTableString(text, TAG_STRING_NEW);
+        }
+
+        @Override
+        public void writeString(char[] text, int offset, int len) throws IOException {
+            this.writeString(new String(text, offset, len));
+        }
+
+        @Override
+        public void writeRawUTF8String(byte[] text, int offset, int length) throws IOException {
+            this.writeString(new String(text, offset, length, StandardCharsets.UTF_8));
+        }
+
+        @Override
+        public void writeUTF8String(byte[] text, int offset, int length) throws IOException {
+            this.writeString(new String(text, offset, length, StandardCharsets.UTF_8));
+        }
+
+        @Override
+        public void writeRaw(String text) throws IOException {
+            this._reportUnsupportedOperation();
+        }
+
+        @Override
+        public void writeRaw(String text, int offset, int len) throws IOException {
+            this._reportUnsupportedOperation();
+        }
+
+        @Override
+        public void writeRaw(char[] text, int offset, int len) throws IOException {
+            this._reportUnsupportedOperation();
+        }
+
+        @Override
+        public void writeRaw(char c) throws IOException {
+            this._reportUnsupportedOperation();
+        }
+
+        @Override
+        public void writeBinary(Base64Variant variant, byte[] data, int offset, int len) throws IOException {
+            this.writeString(variant.encode(Arrays.copyOfRange(data, offset, offset + len)));
+        }
+
+        @Override
+        public void writeNumber(int v) throws IOException {
+            this.writeNumber((long) v);
+        }
+
+        @Override
+        public void writeNumber(long v) throws IOException {
+            this._verifyValueWrite("write a number");
+            this.writeByte(TAG_INT);
+            this.writeVarLong(v);
+        }
+
+        @Override
+        public void writeNumber(BigInteger v) throws IOException {
+            if (v == null) {
+                this.writeNull();
+                return;
+            }
+            this._verifyValueWrite("write a number");
+            this.writeByte(TAG_BIG_INTEGER);
+            this.writeBytes(v.toString());
+        }
+
+        @Override
+        public void writeNumber(double v) throws IOException {
+            this._verifyValueWrite("write a number");
+            this.writeByte(TAG_DOUBLE);
+            long bits = Double.doubleToLongBits(v);
+            for (int shift = 56; shift >= 0; shift -= 8)
+                this.writeByte((int) (bits >>> shift));
+        }
+
+        @Override
+        public void writeNumber(float v) throws IOException {
+            this.writeNumber((double) v);
+        }
+
+        @Override
+        public void writeNumber(BigDecimal v) throws IOException {
+            if (v == null) {
+                this.writeNull();
+                return;
+            }
+            this._verifyValueWrite("write a number");
+            this.writeByte(TAG_BIG_DECIMAL);
+            this.writeBytes(v.toString());
+        }
+
+        @Override
+        public void writeNumber(String encoded) throws IOException {
+            this.writeNumber(new BigDecimal(encoded));
+        }
+
+        @Override
+        public void writeBoolean(boolean state) throws IOException {
+            this._verifyValueWrite("write a boolean value");
+            this.writeByte(state ? TAG_TRUE : TAG_FALSE);
+        }
+
+        @Override
+        public void writeNull() throws IOException {
+            this._verifyValueWrite("write a null");
+            this.writeByte(TAG_NULL);
+        }
+
+        @Override
+        protected void _verifyValueWrite(String typeMsg) throws IOException {
+            if (this._writeContext.writeValue() == JsonWriteContext.STATUS_EXPECT_NAME)
+                this._reportError("Can not " + typeMsg + ", expecting field name");
+        }
+
+        /**
+         * Flush
+         *
+         * The bytes stay buffered until the encoder is flushed or closed, or the buffer fills.
+         */
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        protected void _releaseBuffers() {
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (this.isClosed())
+                return;
+            super.close();
+            this.writeByte(TAG_END_OF_STREAM);
+            if (this.out != null) {
+                this.flushBuffer();
+                this.out.close();
+            }
+        }
+
+        /**
+         * Get the bytes collected, when there is no underlying output
+         *
+         * @return byte[] The encoded stream
+         */
+        byte[] toByteArray() {
+            return Arrays.copyOf(this.buffer, this.position);
+        }
+
+        /**
+         * Write a string through the string table
+         *
+         * Short strings are written in full the first time and by index afterwards.  Long strings,
+         * and new strings once the table is full, are written in full every time.
+         *
+         * @param tagNew The NEW tag of the kind of string; the REF and RAW tags follow it
+         */
+        private void writeTableString(String s, int tagNew) throws IOException {
+            Integer index = this.table.get(s);
+            if (index != null) {
+                this.writeByte(tagNew + 1);
+                this.writeVarLong(index);
+            } else if (s.length() <= MAX_TABLE_STRING_LENGTH && this.table.size() < MAX_TABLE_SIZE) {
+                this.table.put(s, this.table.size());
+                this.writeByte(tagNew);
+                this.writeBytes(s);
+            } else {
+                this.writeByte(tagNew + 2);
+                this.writeBytes(s);
+            }
+        }
+
+        /**
+         * Write a length-prefixed UTF-8 string
+         */
+        private void writeBytes(String s) throws IOException {
+            int len = s.length();
+            if (this.out == null)
+                this.makeRoom(len + 5);
+            if (len <= this.buffer.length - this.position - 5) {
+                // Copy plain ASCII straight into the buffer, falling back to the encoder otherwise
+                int start = this.position;
+                this.writeVarLong(len);
+                int p = this.position;
+                int i = 0;
+                while (i < len) {
+                    char c = s.charAt(i);
+                    if (c >= 0x80)
+                        break;
+                    this.buffer[p + i] = (byte) c;
+                    i++;
+                }
+                if (i == len) {
+                    this.position = p + len;
+                    return;
+                }
+                this.position = start;
+            }
+            byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+            this.writeVarLong(bytes.length);
+            if (bytes.length > this.buffer.length - this.position) {
+                if (this.out != null && bytes.length > this.buffer.length) {
+                    this.flushBuffer();
+                    this.out.write(bytes);
+                    return;
+                }
+                this.makeRoom(bytes.length);
+            }
+            System.arraycopy(bytes, 0, this.buffer, this.position, bytes.length);
+            this.position += bytes.length;
+        }
+
+        /**
+         * Write a zigzag-encoded varint
+         */
+        private void writeVarLong(long value) throws IOException {
+            long v = (value << 1) ^ (value >> 63);
+            while ((v & ~0x7FL) != 0) {
+                this.writeByte((int) ((v & 0x7F) | 0x80));
+                v >>>= 7;
+            }
+            this.writeByte((int) v);
+        }
+
+        /**
+         * Write one byte
+         */
+        private void writeByte(int b) throws IOException {
+            if (this.position == this.buffer.length)
+                this.makeRoom(1);
+            this.buffer[this.position++] = (byte) b;
+        }
+
+        /**
+         * Make room in the buffer for the given number of bytes
+         *
+         * Hands the buffered bytes to the underlying stream or, if there is none, grows the buffer.
+         */
+        private void makeRoom(int n) throws IOException {
+            if (this.buffer.length - this.position >= n)
+                return;
+            if (this.out != null)
+                this.flushBuffer();
+            else
+                this.buffer = Arrays.copyOf(this.buffer, Math.max(this.buffer.length * 2, this.position + n));
+        }
+
+        /**
+         * Hand the buffered bytes to the underlying stream
+         */
+        private void flushBuffer() throws IOException {
+            if (this.out != null && this.position > 0) {
+                this.out.write(this.buffer, 0, this.position);
+                this.position = 0;
+            }
+        }
+
+        /**
+         * Hand the buffered bytes to the underlying stream and flush it
+         */
+        void flushToStream() throws IOException {
+            this.flushBuffer();
+            if (this.out != null)
+                this.out.flush();
+        }
+    }
+
+    /**
+     * Token Reader
+     *
+     * Jackson parser that reads tokens in the binary form.
+     */
+    private static final class TokenReader extends ParserMinimalBase {
+
+        /**
+         * @var InputStream The underlying input
+         */
+        private final InputStream in;
+
+        /**
+         * @var byte[] Input buffer
+         */
+        private final byte[] buffer = new byte[BUFFER_SIZE];
+
+        /**
+         * @var int Position of the next unread byte in the input buffer
+         */
+        private int position = 0;
+
+        /**
+         * @var int Number of bytes in the input buffer
+         */
+        private int limit = 0;
+
+        /**
+         * @var long Number of bytes read from the underlying input before the current buffer
+         */
+        private long consumed = 0;
+
+        /**
+         * @var long Byte offset of the current token
+         */
+        private long tokenOffset = 0;
+
+        /**
+         * @var String[] The string table, in order of first occurrence
+         */
+        private final List<String> table = new ArrayList<>();
+
+        /**
+         * @var int The version of the encoding read from the stream header
+         */
+        private final int streamVersion;
+
+        /**
+         * @var JsonReadContext The current parsing context
+         */
+        private JsonReadContext context = JsonReadContext.createRootContext(null);
+
+        /**
+         * @var ObjectCodec The codec, if any, set by the caller
+         */
+        private ObjectCodec codec;
+
+        /**
+         * @var boolean Whether the parser has been closed
+         */
+        private boolean closed = false;
+
+        /**
+         * @var boolean Whether the end-of-stream tag has been read
+         */
+        private boolean finished = false;
+
+        /**
+         * Value of the current token
+         */
+        private String text;
+        private long longValue;
+        private double doubleValue;
+        private BigInteger bigIntegerValue;
+        private BigDecimal bigDecimalValue;
+        private NumberType numberType;
+
+        TokenReader(InputStream in) throws IOException {
+            super(0);
+            this.in = in;
+            for (byte b : MAGIC) {
+                if (this.position == this.limit && !this.fill())
+                    throw new IOException("Not a SNAC binary stream");
+                if (this.buffer[this.position++] != b)
+                    throw new IOException("Not a SNAC binary stream");
+            }
+            this.streamVersion = this.readByte();
+            if (this.streamVersion < 1 || this.streamVersion > VERSION)
+                throw new IOException("Unsupported SNAC binary version " + this.streamVersion);
+        }
+
+        @Override
+        public JsonToken nextToken() throws IOException {
+            if (this.closed || this.finished)
+                return (this._currToken = null);
+            this.tokenOffset = this.consumed + this.position;
+            int tag = this.readByte();
+            // Keep the array and root indexes up to date, for the paths in error messages
+            if (!this.context.inObject() && tag != TAG_END_ARRAY && tag != TAG_END_OF_STREAM)
+                this.context.expectComma();
+
+            switch (tag) {
+                case TAG_END_OF_STREAM:
+                    if (!this.context.inRoot())
+                        this._reportError("End of stream inside a record");
+                    this.finished = true;
+                    return (this._currToken = null);
+                case TAG_START_OBJECT:
+                    this.context = this.context.createChildObjectContext(-1, -1);
+                    return (this._currToken = JsonToken.START_OBJECT);
+                case TAG_END_OBJECT:
+                    if (!this.context.inObject())
+                        this._reportError("Unexpected end of object");
+                    this.context = this.context.clearAndGetParent();
+                    return (this._currToken = JsonToken.END_OBJECT);
+                case TAG_START_ARRAY:
+                    this.context = this.context.createChildArrayContext(-1, -1);
+                    return (this._currToken = JsonToken.START_ARRAY);
+                case TAG_END_ARRAY:
+                    if (!this.context.inArray())
+                        this._reportError("Unexpected end of array");
+                    this.context = this.context.clearAndGetParent();
+                    return (this._currToken = JsonToken.END_ARRAY);
+                case TAG_FIELD_NEW:
+                case TAG_FIELD_REF:
+                case TAG_FIELD_RAW:
+                    this.context.setCurrentName(this.readTableString(tag - TAG_FIELD_NEW));
+                    return (this._currToken = JsonToken.FIELD_NAME);
+                case TAG_STRING_NEW:
+                case TAG_STRING_REF:
+                case TAG_STRING_RAW:
+                    this.text = this.readTableString(tag - TAG_STRING_NEW);
+                    return (this._currToken = JsonToken.VALUE_STRING);
+                case TAG_INT:
+                    this.longValue = this.readVarLong();
+                    this.numberType = (this.longValue == (int) this.longValue) ? NumberType.INT : NumberType.LONG;
+                    return (this._currToken = JsonToken.VALUE_NUMBER_INT);
+                case TAG_BIG_INTEGER:
+                    this.bigIntegerValue = new BigInteger(this.readBytes());
+                    this.numberType = NumberType.BIG_INTEGER;
+                    return (this._currToken = JsonToken.VALUE_NUMBER_INT);
+                case TAG_DOUBLE:
+                    long bits = 0;
+                    for (int i = 0; i < 8; i++)
+                        bits = (bits << 8) | this.readByte();
+                    this.doubleValue = Double.longBitsToDouble(bits);
+                    this.numberType = NumberType.DOUBLE;
+                    return (this._currToken = JsonToken.VALUE_NUMBER_FLOAT);
+                case TAG_BIG_DECIMAL:
+                    this.bigDecimalValue = new BigDecimal(this.readBytes());
+                    this.numberType = NumberType.BIG_DECIMAL;
+                    return (this._currToken = JsonToken.VALUE_NUMBER_FLOAT);
+                case TAG_TRUE:
+                    return (this._currToken = JsonToken.VALUE_TRUE);
+                case TAG_FALSE:
+                    return (this._currToken = JsonToken.VALUE_FALSE);
+                case TAG_NULL:
+                    return (this._currToken = JsonToken.VALUE_NULL);
+                default:
+                    this._reportError("Unknown tag " + tag + " in SNAC binary stream");
+                    return null;
+            }
+        }
+
+        @Override
+        protected void _handleEOF() {
+        }
+
+        @Override
+        public String getCurrentName() {
+            if (this._currToken == JsonToken.START_OBJECT || this._currToken == JsonToken.START_ARRAY) {
+                JsonReadContext parent = this.context.getParent();
+                return (parent == null) ? null : parent.getCurrentName();
+            }
+            return this.context.getCurrentName();
+        }
+
+        @Override
+        public void overrideCurrentName(String name) {
+            try {
+                this.context.setCurrentName(name);
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        @Override
+        public JsonStreamContext getParsingContext() {
+            return this.context;
+        }
+
+        @Override
+        public String getText() {
+            if (this._currToken == null)
+                return null;
+            switch (this._currToken) {
+                case FIELD_NAME:
+                    return this.context.getCurrentName();
+                case VALUE_STRING:
+                    return this.text;
+                case VALUE_NUMBER_INT:
+                case VALUE_NUMBER_FLOAT:
+                    return String.valueOf(this.getNumberValue());
+                default:
+                    return this._currToken.asString();
+            }
+        }
+
+        @Override
+        public char[] getTextCharacters() {
+            String s = this.getText();
+            return (s == null) ? null : s.toCharArray();
+        }
+
+        @Override
+        public boolean hasTextCharacters() {
+            return false;
+        }
+
+        @Override
+        public int getTextLength() {
+            String s = this.getText();
+            return (s == null) ? 0 : s.length();
+        }
+
+        @Override
+        public int getTextOffset() {
+            return 0;
+        }
+
+        @Override
+        public byte[] getBinaryValue(Base64Variant variant) throws IOException {
+            if (this._currToken != JsonToken.VALUE_STRING)
+                this._reportError("Current token (" + this._currToken + ") not a string, can not access as binary");
+            return variant.decode(this.text);
+        }
+
+        @Override
+        public Number getNumberValue() {
+            switch (this.numberType) {
+                case INT:
+                    return (int) this.longValue;
+                case LONG:
+                    return this.longValue;
+                case BIG_INTEGER:
+                    return this.bigIntegerValue;
+                case BIG_DECIMAL:
+                    return this.bigDecimalValue;
+                default:
+                    return this.doubleValue;
+            }
+        }
+
+        @Override
+        public NumberType getNumberType() {
+            return this.numberType;
+        }
+
+        @Override
+        public int getIntValue() throws IOException {
+            long v = this.getLongValue();
+            if (v != (int) v)
+                this._reportError("Numeric value (" + v + ") out of range of int");
+            return (int) v;
+        }
+
+        @Override
+        public long getLongValue() {
+            switch (this.numberType) {
+                case INT:
+                case LONG:
+                    return this.longValue;
+                case BIG_INTEGER:
+                    return this.bigIntegerValue.longValue();
+                case BIG_DECIMAL:
+                    return this.bigDecimalValue.longValue();
+                default:
+                    return (long) this.doubleValue;
+            }
+        }
+
+        @Override
+        public BigInteger getBigIntegerValue() {
+            switch (this.numberType) {
+                case INT:
+                case LONG:
+                    return BigInteger.valueOf(this.longValue);
+                case BIG_INTEGER:
+                    return this.bigIntegerValue;
+                case BIG_DECIMAL:
+                    return this.bigDecimalValue.toBigInteger();
+                default:
+                    return BigDecimal.valueOf(this.doubleValue).toBigInteger();
+            }
+        }
+
+        @Override
+        public float getFloatValue() {
+            return (float) this.getDoubleValue();
+        }
+
+        @Override
+        public double getDoubleValue() {
+            switch (this.numberType) {
+                case INT:
+                case LONG:
+                    return this.longValue;
+                case BIG_INTEGER:
+                    return this.bigIntegerValue.doubleValue();
+                case BIG_DECIMAL:
+                    return this.bigDecimalValue.doubleValue();
+                default:
+                    return this.doubleValue;
+            }
+        }
+
+        @Override
+        public BigDecimal getDecimalValue() {
+            switch (this.numberType) {
+                case INT:
+                case LONG:
+                    return BigDecimal.valueOf(this.longValue);
+                case BIG_INTEGER:
+                    return new BigDecimal(this.bigIntegerValue);
+                case BIG_DECIMAL:
+                    return this.bigDecimalValue;
+                default:
+                    return BigDecimal.valueOf(this.doubleValue);
+            }
+        }
+
+        @Override
+        public ObjectCodec getCodec() {
+            return this.codec;
+        }
+
+        @Override
+        public void setCodec(ObjectCodec codec) {
+            this.codec = codec;
+        }
+
+        @Override
+        public Version version() {
+            return Version.unknownVersion();
+        }
+
+        @Override
+        public JsonLocation getTokenLocation() {
+            return new JsonLocation(ContentReference.unknown(), this.tokenOffset, -1, -1);
+        }
+
+        @Override
+        public JsonLocation getCurrentLocation() {
+            return new JsonLocation(ContentReference.unknown(), this.consumed + this.position, -1, -1);
+        }
+
+        @Override
+        public boolean isClosed() {
+            return this.closed;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (this.closed)
+                return;
+            this.closed = true;
+            this.in.close();
+        }
+
+        /**
+         * Read a string written through the string table
+         *
+         * @param kind 0 for a new table entry, 1 for a table reference, 2 for a raw string
+         */
+        private String readTableString(int kind) throws IOException {
+            if (kind == 1) {
+                long index = this.readVarLong();
+                if (index < 0 || index >= this.table.size())
+                    this._reportError("String table index " + index + " out of range");
+                return this.table.get((int) index);
+            }
+            String s = this.readBytes();
+            if (kind == 0)
+                this.table.add(s);
+            return s;
+        }
+
+        /**
+         * Read a length-prefixed UTF-8 string
+         */
+        private String readBytes() throws IOException {
+            long length = this.readVarLong();
+            if (length < 0 || length > Integer.MAX_VALUE)
+                this._reportError("Invalid string length " + length);
+            int n = (int) length;
+            if (n <= this.limit - this.position) {
+                String s = new String(this.buffer, this.position, n, StandardCharsets.UTF_8);
+                this.position += n;
+                return s;
+            }
+            byte[] bytes = new byte[n];
+            int read = 0;
+            while (read < n) {
+                if (this.position == this.limit && !this.fill())
+                    throw new EOFException("Unexpected end of SNAC binary stream");
+                int chunk = Math.min(n - read, this.limit - this.position);
+                System.arraycopy(this.buffer, this.position, bytes, read, chunk);
+                this.position += chunk;
+                read += chunk;
+            }
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        /**
+         * Read a zigzag-encoded varint
+         */
+        private long readVarLong() throws IOException {
+            long v = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                int b = this.readByte();
+                v |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0)
+                    return (v >>> 1) ^ -(v & 1);
+            }
+            this._reportError("Malformed varint in SNAC binary stream");
+            return 0;
+        }
+
+        /**
+         * Read one byte, failing at the end of the stream
+         */
+        private int readByte() throws IOException {
+            if (this.position == this.limit && !this.fill())
+                throw new EOFException("Unexpected end of SNAC binary stream");
+            return this.buffer[this.position++] & 0xFF;
+        }
+
+        /**
+         * Refill the empty input buffer
+         *
+         * @return boolean False at the end of the underlying stream
+         */
+        private boolean fill() throws IOException {
+            this.consumed += this.limit;
+            int n;
+            do {
+                n = this.in.read(this.buffer, 0, this.buffer.length);
+            } while (n == 0);
+            this.position = 0;
+            this.limit = Math.max(n, 0);
+            return n > 0;
+        }
+    }
+}
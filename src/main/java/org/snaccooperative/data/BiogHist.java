@@ -15,6 +15,11 @@
  */
 package org.snaccooperative.data;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.Objects;
+
 /**
  * BiogHist data storage class
  *
@@ -30,9 +35,10 @@ public class BiogHist extends AbstractData {
     private Language language;
 
     /**
-     * @var string Text/XML contents of this biogHist.
+     * @var LazyText Text/XML contents of this biogHist, which may be held compressed until read.
      */
-    private String text;
+    @JsonProperty("text")
+    private LazyText text;
 
     /**
      * Constructor.
@@ -45,6 +51,13 @@ public class BiogHist extends AbstractData {
         this.setMaxDateCount(0);
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    protected AbstractData newInstance() {
+        return new BiogHist();
+    }
+
 
     /**
      * Get the language this biogHist was written in
@@ -63,9 +76,10 @@ public class BiogHist extends AbstractData {
      * @return string The full biogHist
      *
      */
+    @JsonIgnore
     public String getText()
     {
-        return this.text;
+        return this.text == null ? null : this.text.getText();
     }
 
     /**
@@ -78,15 +92,17 @@ public class BiogHist extends AbstractData {
      * @param  snacdataBiogHist biogHist BiogHist to append
      */
     public void append(BiogHist biogHist) {
+        this.modified("text");
         if (biogHist == null) {
             return;
         }
 
         // Append the text objects
-        this.text += biogHist.text;
+        this.text = LazyText.of(this.getText() + biogHist.getText());
 
         // Combine SCMs
         if (biogHist.snacControlMetadata != null) {
+            this.snacControlMetadata = mutableList(this.snacControlMetadata);
             for (SNACControlMetadata scm : biogHist.snacControlMetadata) {
                 this.snacControlMetadata.add(scm);
             }
@@ -103,15 +119,18 @@ public class BiogHist extends AbstractData {
      */
     public void setLanguage(Language language) {
 
+        this.modified("language");
         this.language = language;
     }
 
     /**
      * Set the text/xml of this BiogHist
      */
+    @JsonIgnore
     public void setText(String text) {
 
-        this.text = text;
+        this.modified("text");
+        this.text = LazyText.of(text);
     }
 
     /**
@@ -123,19 +142,19 @@ public class BiogHist extends AbstractData {
      * @return string A human-readable summary string of this object
      */
     public String toString() {
-        return "BiogHist: " + this.text;
+        return "BiogHist: " + this.getText();
     }
 
     /**
      *
      * {@inheritDoc}
      */
-    public boolean equals(Object other) {
+    public boolean equals(Object other, boolean strict, boolean checkSubcomponents) {
 
         if (other == null || !(other instanceof BiogHist))
             return false;
 
-        if (!super.equals(other))
+        if (!super.equals(other, strict, checkSubcomponents))
             return false;
 
         BiogHist b = (BiogHist) other;
@@ -144,33 +163,37 @@ public class BiogHist extends AbstractData {
                 (this.getText() == null && b.getText() != null))
             return false;
 
-        if ((this.getLanguage() != null && !this.getLanguage().equals(b.getLanguage())) ||
-                (this.getLanguage() == null && b.getLanguage() != null))
+        if (!AbstractData.sameData(this.getLanguage(), b.getLanguage(), strict, checkSubcomponents))
             return false;
 
         return true;
     }
 
     /**
-     * Cleanse all sub-elements
-     *
-     * Removes the ID and Version from sub-elements and updates the operation to be
-     * INSERT.  If the operation is specified by the parameter, this method
-     * will use that operation instead of INSERT.
+     * {@inheritDoc}
      */
-    public void cleanseSubElements(String operation) {
-        String newOperation = AbstractData.OPERATION_INSERT;
-        if (operation != null) {
-            newOperation = operation;
-        }
+    protected int computeHashCode(boolean strict, boolean checkSubcomponents) {
+        int hash = super.computeHashCode(strict, checkSubcomponents);
+        hash = 31 * hash + Objects.hashCode(this.text);
+        hash = 31 * hash + hashData(this.getLanguage(), strict, checkSubcomponents);
+        return hash;
+    }
 
-        super.cleanseSubElements(newOperation);
+    /**
+     * {@inheritDoc}
+     */
+    protected void acceptChildren(DataVisitor visitor) {
+        super.acceptChildren(visitor);
+        accept(visitor, this.language);
+    }
 
-        if (this.language != null) {
-            this.language.setID(0);
-            this.language.setVersion(0);
-            this.language.setOperation(newOperation);
-            this.language.cleanseSubElements(newOperation);
-        }
+    /**
+     * {@inheritDoc}
+     */
+    protected void copyFrom(AbstractData data, DataCopier copier) {
+        super.copyFrom(data, copier);
+        BiogHist other = (BiogHist) data;
+        this.language = copier.copy(other.language);
+        this.text = other.text;
     }
 }
@@ -0,0 +1,180 @@
+/**
+ * Change Tracker File
+ *
+ * Contains the record of a Constellation's state from which its changes are found.
+ *
+ * License:
+ *
+ *
+ * @author Robbie Hott
+ * @license https://opensource.org/licenses/BSD-3-Clause BSD 3-Clause
+ * @copyright 2015 the Rector and Visitors of the University of Virginia, and
+ *            the Regents of the University of California
+ */
+package org.snaccooperative.data;
+
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Change Tracker
+ *
+ * Records the elements of each section of a Constellation, with a fingerprint of each, when
+ * tracking starts.  An element is later found to be inserted if it was not recorded, deleted if
+ * it was recorded but is no longer in its section, and updated if its fingerprint differs.
+ * Elements are matched to the record by identity, or else by ID, so that an element replaced
+ * with a changed copy is still an update.
+ *
+ * The fingerprints leave out operations, which the change set sets, but include the IDs and
+ * versions of the elements themselves.
+ *
+ * @author Robbie Hott
+ */
+final class ChangeTracker {
+
+    /**
+     * @var Fingerprint The fingerprint of the constellation's scalar properties
+     */
+    private final Fingerprint header;
+
+    /**
+     * @var Baseline[] The recorded elements of each section
+     */
+    private final Map<ConstellationSection, Baseline> sections = new EnumMap<>(ConstellationSection.class);
+
+    /**
+     * Constructor
+     *
+     * @param header The scalar properties of the constellation, by name
+     */
+    ChangeTracker(Map<String, Object> header) {
+        this.header = Fingerprint.of(header, true);
+    }
+
+    /**
+     * Record a section
+     *
+     * @param section The section
+     * @param elements The elements of the section
+     */
+    void record(ConstellationSection section, List<? extends AbstractData> elements) {
+        this.sections.put(section, new Baseline(elements));
+    }
+
+    /**
+     * Have the scalar properties changed
+     *
+     * @param header The scalar properties of the constellation, by name
+     * @return boolean True if they differ from those recorded
+     */
+    boolean headerChanged(Map<String, Object> header) {
+        return !this.header.equals(Fingerprint.of(header, true));
+    }
+
+    /**
+     * Find the changes to a section
+     *
+     * Adds each inserted, updated and deleted element of the section to the change set, with its
+     * operation set.  The sub-elements of inserted elements are cleansed.  Deleted elements that
+     * were never saved, having no ID, are left out.
+     *
+     * @param section The section
+     * @param elements The current elements of the section
+     * @param changes Receives the changed elements
+     * @return boolean True if any element changed
+     */
+    @SuppressWarnings("unchecked")
+    <T extends AbstractData> boolean changes(ConstellationSection section, List<T> elements, List<T> changes) {
+        Baseline baseline = this.sections.get(section);
+        int before = changes.size();
+        boolean[] kept = new boolean[baseline.elements.length];
+        Map<Integer, Integer> byID = null;
+
+        if (elements != null) {
+            for (T element : elements) {
+                if (element == null)
+                    continue;
+                Integer i = baseline.index.get(element);
+                if (i == null && element.getID() != 0) {
+                    if (byID == null)
+                        byID = baseline.indexByID();
+                    i = byID.get(element.getID());
+                }
+                if (i == null || kept[i]) {
+                    element.setOperation(AbstractData.OPERATION_INSERT);
+                    element.cleanseSubElements(AbstractData.OPERATION_INSERT);
+                    changes.add(element);
+                    continue;
+                }
+                kept[i] = true;
+                if (!baseline.fingerprints[i].equals(fingerprint(element))) {
+                    element.setOperation(AbstractData.OPERATION_UPDATE);
+                    changes.add(element);
+                }
+            }
+        }
+
+        for (int i = 0; i < kept.length; i++) {
+            AbstractData element = baseline.elements[i];
+            if (!kept[i] && element.getID() != 0) {
+                element.setOperation(AbstractData.OPERATION_DELETE);
+                changes.add((T) element);
+            }
+        }
+        return changes.size() > before;
+    }
+
+    /**
+     * Fingerprint an element, with its own ID and version but without any operations
+     */
+    private static Fingerprint fingerprint(AbstractData element) {
+        return FingerprintGenerator.combine(Fingerprint.of(element, false),
+            new Fingerprint(element.getID(), element.getVersion()));
+    }
+
+    /**
+     * Baseline
+     *
+     * The recorded elements of a section, with their fingerprints.
+     */
+    private static final class Baseline {
+
+        final AbstractData[] elements;
+        final Fingerprint[] fingerprints;
+        final Map<AbstractData, Integer> index;
+
+        Baseline(List<? extends AbstractData> list) {
+            int n = list == null ? 0 : list.size();
+            AbstractData[] elements = new AbstractData[n];
+            Fingerprint[] fingerprints = new Fingerprint[n];
+            this.index = new IdentityHashMap<>(n);
+            int size = 0;
+            for (int i = 0; i < n; i++) {
+                AbstractData element = list.get(i);
+                if (element == null || this.index.containsKey(element))
+                    continue;
+                elements[size] = element;
+                fingerprints[size] = fingerprint(element);
+                this.index.put(element, size++);
+            }
+            this.elements = Arrays.copyOf(elements, size);
+            this.fingerprints = Arrays.copyOf(fingerprints, size);
+        }
+
+        /**
+         * Index the elements that have IDs by ID
+         */
+        Map<Integer, Integer> indexByID() {
+            Map<Integer, Integer> byID = new HashMap<>();
+            for (int i = 0; i < this.elements.length; i++) {
+                if (this.elements[i].getID() != 0)
+                    byID.putIfAbsent(this.elements[i].getID(), i);
+            }
+            return byID;
+        }
+    }
+}
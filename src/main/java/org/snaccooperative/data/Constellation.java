@@ -15,13 +15,27 @@
  */
 package org.snaccooperative.data;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
 
 import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
 
     /*        "dataType" => "Constellation",
             "status" => this.status,
@@ -61,6 +75,8 @@ import java.util.List;
  * constellation, and has fields and methods to store all parts of the constellation.  Any of them may be left
  * null, if they are unused.
  *
+ * Empty sections share one immutable empty list until they are first written, or handed out by a getter.
+ *
  * @author Robbie Hott
  *
  */
@@ -68,6 +84,26 @@ import java.util.List;
 @JsonInclude(JsonInclude.Include.NON_DEFAULT)
 public class Constellation extends AbstractData {
 
+    /**
+     * @var int Index of the intersection in the result of diff()
+     */
+    public static final int DIFF_INTERSECTION = 0;
+
+    /**
+     * @var int Index of the parts of this constellation only in the result of diff()
+     */
+    public static final int DIFF_THIS = 1;
+
+    /**
+     * @var int Index of the parts of the other constellation only in the result of diff()
+     */
+    public static final int DIFF_OTHER = 2;
+
+    /**
+     * @var ConstellationSection[] The sections, in order
+     */
+    private static final ConstellationSection[] SECTIONS = ConstellationSection.values();
+
     /**
      * ARK ID
      *
@@ -100,7 +136,7 @@ public class Constellation extends AbstractData {
      *
      * @var snacdataSameAs[] Other record IDs by which this constellation may be known
      */
-    private List<SameAs> sameAsRelations = null;
+    List<SameAs> sameAsRelations = null;
 
 
     /**
@@ -112,7 +148,7 @@ public class Constellation extends AbstractData {
     *
     * @var snacdataEntityId[] Other external record IDs by which this constellation may be known
     */
-    private List<EntityId> entityIDs = null;
+    List<EntityId> entityIDs = null;
 
     /**
      * Maintenace Status
@@ -145,7 +181,7 @@ public class Constellation extends AbstractData {
      *
      * @var snacdataMaintenanceEvent[] List of maintenance events performed on this constellation
      */
-    private List<MaintenanceEvent> maintenanceEvents = null;
+    List<MaintenanceEvent> maintenanceEvents = null;
 
     /**
      * Source list
@@ -157,7 +193,7 @@ public class Constellation extends AbstractData {
      *
      * @var snacdataSource[] List of sources
      */
-    private List<Source> sources = null;
+    List<Source> sources = null;
 
     /**
      * Legal Status List
@@ -170,7 +206,7 @@ public class Constellation extends AbstractData {
      *
      * @var snacdataLegalStatus[] List of legal statuses
      */
-    private List<LegalStatus> legalStatuses = null;
+    List<LegalStatus> legalStatuses = null;
 
     /**
      * Convention Declaration List
@@ -181,7 +217,7 @@ public class Constellation extends AbstractData {
      *
      * @var snacdataConventionDeclaration[] Convention declarations
      */
-    private List<ConventionDeclaration> conventionDeclarations = null;
+    List<ConventionDeclaration> conventionDeclarations = null;
 
     /**
      * Languages Used List
@@ -195,7 +231,7 @@ public class Constellation extends AbstractData {
      *
      * @var snacdataLanguage[] Languages used by the identity described
      */
-    private List<Language> languagesUsed = null;
+    List<Language> languagesUsed = null;
 
     /**
      * Name Entry List
@@ -206,7 +242,7 @@ public class Constellation extends AbstractData {
      *
      * @var snacdataNameEntry[] List of name entries for this constellation
      */
-    private List<NameEntry> nameEntries = null;
+    List<NameEntry> nameEntries = null;
 
     /**
      * Preferred Name Entry
@@ -224,7 +260,7 @@ public class Constellation extends AbstractData {
      *
      * @var snacdataOccupation[] List of occupations
      */
-    private List<Occupation> occupations = null;
+    List<Occupation> occupations = null;
 
     /**
      * BiogHist List
@@ -235,7 +271,7 @@ public class Constellation extends AbstractData {
      *
      * @var snacdataBiogHist[] BiogHist entries for this constellation (in XML strings)
      */
-    private List<BiogHist> biogHists = null;
+    List<BiogHist> biogHists = null;
 
     /**
      * Constellation Relation List
@@ -246,7 +282,7 @@ public class Constellation extends AbstractData {
      *
      * @var snacdataconstellationrelation[] constellation relations
      */
-    private List<ConstellationRelation> relations = null;
+    List<ConstellationRelation> relations = null;
 
     /**
      * Resource Relation List
@@ -257,7 +293,7 @@ public class Constellation extends AbstractData {
      *
      * @var snacdataResourceRelation[] Resource relations
      */
-    private List<ResourceRelation> resourceRelations = null;
+    List<ResourceRelation> resourceRelations = null;
 
     /**
      * Activity list
@@ -268,7 +304,7 @@ public class Constellation extends AbstractData {
      *
      * @var snacdataActivity[] Activities
      */
-    private List<Activity> activities = null;
+    List<Activity> activities = null;
 
     /**
      * Place list
@@ -281,7 +317,7 @@ public class Constellation extends AbstractData {
      *
      * @var snacdataPlace[] Places
      */
-    private List<Place> places = null;
+    List<Place> places = null;
 
     /**
      * Subject List
@@ -292,7 +328,7 @@ public class Constellation extends AbstractData {
      *
      * @var snacdataSubject[] Subjects
      */
-    private List<Subject> subjects = null;
+    List<Subject> subjects = null;
 
     /**
      * Nationality List
@@ -303,7 +339,7 @@ public class Constellation extends AbstractData {
      *
      * @var snacdataNationality[] nationalities of this entity
      */
-    private List<Nationality> nationalities = null;
+    List<Nationality> nationalities = null;
 
     /**
      * Gender List
@@ -314,7 +350,7 @@ public class Constellation extends AbstractData {
      *
      * @var snacdataGender[] Gender
      */
-    private List<Gender> genders = null;
+    List<Gender> genders = null;
 
     /**
      * General Contexts List
@@ -325,7 +361,7 @@ public class Constellation extends AbstractData {
      *
      * @var snacdataGeneralContext[] General Contexts
      */
-    private List<GeneralContext> generalContexts = null;
+    List<GeneralContext> generalContexts = null;
 
     /**
      * Structure or Genealogies List
@@ -336,7 +372,7 @@ public class Constellation extends AbstractData {
      *
      * @var snacdataStructureOrGenealogy[] Structure Or Genealogy information
      */
-    private List<StructureOrGenealogy> structureOrGenealogies = null;
+    List<StructureOrGenealogy> structureOrGenealogies = null;
 
     /**
      * Mandate List
@@ -347,7 +383,7 @@ public class Constellation extends AbstractData {
      *
      * @var snacdataMandate[] Mandates
      */
-    private List<Mandate> mandates = null;
+    List<Mandate> mandates = null;
 
     /**
      * Status of the constellation
@@ -366,14 +402,31 @@ public class Constellation extends AbstractData {
      *
      * @var string[] An array of flags
      */
-    private List<String> flags = null;
+    protected List<String> flags = null;
 
     /**
      * Images for this constellation
      *
      * @var snacdataImage[] Images
      */
-    private List<Image> images = null;
+    List<Image> images = null;
+
+    /**
+     * @var RetainedJSON The JSON of the sections not modified since this constellation was parsed,
+     * if it was parsed by fromJSONRetaining()
+     */
+    private RetainedJSON retainedJSON = null;
+
+    /**
+     * @var ConstellationFingerprint[] The fingerprints without and with IDs, once cached by
+     * fingerprint() on a constellation whose hash code is cached
+     */
+    private ConstellationFingerprint[] fingerprints = null;
+
+    /**
+     * @var ChangeTracker The state recorded by trackChanges(), or null if changes are not tracked
+     */
+    private ChangeTracker changeTracker = null;
 
     /**
      * Constructor for the class.
@@ -383,28 +436,49 @@ public class Constellation extends AbstractData {
         super();
         this.setDataType("Constellation");
         this.setMaxDateCount(AbstractData.MAX_LIST_SIZE);
-        this.sameAsRelations = new ArrayList<>();
-        this.sources = new ArrayList<>();
-        this.maintenanceEvents = new ArrayList<>();
-        this.nameEntries = new ArrayList<>();
-        this.biogHists = new ArrayList<>();
-        this.occupations = new ArrayList<>();
-        this.relations = new ArrayList<>();
-        this.resourceRelations = new ArrayList<>();
-        this.activities = new ArrayList<>();
-        this.places = new ArrayList<>();
-        this.subjects = new ArrayList<>();
-        this.legalStatuses = new ArrayList<>();
-        this.genders = new ArrayList<>();
-        this.nationalities = new ArrayList<>();
-        this.languagesUsed = new ArrayList<>();
-        this.conventionDeclarations = new ArrayList<>();
-        this.generalContexts = new ArrayList<>();
-        this.structureOrGenealogies = new ArrayList<>();
-        this.mandates = new ArrayList<>();
-        this.entityIDs = new ArrayList<>();
-        this.images = new ArrayList<>();
-        this.flags = new ArrayList<>();
+        this.sameAsRelations = Collections.emptyList();
+        this.sources = Collections.emptyList();
+        this.maintenanceEvents = Collections.emptyList();
+        this.nameEntries = Collections.emptyList();
+        this.biogHists = Collections.emptyList();
+        this.occupations = Collections.emptyList();
+        this.relations = Collections.emptyList();
+        this.resourceRelations = Collections.emptyList();
+        this.activities = Collections.emptyList();
+        this.places = Collections.emptyList();
+        this.subjects = Collections.emptyList();
+        this.legalStatuses = Collections.emptyList();
+        this.genders = Collections.emptyList();
+        this.nationalities = Collections.emptyList();
+        this.languagesUsed = Collections.emptyList();
+        this.conventionDeclarations = Collections.emptyList();
+        this.generalContexts = Collections.emptyList();
+        this.structureOrGenealogies = Collections.emptyList();
+        this.mandates = Collections.emptyList();
+        this.entityIDs = Collections.emptyList();
+        this.images = Collections.emptyList();
+        this.flags = Collections.emptyList();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    protected AbstractData newInstance() {
+        return new Constellation();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public Constellation deepCopy() {
+        return (Constellation) super.deepCopy();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public Constellation deepCopy(boolean keepIDs, boolean shareTerms) {
+        return (Constellation) super.deepCopy(keepIDs, shareTerms);
     }
 
     /**
@@ -437,6 +511,8 @@ public class Constellation extends AbstractData {
      */
     public List<SameAs> getSameAsRelations()
     {
+        if (this.isSharedList(this.sameAsRelations))
+            this.sameAsRelations = new ArrayList<>();
         return this.sameAsRelations;
     }
 
@@ -448,6 +524,8 @@ public class Constellation extends AbstractData {
     */
     public List<EntityId> getEntityIDs()
     {
+        if (this.isSharedList(this.entityIDs))
+            this.entityIDs = new ArrayList<>();
         return this.entityIDs;
     }
 
@@ -481,6 +559,8 @@ public class Constellation extends AbstractData {
      */
     public List<MaintenanceEvent> getMaintenanceEvents()
     {
+        if (this.isSharedList(this.maintenanceEvents))
+            this.maintenanceEvents = new ArrayList<>();
         return this.maintenanceEvents;
     }
 
@@ -492,6 +572,8 @@ public class Constellation extends AbstractData {
      */
     public List<Source> getSources()
     {
+        if (this.isSharedList(this.sources))
+            this.sources = new ArrayList<>();
         return this.sources;
     }
 
@@ -503,6 +585,8 @@ public class Constellation extends AbstractData {
      */
     public List<LegalStatus> getLegalStatuses()
     {
+        if (this.isSharedList(this.legalStatuses))
+            this.legalStatuses = new ArrayList<>();
         return this.legalStatuses;
     }
 
@@ -514,6 +598,8 @@ public class Constellation extends AbstractData {
      */
     public List<ConventionDeclaration> getConventionDeclarations()
     {
+        if (this.isSharedList(this.conventionDeclarations))
+            this.conventionDeclarations = new ArrayList<>();
         return this.conventionDeclarations;
     }
 
@@ -525,6 +611,8 @@ public class Constellation extends AbstractData {
      */
     public List<Language> getLanguagesUsed()
     {
+        if (this.isSharedList(this.languagesUsed))
+            this.languagesUsed = new ArrayList<>();
         return this.languagesUsed;
     }
 
@@ -537,6 +625,8 @@ public class Constellation extends AbstractData {
      */
     public List<NameEntry> getNameEntries()
     {
+        if (this.isSharedList(this.nameEntries))
+            this.nameEntries = new ArrayList<>();
         return this.nameEntries;
     }
 
@@ -579,6 +669,8 @@ public class Constellation extends AbstractData {
      */
     public List<Occupation> getOccupations()
     {
+        if (this.isSharedList(this.occupations))
+            this.occupations = new ArrayList<>();
         return this.occupations;
     }
 
@@ -592,6 +684,8 @@ public class Constellation extends AbstractData {
      */
     public List<BiogHist> getBiogHists()
     {
+        if (this.isSharedList(this.biogHists))
+            this.biogHists = new ArrayList<>();
         return this.biogHists;
     }
 
@@ -638,6 +732,8 @@ public class Constellation extends AbstractData {
      */
     public List<ConstellationRelation> getRelations()
     {
+        if (this.isSharedList(this.relations))
+            this.relations = new ArrayList<>();
         return this.relations;
     }
 
@@ -648,6 +744,8 @@ public class Constellation extends AbstractData {
      */
     public List<ResourceRelation> getResourceRelations()
     {
+        if (this.isSharedList(this.resourceRelations))
+            this.resourceRelations = new ArrayList<>();
         return this.resourceRelations;
     }
 
@@ -659,6 +757,8 @@ public class Constellation extends AbstractData {
      */
     public List<Activity> getActivities()
     {
+        if (this.isSharedList(this.activities))
+            this.activities = new ArrayList<>();
         return this.activities;
     }
 
@@ -672,6 +772,8 @@ public class Constellation extends AbstractData {
      */
     public List<Place> getPlaces()
     {
+        if (this.isSharedList(this.places))
+            this.places = new ArrayList<>();
         return this.places;
     }
 
@@ -683,6 +785,8 @@ public class Constellation extends AbstractData {
      */
     public List<Subject> getSubjects()
     {
+        if (this.isSharedList(this.subjects))
+            this.subjects = new ArrayList<>();
         return this.subjects;
     }
 
@@ -694,6 +798,8 @@ public class Constellation extends AbstractData {
      */
     public List<Nationality> getNationalities()
     {
+        if (this.isSharedList(this.nationalities))
+            this.nationalities = new ArrayList<>();
         return this.nationalities;
     }
 
@@ -705,6 +811,8 @@ public class Constellation extends AbstractData {
      */
     public List<Gender> getGenders()
     {
+        if (this.isSharedList(this.genders))
+            this.genders = new ArrayList<>();
         return this.genders;
     }
 
@@ -716,6 +824,8 @@ public class Constellation extends AbstractData {
      */
     public List<GeneralContext> getGeneralContexts()
     {
+        if (this.isSharedList(this.generalContexts))
+            this.generalContexts = new ArrayList<>();
         return this.generalContexts;
     }
 
@@ -727,6 +837,8 @@ public class Constellation extends AbstractData {
      */
     public List<StructureOrGenealogy> getStructureOrGenealogies()
     {
+        if (this.isSharedList(this.structureOrGenealogies))
+            this.structureOrGenealogies = new ArrayList<>();
         return this.structureOrGenealogies;
     }
 
@@ -738,6 +850,8 @@ public class Constellation extends AbstractData {
      */
     public List<Mandate> getMandates()
     {
+        if (this.isSharedList(this.mandates))
+            this.mandates = new ArrayList<>();
         return this.mandates;
     }
 
@@ -760,6 +874,8 @@ public class Constellation extends AbstractData {
      * @return snacdataImage[] List of Image objects
      */
     public List<Image> getImages() {
+        if (this.isSharedList(this.images))
+            this.images = new ArrayList<>();
         return this.images;
     }
 
@@ -771,6 +887,8 @@ public class Constellation extends AbstractData {
      * @return string[] List of Flags
      */
     public List<String> getFlags() {
+        if (this.isSharedList(this.flags))
+            this.flags = new ArrayList<>();
         return this.flags;
     }
 
@@ -792,8 +910,11 @@ public class Constellation extends AbstractData {
      *
      */
     public void setFlag(String flag) {
-        if (!this.hasFlag(flag))
+        this.modified("flags");
+        if (!this.hasFlag(flag)) {
+            this.flags = mutableList(this.flags);
             this.flags.add(flag);
+        }
     }
 
 
@@ -803,6 +924,7 @@ public class Constellation extends AbstractData {
      */
     public void setArk(String ark) {
 
+        this.modified("ark");
         this.ark = ark;
     }
 
@@ -811,8 +933,8 @@ public class Constellation extends AbstractData {
      *
      */
     public void setEntityType(Term type) {
-
-        this.entityType = type;
+        this.modified("entityType");
+        this.entityType = TermRegistry.canonical(type);
     }
 
     /**
@@ -820,12 +942,14 @@ public class Constellation extends AbstractData {
      *
      */
     public void addSameAsRelation(SameAs other) {
-
+        this.modified("sameAsRelations");
+        this.sameAsRelations = mutableList(this.sameAsRelations);
         this.sameAsRelations.add(other);
     }
 
     public void setSameAsRelations(List<SameAs> others) {
-        this.sameAsRelations = new ArrayList<>(others);
+        this.modified("sameAsRelations");
+        this.sameAsRelations = keepList(others);
     }
 
     /**
@@ -833,12 +957,14 @@ public class Constellation extends AbstractData {
      *
      */
     public void addEntityID(EntityId other) {
-
+        this.modified("entityIDs");
+        this.entityIDs = mutableList(this.entityIDs);
         this.entityIDs.add(other);
     }
 
     public void setEntityIDs(List<EntityId> others) {
-        this.entityIDs = new ArrayList<>(others);
+        this.modified("entityIDs");
+        this.entityIDs = keepList(others);
     }
 
     /**
@@ -846,8 +972,8 @@ public class Constellation extends AbstractData {
      *
      */
     public void setMaintenanceStatus(Term status) {
-
-        this.maintenanceStatus = status;
+        this.modified("maintenanceStatus");
+        this.maintenanceStatus = TermRegistry.canonical(status);
     }
 
     /**
@@ -856,6 +982,7 @@ public class Constellation extends AbstractData {
      */
     public void setMaintenanceAgency(String agency) {
 
+        this.modified("maintenanceAgency");
         this.maintenanceAgency = agency;
     }
 
@@ -864,7 +991,8 @@ public class Constellation extends AbstractData {
      *
      */
     public void addSource(Source source) {
-
+        this.modified("sources");
+        this.sources = mutableList(this.sources);
         this.sources.add(source);
     }
 
@@ -874,8 +1002,8 @@ public class Constellation extends AbstractData {
      *
      */
     public void setSources(List<Source> sources) {
-
-        this.sources = new ArrayList<>(sources);
+        this.modified("sources");
+        this.sources = keepList(sources);
     }
 
     /**
@@ -883,12 +1011,14 @@ public class Constellation extends AbstractData {
      *
      */
     public void addMaintenanceEvent(MaintenanceEvent event) {
-
+        this.modified("maintenanceEvents");
+        this.maintenanceEvents = mutableList(this.maintenanceEvents);
         this.maintenanceEvents.add(event);
     }
 
     public void setMaintenanceEvents(List<MaintenanceEvent> m) {
-        this.maintenanceEvents = new ArrayList<>(m);
+        this.modified("maintenanceEvents");
+        this.maintenanceEvents = keepList(m);
     }
 
     /**
@@ -896,12 +1026,14 @@ public class Constellation extends AbstractData {
      *
      */
     public void addConventionDeclaration(ConventionDeclaration declaration) {
-
+        this.modified("conventionDeclarations");
+        this.conventionDeclarations = mutableList(this.conventionDeclarations);
         this.conventionDeclarations.add(declaration);
     }
 
     public void setConventionDeclarations(List<ConventionDeclaration> c) {
-        this.conventionDeclarations = new ArrayList<>(c);
+        this.modified("conventionDeclarations");
+        this.conventionDeclarations = keepList(c);
     }
 
     /**
@@ -909,7 +1041,8 @@ public class Constellation extends AbstractData {
      *
      */
     public void addNameEntry(NameEntry nameEntry) {
-
+        this.modified("nameEntries");
+        this.nameEntries = mutableList(this.nameEntries);
         this.nameEntries.add(nameEntry);
     }
 
@@ -921,8 +1054,8 @@ public class Constellation extends AbstractData {
      *
      */
     public void setNameEntries(List<NameEntry> nameEntries) {
-
-        this.nameEntries = new ArrayList<>(nameEntries);
+        this.modified("nameEntries");
+        this.nameEntries = keepList(nameEntries);
     }
 
     /**
@@ -933,6 +1066,7 @@ public class Constellation extends AbstractData {
      * will fail.
      */
     public boolean setPreferredNameEntry(NameEntry nameEntry) {
+        this.modified("preferredNameEntry");
         if (this.nameEntries.contains(nameEntry)) {
             this.preferredNameEntry = nameEntry;
             return true;
@@ -946,7 +1080,8 @@ public class Constellation extends AbstractData {
      *
      */
     public void addBiogHist(BiogHist biog) {
-
+        this.modified("biogHists");
+        this.biogHists = mutableList(this.biogHists);
         this.biogHists.add(biog);
     }
 
@@ -954,11 +1089,13 @@ public class Constellation extends AbstractData {
      * Remove all BiogHist entries
      */
     public void removeAllBiogHists() {
-        this.biogHists = new ArrayList<>();
+        this.modified("biogHists");
+        this.biogHists = Collections.emptyList();
     }
 
     public void setBiogHists(List<BiogHist> bios) {
-        this.biogHists = new ArrayList<>(bios);
+        this.modified("biogHists");
+        this.biogHists = keepList(bios);
     }
 
     /**
@@ -966,12 +1103,14 @@ public class Constellation extends AbstractData {
      *
      */
     public void addOccupation(Occupation occupation) {
-
+        this.modified("occupations");
+        this.occupations = mutableList(this.occupations);
         this.occupations.add(occupation);
     }
 
     public void setOccupations(List<Occupation> occs) {
-        this.occupations = new ArrayList<>(occs);
+        this.modified("occupations");
+        this.occupations = keepList(occs);
     }
 
     /**
@@ -979,12 +1118,14 @@ public class Constellation extends AbstractData {
      *
      */
     public void addActivity(Activity activity) {
-
+        this.modified("activities");
+        this.activities = mutableList(this.activities);
         this.activities.add(activity);
     }
 
     public void setActivities(List<Activity> acts) {
-        this.activities = new ArrayList<>(acts);
+        this.modified("activities");
+        this.activities = keepList(acts);
     }
 
     /**
@@ -994,11 +1135,14 @@ public class Constellation extends AbstractData {
      *
      */
     public void addLanguageUsed(Language language) {
+        this.modified("languagesUsed");
+        this.languagesUsed = mutableList(this.languagesUsed);
         this.languagesUsed.add(language);
     }
 
     public void setLanguagesUsed(List<Language> langs) {
-        this.languagesUsed = new ArrayList<>(langs);
+        this.modified("languagesUsed");
+        this.languagesUsed = keepList(langs);
     }
 
 
@@ -1007,11 +1151,14 @@ public class Constellation extends AbstractData {
      *
      */
     public void addSubject(Subject subject) {
+        this.modified("subjects");
+        this.subjects = mutableList(this.subjects);
         this.subjects.add(subject);
     }
 
     public void setSubjects(List<Subject> subs) {
-        this.subjects = new ArrayList<>(subs);
+        this.modified("subjects");
+        this.subjects = keepList(subs);
     }
 
     /**
@@ -1019,11 +1166,14 @@ public class Constellation extends AbstractData {
      *
      */
     public void addNationality(Nationality nationality) {
+        this.modified("nationalities");
+        this.nationalities = mutableList(this.nationalities);
         this.nationalities.add(nationality);
     }
 
     public void setNationalities(List<Nationality> nats) {
-        this.nationalities = new ArrayList<>(nats);
+        this.modified("nationalities");
+        this.nationalities = keepList(nats);
     }
 
     /**
@@ -1031,6 +1181,8 @@ public class Constellation extends AbstractData {
      *
      */
     public void addGender(Gender gender) {
+        this.modified("genders");
+        this.genders = mutableList(this.genders);
         this.genders.add(gender);
     }
 
@@ -1042,12 +1194,14 @@ public class Constellation extends AbstractData {
      *
      */
     public void setGender(Gender gender) {
+        this.modified("genders");
         this.genders = new ArrayList<>();
         this.genders.add(gender);
     }
 
     public void setGenders(List<Gender> gens) {
-        this.genders = new ArrayList<>(gens);
+        this.modified("genders");
+        this.genders = keepList(gens);
     }
 
     /**
@@ -1055,7 +1209,8 @@ public class Constellation extends AbstractData {
      *
      */
     public void addRelation(ConstellationRelation relation) {
-
+        this.modified("relations");
+        this.relations = mutableList(this.relations);
         this.relations.add(relation);
     }
 
@@ -1066,11 +1221,13 @@ public class Constellation extends AbstractData {
      *
      */
     public void emptyRelations() {
-        this.relations = new ArrayList<>();
+        this.modified("relations");
+        this.relations = Collections.emptyList();
     }
 
     public void setRelations(List<ConstellationRelation> rels) {
-        this.relations = new ArrayList<>(rels);
+        this.modified("relations");
+        this.relations = keepList(rels);
     }
 
 
@@ -1078,7 +1235,8 @@ public class Constellation extends AbstractData {
      * Add relation to a resource
      */
     public void addResourceRelation(ResourceRelation relation) {
-
+        this.modified("resourceRelations");
+        this.resourceRelations = mutableList(this.resourceRelations);
         this.resourceRelations.add(relation);
     }
 
@@ -1089,11 +1247,13 @@ public class Constellation extends AbstractData {
      *
      */
     public void emptyResourceRelations() {
-        this.resourceRelations = new ArrayList<>();
+        this.modified("resourceRelations");
+        this.resourceRelations = Collections.emptyList();
     }
 
     public void setResourceRelations(List<ResourceRelation> rels) {
-        this.resourceRelations = new ArrayList<>(rels);
+        this.modified("resourceRelations");
+        this.resourceRelations = keepList(rels);
     }
 
     /**
@@ -1101,12 +1261,14 @@ public class Constellation extends AbstractData {
      *
      */
     public void addPlace(Place place) {
-
+        this.modified("places");
+        this.places = mutableList(this.places);
         this.places.add(place);
     }
 
     public void setPlaces(List<Place> places) {
-        this.places = new ArrayList<>(places);
+        this.modified("places");
+        this.places = keepList(places);
     }
 
     /**
@@ -1114,11 +1276,14 @@ public class Constellation extends AbstractData {
      *
      */
     public void addGeneralContext(GeneralContext context) {
+        this.modified("generalContexts");
+        this.generalContexts = mutableList(this.generalContexts);
         this.generalContexts.add(context);
     }
 
     public void setGeneralContexts(List<GeneralContext> gcs) {
-        this.generalContexts = new ArrayList<>(gcs);
+        this.modified("generalContexts");
+        this.generalContexts = keepList(gcs);
     }
 
     /**
@@ -1126,11 +1291,14 @@ public class Constellation extends AbstractData {
      *
      */
     public void addStructureOrGenealogy(StructureOrGenealogy structure) {
+        this.modified("structureOrGenealogies");
+        this.structureOrGenealogies = mutableList(this.structureOrGenealogies);
         this.structureOrGenealogies.add(structure);
     }
 
     public void setStructureOrGenealogies(List<StructureOrGenealogy> sogs) {
-        this.structureOrGenealogies = new ArrayList<>(sogs);
+        this.modified("structureOrGenealogies");
+        this.structureOrGenealogies = keepList(sogs);
     }
 
     /**
@@ -1138,11 +1306,14 @@ public class Constellation extends AbstractData {
      *
      */
     public void addLegalStatus(LegalStatus legalStatus) {
+        this.modified("legalStatuses");
+        this.legalStatuses = mutableList(this.legalStatuses);
         this.legalStatuses.add(legalStatus);
     }
 
     public void setLegalStatuses(List<LegalStatus> ls) {
-        this.legalStatuses = new ArrayList<>(ls);
+        this.modified("legalStatuses");
+        this.legalStatuses = keepList(ls);
     }
 
     /**
@@ -1150,11 +1321,14 @@ public class Constellation extends AbstractData {
      *
      */
     public void addMandate(Mandate mandate) {
+        this.modified("mandates");
+        this.mandates = mutableList(this.mandates);
         this.mandates.add(mandate);
     }
 
     public void setMandates(List<Mandate> mans) {
-        this.mandates = new ArrayList<>(mans);
+        this.modified("mandates");
+        this.mandates = keepList(mans);
     }
 
     /**
@@ -1164,6 +1338,7 @@ public class Constellation extends AbstractData {
      *
      */
     public void setStatus(String status) {
+        this.modified("status");
         this.status = status;
     }
 
@@ -1173,11 +1348,54 @@ public class Constellation extends AbstractData {
      *
      */
     public void addImage(Image image) {
+        this.modified("images");
+        this.images = mutableList(this.images);
         this.images.add(image);
     }
 
     public void setImages(List<Image> ims) {
-        this.images = new ArrayList<>(ims);
+        this.modified("images");
+        this.images = keepList(ims);
+    }
+
+    /**
+     * Mark a section modified
+     *
+     * Drops the JSON retained for the section by fromJSONRetaining(), so that it is serialized
+     * again.  Changes made through the objects returned by its getters are also found, by
+     * fingerprint, when the constellation is written, so calling this is not required.
+     *
+     * @param section The modified section
+     */
+    public void markModified(ConstellationSection section) {
+        for (String property : section.getPropertyNames())
+            this.modified(property);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    protected void modified(String property) {
+        super.modified(property);
+        if (this.retainedJSON != null)
+            this.retainedJSON.release(property);
+        this.fingerprints = null;
+    }
+
+    /**
+     * Get the retained JSON
+     *
+     * @return RetainedJSON The JSON of the unmodified sections, or null if none is retained
+     */
+    RetainedJSON retainedJSON() {
+        return this.retainedJSON;
+    }
+
+    /**
+     * Set the retained JSON, once the constellation has been read from it
+     */
+    void retainJSON(RetainedJSON retained) {
+        this.retainedJSON = retained;
     }
 
     /**
@@ -1185,12 +1403,12 @@ public class Constellation extends AbstractData {
      * {@inheritDoc}
      *
      */
-    public boolean equals(Object other) {
+    public boolean equals(Object other, boolean strict, boolean checkSubcomponents) {
 
         if (other == null || ! (other instanceof Constellation))
             return false;
 
-        if (!super.equals(other))
+        if (!super.equals(other, strict, checkSubcomponents))
             return false;
 
         Constellation c = (Constellation) other;
@@ -1216,67 +1434,186 @@ public class Constellation extends AbstractData {
         *        return false;
         **/
 
-        boolean strict = true;
-        boolean checkSubcomponents = true;
-
-        if (!this.checkArrayEqual(this.getSameAsRelations(), c.getSameAsRelations(), strict, checkSubcomponents))
+        if (!this.checkArrayEqual(this.sameAsRelations, c.sameAsRelations, strict, checkSubcomponents))
             return false;
-        if (!this.checkArrayEqual(this.getEntityIDs(), c.getEntityIDs(), strict, checkSubcomponents))
+        if (!this.checkArrayEqual(this.entityIDs, c.entityIDs, strict, checkSubcomponents))
             return false;
-        if (!this.checkArrayEqual(this.getSources(), c.getSources(), strict, checkSubcomponents))
+        if (!this.checkArrayEqual(this.sources, c.sources, strict, checkSubcomponents))
             return false;
-        if (!this.checkArrayEqual(this.getLegalStatuses(), c.getLegalStatuses(), strict, checkSubcomponents))
+        if (!this.checkArrayEqual(this.legalStatuses, c.legalStatuses, strict, checkSubcomponents))
             return false;
-        if (!this.checkArrayEqual(this.getConventionDeclarations(), c.getConventionDeclarations(), strict, checkSubcomponents))
+        if (!this.checkArrayEqual(this.conventionDeclarations, c.conventionDeclarations, strict, checkSubcomponents))
             return false;
-        if (!this.checkArrayEqual(this.getLanguagesUsed(), c.getLanguagesUsed(), strict, checkSubcomponents))
+        if (!this.checkArrayEqual(this.languagesUsed, c.languagesUsed, strict, checkSubcomponents))
             return false;
-        if (!this.checkArrayEqual(this.getNameEntries(), c.getNameEntries(), strict, checkSubcomponents))
+        if (!this.checkArrayEqual(this.nameEntries, c.nameEntries, strict, checkSubcomponents))
             return false;
-        if (!this.checkArrayEqual(this.getOccupations(), c.getOccupations(), strict, checkSubcomponents))
+        if (!this.checkArrayEqual(this.occupations, c.occupations, strict, checkSubcomponents))
             return false;
-        if (!this.checkArrayEqual(this.getBiogHists(), c.getBiogHists(), strict, checkSubcomponents))
+        if (!this.checkArrayEqual(this.biogHists, c.biogHists, strict, checkSubcomponents))
             return false;
-        if (!this.checkArrayEqual(this.getRelations(), c.getRelations(), strict, checkSubcomponents))
+        if (!this.checkArrayEqual(this.relations, c.relations, strict, checkSubcomponents))
             return false;
-        if (!this.checkArrayEqual(this.getResourceRelations(), c.getResourceRelations(), strict, checkSubcomponents))
+        if (!this.checkArrayEqual(this.resourceRelations, c.resourceRelations, strict, checkSubcomponents))
             return false;
-        if (!this.checkArrayEqual(this.getActivities(), c.getActivities(), strict, checkSubcomponents))
+        if (!this.checkArrayEqual(this.activities, c.activities, strict, checkSubcomponents))
             return false;
-        if (!this.checkArrayEqual(this.getPlaces(), c.getPlaces(), strict, checkSubcomponents))
+        if (!this.checkArrayEqual(this.places, c.places, strict, checkSubcomponents))
             return false;
-        if (!this.checkArrayEqual(this.getSubjects(), c.getSubjects(), strict, checkSubcomponents))
+        if (!this.checkArrayEqual(this.subjects, c.subjects, strict, checkSubcomponents))
             return false;
-        if (!this.checkArrayEqual(this.getNationalities(), c.getNationalities(), strict, checkSubcomponents))
+        if (!this.checkArrayEqual(this.nationalities, c.nationalities, strict, checkSubcomponents))
             return false;
-        if (!this.checkArrayEqual(this.getGenders(), c.getGenders(), strict, checkSubcomponents))
+        if (!this.checkArrayEqual(this.genders, c.genders, strict, checkSubcomponents))
             return false;
-        if (!this.checkArrayEqual(this.getGeneralContexts(), c.getGeneralContexts(), strict, checkSubcomponents))
+        if (!this.checkArrayEqual(this.generalContexts, c.generalContexts, strict, checkSubcomponents))
             return false;
-        if (!this.checkArrayEqual(this.getStructureOrGenealogies(), c.getStructureOrGenealogies(), strict, checkSubcomponents))
+        if (!this.checkArrayEqual(this.structureOrGenealogies, c.structureOrGenealogies, strict, checkSubcomponents))
             return false;
-        if (!this.checkArrayEqual(this.getMandates(), c.getMandates(), strict, checkSubcomponents))
+        if (!this.checkArrayEqual(this.mandates, c.mandates, strict, checkSubcomponents))
             return false;
 
         return true;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    protected int computeHashCode(boolean strict, boolean checkSubcomponents) {
+        int hash = super.computeHashCode(strict, checkSubcomponents);
+        hash = 31 * hash + Objects.hashCode(this.getArk());
+        hash = 31 * hash + Objects.hashCode(this.getEntityType());
+        hash = 31 * hash + hashUnordered(this.sameAsRelations, strict, checkSubcomponents);
+        hash = 31 * hash + hashUnordered(this.entityIDs, strict, checkSubcomponents);
+        hash = 31 * hash + hashUnordered(this.sources, strict, checkSubcomponents);
+        hash = 31 * hash + hashUnordered(this.legalStatuses, strict, checkSubcomponents);
+        hash = 31 * hash + hashUnordered(this.conventionDeclarations, strict, checkSubcomponents);
+        hash = 31 * hash + hashUnordered(this.languagesUsed, strict, checkSubcomponents);
+        hash = 31 * hash + hashUnordered(this.nameEntries, strict, checkSubcomponents);
+        hash = 31 * hash + hashUnordered(this.occupations, strict, checkSubcomponents);
+        hash = 31 * hash + hashUnordered(this.biogHists, strict, checkSubcomponents);
+        hash = 31 * hash + hashUnordered(this.relations, strict, checkSubcomponents);
+        hash = 31 * hash + hashUnordered(this.resourceRelations, strict, checkSubcomponents);
+        hash = 31 * hash + hashUnordered(this.activities, strict, checkSubcomponents);
+        hash = 31 * hash + hashUnordered(this.places, strict, checkSubcomponents);
+        hash = 31 * hash + hashUnordered(this.subjects, strict, checkSubcomponents);
+        hash = 31 * hash + hashUnordered(this.nationalities, strict, checkSubcomponents);
+        hash = 31 * hash + hashUnordered(this.genders, strict, checkSubcomponents);
+        hash = 31 * hash + hashUnordered(this.generalContexts, strict, checkSubcomponents);
+        hash = 31 * hash + hashUnordered(this.structureOrGenealogies, strict, checkSubcomponents);
+        hash = 31 * hash + hashUnordered(this.mandates, strict, checkSubcomponents);
+        return hash;
+    }
+
     private boolean checkArrayEqual(List<? extends Object> a, List<? extends Object> b, boolean strict, boolean checkSub) {
-        // note: checkSub and strict are currently unused.
-        return a.containsAll(b) && b.containsAll(a);
+        return AbstractData.sameElements(a, b, strict, checkSub);
     }
 
     /**
      * Is Constellation Empty
      *
-     * Checkes whether this constellation is empty.
+     * Checkes whether this constellation is empty, that is, whether it equals a new
+     * Constellation: it has no ID, version, ark or entity type, and every section that equals()
+     * compares is empty.  Looks only at the sizes of the sections, so it takes constant time.
      *
      * @return boolean True if empty, false otherwise
      */
     public boolean isEmpty() {
-        Constellation emptyConstellation = new Constellation();
+        if (this.getID() != 0 || this.getVersion() != 0 || this.getArk() != null)
+            return false;
+        if (this.getMaxDateCount() != AbstractData.MAX_LIST_SIZE)
+            return false;
+        return isEmpty(this.dateList) && this.entityType == null
+            && isEmpty(this.sameAsRelations) && isEmpty(this.entityIDs) && isEmpty(this.sources)
+            && isEmpty(this.legalStatuses) && isEmpty(this.conventionDeclarations)
+            && isEmpty(this.languagesUsed) && isEmpty(this.nameEntries) && isEmpty(this.occupations)
+            && isEmpty(this.biogHists) && isEmpty(this.relations) && isEmpty(this.resourceRelations)
+            && isEmpty(this.activities) && isEmpty(this.places) && isEmpty(this.subjects)
+            && isEmpty(this.nationalities) && isEmpty(this.genders) && isEmpty(this.generalContexts)
+            && isEmpty(this.structureOrGenealogies) && isEmpty(this.mandates);
+    }
+
+    /**
+     * Is Section Empty
+     *
+     * Checks whether a section of this constellation holds no data.  Takes constant time.
+     *
+     * @param section The section
+     * @return boolean True if the section is empty, false otherwise
+     */
+    public boolean isEmpty(ConstellationSection section) {
+        switch (section) {
+            case SNAC_CONTROL_METADATA:
+                return isEmpty(this.snacControlMetadata);
+            case DATES:
+                return isEmpty(this.dateList);
+            case ENTITY_TYPE:
+                return this.entityType == null;
+            case SAME_AS_RELATIONS:
+                return isEmpty(this.sameAsRelations);
+            case ENTITY_IDS:
+                return isEmpty(this.entityIDs);
+            case MAINTENANCE_STATUS:
+                return this.maintenanceStatus == null;
+            case MAINTENANCE_EVENTS:
+                return isEmpty(this.maintenanceEvents);
+            case SOURCES:
+                return isEmpty(this.sources);
+            case LEGAL_STATUSES:
+                return isEmpty(this.legalStatuses);
+            case CONVENTION_DECLARATIONS:
+                return isEmpty(this.conventionDeclarations);
+            case LANGUAGES_USED:
+                return isEmpty(this.languagesUsed);
+            case NAME_ENTRIES:
+                return isEmpty(this.nameEntries);
+            case OCCUPATIONS:
+                return isEmpty(this.occupations);
+            case BIOG_HISTS:
+                return isEmpty(this.biogHists);
+            case RELATIONS:
+                return isEmpty(this.relations);
+            case RESOURCE_RELATIONS:
+                return isEmpty(this.resourceRelations);
+            case ACTIVITIES:
+                return isEmpty(this.activities);
+            case PLACES:
+                return isEmpty(this.places);
+            case SUBJECTS:
+                return isEmpty(this.subjects);
+            case NATIONALITIES:
+                return isEmpty(this.nationalities);
+            case GENDERS:
+                return isEmpty(this.genders);
+            case GENERAL_CONTEXTS:
+                return isEmpty(this.generalContexts);
+            case STRUCTURE_OR_GENEALOGIES:
+                return isEmpty(this.structureOrGenealogies);
+            case MANDATES:
+                return isEmpty(this.mandates);
+            case IMAGES:
+                return isEmpty(this.images);
+            default:
+                return true;
+        }
+    }
 
-        return this.equals(emptyConstellation);
+    /**
+     * Get the non-empty sections
+     *
+     * @return ConstellationSection[] The sections of this constellation that hold data
+     */
+    public Set<ConstellationSection> nonEmptySections() {
+        Set<ConstellationSection> sections = EnumSet.noneOf(ConstellationSection.class);
+        for (ConstellationSection section : SECTIONS) {
+            if (!this.isEmpty(section))
+                sections.add(section);
+        }
+        return sections;
+    }
+
+    private static boolean isEmpty(List<?> list) {
+        return list == null || list.isEmpty();
     }
 
     /**
@@ -1286,150 +1623,101 @@ public class Constellation extends AbstractData {
      * and attaching them to the Source they cite.  This allows for the caller to ask
      * for the list of sources (and associated SCMs) for this constellation.
      *
-     * @return snacdataSource[] A list of Source objects with their SCMs filled out
-    public void collateAllSCMCitationsBySource() {
-        sources = array();
-        // Do a deep copy of the sources
-        foreach (this.sources as source) {
-            sources[source->getID()] = new snacdataSource(source->toArray());
+     * The sources are indexed once, and the tree is walked once, so the time taken is linear in
+     * the number of SCMs however many sources there are.  An SCM is attached to the source it
+     * cites, or failing that to the source with the same ID; sources without an ID can only be
+     * cited directly.  The returned sources are deep copies, so the constellation's own sources
+     * are not changed.  SCMs that cite no source, or a source that is not in this constellation,
+     * are attached to an "Unknown Source".
+     *
+     * @return snacdataSource[] A list of Source objects with their SCMs filled out, followed by
+     * the unknown source
+     */
+    public List<Source> collateAllSCMCitationsBySource() {
+        // Do a deep copy of the sources; those without an ID can only be cited by identity
+        Map<Source, Source> copies = new IdentityHashMap<>();
+        Map<Integer, Source> byID = new HashMap<>();
+        List<Source> sources = new ArrayList<>(this.sources.size() + 1);
+        for (Source source : this.sources) {
+            if (source == null || copies.containsKey(source))
+                continue;
+            Source copy = (Source) source.deepCopy();
+            copies.put(source, copy);
+            if (source.getID() != 0)
+                byID.putIfAbsent(source.getID(), copy);
+            sources.add(copy);
         }
-        sources[0] = new snacdataSource();
-        sources[0]->setDisplayName("Unknown Source");
-
-        parent::collateSCMCitationsBySource(sources);
-
-        foreach (this.mandates as &element)
-            element->collateSCMCitationsBySource(sources);
-
-        foreach (this.structureOrGenealogies as &element)
-            element->collateSCMCitationsBySource(sources);
-
-        foreach (this.generalContexts as &element)
-            element->collateSCMCitationsBySource(sources);
-
-        foreach (this.biogHists as &element)
-            element->collateSCMCitationsBySource(sources);
-
-        foreach (this.conventionDeclarations as &element)
-            element->collateSCMCitationsBySource(sources);
-
-        foreach (this.nationalities as &element)
-            element->collateSCMCitationsBySource(sources);
-
-        foreach (this.sameAsRelations as &element)
-            element->collateSCMCitationsBySource(sources);
-
-        foreach (this.entityIDs as &element)
-            element->collateSCMCitationsBySource(sources);
-
-        foreach (this.languagesUsed as &element)
-            element->collateSCMCitationsBySource(sources);
-
-        foreach (this.legalStatuses as &element)
-            element->collateSCMCitationsBySource(sources);
-
-        foreach (this.sources as &element)
-            element->collateSCMCitationsBySource(sources);
-
-        foreach (this.genders as &element)
-            element->collateSCMCitationsBySource(sources);
-
-        foreach (this.nameEntries as &element)
-            element->collateSCMCitationsBySource(sources);
-
-        foreach (this.occupations as &element)
-            element->collateSCMCitationsBySource(sources);
-
-        foreach (this.relations as &element)
-            element->collateSCMCitationsBySource(sources);
-
-        foreach (this.resourceRelations as &element)
-            element->collateSCMCitationsBySource(sources);
-
-        foreach (this.activities as &element)
-            element->collateSCMCitationsBySource(sources);
-
-        foreach (this.places as &element)
-            element->collateSCMCitationsBySource(sources);
-
-        foreach (this.subjects as &element)
-            element->collateSCMCitationsBySource(sources);
-
+        Source unknown = new Source();
+        unknown.setDisplayName("Unknown Source");
+        sources.add(unknown);
 
+        this.accept(new CitationCollator(this, copies, byID, unknown));
         return sources;
     }
-     */
 
     /**
      * Update All SCM Citations
      *
      * This method goes through each section of the constellation, looking for SCMs and
-     * updating their citations.  If the SCM points to oldSource, this method will update
-     * it to point to newSource.
+     * updating their citations.  If the SCM points to oldSource (or to a source with the same
+     * ID), this method will update it to point to newSource.  Takes one walk of the tree.
      *
-     * @param  snacdataSource oldSource Source to replace
-     * @param  snacdataSource newSource Source to replace with
-    public function updateAllSCMCitations(oldSource, newSource) {
-        parent::updateSCMCitation(oldSource, newSource);
-
-        foreach (this.mandates as &element)
-            element->updateSCMCitation(oldSource, newSource);
-
-        foreach (this.structureOrGenealogies as &element)
-            element->updateSCMCitation(oldSource, newSource);
-
-        foreach (this.generalContexts as &element)
-            element->updateSCMCitation(oldSource, newSource);
-
-        foreach (this.biogHists as &element)
-            element->updateSCMCitation(oldSource, newSource);
-
-        foreach (this.conventionDeclarations as &element)
-            element->updateSCMCitation(oldSource, newSource);
-
-        foreach (this.nationalities as &element)
-            element->updateSCMCitation(oldSource, newSource);
-
-        foreach (this.sameAsRelations as &element)
-            element->updateSCMCitation(oldSource, newSource);
-
-        foreach (this.entityIDs as &element)
-            element->updateSCMCitation(oldSource, newSource);
-
-        foreach (this.languagesUsed as &element)
-            element->updateSCMCitation(oldSource, newSource);
-
-        foreach (this.legalStatuses as &element)
-            element->updateSCMCitation(oldSource, newSource);
-
-        foreach (this.sources as &element)
-            element->updateSCMCitation(oldSource, newSource);
-
-        foreach (this.genders as &element)
-            element->updateSCMCitation(oldSource, newSource);
-
-        foreach (this.nameEntries as &element)
-            element->updateSCMCitation(oldSource, newSource);
-
-        foreach (this.occupations as &element)
-            element->updateSCMCitation(oldSource, newSource);
-
-        foreach (this.relations as &element)
-            element->updateSCMCitation(oldSource, newSource);
-
-        foreach (this.resourceRelations as &element)
-            element->updateSCMCitation(oldSource, newSource);
-
-        foreach (this.activities as &element)
-            element->updateSCMCitation(oldSource, newSource);
+     * @param oldSource Source to replace
+     * @param newSource Source to replace with
+     */
+    public void updateAllSCMCitations(Source oldSource, Source newSource) {
+        if (oldSource == null)
+            return;
+        Map<Integer, Source> byID = null;
+        if (oldSource.getID() != 0)
+            byID = Collections.singletonMap(oldSource.getID(), newSource);
+        this.accept(new AbstractData.CitationUpdater(this, byID, oldSource, newSource));
+    }
 
-        foreach (this.places as &element)
-            element->updateSCMCitation(oldSource, newSource);
+    /**
+     * Fingerprint the constellation
+     *
+     * Computes a 128-bit fingerprint of each section, and a root fingerprint of the whole
+     * constellation, in one pass over its content.  Comparing fingerprints stored from an earlier
+     * export tells whether the constellation, and which of its sections, changed, without keeping
+     * the earlier copy.
+     *
+     * The fingerprints are kept, and returned by later calls, once cacheHashCode() has been called
+     * on the constellation, since it is then not expected to change.
+     *
+     * @param includeIDs Whether to include the IDs, versions and operations of the constellation
+     * and its elements
+     * @return ConstellationFingerprint The fingerprints of the constellation
+     */
+    public ConstellationFingerprint fingerprint(boolean includeIDs) {
+        int index = includeIDs ? 1 : 0;
+        ConstellationFingerprint[] cached = this.fingerprints;
+        if (cached != null && cached[index] != null)
+            return cached[index];
 
-        foreach (this.subjects as &element)
-            element->updateSCMCitation(oldSource, newSource);
+        ConstellationFingerprint fingerprint = ConstellationFingerprint.of(this, includeIDs);
+        if (this.isHashCodeCached()) {
+            if (cached == null)
+                cached = new ConstellationFingerprint[2];
+            cached[index] = fingerprint;
+            this.fingerprints = cached;
+        }
+        return fingerprint;
     }
+
+    /**
+     * Perform a diff
+     *
+     * Compares this constellation to the "other" without checking IDs and versions, and without
+     * checking sub-components.
+     *
+     * @param other Constellation object to diff
+     * @return Constellation[] The "intersection," "this," and "other" Constellations
+     * @see #diff(Constellation, boolean, boolean)
      */
+    public Constellation[] diff(Constellation other) {
+        return this.diff(other, false, false);
+    }
 
     /**
      * Perform a diff
@@ -1442,164 +1730,276 @@ public class Constellation extends AbstractData {
      * included in the intersection.  If any of the return constellations would be empty, they will be
      * returned as `null` instead.
      *
+     * Each section is diffed by hashing the elements of the other's section, so the diff takes time
+     * linear in the size of the constellations.  An element is matched with at most one element of
+     * the other, so repeated elements are kept in step.
+     *
      * This method does NOT diff maintenance history, maintenance status, or images.
      *
-     * @param  snacdataConstellation other Constellation object to diff
-     * @param boolean strict optional If true, will check IDs and Versions.  Else (default) only checks data
-     * @param boolean checkSubcomponents optional Whether or not to check SNACControlMetadata, nameEntries contributors & components
-     * @return snacdataConstellation[] Associative array of "intersection," "this," and "other" Constellations.
+     * @param other Constellation object to diff
+     * @param strict If true, will check IDs and Versions.  Else only checks data
+     * @param checkSubcomponents Whether or not to check SNACControlMetadata, nameEntries contributors & components
+     * @return Constellation[] The "intersection," "this," and "other" Constellations, at
+     * DIFF_INTERSECTION, DIFF_THIS and DIFF_OTHER
+     */
     public Constellation[] diff(Constellation other, boolean strict, boolean checkSubcomponents) {
-        return = array (
-            "intersection" => null,
-            "this" => null,
-            "other" => null
-        );
-
-        if (other == null || ! (other instanceof Constellation)) {
-            return["this"] = this;
-            return return;
+        Constellation[] result = new Constellation[3];
+
+        if (other == null) {
+            result[DIFF_THIS] = this;
+            return result;
         }
 
-        intersection = new snacdataConstellation();
-        first = new snacdataConstellation();
-        second = new snacdataConstellation();
+        Constellation intersection = new Constellation();
+        Constellation first = new Constellation();
+        Constellation second = new Constellation();
+        intersection.allocateLists();
+        first.allocateLists();
+        second.allocateLists();
 
+        if (this.getArk() != null && this.getArk().equals(other.getArk())) {
+            intersection.setArk(this.getArk());
+        }
 
-        if (this.getArk() === other->getArk()) {
-            intersection->setArkID(this.getArk());
+        if (this.getEntityType() != null && this.getEntityType().equals(other.getEntityType())) {
+            intersection.setEntityType(this.getEntityType());
         }
 
-        if (this.getEntityType() != null && this.getEntityType()->equals(other->getEntityType(), strict, checkSubcomponents)) {
-            intersection->setEntityType(this.getEntityType());
+        AbstractData.diffArray(this.sameAsRelations, other.sameAsRelations, strict, checkSubcomponents,
+                intersection.sameAsRelations, first.sameAsRelations, second.sameAsRelations);
+        AbstractData.diffArray(this.entityIDs, other.entityIDs, strict, checkSubcomponents,
+                intersection.entityIDs, first.entityIDs, second.entityIDs);
+        AbstractData.diffArray(this.sources, other.sources, strict, checkSubcomponents,
+                intersection.sources, first.sources, second.sources);
+        AbstractData.diffArray(this.legalStatuses, other.legalStatuses, strict, checkSubcomponents,
+                intersection.legalStatuses, first.legalStatuses, second.legalStatuses);
+        AbstractData.diffArray(this.conventionDeclarations, other.conventionDeclarations, strict, checkSubcomponents,
+                intersection.conventionDeclarations, first.conventionDeclarations, second.conventionDeclarations);
+        AbstractData.diffArray(this.languagesUsed, other.languagesUsed, strict, checkSubcomponents,
+                intersection.languagesUsed, first.languagesUsed, second.languagesUsed);
+        AbstractData.diffArray(this.nameEntries, other.nameEntries, strict, checkSubcomponents,
+                intersection.nameEntries, first.nameEntries, second.nameEntries);
+        AbstractData.diffArray(this.occupations, other.occupations, strict, checkSubcomponents,
+                intersection.occupations, first.occupations, second.occupations);
+        AbstractData.diffArray(this.biogHists, other.biogHists, strict, checkSubcomponents,
+                intersection.biogHists, first.biogHists, second.biogHists);
+        AbstractData.diffArray(this.relations, other.relations, strict, checkSubcomponents,
+                intersection.relations, first.relations, second.relations);
+        AbstractData.diffArray(this.resourceRelations, other.resourceRelations, strict, checkSubcomponents,
+                intersection.resourceRelations, first.resourceRelations, second.resourceRelations);
+        AbstractData.diffArray(this.activities, other.activities, strict, checkSubcomponents,
+                intersection.activities, first.activities, second.activities);
+        AbstractData.diffArray(this.places, other.places, strict, checkSubcomponents,
+                intersection.places, first.places, second.places);
+        AbstractData.diffArray(this.subjects, other.subjects, strict, checkSubcomponents,
+                intersection.subjects, first.subjects, second.subjects);
+        AbstractData.diffArray(this.nationalities, other.nationalities, strict, checkSubcomponents,
+                intersection.nationalities, first.nationalities, second.nationalities);
+        AbstractData.diffArray(this.genders, other.genders, strict, checkSubcomponents,
+                intersection.genders, first.genders, second.genders);
+        AbstractData.diffArray(this.generalContexts, other.generalContexts, strict, checkSubcomponents,
+                intersection.generalContexts, first.generalContexts, second.generalContexts);
+        AbstractData.diffArray(this.structureOrGenealogies, other.structureOrGenealogies, strict, checkSubcomponents,
+                intersection.structureOrGenealogies, first.structureOrGenealogies, second.structureOrGenealogies);
+        AbstractData.diffArray(this.mandates, other.mandates, strict, checkSubcomponents,
+                intersection.mandates, first.mandates, second.mandates);
+        AbstractData.diffArray(this.dateList, other.dateList, strict, checkSubcomponents,
+                intersection.dateList, first.dateList, second.dateList);
+        AbstractData.diffArray(this.snacControlMetadata, other.snacControlMetadata, strict, checkSubcomponents,
+                intersection.snacControlMetadata, first.snacControlMetadata, second.snacControlMetadata);
+        intersection.trimLists();
+        first.trimLists();
+        second.trimLists();
+
+        if (!intersection.isEmpty())
+            result[DIFF_INTERSECTION] = intersection;
+
+        if (!first.isEmpty()) {
+            first.setID(this.getID());
+            first.setVersion(this.getVersion());
+            first.setArk(this.getArk());
+            first.setEntityType(this.getEntityType());
+            result[DIFF_THIS] = first;
         }
 
-        result = this.diffArray(this.getSameAsRelations(), other->getSameAsRelations(), strict, checkSubcomponents);
-        intersection->sameAsRelations = result["intersection"];
-        first->sameAsRelations = result["first"];
-        second->sameAsRelations = result["second"];
-
-        result = this.diffArray(this.getEntityIDs(), other->getEntityIDs(), strict, checkSubcomponents);
-        intersection->entityIDs = result["intersection"];
-        first->entityIDs = result["first"];
-        second->entityIDs = result["second"];
-
-        result = this.diffArray(this.getSources(), other->getSources(), strict, checkSubcomponents);
-        intersection->sources = result["intersection"];
-        first->sources = result["first"];
-        second->sources = result["second"];
-
-        result = this.diffArray(this.getLegalStatuses(), other->getLegalStatuses(), strict, checkSubcomponents);
-        intersection->legalStatuses = result["intersection"];
-        first->legalStatuses = result["first"];
-        second->legalStatuses = result["second"];
-
-        result = this.diffArray(this.getConventionDeclarations(), other->getConventionDeclarations(), strict, checkSubcomponents);
-        intersection->conventionDeclarations = result["intersection"];
-        first->conventionDeclarations = result["first"];
-        second->conventionDeclarations = result["second"];
-
-        result = this.diffArray(this.getLanguagesUsed(), other->getLanguagesUsed(), strict, checkSubcomponents);
-        intersection->languagesUsed = result["intersection"];
-        first->languagesUsed = result["first"];
-        second->languagesUsed = result["second"];
-
-        result = this.diffArray(this.getNameEntries(), other->getNameEntries(), strict, checkSubcomponents);
-        intersection->nameEntries = result["intersection"];
-        first->nameEntries = result["first"];
-        second->nameEntries = result["second"];
-
-        result = this.diffArray(this.getOccupations(), other->getOccupations(), strict, checkSubcomponents);
-        intersection->occupations = result["intersection"];
-        first->occupations = result["first"];
-        second->occupations = result["second"];
-
-        result = this.diffArray(this.getBiogHists(), other->getBiogHists(), strict, checkSubcomponents);
-        intersection->biogHists = result["intersection"];
-        first->biogHists = result["first"];
-        second->biogHists = result["second"];
-
-        result = this.diffArray(this.getRelations(), other->getRelations(), strict, checkSubcomponents);
-        intersection->relations = result["intersection"];
-        first->relations = result["first"];
-        second->relations = result["second"];
-
-        result = this.diffArray(this.getResourceRelations(), other->getResourceRelations(), strict, checkSubcomponents);
-        intersection->resourceRelations = result["intersection"];
-        first->resourceRelations = result["first"];
-        second->resourceRelations = result["second"];
-
-        result = this.diffArray(this.getActivities(), other->getActivities(), strict, checkSubcomponents);
-        intersection->activities = result["intersection"];
-        first->activities = result["first"];
-        second->activities = result["second"];
-
-        result = this.diffArray(this.getPlaces(), other->getPlaces(), strict, checkSubcomponents);
-        intersection->places = result["intersection"];
-        first->places = result["first"];
-        second->places = result["second"];
-
-        result = this.diffArray(this.getSubjects(), other->getSubjects(), strict, checkSubcomponents);
-        intersection->subjects = result["intersection"];
-        first->subjects = result["first"];
-        second->subjects = result["second"];
-
-        result = this.diffArray(this.getNationalities(), other->getNationalities(), strict, checkSubcomponents);
-        intersection->nationalities = result["intersection"];
-        first->nationalities = result["first"];
-        second->nationalities = result["second"];
-
-        result = this.diffArray(this.getGenders(), other->getGenders(), strict, checkSubcomponents);
-        intersection->genders = result["intersection"];
-        first->genders = result["first"];
-        second->genders = result["second"];
-
-        result = this.diffArray(this.getGeneralContexts(), other->getGeneralContexts(), strict, checkSubcomponents);
-        intersection->generalContexts = result["intersection"];
-        first->generalContexts = result["first"];
-        second->generalContexts = result["second"];
-
-        result = this.diffArray(this.getStructureOrGenealogies(), other->getStructureOrGenealogies(), strict, checkSubcomponents);
-        intersection->structureOrGenealogies = result["intersection"];
-        first->structureOrGenealogies = result["first"];
-        second->structureOrGenealogies = result["second"];
-
-        result = this.diffArray(this.getMandates(), other->getMandates(), strict, checkSubcomponents);
-        intersection->mandates = result["intersection"];
-        first->mandates = result["first"];
-        second->mandates = result["second"];
-
-        result = this.diffArray(this.getDateList(), other->getDateList(), strict, checkSubcomponents);
-        intersection->dateList = result["intersection"];
-        first->dateList = result["first"];
-        second->dateList = result["second"];
-
-        result = this.diffArray(this.getSNACControlMetadata(), other->getSNACControlMetadata(), strict, checkSubcomponents);
-        intersection->snacControlMetadata = result["intersection"];
-        first->snacControlMetadata = result["first"];
-        second->snacControlMetadata = result["second"];
-
-        if (!intersection->isEmpty())
-            return["intersection"] = intersection;
-
-        if (!first->isEmpty()) {
-            first->setID(this.getID());
-            first->setVersion(this.getVersion());
-            first->setArkID(this.getArk());
-            first->setEntityType(this.getEntityType());
-            return["this"] = first;
+        if (!second.isEmpty()) {
+            second.setID(other.getID());
+            second.setVersion(other.getVersion());
+            second.setArk(other.getArk());
+            second.setEntityType(other.getEntityType());
+            result[DIFF_OTHER] = second;
         }
 
-        if (!second->isEmpty()) {
-            second->setID(other->getID());
-            second->setVersion(other->getVersion());
-            second->setArkID(other->getArk());
-            second->setEntityType(other->getEntityType());
-            return["other"] = second;
+        return result;
+    }
+
+    /**
+     * Freeze the constellation
+     *
+     * Makes this constellation and everything in it read-only, in place: each list becomes an
+     * unmodifiable list over an array, each term is replaced by a read-only copy (or by the
+     * TermRegistry's shared instance), and each hash code is cached.  Terms held elsewhere as
+     * well are left as they were.  The setters and add and remove methods of a frozen object throw
+     * UnsupportedOperationException, as do the lists returned by its getters.  Changes are no
+     * longer tracked.
+     *
+     * Since nothing in it can change, a frozen constellation may be read by any number of threads
+     * at once without copying or locking.  Share it through the snapshot returned, which
+     * publishes it safely; to edit it, thaw() a copy.
+     *
+     * @return ConstellationSnapshot The frozen constellation
+     */
+    public ConstellationSnapshot freeze() {
+        if (!this.isFrozen()) {
+            this.changeTracker = null;
+            this.freezeTree();
+        }
+        return new ConstellationSnapshot(this);
+    }
+
+    /**
+     * Track changes
+     *
+     * Records the current state of this constellation, so that changeSet() can later find the
+     * elements that were inserted, updated or deleted since.  Changes are found however they were
+     * made: through the setters and add and remove methods, through the lists returned by the
+     * getters, or to the elements themselves.  Calling this again records the state afresh, as
+     * after the changes have been saved.
+     *
+     * @throws UnsupportedOperationException If the constellation is frozen
+     */
+    public void trackChanges() {
+        if (this.isFrozen())
+            throw new UnsupportedOperationException("A frozen Constellation does not change; "
+                + "thaw() a copy to track its changes");
+        ChangeTracker tracker = new ChangeTracker(this.changeHeader());
+        tracker.record(ConstellationSection.SNAC_CONTROL_METADATA, this.snacControlMetadata);
+        tracker.record(ConstellationSection.DATES, this.dateList);
+        tracker.record(ConstellationSection.SAME_AS_RELATIONS, this.sameAsRelations);
+        tracker.record(ConstellationSection.ENTITY_IDS, this.entityIDs);
+        tracker.record(ConstellationSection.MAINTENANCE_EVENTS, this.maintenanceEvents);
+        tracker.record(ConstellationSection.SOURCES, this.sources);
+        tracker.record(ConstellationSection.LEGAL_STATUSES, this.legalStatuses);
+        tracker.record(ConstellationSection.CONVENTION_DECLARATIONS, this.conventionDeclarations);
+        tracker.record(ConstellationSection.LANGUAGES_USED, this.languagesUsed);
+        tracker.record(ConstellationSection.NAME_ENTRIES, this.nameEntries);
+        tracker.record(ConstellationSection.OCCUPATIONS, this.occupations);
+        tracker.record(ConstellationSection.BIOG_HISTS, this.biogHists);
+        tracker.record(ConstellationSection.RELATIONS, this.relations);
+        tracker.record(ConstellationSection.RESOURCE_RELATIONS, this.resourceRelations);
+        tracker.record(ConstellationSection.ACTIVITIES, this.activities);
+        tracker.record(ConstellationSection.PLACES, this.places);
+        tracker.record(ConstellationSection.SUBJECTS, this.subjects);
+        tracker.record(ConstellationSection.NATIONALITIES, this.nationalities);
+        tracker.record(ConstellationSection.GENDERS, this.genders);
+        tracker.record(ConstellationSection.GENERAL_CONTEXTS, this.generalContexts);
+        tracker.record(ConstellationSection.STRUCTURE_OR_GENEALOGIES, this.structureOrGenealogies);
+        tracker.record(ConstellationSection.MANDATES, this.mandates);
+        tracker.record(ConstellationSection.IMAGES, this.images);
+        this.changeTracker = tracker;
+    }
+
+    /**
+     * Stop tracking changes
+     *
+     * Drops the state recorded by trackChanges().
+     */
+    public void stopTrackingChanges() {
+        this.changeTracker = null;
+    }
+
+    /**
+     * Is tracking changes
+     *
+     * @return boolean True if trackChanges() has been called, and stopTrackingChanges() not since
+     */
+    @JsonIgnore
+    public boolean isTrackingChanges() {
+        return this.changeTracker != null;
+    }
+
+    /**
+     * Get the change set
+     *
+     * Builds a constellation holding only the elements of this one that changed since
+     * trackChanges() was called, to send for saving in place of the whole constellation.  Each
+     * element's operation is set: INSERT for an element that was added (whose sub-elements are
+     * cleansed as well), UPDATE for one whose data, ID or version changed, and DELETE for one
+     * that was removed.  Removed elements that were never saved, having no ID, are left out.
+     * An element replaced by a copy with the same ID counts as updated, not as removed and added.
+     *
+     * Like the results of diff(), the change set has this constellation's ID, version, ark and
+     * entity type, and shares its elements rather than copying them.  If the ark, entity type,
+     * maintenance status, status or flags changed, it also carries those and its operation is
+     * UPDATE.
+     *
+     * @return Constellation The changed elements, or null if nothing changed
+     * @throws IllegalStateException If changes are not being tracked
+     */
+    public Constellation changeSet() {
+        ChangeTracker tracker = this.changeTracker;
+        if (tracker == null)
+            throw new IllegalStateException("Changes are not being tracked; call trackChanges() first");
+
+        Constellation changes = new Constellation();
+        changes.allocateLists();
+        boolean changed = false;
+        changed |= tracker.changes(ConstellationSection.SNAC_CONTROL_METADATA, this.snacControlMetadata, changes.snacControlMetadata);
+        changed |= tracker.changes(ConstellationSection.DATES, this.dateList, changes.dateList);
+        changed |= tracker.changes(ConstellationSection.SAME_AS_RELATIONS, this.sameAsRelations, changes.sameAsRelations);
+        changed |= tracker.changes(ConstellationSection.ENTITY_IDS, this.entityIDs, changes.entityIDs);
+        changed |= tracker.changes(ConstellationSection.MAINTENANCE_EVENTS, this.maintenanceEvents, changes.maintenanceEvents);
+        changed |= tracker.changes(ConstellationSection.SOURCES, this.sources, changes.sources);
+        changed |= tracker.changes(ConstellationSection.LEGAL_STATUSES, this.legalStatuses, changes.legalStatuses);
+        changed |= tracker.changes(ConstellationSection.CONVENTION_DECLARATIONS, this.conventionDeclarations, changes.conventionDeclarations);
+        changed |= tracker.changes(ConstellationSection.LANGUAGES_USED, this.languagesUsed, changes.languagesUsed);
+        changed |= tracker.changes(ConstellationSection.NAME_ENTRIES, this.nameEntries, changes.nameEntries);
+        changed |= tracker.changes(ConstellationSection.OCCUPATIONS, this.occupations, changes.occupations);
+        changed |= tracker.changes(ConstellationSection.BIOG_HISTS, this.biogHists, changes.biogHists);
+        changed |= tracker.changes(ConstellationSection.RELATIONS, this.relations, changes.relations);
+        changed |= tracker.changes(ConstellationSection.RESOURCE_RELATIONS, this.resourceRelations, changes.resourceRelations);
+        changed |= tracker.changes(ConstellationSection.ACTIVITIES, this.activities, changes.activities);
+        changed |= tracker.changes(ConstellationSection.PLACES, this.places, changes.places);
+        changed |= tracker.changes(ConstellationSection.SUBJECTS, this.subjects, changes.subjects);
+        changed |= tracker.changes(ConstellationSection.NATIONALITIES, this.nationalities, changes.nationalities);
+        changed |= tracker.changes(ConstellationSection.GENDERS, this.genders, changes.genders);
+        changed |= tracker.changes(ConstellationSection.GENERAL_CONTEXTS, this.generalContexts, changes.generalContexts);
+        changed |= tracker.changes(ConstellationSection.STRUCTURE_OR_GENEALOGIES, this.structureOrGenealogies, changes.structureOrGenealogies);
+        changed |= tracker.changes(ConstellationSection.MANDATES, this.mandates, changes.mandates);
+        changed |= tracker.changes(ConstellationSection.IMAGES, this.images, changes.images);
+
+        if (tracker.headerChanged(this.changeHeader())) {
+            changes.setOperation(AbstractData.OPERATION_UPDATE);
+            changes.maintenanceStatus = this.maintenanceStatus;
+            changes.maintenanceAgency = this.maintenanceAgency;
+            changes.status = this.status;
+            changes.flags = copyList(this.flags);
+            changed = true;
         }
+        if (!changed)
+            return null;
 
-        return return;
+        changes.trimLists();
+        changes.setID(this.getID());
+        changes.setVersion(this.getVersion());
+        changes.setArk(this.getArk());
+        changes.setEntityType(this.getEntityType());
+        return changes;
     }
+
+    /**
+     * The scalar properties compared by changeSet(), by name
      */
+    private Map<String, Object> changeHeader() {
+        Map<String, Object> header = new LinkedHashMap<>();
+        header.put("ark", this.ark);
+        header.put("entityType", this.entityType);
+        header.put("maintenanceStatus", this.maintenanceStatus);
+        header.put("maintenanceAgency", this.maintenanceAgency);
+        header.put("status", this.status);
+        header.put("flags", this.flags);
+        return header;
+    }
 
     /**
      * Combine Into
@@ -1608,347 +2008,290 @@ public class Constellation extends AbstractData {
      * removing IDs and version numbers for all elements except sources.  Sets all
      * other operations to INSERT so they are considered new in this Constellation.
      *
-     * @return boolean True if success, false otherwise (currently no failure)
+     * @param other The Constellation to combine into this one
+     * @see #combineAll(List)
+     */
     public void combine(Constellation other) {
-        //      merge the sources, keeping a list of other's sources
-        // do a diff of this and other (strict = false)
-        // update the "other" sources, if we can?
-        // foreach over the other and combine with this (they won't overlap: not in intersection)
-        //      - remove other's ID, Version, and set operation = INSERT
-        // return
-
-        diff = this.diff(other, false);
-        combine = diff["other"];
-
-        if (combine == null || combine->isEmpty()) {
-            return true;
-        }
-
-        // Dates, gained by AbstractData
-        foreach (combine->getDateList() as &element) {
-            element->setID(null);
-            element->setVersion(null);
-            element->setOperation(snacdataAbstractData::OPERATION_INSERT);
-            element->cleanseSubElements();
-            this.addDate(element);
-        }
-
-        // SCM, gained by AbstractData (but shouldn't be used on the high-level constellation)
-        foreach (combine->snacControlMetadata as &element) {
-            element->setID(null);
-            element->setVersion(null);
-            element->setOperation(snacdataAbstractData::OPERATION_INSERT);
-            element->cleanseSubElements();
-            this.addSNACControlMetadata(element);
-        }
-
-        foreach (combine->sources as &element) {
-            // Sources need their IDs in tact if we plan to fix up SCMs
-            element->setVersion(null);
-            element->setOperation(snacdataAbstractData::OPERATION_INSERT);
-            element->cleanseSubElements();
-            this.addSource(element);
-        }
-
-        foreach (combine->mandates as &element) {
-            element->setID(null);
-            element->setVersion(null);
-            element->setOperation(snacdataAbstractData::OPERATION_INSERT);
-            element->cleanseSubElements();
-            this.addMandate(element);
-        }
-
-        foreach (combine->structureOrGenealogies as &element) {
-            element->setID(null);
-            element->setVersion(null);
-            element->setOperation(snacdataAbstractData::OPERATION_INSERT);
-            element->cleanseSubElements();
-            this.addStructureOrGenealogy(element);
-        }
-
-        foreach (combine->generalContexts as &element) {
-            element->setID(null);
-            element->setVersion(null);
-            element->setOperation(snacdataAbstractData::OPERATION_INSERT);
-            element->cleanseSubElements();
-            this.addGeneralContext(element);
+        this.combineAll(Collections.singletonList(other));
+    }
+
+    /**
+     * Combine Many Into
+     *
+     * Combines the data from each of the Constellations passed in into this Constellation.  An
+     * element is added unless this Constellation, or an earlier input, already holds one with the
+     * same data (ignoring IDs and versions, as in diff(other, false, false)).  Each element is
+     * hashed once, so combining many records costs no more than a pass over them all.
+     *
+     * Added elements are cleansed: their IDs and versions (and those of their sub-elements) are
+     * removed, and their operations set to INSERT.  Sources keep their IDs, so that SCMs still
+     * resolve.  SCMs citing a source that was dropped as a duplicate are pointed at the source
+     * kept in its place.  BiogHists are appended to this Constellation's first BiogHist, if it
+     * has one.
+     *
+     * The added elements are moved, not copied: they are shared with the inputs, which should
+     * not be used afterwards.  Maintenance history, maintenance status, and images are not
+     * combined.
+     *
+     * @param others The Constellations to combine into this one, in order.  Nulls are skipped.
+     */
+    public void combineAll(List<Constellation> others) {
+        // Sources go first, so that every citation to a dropped source is known before the
+        // elements that may cite it are added
+        Map<Integer, Source> citations = new HashMap<>();
+        Map<Object, Source> kept = new HashMap<>();
+        for (Source source : this.sources)
+            kept.putIfAbsent(DataKey.of(source, false, false), source);
+        for (Constellation other : others) {
+            if (other == null || other == this || other.sources == null)
+                continue;
+            for (Source source : other.sources) {
+                if (source == null)
+                    continue;
+                Object key = DataKey.of(source, false, false);
+                Source existing = kept.get(key);
+                if (existing != null) {
+                    if (source.getID() != 0 && source.getID() != existing.getID())
+                        citations.put(source.getID(), existing);
+                    continue;
+                }
+                kept.put(key, source);
+                // Sources need their IDs in tact if we plan to fix up SCMs
+                source.setVersion(0);
+                source.setOperation(AbstractData.OPERATION_INSERT);
+                source.cleanseSubElements(AbstractData.OPERATION_INSERT);
+                this.addSource(source);
+            }
         }
 
-        foreach (combine->biogHists as &element) {
-            element->setID(null);
-            element->setVersion(null);
-            element->setOperation(snacdataAbstractData::OPERATION_INSERT);
-            element->cleanseSubElements();
+        this.combineSection(this.dateList, others, c -> c.dateList, this::addDate, citations);
+        this.combineSection(this.snacControlMetadata, others, c -> c.snacControlMetadata, this::addSNACControlMetadata, citations);
+        this.combineSection(this.mandates, others, c -> c.mandates, this::addMandate, citations);
+        this.combineSection(this.structureOrGenealogies, others, c -> c.structureOrGenealogies, this::addStructureOrGenealogy, citations);
+        this.combineSection(this.generalContexts, others, c -> c.generalContexts, this::addGeneralContext, citations);
+        this.combineSection(this.biogHists, others, c -> c.biogHists, element -> {
             // Add if a new one, append to the first bioghist if not
-            if (empty(this.biogHists)) {
+            if (this.biogHists.isEmpty()) {
                 this.addBiogHist(element);
             } else {
-                this.biogHists[0]->append(element);
+                this.modified("biogHists");
+                this.biogHists.get(0).append(element);
             }
+        }, citations);
+        this.combineSection(this.conventionDeclarations, others, c -> c.conventionDeclarations, this::addConventionDeclaration, citations);
+        this.combineSection(this.nationalities, others, c -> c.nationalities, this::addNationality, citations);
+        this.combineSection(this.sameAsRelations, others, c -> c.sameAsRelations, this::addSameAsRelation, citations);
+        this.combineSection(this.entityIDs, others, c -> c.entityIDs, this::addEntityID, citations);
+        this.combineSection(this.languagesUsed, others, c -> c.languagesUsed, this::addLanguageUsed, citations);
+        this.combineSection(this.legalStatuses, others, c -> c.legalStatuses, this::addLegalStatus, citations);
+        this.combineSection(this.genders, others, c -> c.genders, this::addGender, citations);
+        this.combineSection(this.nameEntries, others, c -> c.nameEntries, this::addNameEntry, citations);
+        this.combineSection(this.occupations, others, c -> c.occupations, this::addOccupation, citations);
+        this.combineSection(this.relations, others, c -> c.relations, this::addRelation, citations);
+        this.combineSection(this.resourceRelations, others, c -> c.resourceRelations, this::addResourceRelation, citations);
+        this.combineSection(this.activities, others, c -> c.activities, this::addActivity, citations);
+        this.combineSection(this.places, others, c -> c.places, this::addPlace, citations);
+        this.combineSection(this.subjects, others, c -> c.subjects, this::addSubject, citations);
+    }
+
+    /**
+     * Combine one section of many Constellations into this one
+     *
+     * @param section This Constellation's section
+     * @param others The Constellations to combine
+     * @param sectionOf Gets the section of another Constellation, from its field, so that empty
+     * sections are not given lists of their own
+     * @param add Adds an element to this Constellation's section
+     * @param citations The source to cite in place of each dropped source ID
+     */
+    private <T extends AbstractData> void combineSection(List<T> section, List<Constellation> others,
+            Function<Constellation, List<T>> sectionOf, Consumer<? super T> add, Map<Integer, Source> citations) {
+        Set<Object> seen = new HashSet<>();
+        if (section != null) {
+            for (T element : section)
+                seen.add(DataKey.of(element, false, false));
         }
-
-        foreach (combine->conventionDeclarations as &element) {
-            element->setID(null);
-            element->setVersion(null);
-            element->setOperation(snacdataAbstractData::OPERATION_INSERT);
-            element->cleanseSubElements();
-            this.addConventionDeclaration(element);
-        }
-
-        foreach (combine->nationalities as &element) {
-            element->setID(null);
-            element->setVersion(null);
-            element->setOperation(snacdataAbstractData::OPERATION_INSERT);
-            element->cleanseSubElements();
-            this.addNationality(element);
-        }
-
-        foreach (combine->sameAsRelations as &element) {
-            element->setID(null);
-            element->setVersion(null);
-            element->setOperation(snacdataAbstractData::OPERATION_INSERT);
-            element->cleanseSubElements();
-            this.addSameAsRelation(element);
-        }
-
-        foreach (combine->entityIDs as &element) {
-            element->setID(null);
-            element->setVersion(null);
-            element->setOperation(snacdataAbstractData::OPERATION_INSERT);
-            element->cleanseSubElements();
-            this.addEntityID(element);
-        }
-
-        foreach (combine->languagesUsed as &element) {
-            element->setID(null);
-            element->setVersion(null);
-            element->setOperation(snacdataAbstractData::OPERATION_INSERT);
-            element->cleanseSubElements();
-            this.addLanguageUsed(element);
-        }
-
-        foreach (combine->legalStatuses as &element) {
-            element->setID(null);
-            element->setVersion(null);
-            element->setOperation(snacdataAbstractData::OPERATION_INSERT);
-            element->cleanseSubElements();
-            this.addLegalStatus(element);
-        }
-
-        foreach (combine->genders as &element) {
-            element->setID(null);
-            element->setVersion(null);
-            element->setOperation(snacdataAbstractData::OPERATION_INSERT);
-            element->cleanseSubElements();
-            this.addGender(element);
-        }
-
-        foreach (combine->nameEntries as &element) {
-            element->setID(null);
-            element->setVersion(null);
-            element->setOperation(snacdataAbstractData::OPERATION_INSERT);
-            element->cleanseSubElements();
-            this.addNameEntry(element);
-        }
-
-        foreach (combine->occupations as &element) {
-            element->setID(null);
-            element->setVersion(null);
-            element->setOperation(snacdataAbstractData::OPERATION_INSERT);
-            element->cleanseSubElements();
-            this.addOccupation(element);
-        }
-
-        foreach (combine->relations as &element) {
-            element->setID(null);
-            element->setVersion(null);
-            element->setOperation(snacdataAbstractData::OPERATION_INSERT);
-            element->cleanseSubElements();
-            this.addRelation(element);
-        }
-
-        foreach (combine->resourceRelations as &element) {
-            element->setID(null);
-            element->setVersion(null);
-            element->setOperation(snacdataAbstractData::OPERATION_INSERT);
-            element->cleanseSubElements();
-            this.addResourceRelation(element);
-        }
-
-        foreach (combine->activities as &element) {
-            element->setID(null);
-            element->setVersion(null);
-            element->setOperation(snacdataAbstractData::OPERATION_INSERT);
-            element->cleanseSubElements();
-            this.addActivity(element);
-        }
-
-        foreach (combine->places as &element) {
-            element->setID(null);
-            element->setVersion(null);
-            element->setOperation(snacdataAbstractData::OPERATION_INSERT);
-            element->cleanseSubElements();
-            this.addPlace(element);
-        }
-
-        foreach (combine->subjects as &element) {
-            element->setID(null);
-            element->setVersion(null);
-            element->setOperation(snacdataAbstractData::OPERATION_INSERT);
-            element->cleanseSubElements();
-            this.addSubject(element);
+        for (Constellation other : others) {
+            if (other == null || other == this)
+                continue;
+            List<T> elements = sectionOf.apply(other);
+            if (elements == null)
+                continue;
+            for (T element : elements) {
+                if (element == null || !seen.add(DataKey.of(element, false, false)))
+                    continue;
+                element.setID(0);
+                element.setVersion(0);
+                element.setOperation(AbstractData.OPERATION_INSERT);
+                element.cleanseSubElements(AbstractData.OPERATION_INSERT);
+                element.updateSCMCitations(citations);
+                add.accept(element);
+            }
         }
-
-        return true;
     }
-     */
 
+    /**
+     * {@inheritDoc}
+     */
     public void cleanseSubElements(String operation) {
         super.cleanseSubElements(operation);
+        this.retainedJSON = null;
+    }
 
+    /**
+     * {@inheritDoc}
+     */
+    protected void acceptChildren(DataVisitor visitor) {
+        super.acceptChildren(visitor);
+        acceptAll(visitor, this.sameAsRelations);
+        acceptAll(visitor, this.entityIDs);
+        acceptAll(visitor, this.maintenanceEvents);
+        acceptAll(visitor, this.sources);
+        acceptAll(visitor, this.legalStatuses);
+        acceptAll(visitor, this.conventionDeclarations);
+        acceptAll(visitor, this.languagesUsed);
+        acceptAll(visitor, this.nameEntries);
+        acceptAll(visitor, this.occupations);
+        acceptAll(visitor, this.biogHists);
+        acceptAll(visitor, this.relations);
+        acceptAll(visitor, this.resourceRelations);
+        acceptAll(visitor, this.activities);
+        acceptAll(visitor, this.places);
+        acceptAll(visitor, this.subjects);
+        acceptAll(visitor, this.nationalities);
+        acceptAll(visitor, this.genders);
+        acceptAll(visitor, this.generalContexts);
+        acceptAll(visitor, this.structureOrGenealogies);
+        acceptAll(visitor, this.mandates);
+        acceptAll(visitor, this.images);
+    }
 
-        // SCM, gained by AbstractData (but shouldn't be used on the high-level constellation)
-        for (AbstractData element : snacControlMetadata) {
-            element.setID(0);
-            element.setVersion(0);
-            element.setOperation(operation);
-            element.cleanseSubElements(operation);
-        }
-
-        for (AbstractData element : sources) {
-            element.setID(0);
-            element.setVersion(0);
-            element.setOperation(operation);
-            element.cleanseSubElements(operation);
-        }
-
-        for (AbstractData element : mandates) {
-            element.setID(0);
-            element.setVersion(0);
-            element.setOperation(operation);
-            element.cleanseSubElements(operation);
-        }
-
-        for (AbstractData element : structureOrGenealogies) {
-            element.setID(0);
-            element.setVersion(0);
-            element.setOperation(operation);
-            element.cleanseSubElements(operation);
-        }
-
-        for (AbstractData element : generalContexts) {
-            element.setID(0);
-            element.setVersion(0);
-            element.setOperation(operation);
-            element.cleanseSubElements(operation);
-        }
-
-        for (AbstractData element : biogHists) {
-            element.setID(0);
-            element.setVersion(0);
-            element.setOperation(operation);
-            element.cleanseSubElements(operation);
-        }
-
-        for (AbstractData element : conventionDeclarations) {
-            element.setID(0);
-            element.setVersion(0);
-            element.setOperation(operation);
-            element.cleanseSubElements(operation);
-        }
-
-        for (AbstractData element : nationalities) {
-            element.setID(0);
-            element.setVersion(0);
-            element.setOperation(operation);
-            element.cleanseSubElements(operation);
-        }
-
-        for (AbstractData element : sameAsRelations) {
-            element.setID(0);
-            element.setVersion(0);
-            element.setOperation(operation);
-            element.cleanseSubElements(operation);
-        }
-
-        for (AbstractData element : entityIDs) {
-            element.setID(0);
-            element.setVersion(0);
-            element.setOperation(operation);
-            element.cleanseSubElements(operation);
-        }
-
-        for (AbstractData element : languagesUsed) {
-            element.setID(0);
-            element.setVersion(0);
-            element.setOperation(operation);
-            element.cleanseSubElements(operation);
-        }
-
-        for (AbstractData element : legalStatuses) {
-            element.setID(0);
-            element.setVersion(0);
-            element.setOperation(operation);
-            element.cleanseSubElements(operation);
-        }
-
-        for (AbstractData element : genders) {
-            element.setID(0);
-            element.setVersion(0);
-            element.setOperation(operation);
-            element.cleanseSubElements(operation);
-        }
-
-        for (AbstractData element : nameEntries) {
-            element.setID(0);
-            element.setVersion(0);
-            element.setOperation(operation);
-            element.cleanseSubElements(operation);
-        }
-
-        for (AbstractData element : occupations) {
-            element.setID(0);
-            element.setVersion(0);
-            element.setOperation(operation);
-            element.cleanseSubElements(operation);
-        }
-
-        for (AbstractData element : relations) {
-            element.setID(0);
-            element.setVersion(0);
-            element.setOperation(operation);
-            element.cleanseSubElements(operation);
-        }
-
-        for (AbstractData element : resourceRelations) {
-            element.setID(0);
-            element.setVersion(0);
-            element.setOperation(operation);
-            element.cleanseSubElements(operation);
-        }
-
-        for (AbstractData element : activities) {
-            element.setID(0);
-            element.setVersion(0);
-            element.setOperation(operation);
-            element.cleanseSubElements(operation);
-        }
-
-        for (AbstractData element : places) {
-            element.setID(0);
-            element.setVersion(0);
-            element.setOperation(operation);
-            element.cleanseSubElements(operation);
-        }
+    /**
+     * {@inheritDoc}
+     */
+    protected void trimLists() {
+        super.trimLists();
+        this.sameAsRelations = trimList(this.sameAsRelations);
+        this.entityIDs = trimList(this.entityIDs);
+        this.maintenanceEvents = trimList(this.maintenanceEvents);
+        this.sources = trimList(this.sources);
+        this.legalStatuses = trimList(this.legalStatuses);
+        this.conventionDeclarations = trimList(this.conventionDeclarations);
+        this.languagesUsed = trimList(this.languagesUsed);
+        this.nameEntries = trimList(this.nameEntries);
+        this.occupations = trimList(this.occupations);
+        this.biogHists = trimList(this.biogHists);
+        this.relations = trimList(this.relations);
+        this.resourceRelations = trimList(this.resourceRelations);
+        this.activities = trimList(this.activities);
+        this.places = trimList(this.places);
+        this.subjects = trimList(this.subjects);
+        this.nationalities = trimList(this.nationalities);
+        this.genders = trimList(this.genders);
+        this.generalContexts = trimList(this.generalContexts);
+        this.structureOrGenealogies = trimList(this.structureOrGenealogies);
+        this.mandates = trimList(this.mandates);
+        this.images = trimList(this.images);
+        this.flags = trimList(this.flags);
+    }
 
-        for (AbstractData element : subjects) {
-            element.setID(0);
-            element.setVersion(0);
-            element.setOperation(operation);
-            element.cleanseSubElements(operation);
-        }
+    /**
+     * {@inheritDoc}
+     */
+    protected void freezeFields() {
+        super.freezeFields();
+        this.sameAsRelations = freezeList(this.sameAsRelations);
+        this.entityIDs = freezeList(this.entityIDs);
+        this.maintenanceEvents = freezeList(this.maintenanceEvents);
+        this.sources = freezeList(this.sources);
+        this.legalStatuses = freezeList(this.legalStatuses);
+        this.conventionDeclarations = freezeList(this.conventionDeclarations);
+        this.languagesUsed = freezeList(this.languagesUsed);
+        this.nameEntries = freezeList(this.nameEntries);
+        this.occupations = freezeList(this.occupations);
+        this.biogHists = freezeList(this.biogHists);
+        this.relations = freezeList(this.relations);
+        this.resourceRelations = freezeList(this.resourceRelations);
+        this.activities = freezeList(this.activities);
+        this.places = freezeList(this.places);
+        this.subjects = freezeList(this.subjects);
+        this.nationalities = freezeList(this.nationalities);
+        this.genders = freezeList(this.genders);
+        this.generalContexts = freezeList(this.generalContexts);
+        this.structureOrGenealogies = freezeList(this.structureOrGenealogies);
+        this.mandates = freezeList(this.mandates);
+        this.images = freezeList(this.images);
+        this.flags = freezeList(this.flags);
+        this.entityType = freezeTerm(this.entityType);
+        this.maintenanceStatus = freezeTerm(this.maintenanceStatus);
+    }
 
-        return;
+    /**
+     * {@inheritDoc}
+     */
+    protected void copyFrom(AbstractData data, DataCopier copier) {
+        super.copyFrom(data, copier);
+        Constellation other = (Constellation) data;
+        this.ark = other.ark;
+        this.entityType = copier.copy(other.entityType);
+        this.sameAsRelations = copier.copyAll(other.sameAsRelations);
+        this.entityIDs = copier.copyAll(other.entityIDs);
+        this.maintenanceStatus = copier.copy(other.maintenanceStatus);
+        this.maintenanceAgency = other.maintenanceAgency;
+        this.maintenanceEvents = copier.copyAll(other.maintenanceEvents);
+        this.sources = copier.copyAll(other.sources);
+        this.legalStatuses = copier.copyAll(other.legalStatuses);
+        this.conventionDeclarations = copier.copyAll(other.conventionDeclarations);
+        this.languagesUsed = copier.copyAll(other.languagesUsed);
+        this.nameEntries = copier.copyAll(other.nameEntries);
+        this.preferredNameEntry = copier.copy(other.preferredNameEntry);
+        this.occupations = copier.copyAll(other.occupations);
+        this.biogHists = copier.copyAll(other.biogHists);
+        this.relations = copier.copyAll(other.relations);
+        this.resourceRelations = copier.copyAll(other.resourceRelations);
+        this.activities = copier.copyAll(other.activities);
+        this.places = copier.copyAll(other.places);
+        this.subjects = copier.copyAll(other.subjects);
+        this.nationalities = copier.copyAll(other.nationalities);
+        this.genders = copier.copyAll(other.genders);
+        this.generalContexts = copier.copyAll(other.generalContexts);
+        this.structureOrGenealogies = copier.copyAll(other.structureOrGenealogies);
+        this.mandates = copier.copyAll(other.mandates);
+        this.status = other.status;
+        this.flags = other.flags == null ? null : copyList(other.flags);
+        this.images = copier.copyAll(other.images);
+    }
+
+    /**
+     * Give every section its own list
+     *
+     * For diff() and changeSet(), which fill the sections of a new constellation directly.
+     * Trim the constellation afterwards to share the empty list again.
+     */
+    private void allocateLists() {
+        this.dateList = new ArrayList<>();
+        this.snacControlMetadata = new ArrayList<>();
+        this.sameAsRelations = new ArrayList<>();
+        this.entityIDs = new ArrayList<>();
+        this.maintenanceEvents = new ArrayList<>();
+        this.sources = new ArrayList<>();
+        this.legalStatuses = new ArrayList<>();
+        this.conventionDeclarations = new ArrayList<>();
+        this.languagesUsed = new ArrayList<>();
+        this.nameEntries = new ArrayList<>();
+        this.occupations = new ArrayList<>();
+        this.biogHists = new ArrayList<>();
+        this.relations = new ArrayList<>();
+        this.resourceRelations = new ArrayList<>();
+        this.activities = new ArrayList<>();
+        this.places = new ArrayList<>();
+        this.subjects = new ArrayList<>();
+        this.nationalities = new ArrayList<>();
+        this.genders = new ArrayList<>();
+        this.generalContexts = new ArrayList<>();
+        this.structureOrGenealogies = new ArrayList<>();
+        this.mandates = new ArrayList<>();
+        this.images = new ArrayList<>();
     }
 
     public static void main(String[] args) {
@@ -2008,9 +2351,7 @@ public class Constellation extends AbstractData {
 
     public static Constellation readFromFile(File file) {
         try {
-            ObjectMapper om = new ObjectMapper();
-            //om.enable(SerializationFeature.INDENT_OUTPUT);
-            Constellation c = om.readValue(file, Constellation.class);
+            Constellation c = JSONCodec.readerFor(Constellation.class).readValue(file);
 
             return c;
         } catch (Exception e) {
@@ -2020,21 +2361,172 @@ public class Constellation extends AbstractData {
 
     public static Constellation fromJSON(String s) {
         try {
-            ObjectMapper om = new ObjectMapper();
-            Constellation c = om.readValue(s, Constellation.class);
+            Constellation c = JSONCodec.readerFor(Constellation.class).readValue(s);
             return c;
         } catch (Exception e) {
             return null;
         }
     }
 
+    /**
+     * From JSON, projected
+     *
+     * Reads only the given sections of the constellation.  The JSON for every other section is
+     * skipped without being bound, so those sections are left empty.  This is much cheaper than a
+     * full parse when only a few sections (say, the names and dates) are needed.
+     *
+     * @param s The JSON to read
+     * @param sections The sections to read
+     * @return Constellation The partially filled constellation, or null on failure
+     */
+    public static Constellation fromJSON(String s, Set<ConstellationSection> sections) {
+        try {
+            Constellation c = JSONCodec.readerFor(sections).readValue(s);
+            return c;
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    /**
+     * From JSON, retaining the source
+     *
+     * Reads the whole constellation, keeping the JSON of each section (see ConstellationSection)
+     * so that sections which are not modified before the constellation is written out again are
+     * copied into compact output verbatim rather than serialized again.  A section counts as
+     * modified once one of its setters, add or remove methods is called, or cleanseSubElements(),
+     * or once its fingerprint, checked as it is written, differs from the one it had when read
+     * (which catches changes made through the objects and lists returned by the getters).
+     *
+     * @param json The UTF-8 JSON to read, which must not be changed while the constellation is in use
+     * @return Constellation The constellation, or null on failure
+     */
+    public static Constellation fromJSONRetaining(byte[] json) {
+        try {
+            return JSONCodec.readRetaining(json, Constellation.class);
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    /**
+     * From binary
+     *
+     * Reads a constellation written by toBinary().
+     *
+     * @return Constellation The constellation, or null on failure
+     */
+    public static Constellation fromBinary(byte[] data) {
+        try {
+            return BinaryCodec.decode(data, Constellation.class);
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    /**
+     * To binary
+     *
+     * Encodes the constellation in the compact binary form of BinaryCodec.
+     *
+     * @return byte[] The encoded constellation, or null on failure
+     */
+    public static byte[] toBinary(Constellation c) {
+        try {
+            return BinaryCodec.encode(c);
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
     public static String toJSON(Constellation c) {
+        return Constellation.toJSON(c, false);
+    }
+
+    /**
+     * To JSON
+     *
+     * Serializes the constellation to a String, either indented or compact (no whitespace).
+     *
+     * @return string The JSON for the constellation, or null on failure
+     */
+    public static String toJSON(Constellation c, boolean compact) {
         try {
-            ObjectMapper om = new ObjectMapper();
-            om.enable(SerializationFeature.INDENT_OUTPUT);
-            return om.writeValueAsString(c);
+            return (compact ? JSONCodec.compactWriter() : JSONCodec.writer()).writeValueAsString(c);
         } catch (Exception e) {
             return null;
         }
     }
+
+    /**
+     * To JSON
+     *
+     * Writes the indented JSON for the constellation straight to the stream, without building a
+     * String.  The stream is flushed but left open.
+     *
+     * @return boolean true on success, false on failure
+     */
+    public static boolean toJSON(Constellation c, OutputStream out) {
+        return Constellation.toJSON(c, out, false);
+    }
+
+    /**
+     * To JSON
+     *
+     * Writes the JSON for the constellation, either indented or compact, straight to the stream.
+     * The stream is flushed but left open.
+     *
+     * @return boolean true on success, false on failure
+     */
+    public static boolean toJSON(Constellation c, OutputStream out, boolean compact) {
+        try {
+            (compact ? JSONCodec.compactWriter() : JSONCodec.writer()).writeValue(out, c);
+            return true;
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    /**
+     * Citation Collator
+     *
+     * Attaches each SCM it visits to the source it cites, by ID.  Nested records, such as the
+     * Resource of a ResourceRelation, cite their own sources and are skipped.
+     */
+    private static final class CitationCollator extends DataVisitor {
+
+        private final Constellation root;
+        private final Map<Source, Source> copies;
+        private final Map<Integer, Source> byID;
+        private final Source unknown;
+
+        CitationCollator(Constellation root, Map<Source, Source> copies, Map<Integer, Source> byID, Source unknown) {
+            this.root = root;
+            this.copies = copies;
+            this.byID = byID;
+            this.unknown = unknown;
+        }
+
+        public boolean enter(AbstractData data) {
+            if (data != this.root && (data instanceof Constellation || data instanceof Resource))
+                return false;
+            List<SNACControlMetadata> scms = data.snacControlMetadata;
+            if (scms != null) {
+                for (int i = 0; i < scms.size(); i++) {
+                    SNACControlMetadata scm = scms.get(i);
+                    if (scm == null)
+                        continue;
+                    (scm.getCitation() == null ? this.unknown : this.source(scm.getCitation())).addSNACControlMetadata(scm);
+                }
+            }
+            return true;
+        }
+
+        private Source source(Source citation) {
+            Source source = this.copies.get(citation);
+            if (source == null && citation.getID() != 0)
+                source = this.byID.get(citation.getID());
+            return source == null ? this.unknown : source;
+        }
+    }
 }
@@ -0,0 +1,185 @@
+/**
+ * Constellation Fingerprint File
+ *
+ * Contains the per-section content fingerprints of a Constellation.
+ *
+ * License:
+ *
+ *
+ * @author Robbie Hott
+ * @license https://opensource.org/licenses/BSD-3-Clause BSD 3-Clause
+ * @copyright 2015 the Rector and Visitors of the University of Virginia, and
+ *            the Regents of the University of California
+ */
+package org.snaccooperative.data;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Constellation Fingerprint
+ *
+ * The Fingerprint of each section of a Constellation, and of the scalar properties (ark, status
+ * and so on) that belong to no section, combined Merkle-style into a single root fingerprint.
+ * Two Constellations with the same root have the same content, so an incremental sync need only
+ * store the root of each record to skip the unchanged ones; the section fingerprints then tell
+ * which sections of a changed record differ.
+ *
+ * All the fingerprints are computed in one pass over the Constellation's JSON tokens.  An empty
+ * section has the fingerprint EMPTY.
+ *
+ * @author Robbie Hott
+ */
+public final class ConstellationFingerprint {
+
+    /**
+     * @var Fingerprint The fingerprint of an empty section
+     */
+    public static final Fingerprint EMPTY = FingerprintGenerator.combine();
+
+    /**
+     * @var Fingerprint The fingerprint of each section
+     */
+    private final Map<ConstellationSection, Fingerprint> sections;
+
+    /**
+     * @var Fingerprint The fingerprint of the properties in no section
+     */
+    private final Fingerprint header;
+
+    /**
+     * @var Fingerprint The combined fingerprint of the header and every section
+     */
+    private final Fingerprint root;
+
+    private ConstellationFingerprint(Fingerprint header, Map<ConstellationSection, Fingerprint> sections) {
+        this.header = header;
+        this.sections = sections;
+        Fingerprint[] parts = new Fingerprint[sections.size() + 1];
+        int i = 0;
+        parts[i++] = header;
+        for (Fingerprint section : sections.values())
+            parts[i++] = section;
+        this.root = FingerprintGenerator.combine(parts);
+    }
+
+    /**
+     * Fingerprint a Constellation
+     *
+     * @param constellation The Constellation
+     * @param includeIDs Whether to include the IDs, versions and operations of the Constellation
+     * and its elements
+     * @return ConstellationFingerprint The fingerprints of the Constellation
+     */
+    static ConstellationFingerprint of(Constellation constellation, boolean includeIDs) {
+        Map<String, Fingerprint> properties = new LinkedHashMap<>();
+        try {
+            FingerprintGenerator.fingerprint(constellation, includeIDs, properties);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        Map<ConstellationSection, Fingerprint> sections = new EnumMap<>(ConstellationSection.class);
+        for (ConstellationSection section : ConstellationSection.values()) {
+            String[] names = section.getPropertyNames();
+            Fingerprint[] parts = new Fingerprint[names.length];
+            boolean empty = true;
+            for (int i = 0; i < names.length; i++) {
+                Fingerprint part = properties.remove(names[i]);
+                parts[i] = part == null ? EMPTY : part;
+                empty = empty && part == null;
+            }
+            sections.put(section, empty ? EMPTY : FingerprintGenerator.combine(parts));
+        }
+        Fingerprint header = FingerprintGenerator.combine(properties.values().toArray(new Fingerprint[0]));
+        return new ConstellationFingerprint(header, Collections.unmodifiableMap(sections));
+    }
+
+    /**
+     * Get the root fingerprint
+     *
+     * @return Fingerprint The fingerprint of the whole Constellation
+     */
+    public Fingerprint getRoot() {
+        return this.root;
+    }
+
+    /**
+     * Get the header fingerprint
+     *
+     * @return Fingerprint The fingerprint of the properties that belong to no section
+     */
+    public Fingerprint getHeader() {
+        return this.header;
+    }
+
+    /**
+     * Get the fingerprint of a section
+     *
+     * @param section The section
+     * @return Fingerprint The fingerprint of the section, or EMPTY if it is empty
+     */
+    public Fingerprint getSection(ConstellationSection section) {
+        return this.sections.get(section);
+    }
+
+    /**
+     * Get the section fingerprints
+     *
+     * @return Fingerprint[] The fingerprint of every section, keyed by section
+     */
+    public Map<ConstellationSection, Fingerprint> getSections() {
+        return this.sections;
+    }
+
+    /**
+     * Find the changed sections
+     *
+     * @param other The fingerprints of another version of the Constellation
+     * @return ConstellationSection[] The sections whose fingerprints differ, which is empty if the
+     * roots are the same
+     */
+    public Set<ConstellationSection> changedSections(ConstellationFingerprint other) {
+        Set<ConstellationSection> changed = EnumSet.noneOf(ConstellationSection.class);
+        if (this.root.equals(other.root))
+            return changed;
+        for (Map.Entry<ConstellationSection, Fingerprint> entry : this.sections.entrySet()) {
+            if (!entry.getValue().equals(other.sections.get(entry.getKey())))
+                changed.add(entry.getKey());
+        }
+        return changed;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public boolean equals(Object other) {
+        if (this == other)
+            return true;
+        if (!(other instanceof ConstellationFingerprint))
+            return false;
+        return this.root.equals(((ConstellationFingerprint) other).root);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public int hashCode() {
+        return this.root.hashCode();
+    }
+
+    /**
+     * To String
+     *
+     * @return string The root fingerprint
+     */
+    public String toString() {
+        return this.root.toString();
+    }
+}
@@ -0,0 +1,366 @@
+/**
+ * Constellation Ingest File
+ *
+ * Contains the fault-tolerant bulk loader for files of many constellations.
+ *
+ * License:
+ *
+ *
+ * @author Robbie Hott
+ * @license https://opensource.org/licenses/BSD-3-Clause BSD 3-Clause
+ * @copyright 2015 the Rector and Visitors of the University of Virginia, and
+ *            the Regents of the University of California
+ */
+package org.snaccooperative.data;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Constellation Ingest
+ *
+ * Loads every good record out of a SNAC export in one pass, recording the bad ones rather than
+ * stopping at them or silently dropping them.  Each record that parses is handed to a sink;
+ * each that does not is described by an IngestError giving its record number, byte offset, the
+ * JSON path of the failing value and the message.  Counters for throughput and failure rate may
+ * be read while the load runs, from any thread.
+ *
+ * Input is read as ConstellationReader reads it (NDJSON or a JSON array, optionally gzipped).
+ * NDJSON is split into lines before parsing, so even a malformed or truncated line only loses
+ * that record.  In a JSON array, binding errors only lose the record, but a syntax error leaves
+ * no way to find the next record, so it ends the load (and is recorded as an error).
+ *
+ * An instance runs one load and is not thread-safe, apart from the getters.
+ *
+ * @author Robbie Hott
+ */
+public class ConstellationIngest {
+
+    /**
+     * @var int Default number of errors kept
+     */
+    public static final int DEFAULT_MAX_ERRORS = 10000;
+
+    /**
+     * @var int Size of the input buffer, in bytes
+     */
+    private static final int BUFFER_SIZE = 65536;
+
+    /**
+     * @var ObjectReader The reader used to bind each record
+     */
+    private final ObjectReader reader;
+
+    /**
+     * @var int Maximum number of errors kept; later errors are only counted
+     */
+    private final int maxErrors;
+
+    /**
+     * @var IngestError[] The errors kept so far
+     */
+    private final List<IngestError> errors = Collections.synchronizedList(new ArrayList<IngestError>());
+
+    /**
+     * @var long Number of records read so far
+     */
+    private volatile long recordsRead = 0;
+
+    /**
+     * @var long Number of records that failed so far
+     */
+    private volatile long recordsFailed = 0;
+
+    /**
+     * @var long Number of bytes read so far
+     */
+    private volatile long bytesRead = 0;
+
+    /**
+     * @var long System.nanoTime() at the start of the load, or 0 if not started
+     */
+    private volatile long startTime = 0;
+
+    /**
+     * @var long System.nanoTime() at the end of the load, or 0 if not finished
+     */
+    private volatile long endTime = 0;
+
+    /**
+     * Constructor
+     *
+     * Reads whole records, keeping up to DEFAULT_MAX_ERRORS errors.
+     */
+    public ConstellationIngest() {
+        this(JSONCodec.readerFor(Constellation.class), DEFAULT_MAX_ERRORS);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param reader The reader used to bind each record, such as one from
+     * JSONCodec.readerFor(Set) or JSONCodec.lazyReaderFor()
+     * @param maxErrors Maximum number of errors to keep; later errors are only counted
+     */
+    public ConstellationIngest(ObjectReader reader, int maxErrors) {
+        if (maxErrors < 0)
+            throw new IllegalArgumentException("Maximum errors must not be negative: " + maxErrors);
+        this.reader = reader.forType(Constellation.class);
+        this.maxErrors = maxErrors;
+    }
+
+    /**
+     * Load a file
+     *
+     * @param file The export to load
+     * @param sink Receives each record that parses, in order
+     */
+    public void run(File file, Consumer<Constellation> sink) throws IOException {
+        try (InputStream in = new FileInputStream(file)) {
+            this.run(in, sink);
+        }
+    }
+
+    /**
+     * Load a stream
+     *
+     * Reads the stream to its end, which is left open.  Only failures to read the stream
+     * itself are thrown; exceptions thrown by the sink are passed through.
+     *
+     * @param in The stream to load
+     * @param sink Receives each record that parses, in order
+     */
+    public void run(InputStream in, Consumer<Constellation> sink) throws IOException {
+        if (this.startTime != 0)
+            throw new IllegalStateException("ConstellationIngest has already run");
+        this.startTime = System.nanoTime();
+        try {
+            InputStream input = ConstellationReader.decompress(in);
+            // A GZIPInputStream cannot be reset, so peeking at the first byte needs a buffer
+            if (!input.markSupported())
+                input = new BufferedInputStream(input, BUFFER_SIZE);
+            input.mark(BUFFER_SIZE);
+            int first;
+            do {
+                first = input.read();
+            } while (first == ' ' || first == '\t' || first == '\r' || first == '\n');
+            input.reset();
+            if (first == '[')
+                this.runArray(input, sink);
+            else
+                this.runLines(input, sink);
+        } finally {
+            this.endTime = System.nanoTime();
+        }
+    }
+
+    /**
+     * Load newline-delimited JSON, one line at a time
+     */
+    private void runLines(InputStream in, Consumer<Constellation> sink) throws IOException {
+        byte[] buffer = new byte[BUFFER_SIZE];
+        byte[] line = new byte[BUFFER_SIZE];
+        int lineLength = 0;
+        long lineStart = 0;
+        long position = 0;
+        int n;
+        while ((n = in.read(buffer)) != -1) {
+            int start = 0;
+            for (int i = 0; i < n; i++) {
+                if (buffer[i] != '\n')
+                    continue;
+                line = ConstellationIngest.append(line, lineLength, buffer, start, i - start);
+                lineLength += i - start;
+                this.readLine(line, lineLength, lineStart, sink);
+                lineStart = position + i + 1;
+                lineLength = 0;
+                start = i + 1;
+            }
+            line = ConstellationIngest.append(line, lineLength, buffer, start, n - start);
+            lineLength += n - start;
+            position += n;
+            this.bytesRead = position;
+        }
+        this.readLine(line, lineLength, lineStart, sink);
+    }
+
+    /**
+     * Append bytes to the line buffer, growing it as needed
+     *
+     * @return byte[] The line buffer
+     */
+    private static byte[] append(byte[] line, int length, byte[] bytes, int offset, int count) {
+        if (length + count > line.length) {
+            byte[] grown = new byte[Math.max(line.length * 2, length + count)];
+            System.arraycopy(line, 0, grown, 0, length);
+            line = grown;
+        }
+        System.arraycopy(bytes, offset, line, length, count);
+        return line;
+    }
+
+    /**
+     * Read the record on a line, if there is one
+     */
+    private void readLine(byte[] line, int length, long offset, Consumer<Constellation> sink) {
+        int start = 0;
+        while (start < length && Character.isWhitespace(line[start]))
+            start++;
+        if (start == length)
+            return;
+        long record = ++this.recordsRead;
+        Constellation c;
+        try {
+            c = this.reader.readValue(line, start, length - start);
+        } catch (Exception e) {
+            this.fail(IngestError.from(record, offset + start, e));
+            return;
+        }
+        sink.accept(c);
+    }
+
+    /**
+     * Load a JSON array of records
+     */
+    private void runArray(InputStream in, Consumer<Constellation> sink) throws IOException {
+        try (JsonParser parser = JSONCodec.factory().createParser(in)) {
+            long record = 0;
+            long offset = 0;
+            boolean inRecord = false;
+            try {
+                parser.nextToken();
+                JsonToken token;
+                while ((token = parser.nextToken()) != null && token != JsonToken.END_ARRAY) {
+                    offset = parser.getTokenLocation().getByteOffset();
+                    record = ++this.recordsRead;
+                    inRecord = true;
+                    // Copying the record's tokens first means a binding error cannot leave the
+                    // parser in the middle of it
+                    TokenBuffer tokens = new TokenBuffer(parser);
+                    tokens.copyCurrentStructure(parser);
+                    inRecord = false;
+                    this.bytesRead = parser.getCurrentLocation().getByteOffset();
+                    Constellation c;
+                    try (JsonParser recordParser = tokens.asParserOnFirstToken()) {
+                        c = this.reader.readValue(recordParser);
+                    } catch (Exception e) {
+                        this.fail(IngestError.from(record, offset, e));
+                        continue;
+                    }
+                    sink.accept(c);
+                }
+            } catch (JsonParseException e) {
+                // The JSON is malformed, so the rest of the array cannot be found
+                if (!inRecord) {
+                    record = ++this.recordsRead;
+                    offset = e.getLocation() == null ? -1 : e.getLocation().getByteOffset();
+                }
+                this.fail(IngestError.from(record, offset, e, 1));
+            }
+            this.bytesRead = parser.getCurrentLocation().getByteOffset();
+        }
+    }
+
+    /**
+     * Record a failed record
+     */
+    private void fail(IngestError error) {
+        this.recordsFailed++;
+        if (this.errors.size() < this.maxErrors)
+            this.errors.add(error);
+    }
+
+    /**
+     * Get the errors
+     *
+     * @return IngestError[] The errors kept so far, in input order
+     */
+    public List<IngestError> getErrors() {
+        synchronized (this.errors) {
+            return Collections.unmodifiableList(new ArrayList<>(this.errors));
+        }
+    }
+
+    /**
+     * Get the number of records read
+     *
+     * @return long Number of records read so far, good and bad
+     */
+    public long getRecordsRead() {
+        return this.recordsRead;
+    }
+
+    /**
+     * Get the number of records loaded
+     *
+     * @return long Number of records handed to the sink so far
+     */
+    public long getRecordsLoaded() {
+        return this.recordsRead - this.recordsFailed;
+    }
+
+    /**
+     * Get the number of failed records
+     *
+     * @return long Number of records that could not be loaded so far, including any whose
+     * errors were not kept
+     */
+    public long getRecordsFailed() {
+        return this.recordsFailed;
+    }
+
+    /**
+     * Get the number of bytes read
+     *
+     * @return long Number of (decompressed) bytes read so far
+     */
+    public long getBytesRead() {
+        return this.bytesRead;
+    }
+
+    /**
+     * Get the elapsed time
+     *
+     * @return long Nanoseconds spent loading so far, or in total once the load has finished
+     */
+    public long getElapsedNanos() {
+        long start = this.startTime;
+        if (start == 0)
+            return 0;
+        long end = this.endTime;
+        return (end == 0 ? System.nanoTime() : end) - start;
+    }
+
+    /**
+     * Get the throughput
+     *
+     * @return double Records read per second so far
+     */
+    public double getRecordsPerSecond() {
+        long elapsed = this.getElapsedNanos();
+        return elapsed == 0 ? 0 : this.recordsRead * 1e9 / elapsed;
+    }
+
+    /**
+     * Get the failure rate
+     *
+     * @return double Fraction of the records read so far that failed, from 0 to 1
+     */
+    public double getFailureRate() {
+        long read = this.recordsRead;
+        return read == 0 ? 0 : (double) this.recordsFailed / read;
+    }
+}
@@ -0,0 +1,325 @@
+/**
+ * Constellation Reader File
+ *
+ * Contains the streaming reader for files of many constellations.
+ *
+ * License:
+ *
+ *
+ * @author Robbie Hott
+ * @license https://opensource.org/licenses/BSD-3-Clause BSD 3-Clause
+ * @copyright 2015 the Rector and Visitors of the University of Virginia, and
+ *            the Regents of the University of California
+ */
+package org.snaccooperative.data;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.ObjectReader;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Constellation Reader
+ *
+ * Streams Constellations out of a SNAC export one record at a time, so that dumps of any size
+ * may be read in constant memory.  The input may either be newline-delimited JSON (one
+ * Constellation object per line) or a single top-level JSON array of Constellation objects; the
+ * format is detected from the first token.  Gzip-compressed input is detected from its magic
+ * number and decompressed on the fly.
+ *
+ * After each call to next(), getRecordNumber() and getByteOffset() describe the record just
+ * returned.  For compressed input, the byte offset is into the decompressed stream.
+ *
+ * The reader is not thread-safe.
+ *
+ * @author Robbie Hott
+ */
+public class ConstellationReader implements Iterator<Constellation>, Closeable {
+
+    /**
+     * @var int Size of the buffer used when decompressing gzip input
+     */
+    private static final int GZIP_BUFFER_SIZE = 65536;
+
+    /**
+     * @var JsonParser The token-level parser over the input
+     */
+    private final JsonParser parser;
+
+    /**
+     * @var ObjectReader The reader used to bind each record
+     */
+    private final ObjectReader reader;
+
+    /**
+     * @var boolean Whether the first token has been read
+     */
+    private boolean started = false;
+
+    /**
+     * @var boolean Whether the records are wrapped in a top-level array
+     */
+    private boolean inArray = false;
+
+    /**
+     * @var boolean Whether the end of the input has been reached
+     */
+    private boolean finished = false;
+
+    /**
+     * @var Constellation The record read ahead by hasNext(), if any
+     */
+    private Constellation pending = null;
+
+    /**
+     * @var long Byte offset of the pending record
+     */
+    private long pendingOffset = -1;
+
+    /**
+     * @var long Number of records read from the input so far, including the pending one
+     */
+    private long recordsRead = 0;
+
+    /**
+     * @var long Record number (1-based) of the last record returned by next()
+     */
+    private long recordNumber = 0;
+
+    /**
+     * @var long Byte offset of the last record returned by next()
+     */
+    private long byteOffset = -1;
+
+    /**
+     * Constructor
+     *
+     * Reads from the given stream, decompressing it if it starts with the gzip magic number.
+     * The stream is closed when this reader is closed.
+     *
+     */
+    public ConstellationReader(InputStream in) throws IOException {
+        this(in, null);
+    }
+
+    /**
+     * Constructor
+     *
+     * Reads only the given sections of each record from the given stream, skipping the JSON for
+     * the others.  The stream is closed when this reader is closed.
+     *
+     * @param in The stream to read
+     * @param sections The sections to read, or null to read whole records
+     */
+    public ConstellationReader(InputStream in, Set<ConstellationSection> sections) throws IOException {
+        this(in, sections, false);
+    }
+
+    /**
+     * Constructor
+     *
+     * Reads the given sections of each record from the given stream, which is closed when this
+     * reader is closed.
+     *
+     * @param in The stream to read
+     * @param sections The sections to read, or null to read whole records
+     * @param lazyText Whether to hold large text payloads compressed until they are read (see
+     * LazyText)
+     */
+    public ConstellationReader(InputStream in, Set<ConstellationSection> sections, boolean lazyText)
+            throws IOException {
+        ObjectReader reader = sections == null ? JSONCodec.readerFor(Constellation.class) : JSONCodec.readerFor(sections);
+        this.reader = lazyText ? reader.withAttribute(LazyText.class, Boolean.TRUE) : reader;
+        this.parser = JSONCodec.factory().createParser(ConstellationReader.decompress(in));
+    }
+
+    /**
+     * Open a file
+     *
+     * Opens a reader over the given NDJSON or JSON array file, which may be gzip-compressed.
+     *
+     * @return ConstellationReader A reader over the file
+     */
+    public static ConstellationReader open(File file) throws IOException {
+        return ConstellationReader.open(file, null);
+    }
+
+    /**
+     * Open a file, projected
+     *
+     * Opens a reader over the given file that reads only the given sections of each record.  The
+     * file is closed again if the reader cannot be made.
+     *
+     * @return ConstellationReader A reader over the file
+     */
+    public static ConstellationReader open(File file, Set<ConstellationSection> sections) throws IOException {
+        InputStream in = new FileInputStream(file);
+        try {
+            return new ConstellationReader(in, sections);
+        } catch (IOException | RuntimeException e) {
+            // The reader never took the stream, so it must be closed here
+            try {
+                in.close();
+            } catch (IOException suppressed) {
+                e.addSuppressed(suppressed);
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Wrap the stream in a decompressor if it holds gzip data
+     *
+     * @return InputStream The (possibly decompressing) stream to read from
+     */
+    static InputStream decompress(InputStream in) throws IOException {
+        InputStream buffered = in.markSupported() ? in : new BufferedInputStream(in);
+        buffered.mark(2);
+        int first = buffered.read();
+        int second = buffered.read();
+        buffered.reset();
+        if (first == (GZIPInputStream.GZIP_MAGIC & 0xff) && second == (GZIPInputStream.GZIP_MAGIC >>> 8))
+            return new GZIPInputStream(buffered, GZIP_BUFFER_SIZE);
+        return buffered;
+    }
+
+    /**
+     * Has next
+     *
+     * Reads ahead to the next record, if one has not already been read.
+     *
+     * @return boolean True if another record is available, false otherwise
+     */
+    public boolean hasNext() {
+        if (this.pending != null)
+            return true;
+        if (this.finished)
+            return false;
+        try {
+            this.pending = this.readNext();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return this.pending != null;
+    }
+
+    /**
+     * Next
+     *
+     * Returns the next Constellation in the input.
+     *
+     * @return Constellation The next record
+     */
+    public Constellation next() {
+        if (!this.hasNext())
+            throw new NoSuchElementException();
+        Constellation c = this.pending;
+        this.pending = null;
+        this.recordNumber = this.recordsRead;
+        this.byteOffset = this.pendingOffset;
+        return c;
+    }
+
+    /**
+     * Advance to the next record
+     *
+     * Moves the parser onto the START_OBJECT token of the next record, noting its position.
+     *
+     * @return boolean True if positioned on a record, false at the end of input
+     */
+    private boolean advance() throws IOException {
+        JsonToken token = this.parser.nextToken();
+        if (!this.started) {
+            this.started = true;
+            if (token == JsonToken.START_ARRAY) {
+                this.inArray = true;
+                token = this.parser.nextToken();
+            }
+        }
+        if (token == null || (this.inArray && token == JsonToken.END_ARRAY)) {
+            this.finished = true;
+            return false;
+        }
+        if (token != JsonToken.START_OBJECT)
+            throw JsonMappingException.from(this.parser, "Expected a Constellation object, found " + token);
+
+        this.pendingOffset = this.parser.getTokenLocation().getByteOffset();
+        this.recordsRead++;
+        return true;
+    }
+
+    /**
+     * Read the next record
+     *
+     * @return Constellation The next record, or null at the end of input
+     */
+    private Constellation readNext() throws IOException {
+        if (!this.advance())
+            return null;
+        return this.reader.readValue(this.parser);
+    }
+
+    /**
+     * Get the record number
+     *
+     * @return long The 1-based number of the record last returned by next(), or 0 if none
+     */
+    public long getRecordNumber() {
+        return this.recordNumber;
+    }
+
+    /**
+     * Get the byte offset
+     *
+     * @return long The byte offset in the input at which the record last returned by next()
+     * starts, or -1 if none
+     */
+    public long getByteOffset() {
+        return this.byteOffset;
+    }
+
+    /**
+     * Stream the records
+     *
+     * Returns a sequential stream over the remaining records.  Closing the stream closes this
+     * reader.
+     *
+     * @return Stream<Constellation> Stream of the remaining records
+     */
+    public Stream<Constellation> stream() {
+        return StreamSupport.stream(
+                Spliterators.spliteratorUnknownSize(this, Spliterator.ORDERED | Spliterator.NONNULL), false)
+            .onClose(() -> {
+                try {
+                    this.close();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+    }
+
+    /**
+     * Close the reader and the underlying stream
+     */
+    public void close() throws IOException {
+        this.finished = true;
+        this.pending = null;
+        this.parser.close();
+    }
+}
@@ -15,6 +15,8 @@
 
 package org.snaccooperative.data;
 
+import java.util.Objects;
+
 /**
  * Constellation Relationship.  See the abstract parent class for common methods setDBInfo() and getDBInfo().
  *
@@ -144,6 +146,13 @@ public class ConstellationRelation extends AbstractData {
         this.setMaxDateCount(1);
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    protected AbstractData newInstance() {
+        return new ConstellationRelation();
+    }
+
     /**
      * Get the Source Constellation's ID
      *
@@ -160,6 +169,7 @@ public class ConstellationRelation extends AbstractData {
      */
     public void setSourceConstellation(int sourceConstellation)
     {
+        this.modified("sourceConstellation");
         this.sourceConstellation = sourceConstellation;
     }
 
@@ -195,6 +205,7 @@ public class ConstellationRelation extends AbstractData {
      */
     public void setSourceArkID(String sourceArkID)
     {
+        this.modified("sourceArkID");
         this.sourceArkID = sourceArkID;
     }
 
@@ -315,6 +326,7 @@ public class ConstellationRelation extends AbstractData {
      */
     public void setTargetConstellation(int targetConstellation)
     {
+        this.modified("targetConstellation");
         this.targetConstellation = targetConstellation;
     }
 
@@ -323,6 +335,7 @@ public class ConstellationRelation extends AbstractData {
      */
     public void setTargetArkID(String ark) {
 
+        this.modified("targetArkID");
         this.targetArkID = ark;
     }
 
@@ -333,7 +346,8 @@ public class ConstellationRelation extends AbstractData {
      * and to match getTargetEntityType().
      */
     public void setTargetEntityType(Term type) {
-        this.targetEntityType = type;
+        this.modified("targetEntityType");
+        this.targetEntityType = TermRegistry.canonical(type);
     }
 
     /**
@@ -341,14 +355,16 @@ public class ConstellationRelation extends AbstractData {
      */
     public void setType(Term type) {
 
-        this.type = type;
+        this.modified("type");
+        this.type = TermRegistry.canonical(type);
     }
 
     /**
      * Set the CPF Relation type
      */
     public void setCPFRelationType(Term type) {
-        this.cpfRelationType = type;
+        this.modified("cpfRelationType");
+        this.cpfRelationType = TermRegistry.canonical(type);
     }
 
     /**
@@ -361,7 +377,8 @@ public class ConstellationRelation extends AbstractData {
      */
     public void setAltType(Term type) {
 
-        this.altType = type;
+        this.modified("altType");
+        this.altType = TermRegistry.canonical(type);
     }
 
     /**
@@ -369,6 +386,7 @@ public class ConstellationRelation extends AbstractData {
      */
     public void setContent(String content) {
 
+        this.modified("content");
         this.content = content;
     }
 
@@ -377,18 +395,19 @@ public class ConstellationRelation extends AbstractData {
      */
     public void setNote(String note) {
 
+        this.modified("note");
         this.note = note;
     }
 
     /**
      * {@inheritDoc}
      */
-    public boolean equals(Object other) {
+    public boolean equals(Object other, boolean strict, boolean checkSubcomponents) {
 
         if (other == null || ! (other instanceof ConstellationRelation))
             return false;
 
-        if (!super.equals(other))
+        if (!super.equals(other, strict, checkSubcomponents))
             return false;
 
         ConstellationRelation c = (ConstellationRelation) other;
@@ -421,4 +440,49 @@ public class ConstellationRelation extends AbstractData {
 
         return true;
     }
+
+    /**
+     * {@inheritDoc}
+     */
+    protected int computeHashCode(boolean strict, boolean checkSubcomponents) {
+        int hash = super.computeHashCode(strict, checkSubcomponents);
+        hash = 31 * hash + this.getTargetConstellation();
+        hash = 31 * hash + Objects.hashCode(this.getSourceArkID());
+        hash = 31 * hash + Objects.hashCode(this.getTargetArkID());
+        hash = 31 * hash + Objects.hashCode(this.getContent());
+        hash = 31 * hash + Objects.hashCode(this.getNote());
+        hash = 31 * hash + Objects.hashCode(this.getType());
+        hash = 31 * hash + Objects.hashCode(this.getAltType());
+        hash = 31 * hash + Objects.hashCode(this.getCpfRelationType());
+        return hash;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    protected void freezeFields() {
+        super.freezeFields();
+        this.targetEntityType = freezeTerm(this.targetEntityType);
+        this.type = freezeTerm(this.type);
+        this.cpfRelationType = freezeTerm(this.cpfRelationType);
+        this.altType = freezeTerm(this.altType);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    protected void copyFrom(AbstractData data, DataCopier copier) {
+        super.copyFrom(data, copier);
+        ConstellationRelation other = (ConstellationRelation) data;
+        this.sourceConstellation = other.sourceConstellation;
+        this.targetConstellation = other.targetConstellation;
+        this.sourceArkID = other.sourceArkID;
+        this.targetArkID = other.targetArkID;
+        this.targetEntityType = copier.copy(other.targetEntityType);
+        this.type = copier.copy(other.type);
+        this.altType = copier.copy(other.altType);
+        this.cpfRelationType = copier.copy(other.cpfRelationType);
+        this.content = other.content;
+        this.note = other.note;
+    }
 }
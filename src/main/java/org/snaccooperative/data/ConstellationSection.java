@@ -0,0 +1,115 @@
+/**
+ * Constellation Section File
+ *
+ * Contains the enumeration of the sections of a Constellation.
+ *
+ * License:
+ *
+ *
+ * @author Robbie Hott
+ * @license https://opensource.org/licenses/BSD-3-Clause BSD 3-Clause
+ * @copyright 2015 the Rector and Visitors of the University of Virginia, and
+ *            the Regents of the University of California
+ */
+package org.snaccooperative.data;
+
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Constellation Section
+ *
+ * The structured, top-level sections of a Constellation, each named by the JSON properties that
+ * hold it.  A set of sections may be passed to Constellation.fromJSON() or ConstellationReader
+ * to parse only those sections: the properties of any other section are skipped over in the
+ * token stream without being bound, leaving that section as it is on a new Constellation.
+ *
+ * The scalar properties (dataType, id, version, operation, ark, maintenanceAgency, status and
+ * flags) are cheap to read and are always parsed.
+ *
+ * @author Robbie Hott
+ */
+public enum ConstellationSection {
+
+    SNAC_CONTROL_METADATA("snacControlMetadata"),
+    DATES("dates"),
+    ENTITY_TYPE("entityType"),
+    SAME_AS_RELATIONS("sameAsRelations"),
+    ENTITY_IDS("entityIDs"),
+    MAINTENANCE_STATUS("maintenanceStatus"),
+    MAINTENANCE_EVENTS("maintenanceEvents"),
+    SOURCES("sources"),
+    LEGAL_STATUSES("legalStatuses"),
+    CONVENTION_DECLARATIONS("conventionDeclarations"),
+    LANGUAGES_USED("languagesUsed"),
+    NAME_ENTRIES("nameEntries", "preferredNameEntry"),
+    OCCUPATIONS("occupations"),
+    BIOG_HISTS("biogHists"),
+    RELATIONS("relations"),
+    RESOURCE_RELATIONS("resourceRelations"),
+    ACTIVITIES("activities"),
+    PLACES("places"),
+    SUBJECTS("subjects"),
+    NATIONALITIES("nationalities"),
+    GENDERS("genders", "gender"),
+    GENERAL_CONTEXTS("generalContexts"),
+    STRUCTURE_OR_GENEALOGIES("structureOrGenealogies"),
+    MANDATES("mandates"),
+    IMAGES("images");
+
+    /**
+     * @var ConstellationSection[] The section of each JSON property name
+     */
+    private static final Map<String, ConstellationSection> BY_PROPERTY = new HashMap<>();
+
+    static {
+        for (ConstellationSection section : ConstellationSection.values()) {
+            for (String property : section.properties)
+                BY_PROPERTY.put(property, section);
+        }
+    }
+
+    /**
+     * @var string[] The JSON properties holding this section
+     */
+    private final String[] properties;
+
+    ConstellationSection(String... properties) {
+        this.properties = properties;
+    }
+
+    /**
+     * Get the property names
+     *
+     * @return string[] The JSON properties holding this section
+     */
+    public String[] getPropertyNames() {
+        return this.properties.clone();
+    }
+
+    /**
+     * Get the section of a property
+     *
+     * @param property JSON property name of a Constellation
+     * @return ConstellationSection The section held by the property, or null if the property is
+     * a scalar that is always parsed (or not a Constellation property at all)
+     */
+    public static ConstellationSection forProperty(String property) {
+        return BY_PROPERTY.get(property);
+    }
+
+    /**
+     * Make a set of sections
+     *
+     * @param sections The sections, which may be empty
+     * @return ConstellationSection[] An EnumSet holding the given sections
+     */
+    public static Set<ConstellationSection> setOf(Collection<ConstellationSection> sections) {
+        Set<ConstellationSection> set = EnumSet.noneOf(ConstellationSection.class);
+        set.addAll(sections);
+        return set;
+    }
+}
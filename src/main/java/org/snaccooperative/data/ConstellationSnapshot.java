@@ -0,0 +1,113 @@
+/**
+ * Constellation Snapshot File
+ *
+ * Contains the frozen form of a Constellation, for sharing between threads.
+ *
+ * License:
+ *
+ *
+ * @author Robbie Hott
+ * @license https://opensource.org/licenses/BSD-3-Clause BSD 3-Clause
+ * @copyright 2015 the Rector and Visitors of the University of Virginia, and
+ *            the Regents of the University of California
+ */
+package org.snaccooperative.data;
+
+/**
+ * Constellation Snapshot
+ *
+ * A frozen Constellation, as returned by Constellation.freeze().  Nothing in it can be changed,
+ * so one snapshot may be cached and read by any number of threads at once, with no locking and
+ * no defensive copies.  The snapshot holds the constellation in a final field, so that every
+ * thread that is handed the snapshot, however it is handed over, sees the constellation whole.
+ *
+ * To edit the constellation, thaw() a mutable copy of it; the snapshot itself is unchanged.
+ *
+ * @author Robbie Hott
+ */
+public final class ConstellationSnapshot {
+
+    /**
+     * @var Constellation The frozen constellation
+     */
+    private final Constellation constellation;
+
+    /**
+     * @var int The hash code of the constellation
+     */
+    private final int hashCode;
+
+    /**
+     * Constructor
+     *
+     * @param constellation The constellation, already frozen
+     */
+    ConstellationSnapshot(Constellation constellation) {
+        this.constellation = constellation;
+        this.hashCode = constellation.hashCode();
+    }
+
+    /**
+     * Get the constellation
+     *
+     * @return Constellation The frozen constellation, which may be read but not changed
+     */
+    public Constellation get() {
+        return this.constellation;
+    }
+
+    /**
+     * Thaw a copy
+     *
+     * Copies the constellation into a new one that is not frozen, for editing.  Only the copy is
+     * thawed: the snapshot, and every thread reading it, keep the frozen constellation.  The
+     * copy shares the snapshot's read-only terms.
+     *
+     * @return Constellation A mutable copy of the constellation
+     */
+    public Constellation thaw() {
+        return this.constellation.deepCopy();
+    }
+
+    /**
+     * Fingerprint the constellation
+     *
+     * The fingerprints are computed once, and kept.
+     *
+     * @param includeIDs Whether to include the IDs, versions and operations of the constellation
+     * and its elements
+     * @return ConstellationFingerprint The fingerprints of the constellation
+     * @see Constellation#fingerprint(boolean)
+     */
+    public ConstellationFingerprint fingerprint(boolean includeIDs) {
+        return this.constellation.fingerprint(includeIDs);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public boolean equals(Object other) {
+        if (this == other)
+            return true;
+        if (!(other instanceof ConstellationSnapshot))
+            return false;
+        ConstellationSnapshot snapshot = (ConstellationSnapshot) other;
+        return this.hashCode == snapshot.hashCode && this.constellation.equals(snapshot.constellation);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public int hashCode() {
+        return this.hashCode;
+    }
+
+    /**
+     * To String
+     *
+     * @return string The constellation
+     */
+    public String toString() {
+        return this.constellation.toString();
+    }
+}
@@ -0,0 +1,370 @@
+/**
+ * Constellation Store File
+ *
+ * Contains the memory-mapped, random-access store over files of many constellations.
+ *
+ * License:
+ *
+ *
+ * @author Robbie Hott
+ * @license https://opensource.org/licenses/BSD-3-Clause BSD 3-Clause
+ * @copyright 2015 the Rector and Visitors of the University of Virginia, and
+ *            the Regents of the University of California
+ */
+package org.snaccooperative.data;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonMappingException;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Constellation Store
+ *
+ * Random access to the records of an uncompressed SNAC export, in either of the formats read by
+ * ConstellationReader (newline-delimited JSON or a single JSON array).  The export is
+ * memory-mapped in segments of at most SEGMENT_SIZE bytes, so files larger than 2 GB are
+ * supported, and a record is only parsed when it is asked for.
+ *
+ * Records are found through an index of the byte range of every record, keyed by ark and by id
+ * (the constellation's ic_id).  The index is built by a single token-level scan of the export the
+ * first time it is opened, and saved next to it (as the export's name plus INDEX_SUFFIX) so later
+ * opens only read the index.  A saved index is rebuilt if the export's size or modification time
+ * has changed.  If an ark or id occurs more than once, the first record holding it is returned.
+ *
+ * Lookups follow Constellation.fromJSON(): they return null if there is no such record or it
+ * cannot be parsed.  The store is safe for concurrent lookups.
+ *
+ * @author Robbie Hott
+ */
+public class ConstellationStore implements Closeable {
+
+    /**
+     * @var string Suffix of the index file saved alongside the export
+     */
+    public static final String INDEX_SUFFIX = ".idx";
+
+    /**
+     * @var long Largest number of bytes mapped by one segment
+     */
+    public static final long SEGMENT_SIZE = 1L << 30;
+
+    /**
+     * @var string Magic string at the head of an index file
+     */
+    private static final String INDEX_MAGIC = "SNACIDX";
+
+    /**
+     * @var int Version of the index file format
+     */
+    private static final int INDEX_VERSION = 1;
+
+    /**
+     * @var RandomAccessFile The open export
+     */
+    private final RandomAccessFile file;
+
+    /**
+     * @var MappedByteBuffer[] The mapped segments of the export, in order
+     */
+    private final MappedByteBuffer[] segments;
+
+    /**
+     * @var long[] Byte offset of each record
+     */
+    private long[] offsets;
+
+    /**
+     * @var int[] Length in bytes of each record
+     */
+    private int[] lengths;
+
+    /**
+     * @var int Number of records
+     */
+    private int size = 0;
+
+    /**
+     * @var int[] Record number of each ark
+     */
+    private final Map<String, Integer> byArk = new HashMap<>();
+
+    /**
+     * @var int[] Record number of each id
+     */
+    private final Map<Integer, Integer> byID = new HashMap<>();
+
+    /**
+     * Constructor
+     *
+     * Use open() to create a store.
+     */
+    private ConstellationStore(RandomAccessFile file) throws IOException {
+        this.file = file;
+        FileChannel channel = file.getChannel();
+        long length = channel.size();
+        int count = (int) ((length + SEGMENT_SIZE - 1) / SEGMENT_SIZE);
+        this.segments = new MappedByteBuffer[count];
+        for (int i = 0; i < count; i++) {
+            long start = i * SEGMENT_SIZE;
+            this.segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(SEGMENT_SIZE, length - start));
+        }
+        this.offsets = new long[1024];
+        this.lengths = new int[1024];
+    }
+
+    /**
+     * Open an export
+     *
+     * Maps the export and loads its saved index, building and saving the index if there is none
+     * or it is out of date.  If the index cannot be saved (say, the directory is read-only), the
+     * store still opens, with the index held in memory only.
+     *
+     * @param dump The export to open
+     * @return ConstellationStore A store over the export
+     */
+    public static ConstellationStore open(File dump) throws IOException {
+        return ConstellationStore.open(dump, new File(dump.getPath() + INDEX_SUFFIX));
+    }
+
+    /**
+     * Open an export with an index file
+     *
+     * @param dump The export to open
+     * @param index Where the index is saved
+     * @return ConstellationStore A store over the export
+     */
+    public static ConstellationStore open(File dump, File index) throws IOException {
+        RandomAccessFile file = new RandomAccessFile(dump, "r");
+        boolean opened = false;
+        try {
+            ConstellationStore store = new ConstellationStore(file);
+            if (!store.loadIndex(dump, index)) {
+                store.buildIndex(dump);
+                store.saveIndex(dump, index);
+            }
+            opened = true;
+            return store;
+        } finally {
+            // Nothing else holds the file unless the store is returned
+            if (!opened)
+                file.close();
+        }
+    }
+
+    /**
+     * Get the number of records
+     *
+     * @return int Number of records in the export
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * Get a record by ark
+     *
+     * @param ark The ark of the constellation
+     * @return Constellation The constellation, or null if there is none or it cannot be parsed
+     */
+    public Constellation getByArk(String ark) {
+        Integer record = this.byArk.get(ark);
+        return record == null ? null : this.get(record);
+    }
+
+    /**
+     * Get a record by id
+     *
+     * @param id The id (ic_id) of the constellation
+     * @return Constellation The constellation, or null if there is none or it cannot be parsed
+     */
+    public Constellation getByID(int id) {
+        Integer record = this.byID.get(id);
+        return record == null ? null : this.get(record);
+    }
+
+    /**
+     * Get a record by position
+     *
+     * @param record The 0-based position of the record in the export
+     * @return Constellation The constellation, or null if it cannot be parsed
+     */
+    public Constellation get(int record) {
+        if (record < 0 || record >= this.size)
+            throw new IndexOutOfBoundsException("Record " + record + " of " + this.size);
+        try {
+            byte[] json = this.read(this.offsets[record], this.lengths[record]);
+            Constellation c = JSONCodec.readerFor(Constellation.class).readValue(json);
+            return c;
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    /**
+     * Copy bytes out of the mapped segments
+     *
+     * @return byte[] The length bytes starting at offset
+     */
+    private byte[] read(long offset, int length) {
+        byte[] bytes = new byte[length];
+        int copied = 0;
+        while (copied < length) {
+            long position = offset + copied;
+            // Each read works on its own view of the segment, so concurrent reads do not interfere
+            ByteBuffer segment = this.segments[(int) (position / SEGMENT_SIZE)].duplicate();
+            ((Buffer) segment).position((int) (position % SEGMENT_SIZE));
+            int n = Math.min(length - copied, segment.remaining());
+            segment.get(bytes, copied, n);
+            copied += n;
+        }
+        return bytes;
+    }
+
+    /**
+     * Build the index
+     *
+     * Scans the export's tokens, binding nothing but the top-level ark and id of each record.
+     */
+    private void buildIndex(File dump) throws IOException {
+        try (JsonParser parser = JSONCodec.factory().createParser(
+                new BufferedInputStream(new FileInputStream(dump), 65536))) {
+            JsonToken token = parser.nextToken();
+            boolean inArray = token == JsonToken.START_ARRAY;
+            if (inArray)
+                token = parser.nextToken();
+            while (token != null && !(inArray && token == JsonToken.END_ARRAY)) {
+                if (token != JsonToken.START_OBJECT)
+                    throw JsonMappingException.from(parser, "Expected a Constellation object, found " + token);
+                long start = parser.getTokenLocation().getByteOffset();
+                String ark = null;
+                int id = 0;
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    String name = parser.currentName();
+                    JsonToken value = parser.nextToken();
+                    if ("ark".equals(name) && value == JsonToken.VALUE_STRING)
+                        ark = parser.getText();
+                    else if ("id".equals(name) && value.isScalarValue())
+                        id = parser.getValueAsInt();
+                    else
+                        parser.skipChildren();
+                }
+                long end = parser.getCurrentLocation().getByteOffset();
+                this.add(start, (int) (end - start), ark, id);
+                token = parser.nextToken();
+            }
+        }
+    }
+
+    /**
+     * Add a record to the index
+     */
+    private void add(long offset, int length, String ark, int id) {
+        if (this.size == this.offsets.length) {
+            this.offsets = Arrays.copyOf(this.offsets, this.size * 2);
+            this.lengths = Arrays.copyOf(this.lengths, this.size * 2);
+        }
+        int record = this.size++;
+        this.offsets[record] = offset;
+        this.lengths[record] = length;
+        if (ark != null)
+            this.byArk.putIfAbsent(ark, record);
+        if (id != 0)
+            this.byID.putIfAbsent(id, record);
+    }
+
+    /**
+     * Load the saved index
+     *
+     * @return boolean true if a current index was loaded, false if it must be built
+     */
+    private boolean loadIndex(File dump, File index) {
+        if (!index.isFile())
+            return false;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(index)))) {
+            if (!INDEX_MAGIC.equals(in.readUTF()) || in.readInt() != INDEX_VERSION)
+                return false;
+            if (in.readLong() != dump.length() || in.readLong() != dump.lastModified())
+                return false;
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                long offset = in.readLong();
+                int length = in.readInt();
+                int id = in.readInt();
+                String ark = in.readBoolean() ? in.readUTF() : null;
+                this.add(offset, length, ark, id);
+            }
+            return true;
+        } catch (IOException e) {
+            this.size = 0;
+            this.byArk.clear();
+            this.byID.clear();
+            return false;
+        }
+    }
+
+    /**
+     * Save the index
+     *
+     * Writes to a temporary file that is then renamed, so a partly written index is never read.
+     */
+    private void saveIndex(File dump, File index) {
+        File temp = new File(index.getPath() + ".tmp");
+        Map<Integer, String> arks = new HashMap<>();
+        for (Map.Entry<String, Integer> entry : this.byArk.entrySet())
+            arks.put(entry.getValue(), entry.getKey());
+        Map<Integer, Integer> ids = new HashMap<>();
+        for (Map.Entry<Integer, Integer> entry : this.byID.entrySet())
+            ids.put(entry.getValue(), entry.getKey());
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)))) {
+            out.writeUTF(INDEX_MAGIC);
+            out.writeInt(INDEX_VERSION);
+            out.writeLong(dump.length());
+            out.writeLong(dump.lastModified());
+            out.writeInt(this.size);
+            for (int i = 0; i < this.size; i++) {
+                out.writeLong(this.offsets[i]);
+                out.writeInt(this.lengths[i]);
+                Integer id = ids.get(i);
+                out.writeInt(id == null ? 0 : id);
+                String ark = arks.get(i);
+                out.writeBoolean(ark != null);
+                if (ark != null)
+                    out.writeUTF(ark);
+            }
+        } catch (IOException e) {
+            temp.delete();
+            return;
+        }
+        index.delete();
+        if (!temp.renameTo(index))
+            temp.delete();
+    }
+
+    /**
+     * Close the store
+     *
+     * The mapped segments are released when they are garbage collected.
+     */
+    public void close() throws IOException {
+        this.file.close();
+    }
+}
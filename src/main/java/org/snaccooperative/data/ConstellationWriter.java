@@ -0,0 +1,227 @@
+/**
+ * Constellation Writer File
+ *
+ * Contains the streaming writer for files of many constellations.
+ *
+ * License:
+ *
+ *
+ * @author Robbie Hott
+ * @license https://opensource.org/licenses/BSD-3-Clause BSD 3-Clause
+ * @copyright 2015 the Rector and Visitors of the University of Virginia, and
+ *            the Regents of the University of California
+ */
+package org.snaccooperative.data;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Constellation Writer
+ *
+ * Streams Constellations out as newline-delimited JSON, one compact object per line, without
+ * building a String for any record.  Records are encoded straight into a single buffered
+ * generator, which is only flushed to the underlying stream every batchSize records (and on
+ * flush() or close()), so an export of millions of records costs a few large writes rather than
+ * one per record.  The output may optionally be gzip-compressed, and is readable by
+ * ConstellationReader.
+ *
+ * The writer is not thread-safe.
+ *
+ * @author Robbie Hott
+ */
+public class ConstellationWriter implements Closeable, Flushable {
+
+    /**
+     * @var int Default size of the output buffer, in bytes
+     */
+    public static final int DEFAULT_BUFFER_SIZE = 65536;
+
+    /**
+     * @var int Default number of records written between flushes
+     */
+    public static final int DEFAULT_BATCH_SIZE = 1000;
+
+    /**
+     * @var JsonGenerator The token-level generator over the output
+     */
+    private final JsonGenerator generator;
+
+    /**
+     * @var ObjectWriter The writer used to encode each record
+     */
+    private final ObjectWriter writer;
+
+    /**
+     * @var OutputStream The stream the generator writes to, which this writer owns and closes
+     */
+    private final OutputStream target;
+
+    /**
+     * @var GZIPOutputStream The compressing stream, if the output is gzipped
+     */
+    private final GZIPOutputStream gzip;
+
+    /**
+     * @var int Number of records written between flushes
+     */
+    private final int batchSize;
+
+    /**
+     * @var long Number of records written so far
+     */
+    private long recordsWritten = 0;
+
+    /**
+     * @var boolean Whether the writer has been closed
+     */
+    private boolean closed = false;
+
+    /**
+     * Constructor
+     *
+     * Writes uncompressed NDJSON to the given stream, using the default buffer and batch sizes.
+     * The stream is closed when this writer is closed.
+     *
+     */
+    public ConstellationWriter(OutputStream out) throws IOException {
+        this(out, false, DEFAULT_BUFFER_SIZE, DEFAULT_BATCH_SIZE);
+    }
+
+    /**
+     * Constructor
+     *
+     * Writes NDJSON to the given stream, which is closed when this writer is closed.
+     *
+     * @param out The stream to write to
+     * @param gzip Whether to gzip-compress the output
+     * @param bufferSize Size of the output buffer, in bytes
+     * @param batchSize Number of records to write between flushes
+     */
+    public ConstellationWriter(OutputStream out, boolean gzip, int bufferSize, int batchSize) throws IOException {
+        if (bufferSize <= 0)
+            throw new IllegalArgumentException("Buffer size must be positive: " + bufferSize);
+        if (batchSize <= 0)
+            throw new IllegalArgumentException("Batch size must be positive: " + batchSize);
+
+        OutputStream target = new BufferedOutputStream(out, bufferSize);
+        if (gzip) {
+            this.gzip = new GZIPOutputStream(target, bufferSize);
+            target = this.gzip;
+        } else {
+            this.gzip = null;
+        }
+        this.target = target;
+        this.batchSize = batchSize;
+        this.writer = JSONCodec.compactWriter().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        this.generator = JSONCodec.factory().createGenerator(target);
+        // Records are separated by the newline written after each one, not by the default space
+        this.generator.setRootValueSeparator(null);
+    }
+
+    /**
+     * Constructor
+     *
+     * Writes NDJSON to the given channel, which is closed when this writer is closed.
+     *
+     * @param channel The channel to write to
+     * @param gzip Whether to gzip-compress the output
+     * @param bufferSize Size of the output buffer, in bytes
+     * @param batchSize Number of records to write between flushes
+     */
+    public ConstellationWriter(WritableByteChannel channel, boolean gzip, int bufferSize, int batchSize) throws IOException {
+        this(Channels.newOutputStream(channel), gzip, bufferSize, batchSize);
+    }
+
+    /**
+     * Open a file
+     *
+     * Opens a writer over the given file, replacing its contents.
+     *
+     * @param file The file to write
+     * @param gzip Whether to gzip-compress the output
+     * @return ConstellationWriter A writer over the file
+     */
+    public static ConstellationWriter open(File file, boolean gzip) throws IOException {
+        return new ConstellationWriter(new FileOutputStream(file), gzip, DEFAULT_BUFFER_SIZE, DEFAULT_BATCH_SIZE);
+    }
+
+    /**
+     * Write a constellation
+     *
+     * Appends the constellation as a single line of compact JSON.
+     *
+     * @param c The constellation to write
+     */
+    public void write(Constellation c) throws IOException {
+        if (this.closed)
+            throw new IOException("ConstellationWriter is closed");
+        this.writer.writeValue(this.generator, c);
+        this.generator.writeRaw('\n');
+        this.recordsWritten++;
+        if (this.recordsWritten % this.batchSize == 0)
+            this.generator.flush();
+    }
+
+    /**
+     * Write many constellations
+     *
+     * @param constellations The constellations to write, in order
+     */
+    public void writeAll(Iterable<Constellation> constellations) throws IOException {
+        for (Constellation c : constellations)
+            this.write(c);
+    }
+
+    /**
+     * Get the number of records written
+     *
+     * @return long Number of records written so far
+     */
+    public long getRecordsWritten() {
+        return this.recordsWritten;
+    }
+
+    /**
+     * Flush any buffered records to the underlying stream
+     *
+     * For gzipped output, data still held by the compressor is not forced out.
+     */
+    public void flush() throws IOException {
+        if (!this.closed)
+            this.generator.flush();
+    }
+
+    /**
+     * Close the writer and the underlying stream
+     *
+     * Flushes any buffered records and, for gzipped output, writes the gzip trailer.
+     */
+    public void close() throws IOException {
+        if (this.closed)
+            return;
+        this.closed = true;
+        this.generator.flush();
+        if (this.gzip != null)
+            this.gzip.finish();
+        try {
+            this.generator.close();
+        } finally {
+            // The compact writer turns off AUTO_CLOSE_TARGET for every value it writes, so the
+            // generator leaves the stream open; close it here, which also releases the file
+            this.target.close();
+        }
+    }
+}
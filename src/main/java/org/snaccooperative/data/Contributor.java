@@ -15,6 +15,8 @@
  */
 package org.snaccooperative.data;
 
+import java.util.Objects;
+
 /**
  * Contributor Class
  *
@@ -60,6 +62,13 @@ public class Contributor extends AbstractData {
         this.setDataType("Contributor");
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    protected AbstractData newInstance() {
+        return new Contributor();
+    }
+
     /**
      * Get the type controlled vocab
      *
@@ -76,7 +85,8 @@ public class Contributor extends AbstractData {
      */
     public void setType(Term type)
     {
-        this.type = type;
+        this.modified("type");
+        this.type = TermRegistry.canonical(type);
     }
 
     /**
@@ -95,7 +105,8 @@ public class Contributor extends AbstractData {
      */
     public void setRule(Term rule)
     {
-        this.rule = rule;
+        this.modified("rule");
+        this.rule = TermRegistry.canonical(rule);
     }
 
     /**
@@ -112,6 +123,7 @@ public class Contributor extends AbstractData {
      */
     public void setName(String name)
     {
+        this.modified("name");
         this.name = name;
     }
 
@@ -120,12 +132,12 @@ public class Contributor extends AbstractData {
      *
      * {@inheritDoc}
      */
-    public boolean equals(Object other) {
+    public boolean equals(Object other, boolean strict, boolean checkSubcomponents) {
 
         if (other == null || !(other instanceof Contributor))
             return false;
 
-        if (!super.equals(other))
+        if (!super.equals(other, strict, checkSubcomponents))
             return false;
 
         Contributor c = (Contributor) other;
@@ -139,4 +151,34 @@ public class Contributor extends AbstractData {
 
         return true;
     }
+
+    /**
+     * {@inheritDoc}
+     */
+    protected int computeHashCode(boolean strict, boolean checkSubcomponents) {
+        int hash = super.computeHashCode(strict, checkSubcomponents);
+        hash = 31 * hash + Objects.hashCode(this.getName());
+        hash = 31 * hash + Objects.hashCode(this.getType());
+        return hash;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    protected void freezeFields() {
+        super.freezeFields();
+        this.type = freezeTerm(this.type);
+        this.rule = freezeTerm(this.rule);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    protected void copyFrom(AbstractData data, DataCopier copier) {
+        super.copyFrom(data, copier);
+        Contributor other = (Contributor) data;
+        this.type = copier.copy(other.type);
+        this.rule = copier.copy(other.rule);
+        this.name = other.name;
+    }
 }
@@ -32,4 +32,11 @@ public class ConventionDeclaration extends AbstractTextData {
         this.setMaxDateCount(0);
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    protected AbstractData newInstance() {
+        return new ConventionDeclaration();
+    }
+
 }
@@ -0,0 +1,172 @@
+/**
+ * Data Copier File
+ *
+ * Contains the state of a deep copy of a tree of data objects.
+ *
+ * License:
+ *
+ *
+ * @author Robbie Hott
+ * @license https://opensource.org/licenses/BSD-3-Clause BSD 3-Clause
+ * @copyright 2015 the Rector and Visitors of the University of Virginia, and
+ *            the Regents of the University of California
+ */
+package org.snaccooperative.data;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Data Copier
+ *
+ * Copies a tree of data objects, as AbstractData.deepCopy() does, field by field and without
+ * going through JSON.  The tree copied is the one a DataVisitor walks, along with the sources
+ * cited by its SCMs.  Each object is copied once: an object held in more than one place in the
+ * tree, such as a Source cited by several SCMs as well as listed in the Constellation's sources,
+ * or the preferred name entry, is one object in the copy as well.
+ *
+ * If IDs are not kept, the IDs and versions of the copied objects are cleared, except in the
+ * records that are only referred to: the Resource of a ResourceRelation and the repository of a
+ * Resource keep theirs, along with everything in them.  Operations are always kept.
+ *
+ * If terms are shared, the read-only terms (those of the TermRegistry, and those of frozen
+ * Constellations) are held by the copy as well, since they can not change; any other term is
+ * copied.  Otherwise every term is copied into a new Term that may be changed.
+ *
+ * Strings, LazyTexts and the fuzzy ranges of dates can not change, so they are shared.  The copy
+ * is never frozen, its hash codes are not cached, its changes are not tracked, and it keeps no
+ * JSON retained by fromJSONRetaining().
+ *
+ * A copier makes one copy, and is used from one thread.
+ *
+ * @author Robbie Hott
+ */
+public final class DataCopier {
+
+    /**
+     * @var boolean Whether to keep IDs and versions
+     */
+    private final boolean keepIDs;
+
+    /**
+     * @var boolean Whether to share the read-only terms
+     */
+    private final boolean shareTerms;
+
+    /**
+     * @var AbstractData[] The copy of each object copied so far, by the original
+     */
+    private final Map<AbstractData, AbstractData> copies = new IdentityHashMap<>();
+
+    /**
+     * @var AbstractData The object whose tree is copied
+     */
+    private AbstractData root = null;
+
+    /**
+     * @var int How many records that are only referred to enclose the object being copied
+     */
+    private int referenced = 0;
+
+    /**
+     * Constructor
+     *
+     * @param keepIDs Whether to keep IDs and versions
+     * @param shareTerms Whether to share the read-only terms
+     */
+    DataCopier(boolean keepIDs, boolean shareTerms) {
+        this.keepIDs = keepIDs;
+        this.shareTerms = shareTerms;
+    }
+
+    /**
+     * Are IDs kept
+     *
+     * @return boolean True if the object being copied keeps its ID and version
+     */
+    public boolean keepsIDs() {
+        return this.keepIDs || this.referenced > 0;
+    }
+
+    /**
+     * Are terms shared
+     *
+     * @return boolean True if read-only terms are shared rather than copied
+     */
+    public boolean sharesTerms() {
+        return this.shareTerms;
+    }
+
+    /**
+     * Copy a data object
+     *
+     * @param data The object, which may be null
+     * @return AbstractData The copy of the object, which is the same copy each time the same
+     * object is given
+     */
+    @SuppressWarnings("unchecked")
+    public <T extends AbstractData> T copy(T data) {
+        if (data == null)
+            return null;
+        AbstractData copy = this.copies.get(data);
+        if (copy != null)
+            return (T) copy;
+
+        if (this.root == null)
+            this.root = data;
+        boolean referenced = data != this.root && (data instanceof Constellation || data instanceof Resource);
+        copy = data.newInstance();
+        this.copies.put(data, copy);
+        if (referenced)
+            this.referenced++;
+        copy.copyFrom(data, this);
+        if (referenced)
+            this.referenced--;
+        return (T) copy;
+    }
+
+    /**
+     * Copy a list of data objects
+     *
+     * @param list The list, which may be null
+     * @return List A new ArrayList of the copies of the objects, or the shared empty list if
+     * there are none, or null if the list is null
+     */
+    public <T extends AbstractData> List<T> copyAll(List<T> list) {
+        if (list == null)
+            return null;
+        if (list.isEmpty())
+            return Collections.emptyList();
+        List<T> copies = new ArrayList<>(list.size());
+        for (int i = 0; i < list.size(); i++)
+            copies.add(this.copy(list.get(i)));
+        return copies;
+    }
+
+    /**
+     * Copy a term
+     *
+     * @param term The term, which may be null
+     * @return Term The term itself if terms are shared and it is read-only, otherwise a copy
+     */
+    public Term copy(Term term) {
+        if (term == null || (this.shareTerms && term.isShared()))
+            return term;
+        return term.deepCopy();
+    }
+
+    /**
+     * Copy a geographical term
+     *
+     * @param geoTerm The term, which may be null
+     * @return GeoTerm The term itself if terms are shared and it is read-only, otherwise a copy
+     */
+    public GeoTerm copy(GeoTerm geoTerm) {
+        if (geoTerm == null || (this.shareTerms && geoTerm.isFrozen()))
+            return geoTerm;
+        return geoTerm.deepCopy();
+    }
+}
@@ -0,0 +1,119 @@
+/**
+ * Data Key File
+ *
+ * Contains the hash key that compares data objects with the given equality parameters.
+ *
+ * License:
+ *
+ *
+ * @author Robbie Hott
+ * @license https://opensource.org/licenses/BSD-3-Clause BSD 3-Clause
+ * @copyright 2015 the Rector and Visitors of the University of Virginia, and
+ *            the Regents of the University of California
+ */
+package org.snaccooperative.data;
+
+import java.util.Objects;
+
+/**
+ * Data Key
+ *
+ * Wraps a data object so that hash-based collections compare it with
+ * equals(Object, boolean, boolean) and hashCode(boolean, boolean) rather than with the plain
+ * (strict) equals() and hashCode().  Used to compare and diff lists of data in linear time when
+ * IDs and versions are to be ignored, or sub-components checked.
+ *
+ * @author Robbie Hott
+ */
+final class DataKey {
+
+    /**
+     * @var AbstractData The wrapped data
+     */
+    private final AbstractData data;
+
+    /**
+     * @var boolean Whether to check ID/Version
+     */
+    private final boolean strict;
+
+    /**
+     * @var boolean Whether to check SNACControlMetadata, nameEntries contributors & components
+     */
+    private final boolean checkSubcomponents;
+
+    /**
+     * @var int The hash code of the wrapped data under the parameters
+     */
+    private final int hash;
+
+    private DataKey(AbstractData data, boolean strict, boolean checkSubcomponents) {
+        this.data = data;
+        this.strict = strict;
+        this.checkSubcomponents = checkSubcomponents;
+        this.hash = data.hashCode(strict, checkSubcomponents);
+    }
+
+    /**
+     * Make the key of an element
+     *
+     * @return Object The element itself if the plain equals() applies to it, otherwise a key
+     * that compares it with the given parameters
+     */
+    static Object of(Object element, boolean strict, boolean checkSubcomponents) {
+        if ((strict && !checkSubcomponents) || !(element instanceof AbstractData))
+            return element;
+        return new DataKey((AbstractData) element, strict, checkSubcomponents);
+    }
+
+    /**
+     * Compare two elements with the given parameters
+     *
+     * @return boolean true if the elements are equal, or are both null
+     */
+    static boolean same(Object a, Object b, boolean strict, boolean checkSubcomponents) {
+        if (a instanceof AbstractData && b instanceof AbstractData)
+            return ((AbstractData) a).equals(b, strict, checkSubcomponents);
+        return Objects.equals(a, b);
+    }
+
+    /**
+     * Hash an element with the given parameters
+     *
+     * @return int The hash code of the element, or 0 if it is null
+     */
+    static int hash(Object element, boolean strict, boolean checkSubcomponents) {
+        if (element instanceof AbstractData)
+            return ((AbstractData) element).hashCode(strict, checkSubcomponents);
+        return Objects.hashCode(element);
+    }
+
+    /**
+     * Get the wrapped data
+     *
+     * @return AbstractData The data this is the key of
+     */
+    AbstractData getData() {
+        return this.data;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public boolean equals(Object other) {
+        if (this == other)
+            return true;
+        if (!(other instanceof DataKey))
+            return false;
+        DataKey k = (DataKey) other;
+        return this.hash == k.hash && this.strict == k.strict && this.checkSubcomponents == k.checkSubcomponents
+            && this.data.equals(k.data, this.strict, this.checkSubcomponents);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public int hashCode() {
+        return this.hash;
+    }
+}
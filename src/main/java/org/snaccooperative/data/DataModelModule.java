@@ -0,0 +1,50 @@
+/**
+ * Data Model Module File
+ *
+ * Contains the Jackson module registering the hand-written model serializers.
+ *
+ * License:
+ *
+ *
+ * @author Robbie Hott
+ * @license https://opensource.org/licenses/BSD-3-Clause BSD 3-Clause
+ * @copyright 2015 the Rector and Visitors of the University of Virginia, and
+ *            the Regents of the University of California
+ */
+package org.snaccooperative.data;
+
+import com.fasterxml.jackson.databind.module.SimpleModule;
+
+/**
+ * Data Model Module
+ *
+ * Jackson module installing the serializers from ModelSerializers and the deserializers from
+ * ModelDeserializers, which replace reflective bean binding for the hot model classes.  It is
+ * registered on the shared mapper in JSONCodec, and may be registered on any other ObjectMapper
+ * that reads or writes the data model.
+ *
+ * @author Robbie Hott
+ */
+public class DataModelModule extends SimpleModule {
+
+    private static final long serialVersionUID = 1L;
+
+    public DataModelModule() {
+        super("DataModelModule");
+        this.addSerializer(Term.class, new ModelSerializers.TermSerializer());
+        this.addSerializer(SNACDate.class, new ModelSerializers.SNACDateSerializer());
+        this.addSerializer(SNACControlMetadata.class, new ModelSerializers.SNACControlMetadataSerializer());
+        this.addSerializer(NameEntry.class, new ModelSerializers.NameEntrySerializer());
+        this.addSerializer(Constellation.class, new ModelSerializers.ConstellationSerializer());
+        this.addSerializer(Resource.class, new ModelSerializers.ResourceSerializer());
+        this.addSerializer(LazyText.class, new ModelSerializers.LazyTextSerializer());
+
+        this.addDeserializer(Term.class, new ModelDeserializers.TermDeserializer());
+        this.addDeserializer(SNACDate.class, new ModelDeserializers.SNACDateDeserializer());
+        this.addDeserializer(SNACControlMetadata.class, new ModelDeserializers.SNACControlMetadataDeserializer());
+        this.addDeserializer(NameEntry.class, new ModelDeserializers.NameEntryDeserializer());
+        this.addDeserializer(Constellation.class, new ModelDeserializers.ConstellationDeserializer());
+        this.addDeserializer(Resource.class, new ModelDeserializers.ResourceDeserializer());
+        this.addDeserializer(LazyText.class, new ModelDeserializers.LazyTextDeserializer());
+    }
+}
@@ -0,0 +1,53 @@
+/**
+ * Data Visitor File
+ *
+ * Contains the visitor that walks a tree of data objects.
+ *
+ * License:
+ *
+ *
+ * @author Robbie Hott
+ * @license https://opensource.org/licenses/BSD-3-Clause BSD 3-Clause
+ * @copyright 2015 the Rector and Visitors of the University of Virginia, and
+ *            the Regents of the University of California
+ */
+package org.snaccooperative.data;
+
+/**
+ * Data Visitor
+ *
+ * Visits each data object in a tree, as walked by AbstractData.accept().  The tree of a data
+ * object holds its dates and SNACControlMetadata, and the data it owns: the sections of a
+ * Constellation, the components, contributors and language of a NameEntry, the address of a
+ * Place, the resource of a ResourceRelation, the repository, origination names and languages
+ * of a Resource, and so on.  The Source cited by an SCM is not walked from the SCM, since it is
+ * one of the Constellation's sources rather than a part of the SCM.
+ *
+ * enter() is called on each object before its sub-elements, and leave() after them.  If enter()
+ * returns false, the object's sub-elements are skipped, but leave() is still called.  The walk
+ * itself allocates nothing.
+ *
+ * @author Robbie Hott
+ */
+public abstract class DataVisitor {
+
+    /**
+     * Enter a data object
+     *
+     * @param data The data object
+     * @return boolean True to visit the object's sub-elements, false to skip them
+     */
+    public boolean enter(AbstractData data) {
+        return true;
+    }
+
+    /**
+     * Leave a data object
+     *
+     * Called after the object's sub-elements have been visited, or skipped.
+     *
+     * @param data The data object
+     */
+    public void leave(AbstractData data) {
+    }
+}
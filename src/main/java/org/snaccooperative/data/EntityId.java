@@ -15,6 +15,8 @@
  */
 package org.snaccooperative.data;
 
+import java.util.Objects;
+
 /**
  * EntityId data storage class
  *
@@ -48,6 +50,13 @@ public class EntityId extends AbstractData {
         this.setMaxDateCount(0);
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    protected AbstractData newInstance() {
+        return new EntityId();
+    }
+
     /**
      * Get the text of this entityId
      *
@@ -95,6 +104,7 @@ public class EntityId extends AbstractData {
      */
     public void setText(String text) {
 
+        this.modified("text");
         this.text = text;
     }
 
@@ -102,6 +112,7 @@ public class EntityId extends AbstractData {
      * Set the URI of this entityId
      */
     public void setURI(String uri) {
+        this.modified("uri");
         this.uri = uri;
     }
 
@@ -109,18 +120,19 @@ public class EntityId extends AbstractData {
      * Set the type of this entityId
      */
     public void setType(Term type) {
-        this.type = type;
+        this.modified("type");
+        this.type = TermRegistry.canonical(type);
     }
 
     /**
      * {@inheritDoc}
      */
-    public boolean equals(Object other) {
+    public boolean equals(Object other, boolean strict, boolean checkSubcomponents) {
 
         if (other == null || ! (other instanceof EntityId))
             return false;
 
-        if (!super.equals(other))
+        if (!super.equals(other, strict, checkSubcomponents))
             return false;
 
         EntityId e = (EntityId) other;
@@ -137,4 +149,34 @@ public class EntityId extends AbstractData {
 
         return true;
     }
+
+    /**
+     * {@inheritDoc}
+     */
+    protected int computeHashCode(boolean strict, boolean checkSubcomponents) {
+        int hash = super.computeHashCode(strict, checkSubcomponents);
+        hash = 31 * hash + Objects.hashCode(this.getText());
+        hash = 31 * hash + Objects.hashCode(this.getURI());
+        hash = 31 * hash + Objects.hashCode(this.getType());
+        return hash;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    protected void freezeFields() {
+        super.freezeFields();
+        this.type = freezeTerm(this.type);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    protected void copyFrom(AbstractData data, DataCopier copier) {
+        super.copyFrom(data, copier);
+        EntityId other = (EntityId) data;
+        this.text = other.text;
+        this.uri = other.uri;
+        this.type = copier.copy(other.type);
+    }
 }
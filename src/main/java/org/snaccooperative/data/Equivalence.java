@@ -0,0 +1,275 @@
+/**
+ * Equivalence File
+ *
+ * Contains the strategies for comparing and hashing data objects.
+ *
+ * License:
+ *
+ *
+ * @author Robbie Hott
+ * @license https://opensource.org/licenses/BSD-3-Clause BSD 3-Clause
+ * @copyright 2015 the Rector and Visitors of the University of Virginia, and
+ *            the Regents of the University of California
+ */
+package org.snaccooperative.data;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Equivalence
+ *
+ * A notion of when two objects are the same, with a hash function that agrees with it.  The
+ * built-in strategies compare data objects with equals(Object, boolean, boolean) and hash them
+ * with hashCode(boolean, boolean):
+ *
+ * strict() compares everything, including IDs, versions and the sub-components (SNACControlMetadata,
+ * and nameEntries contributors &amp; components).  identity() is the plain equals() and hashCode():
+ * IDs and versions, but not the sub-components.  content() compares only the data, ignoring
+ * IDs, versions, operations and sub-components, as diff() and combine() do.
+ *
+ * To keep data in a HashMap or HashSet under an equivalence other than the plain one, key it by
+ * wrap(data).  distinct() drops the equivalent elements of a collection in linear time.
+ *
+ * @param <T> The type of object compared
+ *
+ * @author Robbie Hott
+ */
+public abstract class Equivalence<T> {
+
+    /**
+     * @var Equivalence[] The data strategies, indexed by strict * 2 + checkSubcomponents
+     */
+    private static final Equivalence<?>[] DATA = {
+        new DataEquivalence(false, false),
+        new DataEquivalence(false, true),
+        new DataEquivalence(true, false),
+        new DataEquivalence(true, true)
+    };
+
+    /**
+     * Constructor
+     */
+    protected Equivalence() {
+    }
+
+    /**
+     * Compare everything
+     *
+     * @return Equivalence The strategy that checks IDs, versions and sub-components
+     */
+    public static <T extends AbstractData> Equivalence<T> strict() {
+        return Equivalence.of(true, true);
+    }
+
+    /**
+     * Compare as equals() does
+     *
+     * @return Equivalence The strategy that checks IDs and versions, but not sub-components
+     */
+    public static <T extends AbstractData> Equivalence<T> identity() {
+        return Equivalence.of(true, false);
+    }
+
+    /**
+     * Compare only the content
+     *
+     * @return Equivalence The strategy that ignores IDs, versions, operations and sub-components
+     */
+    public static <T extends AbstractData> Equivalence<T> content() {
+        return Equivalence.of(false, false);
+    }
+
+    /**
+     * Compare with the given parameters
+     *
+     * @param strict Whether or not to check ID/Version
+     * @param checkSubcomponents Whether or not to check SNACControlMetadata, nameEntries contributors & components
+     * @return Equivalence The strategy that compares with equals(Object, boolean, boolean)
+     */
+    @SuppressWarnings("unchecked")
+    public static <T extends AbstractData> Equivalence<T> of(boolean strict, boolean checkSubcomponents) {
+        return (Equivalence<T>) DATA[(strict ? 2 : 0) + (checkSubcomponents ? 1 : 0)];
+    }
+
+    /**
+     * Compare two objects
+     *
+     * @param a The first object, which may be null
+     * @param b The second object, which may be null
+     * @return boolean true if both are null, or they are equivalent
+     */
+    public final boolean equivalent(T a, T b) {
+        if (a == b)
+            return true;
+        if (a == null || b == null)
+            return false;
+        return this.doEquivalent(a, b);
+    }
+
+    /**
+     * Hash an object
+     *
+     * @param t The object, which may be null
+     * @return int The hash code of the object, or 0 if it is null
+     */
+    public final int hash(T t) {
+        if (t == null)
+            return 0;
+        return this.doHash(t);
+    }
+
+    /**
+     * Wrap an object
+     *
+     * @param t The object, which may be null
+     * @return Wrapper A key whose equals() and hashCode() are this equivalence's
+     */
+    public final <S extends T> Wrapper<S> wrap(S t) {
+        return new Wrapper<S>(this, t);
+    }
+
+    /**
+     * Drop equivalent elements
+     *
+     * @param elements The elements
+     * @return List The first of each set of equivalent elements, in their original order
+     */
+    public final <S extends T> List<S> distinct(Iterable<S> elements) {
+        List<S> result = new ArrayList<>();
+        Set<Wrapper<S>> seen = new HashSet<>();
+        for (S element : elements) {
+            if (seen.add(this.wrap(element)))
+                result.add(element);
+        }
+        return result;
+    }
+
+    /**
+     * Compare two objects
+     *
+     * @param a The first object, not null
+     * @param b The second object, not null and not a
+     * @return boolean true if they are equivalent
+     */
+    protected abstract boolean doEquivalent(T a, T b);
+
+    /**
+     * Hash an object
+     *
+     * Must return the same value for equivalent objects.
+     *
+     * @param t The object, not null
+     * @return int The hash code
+     */
+    protected abstract int doHash(T t);
+
+    /**
+     * Wrapper
+     *
+     * An object, compared and hashed by an equivalence.  Two wrappers are equal if they have the
+     * same equivalence and their objects are equivalent.
+     *
+     * @param <T> The type of the object
+     */
+    public static final class Wrapper<T> {
+
+        /**
+         * @var Equivalence The equivalence
+         */
+        private final Equivalence<? super T> equivalence;
+
+        /**
+         * @var T The object
+         */
+        private final T reference;
+
+        /**
+         * @var int The hash code of the object under the equivalence
+         */
+        private final int hash;
+
+        private Wrapper(Equivalence<? super T> equivalence, T reference) {
+            this.equivalence = equivalence;
+            this.reference = reference;
+            this.hash = equivalence.hash(reference);
+        }
+
+        /**
+         * Get the object
+         *
+         * @return T The wrapped object
+         */
+        public T get() {
+            return this.reference;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @SuppressWarnings("unchecked")
+        public boolean equals(Object other) {
+            if (this == other)
+                return true;
+            if (!(other instanceof Wrapper))
+                return false;
+            Wrapper<?> w = (Wrapper<?>) other;
+            if (this.hash != w.hash || !this.equivalence.equals(w.equivalence))
+                return false;
+            return ((Equivalence<Object>) this.equivalence).equivalent(this.reference, w.reference);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        public int hashCode() {
+            return this.hash;
+        }
+
+        /**
+         * To String
+         *
+         * @return string The equivalence and the object
+         */
+        public String toString() {
+            return this.equivalence + ".wrap(" + this.reference + ")";
+        }
+    }
+
+    /**
+     * Data Equivalence
+     *
+     * Compares data objects with equals(Object, boolean, boolean).
+     */
+    private static final class DataEquivalence extends Equivalence<AbstractData> {
+
+        /**
+         * @var boolean Whether to check ID/Version
+         */
+        private final boolean strict;
+
+        /**
+         * @var boolean Whether to check SNACControlMetadata, nameEntries contributors & components
+         */
+        private final boolean checkSubcomponents;
+
+        DataEquivalence(boolean strict, boolean checkSubcomponents) {
+            this.strict = strict;
+            this.checkSubcomponents = checkSubcomponents;
+        }
+
+        protected boolean doEquivalent(AbstractData a, AbstractData b) {
+            return DataKey.same(a, b, this.strict, this.checkSubcomponents);
+        }
+
+        protected int doHash(AbstractData t) {
+            return DataKey.hash(t, this.strict, this.checkSubcomponents);
+        }
+
+        public String toString() {
+            return "Equivalence.of(" + this.strict + ", " + this.checkSubcomponents + ")";
+        }
+    }
+}
@@ -0,0 +1,139 @@
+/**
+ * Fingerprint File
+ *
+ * Contains the 128-bit content fingerprint of data model objects.
+ *
+ * License:
+ *
+ *
+ * @author Robbie Hott
+ * @license https://opensource.org/licenses/BSD-3-Clause BSD 3-Clause
+ * @copyright 2015 the Rector and Visitors of the University of Virginia, and
+ *            the Regents of the University of California
+ */
+package org.snaccooperative.data;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * Fingerprint
+ *
+ * A 128-bit hash of the content of a Constellation, Resource or other model object, for telling
+ * whether it has changed without keeping or comparing the old copy.  The fingerprint is computed
+ * from the tokens of the object's JSON, as written by toJSON(), so two objects with the same
+ * JSON have the same fingerprint, whether they were read eagerly or lazily.  The elements of
+ * every list are hashed without regard to their order, since equals() ignores it.
+ *
+ * Fingerprints are stable: the same content has the same fingerprint in every process and on
+ * every run, so they may be stored and compared with those of a later export.  Unlike hashCode(),
+ * they are wide enough that unrelated content practically never collides.  They are not
+ * cryptographic, and should not be relied on against deliberately forged data.
+ *
+ * A fingerprint may include the IDs, versions and operations of the object and its sub-elements,
+ * or leave them out so that only the data is compared, as diff(other, false, false) does.
+ *
+ * @author Robbie Hott
+ */
+public final class Fingerprint {
+
+    /**
+     * @var long The high 64 bits
+     */
+    private final long high;
+
+    /**
+     * @var long The low 64 bits
+     */
+    private final long low;
+
+    /**
+     * Constructor
+     *
+     * @param high The high 64 bits
+     * @param low The low 64 bits
+     */
+    public Fingerprint(long high, long low) {
+        this.high = high;
+        this.low = low;
+    }
+
+    /**
+     * Fingerprint an object
+     *
+     * @param value The Constellation, Resource or other model object
+     * @param includeIDs Whether to include the IDs, versions and operations of the object and its
+     * sub-elements
+     * @return Fingerprint The fingerprint of the object's content
+     */
+    public static Fingerprint of(Object value, boolean includeIDs) {
+        try {
+            return FingerprintGenerator.fingerprint(value, includeIDs, null);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Parse a fingerprint
+     *
+     * @param hex The 32 hexadecimal digits written by toString()
+     * @return Fingerprint The fingerprint, or null if hex is not a fingerprint
+     */
+    public static Fingerprint fromString(String hex) {
+        if (hex == null || hex.length() != 32)
+            return null;
+        try {
+            return new Fingerprint(Long.parseUnsignedLong(hex.substring(0, 16), 16),
+                Long.parseUnsignedLong(hex.substring(16), 16));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Get the high bits
+     *
+     * @return long The high 64 bits
+     */
+    public long getHigh() {
+        return this.high;
+    }
+
+    /**
+     * Get the low bits
+     *
+     * @return long The low 64 bits
+     */
+    public long getLow() {
+        return this.low;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public boolean equals(Object other) {
+        if (this == other)
+            return true;
+        if (!(other instanceof Fingerprint))
+            return false;
+        Fingerprint f = (Fingerprint) other;
+        return this.high == f.high && this.low == f.low;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public int hashCode() {
+        return (int) this.low;
+    }
+
+    /**
+     * To String
+     *
+     * @return string The fingerprint as 32 hexadecimal digits
+     */
+    public String toString() {
+        return String.format("%016x%016x", this.high, this.low);
+    }
+}
@@ -0,0 +1,485 @@
+/**
+ * Fingerprint Generator File
+ *
+ * Contains the Jackson generator that hashes the JSON tokens of an object into a Fingerprint.
+ *
+ * License:
+ *
+ *
+ * @author Robbie Hott
+ * @license https://opensource.org/licenses/BSD-3-Clause BSD 3-Clause
+ * @copyright 2015 the Rector and Visitors of the University of Virginia, and
+ *            the Regents of the University of California
+ */
+package org.snaccooperative.data;
+
+import com.fasterxml.jackson.core.Base64Variant;
+import com.fasterxml.jackson.core.base.GeneratorBase;
+import com.fasterxml.jackson.core.json.JsonWriteContext;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * Fingerprint Generator
+ *
+ * Hashes the tokens of an object's JSON as they are written, without writing any bytes.  Each
+ * value is hashed to 128 bits (with the block mix and finalizer of MurmurHash3 x64_128), and each
+ * object hashes its properties in order.  Each array adds up the hashes of its elements, so the
+ * order of the elements does not matter.
+ *
+ * When IDs are left out, the id, version and operation properties of every object whose first
+ * property is its dataType (that is, every AbstractData) are skipped.  Terms have no dataType,
+ * so their IDs, which name vocabulary entries, are always hashed.
+ *
+ * @author Robbie Hott
+ */
+final class FingerprintGenerator extends GeneratorBase {
+
+    /**
+     * @var ObjectWriter Writer used to serialize objects into the generator
+     */
+    private static final ObjectWriter WRITER = JSONCodec.compactWriter()
+        .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+
+    private static final long C1 = 0x87c37b91114253d5L;
+    private static final long C2 = 0x4cf5ad432745937fL;
+
+    /**
+     * Seeds of each kind of value, so that values of different kinds hash apart
+     */
+    private static final long SEED_OBJECT = 1;
+    private static final long SEED_ARRAY = 2;
+    private static final long SEED_STRING = 3;
+    private static final long SEED_INT = 4;
+    private static final long SEED_DOUBLE = 5;
+    private static final long SEED_DECIMAL = 6;
+    private static final long SEED_TRUE = 7;
+    private static final long SEED_FALSE = 8;
+    private static final long SEED_NULL = 9;
+    private static final long SEED_COMBINED = 10;
+    private static final long SEED_PROPERTY = 11;
+
+    /**
+     * @var boolean Whether the IDs, versions and operations of data objects are hashed
+     */
+    private final boolean includeIDs;
+
+    /**
+     * @var Fingerprint[] Receives the hash of each property of the outermost object, or null
+     */
+    private final Map<String, Fingerprint> properties;
+
+    /**
+     * Stack of the objects and arrays being hashed.  For an object, high and low are its running
+     * hash, and count the number of properties; for an array, they are the sums of the hashes of
+     * its elements, and count the number of elements.
+     */
+    private long[] high = new long[16];
+    private long[] low = new long[16];
+    private long[] count = new long[16];
+    private boolean[] isArray = new boolean[16];
+    private boolean[] isData = new boolean[16];
+    private String[] field = new String[16];
+    private int depth = 0;
+
+    /**
+     * @var Hash Scratch space for hashing each value
+     */
+    private final Hash scratch = new Hash();
+
+    /**
+     * @var Fingerprint The hash of the outermost value, once written
+     */
+    private Fingerprint result = null;
+
+    // GeneratorBase(int, ObjectCodec) is deprecated from Jackson 2.16, but its replacement
+    // taking an IOContext does not exist in the older releases the pom still allows
+    @SuppressWarnings("deprecation")
+    private FingerprintGenerator(boolean includeIDs, Map<String, Fingerprint> properties) {
+        super(0, null);
+        this.includeIDs = includeIDs;
+        this.properties = properties;
+    }
+
+    /**
+     * Fingerprint an object
+     *
+     * @param value The object to fingerprint
+     * @param includeIDs Whether to hash the IDs, versions and operations of data objects
+     * @param properties Receives the fingerprint of each property of the object (its name and
+     * value together), in the order written, or null
+     * @return Fingerprint The fingerprint of the object
+     */
+    static Fingerprint fingerprint(Object value, boolean includeIDs, Map<String, Fingerprint> properties)
+            throws IOException {
+        FingerprintGenerator generator = new FingerprintGenerator(includeIDs, properties);
+        WRITER.writeValue(generator, value);
+        return generator.result;
+    }
+
+    /**
+     * Combine fingerprints, in order
+     *
+     * @return Fingerprint The fingerprint of the sequence
+     */
+    static Fingerprint combine(Fingerprint... parts) {
+        Hash hash = new Hash();
+        hash.start(SEED_COMBINED);
+        for (Fingerprint part : parts) {
+            hash.mix(part.getHigh());
+            hash.mix(part.getLow());
+        }
+        hash.finish(parts.length);
+        return new Fingerprint(hash.h, hash.l);
+    }
+
+    @Override
+    public void writeStartObject() throws IOException {
+        this._verifyValueWrite("start an object");
+        this._writeContext = this._writeContext.createChildObjectContext();
+        this.push(false);
+    }
+
+    @Override
+    public void writeEndObject() throws IOException {
+        if (!this._writeContext.inObject())
+            this._reportError("Current context not Object but " + this._writeContext.typeDesc());
+        this._writeContext = this._writeContext.clearAndGetParent();
+        this.pop();
+    }
+
+    @Override
+    public void writeStartArray() throws IOException {
+        this._verifyValueWrite("start an array");
+        this._writeContext = this._writeContext.createChildArrayContext();
+        this.push(true);
+    }
+
+    @Override
+    public void writeEndArray() throws IOException {
+        if (!this._writeContext.inArray())
+            this._reportError("Current context not Array but " + this._writeContext.typeDesc());
+        this._writeContext = this._writeContext.clearAndGetParent();
+        this.pop();
+    }
+
+    @Override
+    public void writeFieldName(String name) throws IOException {
+        if (this._writeContext.writeFieldName(name) == JsonWriteContext.STATUS_EXPECT_VALUE)
+            this._reportError("Can not write a field name, expecting a value");
+        int top = this.depth - 1;
+        if (this.count[top] == 0 && this.field[top] == null && "dataType".equals(name))
+            this.isData[top] = true;
+        this.field[top] = name;
+    }
+
+    @Override
+    public void writeString(String text) throws IOException {
+        if (text == null) {
+            this.writeNull();
+            return;
+        }
+        this._verifyValueWrite("write a string");
+        Hash hash = this.scratch;
+        hash.start(SEED_STRING);
+        hash.mix(text);
+        hash.finish(text.length());
+        this.value(hash.h, hash.l);
+    }
+
+    @Override
+    public void writeString(char[] text, int offset, int len) throws IOException {
+        this.writeString(new String(text, offset, len));
+    }
+
+    @Override
+    public void writeRawUTF8String(byte[] text, int offset, int length) throws IOException {
+        this.writeString(new String(text, offset, length, StandardCharsets.UTF_8));
+    }
+
+    @Override
+    public void writeUTF8String(byte[] text, int offset, int length) throws IOException {
+        this.writeString(new String(text, offset, length, StandardCharsets.UTF_8));
+    }
+
+    @Override
+    public void writeRaw(String text) throws IOException {
+        this._reportUnsupportedOperation();
+    }
+
+    @Override
+    public void writeRaw(String text, int offset, int len) throws IOException {
+        this._reportUnsupportedOperation();
+    }
+
+    @Override
+    public void writeRaw(char[] text, int offset, int len) throws IOException {
+        this._reportUnsupportedOperation();
+    }
+
+    @Override
+    public void writeRaw(char c) throws IOException {
+        this._reportUnsupportedOperation();
+    }
+
+    @Override
+    public void writeBinary(Base64Variant variant, byte[] data, int offset, int len) throws IOException {
+        this.writeString(variant.encode(Arrays.copyOfRange(data, offset, offset + len)));
+    }
+
+    @Override
+    public void writeNumber(int v) throws IOException {
+        this.writeNumber((long) v);
+    }
+
+    @Override
+    public void writeNumber(long v) throws IOException {
+        this._verifyValueWrite("write a number");
+        this.scalar(SEED_INT, v);
+    }
+
+    @Override
+    public void writeNumber(BigInteger v) throws IOException {
+        if (v == null) {
+            this.writeNull();
+            return;
+        }
+        if (v.bitLength() < 64) {
+            this.writeNumber(v.longValue());
+            return;
+        }
+        this.writeNumber(new BigDecimal(v));
+    }
+
+    @Override
+    public void writeNumber(double v) throws IOException {
+        this._verifyValueWrite("write a number");
+        this.scalar(SEED_DOUBLE, Double.doubleToLongBits(v == 0.0 ? 0.0 : v));
+    }
+
+    @Override
+    public void writeNumber(float v) throws IOException {
+        this.writeNumber((double) v);
+    }
+
+    @Override
+    public void writeNumber(BigDecimal v) throws IOException {
+        if (v == null) {
+            this.writeNull();
+            return;
+        }
+        this._verifyValueWrite("write a number");
+        Hash hash = this.scratch;
+        hash.start(SEED_DECIMAL);
+        hash.mix(v.unscaledValue().toString());
+        hash.mix(v.scale());
+        hash.finish(2);
+        this.value(hash.h, hash.l);
+    }
+
+    @Override
+    public void writeNumber(String encoded) throws IOException {
+        this.writeNumber(new BigDecimal(encoded));
+    }
+
+    @Override
+    public void writeBoolean(boolean state) throws IOException {
+        this._verifyValueWrite("write a boolean value");
+        this.scalar(state ? SEED_TRUE : SEED_FALSE, 0);
+    }
+
+    @Override
+    public void writeNull() throws IOException {
+        this._verifyValueWrite("write a null");
+        this.scalar(SEED_NULL, 0);
+    }
+
+    @Override
+    protected void _verifyValueWrite(String typeMsg) throws IOException {
+        if (this._writeContext.writeValue() == JsonWriteContext.STATUS_EXPECT_NAME)
+            this._reportError("Can not " + typeMsg + ", expecting field name");
+    }
+
+    @Override
+    public void flush() {
+    }
+
+    @Override
+    protected void _releaseBuffers() {
+    }
+
+    /**
+     * Start hashing an object or array
+     */
+    private void push(boolean array) {
+        if (this.depth == this.high.length) {
+            int size = this.depth * 2;
+            this.high = Arrays.copyOf(this.high, size);
+            this.low = Arrays.copyOf(this.low, size);
+            this.count = Arrays.copyOf(this.count, size);
+            this.isArray = Arrays.copyOf(this.isArray, size);
+            this.isData = Arrays.copyOf(this.isData, size);
+            this.field = Arrays.copyOf(this.field, size);
+        }
+        int top = this.depth++;
+        this.high[top] = array ? 0 : SEED_OBJECT;
+        this.low[top] = array ? 0 : SEED_OBJECT;
+        this.count[top] = 0;
+        this.isArray[top] = array;
+        this.isData[top] = false;
+        this.field[top] = null;
+    }
+
+    /**
+     * Finish hashing the innermost object or array, and pass its hash to its container
+     */
+    private void pop() {
+        int top = --this.depth;
+        Hash hash = this.scratch;
+        if (this.isArray[top]) {
+            hash.start(SEED_ARRAY);
+            hash.mix(this.high[top]);
+            hash.mix(this.low[top]);
+        } else {
+            hash.h = this.high[top];
+            hash.l = this.low[top];
+        }
+        hash.finish(this.count[top]);
+        this.field[top] = null;
+        this.value(hash.h, hash.l);
+    }
+
+    /**
+     * Hash a scalar value
+     */
+    private void scalar(long seed, long bits) {
+        Hash hash = this.scratch;
+        hash.start(seed);
+        hash.mix(bits);
+        hash.finish(1);
+        this.value(hash.h, hash.l);
+    }
+
+    /**
+     * Pass the hash of a finished value to its container
+     */
+    private void value(long valueHigh, long valueLow) {
+        if (this.depth == 0) {
+            this.result = new Fingerprint(valueHigh, valueLow);
+            return;
+        }
+        int top = this.depth - 1;
+        if (this.isArray[top]) {
+            this.high[top] += valueHigh;
+            this.low[top] += valueLow;
+            this.count[top]++;
+            return;
+        }
+
+        String name = this.field[top];
+        if (!this.includeIDs && this.isData[top]
+                && ("id".equals(name) || "version".equals(name) || "operation".equals(name)))
+            return;
+        Hash hash = this.scratch;
+        if (top == 0 && this.properties != null) {
+            // The name is part of each property's fingerprint, so that combining the properties
+            // of an object that leaves some out cannot move a value into another's place
+            hash.start(SEED_PROPERTY);
+            hash.mix(name);
+            hash.mix(valueHigh);
+            hash.mix(valueLow);
+            hash.finish(1);
+            this.properties.put(name, new Fingerprint(hash.h, hash.l));
+        }
+        hash.h = this.high[top];
+        hash.l = this.low[top];
+        hash.mix(name);
+        hash.mix(valueHigh);
+        hash.mix(valueLow);
+        this.high[top] = hash.h;
+        this.low[top] = hash.l;
+        this.count[top]++;
+    }
+
+    /**
+     * Hash
+     *
+     * A running 128-bit hash.
+     */
+    private static final class Hash {
+
+        long h;
+        long l;
+
+        /**
+         * Start a new hash
+         */
+        void start(long seed) {
+            this.h = seed;
+            this.l = seed;
+        }
+
+        /**
+         * Mix 64 bits into the hash
+         */
+        void mix(long bits) {
+            long k1 = bits * C1;
+            k1 = Long.rotateLeft(k1, 31);
+            k1 *= C2;
+            this.h ^= k1;
+            this.h = Long.rotateLeft(this.h, 27) + this.l;
+            this.h = this.h * 5 + 0x52dce729;
+
+            long k2 = bits * C2;
+            k2 = Long.rotateLeft(k2, 33);
+            k2 *= C1;
+            this.l ^= k2;
+            this.l = Long.rotateLeft(this.l, 31) + this.h;
+            this.l = this.l * 5 + 0x38495ab5;
+        }
+
+        /**
+         * Mix the chars of a string into the hash, four at a time
+         */
+        void mix(String text) {
+            int length = text.length();
+            for (int i = 0; i < length; i += 4) {
+                long chunk = 0;
+                for (int j = i; j < i + 4 && j < length; j++)
+                    chunk = (chunk << 16) | text.charAt(j);
+                this.mix(chunk);
+            }
+            this.mix(length);
+        }
+
+        /**
+         * Finish the hash
+         */
+        void finish(long length) {
+            this.h ^= length;
+            this.l ^= length;
+            this.h += this.l;
+            this.l += this.h;
+            this.h = fmix(this.h);
+            this.l = fmix(this.l);
+            this.h += this.l;
+            this.l += this.h;
+        }
+
+        private static long fmix(long k) {
+            k ^= k >>> 33;
+            k *= 0xff51afd7ed558ccdL;
+            k ^= k >>> 33;
+            k *= 0xc4ceb9fe1a85ec53L;
+            k ^= k >>> 33;
+            return k;
+        }
+    }
+}
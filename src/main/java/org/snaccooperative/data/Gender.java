@@ -32,4 +32,11 @@ public class Gender extends AbstractTermData {
         this.setMaxDateCount(0);
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    protected AbstractData newInstance() {
+        return new Gender();
+    }
+
 }
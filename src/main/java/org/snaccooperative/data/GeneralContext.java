@@ -32,4 +32,11 @@ public class GeneralContext extends AbstractTextData {
         this.setMaxDateCount(0);
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    protected AbstractData newInstance() {
+        return new GeneralContext();
+    }
+
 }
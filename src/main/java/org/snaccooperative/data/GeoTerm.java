@@ -17,6 +17,10 @@
  */
 package org.snaccooperative.data;
 
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+
+import java.util.Objects;
+
 /**
  * Geographical Term
  *
@@ -28,6 +32,7 @@ package org.snaccooperative.data;
  * @author Tom Laudeman
  *
  */
+@JsonIgnoreProperties(value = { "empty" }, allowGetters = true)
 public class GeoTerm {
 
     /**
@@ -100,6 +105,10 @@ public class GeoTerm {
      */
     private String uri;
 
+    /**
+     * @var boolean Whether this term belongs to a frozen Constellation, and may not be changed
+     */
+    private boolean frozen = false;
 
     /**
      * Set the latitude
@@ -107,6 +116,7 @@ public class GeoTerm {
      */
     public void setLatitude(double lat) {
 
+        this.checkNotFrozen();
         this.latitude = lat;
     }
 
@@ -116,6 +126,7 @@ public class GeoTerm {
      */
     public void setLongitude(double lon) {
 
+        this.checkNotFrozen();
         this.longitude = lon;
     }
 
@@ -125,6 +136,7 @@ public class GeoTerm {
      */
     public void setAdministrationCode(String code) {
 
+        this.checkNotFrozen();
         this.administrationCode = code;
     }
 
@@ -134,6 +146,7 @@ public class GeoTerm {
      */
     public void setCountryCode(String code) {
 
+        this.checkNotFrozen();
         this.countryCode = code;
     }
 
@@ -146,6 +159,7 @@ public class GeoTerm {
      */
     public void setURI(String uri) {
 
+        this.checkNotFrozen();
         this.uri = uri;
     }
 
@@ -155,6 +169,7 @@ public class GeoTerm {
      */
     public void setName(String name) {
 
+        this.checkNotFrozen();
         this.name = name;
     }
 
@@ -164,6 +179,7 @@ public class GeoTerm {
      */
     public void setID(int id) {
 
+        this.checkNotFrozen();
         this.id = id;
     }
 
@@ -236,6 +252,56 @@ public class GeoTerm {
         return this.id;
     }
 
+    /**
+     * Freeze this term
+     *
+     * Makes this term read-only, as part of a frozen Constellation.
+     *
+     * @return GeoTerm This term
+     */
+    GeoTerm freeze() {
+        this.frozen = true;
+        return this;
+    }
+
+    /**
+     * Is this term frozen
+     *
+     * @return boolean True if this term belongs to a frozen Constellation, and so is read-only
+     */
+    boolean isFrozen() {
+        return this.frozen;
+    }
+
+    /**
+     * Deep copy
+     *
+     * @return GeoTerm A new term with the same values, which may be changed even if this one is
+     * frozen
+     */
+    public GeoTerm deepCopy() {
+        GeoTerm copy = new GeoTerm();
+        copy.name = this.name;
+        copy.id = this.id;
+        copy.latitude = this.latitude;
+        copy.longitude = this.longitude;
+        copy.administrationCode = this.administrationCode;
+        copy.countryCode = this.countryCode;
+        copy.uri = this.uri;
+        return copy;
+    }
+
+    /**
+     * Check that this term may be changed
+     *
+     * @throws UnsupportedOperationException If this term is frozen
+     */
+    private void checkNotFrozen() {
+        if (this.frozen)
+            throw new UnsupportedOperationException("GeoTerm " + this.id + " is frozen and may not be changed; "
+                + "set a new GeoTerm instead");
+    }
+
     /**
      * Is Empty
      *
@@ -302,4 +368,19 @@ public class GeoTerm {
         return true;
     }
 
+    /**
+     * Hash Code
+     *
+     * Geographic terms with an ID are hashed on the ID, as equals() compares them, and others on
+     * their name and URI.  As with Term, a term with an ID may equal one without yet hash
+     * differently.
+     *
+     * @return int The hash code
+     */
+    public int hashCode() {
+        if (this.getID() != 0)
+            return Integer.hashCode(this.getID());
+        return 31 * Objects.hashCode(this.getName()) + Objects.hashCode(this.getURI());
+    }
+
 }
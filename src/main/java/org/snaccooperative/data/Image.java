@@ -13,6 +13,8 @@
  */
 package org.snaccooperative.data;
 
+import java.util.Objects;
+
 /**
  * Image Class
  *
@@ -63,6 +65,13 @@ public class Image extends AbstractData {
         this.setMaxDateCount(0);
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    protected AbstractData newInstance() {
+        return new Image();
+    }
+
     /**
      * Get the author of this object
      *
@@ -77,6 +86,7 @@ public class Image extends AbstractData {
      *
      */
     public void setAuthor(String author) {
+        this.modified("author");
         this.author = author;
     }
 
@@ -95,6 +105,7 @@ public class Image extends AbstractData {
      *
      */
     public void setAuthorURL(String authorURL) {
+        this.modified("authorURL");
         this.authorURL = authorURL;
     }
 
@@ -113,6 +124,7 @@ public class Image extends AbstractData {
      *
      */
     public void setLicense(String license) {
+        this.modified("license");
         this.license = license;
     }
 
@@ -131,6 +143,7 @@ public class Image extends AbstractData {
      *
      */
     public void setLicenseURL(String licenseURL) {
+        this.modified("licenseURL");
         this.licenseURL = licenseURL;
     }
 
@@ -148,6 +161,7 @@ public class Image extends AbstractData {
      *
      */
     public void setURL(String url) {
+        this.modified("url");
         this.url = url;
     }
 
@@ -165,6 +179,7 @@ public class Image extends AbstractData {
      *
      */
     public void setInfoURL(String url) {
+        this.modified("infoURL");
         this.infoURL = url;
     }
 
@@ -182,6 +197,7 @@ public class Image extends AbstractData {
      *
      */
     public void setInfo(String info) {
+        this.modified("info");
         this.info = info;
     }
 
@@ -191,12 +207,12 @@ public class Image extends AbstractData {
      * {@inheritDoc}
      *
      */
-    public boolean equals(Object other) {
+    public boolean equals(Object other, boolean strict, boolean checkSubcomponents) {
 
         if (other == null || ! (other instanceof Image))
             return false;
 
-        if (!super.equals(other))
+        if (!super.equals(other, strict, checkSubcomponents))
             return false;
 
         Image i = (Image) other;
@@ -232,4 +248,33 @@ public class Image extends AbstractData {
         return true;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    protected int computeHashCode(boolean strict, boolean checkSubcomponents) {
+        int hash = super.computeHashCode(strict, checkSubcomponents);
+        hash = 31 * hash + Objects.hashCode(this.getURL());
+        hash = 31 * hash + Objects.hashCode(this.getInfo());
+        hash = 31 * hash + Objects.hashCode(this.getInfoURL());
+        hash = 31 * hash + Objects.hashCode(this.getAuthor());
+        hash = 31 * hash + Objects.hashCode(this.getAuthorURL());
+        hash = 31 * hash + Objects.hashCode(this.getLicense());
+        hash = 31 * hash + Objects.hashCode(this.getLicenseURL());
+        return hash;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    protected void copyFrom(AbstractData data, DataCopier copier) {
+        super.copyFrom(data, copier);
+        Image other = (Image) data;
+        this.url = other.url;
+        this.info = other.info;
+        this.infoURL = other.infoURL;
+        this.author = other.author;
+        this.authorURL = other.authorURL;
+        this.license = other.license;
+        this.licenseURL = other.licenseURL;
+    }
 }
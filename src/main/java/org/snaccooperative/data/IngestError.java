@@ -0,0 +1,158 @@
+/**
+ * Ingest Error File
+ *
+ * Contains the description of a record that failed to load.
+ *
+ * License:
+ *
+ *
+ * @author Robbie Hott
+ * @license https://opensource.org/licenses/BSD-3-Clause BSD 3-Clause
+ * @copyright 2015 the Rector and Visitors of the University of Virginia, and
+ *            the Regents of the University of California
+ */
+package org.snaccooperative.data;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonPointer;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonMappingException;
+
+/**
+ * Ingest Error
+ *
+ * Describes one record that ConstellationIngest could not load: where it is in the input, where
+ * in the record the problem is, and what the problem is.
+ *
+ * @author Robbie Hott
+ */
+public class IngestError {
+
+    /**
+     * @var long Record number (1-based) of the failed record
+     */
+    private final long recordNumber;
+
+    /**
+     * @var long Byte offset in the (decompressed) input at which the record starts
+     */
+    private final long byteOffset;
+
+    /**
+     * @var string JSON Pointer to the failing value within the record, or "" for the whole record
+     */
+    private final String path;
+
+    /**
+     * @var string Description of the problem
+     */
+    private final String message;
+
+    /**
+     * Constructor
+     *
+     * @param recordNumber Record number (1-based) of the failed record
+     * @param byteOffset Byte offset at which the record starts
+     * @param path JSON Pointer to the failing value within the record
+     * @param message Description of the problem
+     */
+    public IngestError(long recordNumber, long byteOffset, String path, String message) {
+        this.recordNumber = recordNumber;
+        this.byteOffset = byteOffset;
+        this.path = path;
+        this.message = message;
+    }
+
+    /**
+     * Describe an exception
+     *
+     * Builds the error for an exception thrown while parsing or binding a record, taking the
+     * path from the exception's reference chain, or from the parser's position for syntax
+     * errors.
+     *
+     * @return IngestError The error
+     */
+    static IngestError from(long recordNumber, long byteOffset, Exception e) {
+        return IngestError.from(recordNumber, byteOffset, e, 0);
+    }
+
+    /**
+     * Describe an exception from a parser over several records
+     *
+     * @param depth Nesting depth of the records within the input, such as 1 for the elements of
+     * a top-level array, which is dropped from the start of the path of syntax errors
+     * @return IngestError The error
+     */
+    static IngestError from(long recordNumber, long byteOffset, Exception e, int depth) {
+        String path = "";
+        String message = e.getMessage();
+        if (e instanceof JsonMappingException) {
+            StringBuilder pointer = new StringBuilder();
+            for (JsonMappingException.Reference ref : ((JsonMappingException) e).getPath()) {
+                pointer.append('/');
+                if (ref.getFieldName() != null)
+                    pointer.append(ref.getFieldName().replace("~", "~0").replace("/", "~1"));
+                else if (ref.getIndex() >= 0)
+                    pointer.append(ref.getIndex());
+            }
+            path = pointer.toString();
+        } else if (e instanceof JsonProcessingException
+                && ((JsonProcessingException) e).getProcessor() instanceof JsonParser) {
+            JsonParser parser = (JsonParser) ((JsonProcessingException) e).getProcessor();
+            JsonPointer pointer = parser.getParsingContext().pathAsPointer();
+            for (int i = 0; i < depth && !pointer.matches(); i++)
+                pointer = pointer.tail();
+            path = pointer.toString();
+        }
+        if (e instanceof JsonProcessingException)
+            message = ((JsonProcessingException) e).getOriginalMessage();
+        return new IngestError(recordNumber, byteOffset, path, message);
+    }
+
+    /**
+     * Get the record number
+     *
+     * @return long Record number (1-based) of the failed record
+     */
+    public long getRecordNumber() {
+        return this.recordNumber;
+    }
+
+    /**
+     * Get the byte offset
+     *
+     * @return long Byte offset in the (decompressed) input at which the record starts
+     */
+    public long getByteOffset() {
+        return this.byteOffset;
+    }
+
+    /**
+     * Get the path
+     *
+     * @return string JSON Pointer to the failing value within the record, such as
+     * "/nameEntries/0/preferenceScore", or "" if the problem is with the record as a whole
+     */
+    public String getPath() {
+        return this.path;
+    }
+
+    /**
+     * Get the message
+     *
+     * @return string Description of the problem
+     */
+    public String getMessage() {
+        return this.message;
+    }
+
+    /**
+     * To String
+     *
+     * @return string A human-readable description of the error
+     */
+    public String toString() {
+        return "Record " + this.recordNumber + " (byte " + this.byteOffset + ")"
+            + (this.path.isEmpty() ? "" : " at " + this.path) + ": " + this.message;
+    }
+}
@@ -0,0 +1,178 @@
+/**
+ * JSON Codec File
+ *
+ * Contains the shared JSON readers and writers for the data model.
+ *
+ * License:
+ *
+ *
+ * @author Robbie Hott
+ * @license https://opensource.org/licenses/BSD-3-Clause BSD 3-Clause
+ * @copyright 2015 the Rector and Visitors of the University of Virginia, and
+ *            the Regents of the University of California
+ */
+package org.snaccooperative.data;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.io.IOException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * JSON Codec
+ *
+ * Holds a single, pre-configured ObjectMapper for the data model along with the immutable
+ * ObjectReader and ObjectWriter instances derived from it.  Building an ObjectMapper and
+ * introspecting the model classes is expensive, so every static JSON helper (such as
+ * Constellation.fromJSON() and Resource.toJSON()) should go through this class rather than
+ * creating its own mapper.
+ *
+ * ObjectReader and ObjectWriter are immutable and thread-safe, so the instances handed out
+ * here may be shared freely between threads and cached by callers.
+ *
+ * @author Robbie Hott
+ */
+public final class JSONCodec {
+
+    /**
+     * @var ObjectMapper The shared mapper.  Never handed out, since it is mutable.
+     */
+    private static final ObjectMapper MAPPER = new ObjectMapper().registerModule(new DataModelModule());
+
+    /**
+     * @var ObjectWriter Writer producing indented output, as used by the toJSON() helpers.  Streams
+     * passed to it are left open for the caller to close.
+     */
+    private static final ObjectWriter PRETTY_WRITER = MAPPER.writer(SerializationFeature.INDENT_OUTPUT)
+        .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+
+    /**
+     * @var ObjectWriter Writer producing compact output.  Streams passed to it are left open for
+     * the caller to close.
+     */
+    private static final ObjectWriter COMPACT_WRITER = MAPPER.writer()
+        .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+
+    /**
+     * @var ObjectReader[] Readers per model class, built on first use
+     */
+    private static final ConcurrentMap<Class<?>, ObjectReader> READERS = new ConcurrentHashMap<>();
+
+    static {
+        // Build the readers for the root types up front so their first use does not pay for it
+        JSONCodec.readerFor(Constellation.class);
+        JSONCodec.readerFor(Resource.class);
+    }
+
+    private JSONCodec() {
+    }
+
+    /**
+     * Get a reader
+     *
+     * Returns the shared reader for the given model class.
+     *
+     * @return ObjectReader Thread-safe reader binding JSON to the given type
+     */
+    public static ObjectReader readerFor(Class<?> type) {
+        ObjectReader reader = READERS.get(type);
+        if (reader == null) {
+            reader = MAPPER.readerFor(type);
+            ObjectReader existing = READERS.putIfAbsent(type, reader);
+            if (existing != null)
+                reader = existing;
+        }
+        return reader;
+    }
+
+    /**
+     * Get a lazy reader
+     *
+     * Returns a reader for the given model class that holds large text payloads (BiogHist text
+     * and Resource source) compressed until they are first read.  See LazyText.
+     *
+     * @return ObjectReader Thread-safe reader binding JSON to the given type
+     */
+    public static ObjectReader lazyReaderFor(Class<?> type) {
+        return JSONCodec.readerFor(type).withAttribute(LazyText.class, Boolean.TRUE);
+    }
+
+    /**
+     * Get a term-sharing reader
+     *
+     * Returns a reader for the given model class that replaces each Term it reads with the
+     * TermRegistry's shared, read-only instance, whether or not the registry is turned on.  See
+     * TermRegistry.
+     *
+     * @return ObjectReader Thread-safe reader binding JSON to the given type
+     */
+    public static ObjectReader sharingReaderFor(Class<?> type) {
+        return JSONCodec.readerFor(type).withAttribute(TermRegistry.class, Boolean.TRUE);
+    }
+
+    /**
+     * Get a projecting reader
+     *
+     * Returns a reader for Constellations that parses only the given sections of each record,
+     * skipping the rest of the JSON without binding it.
+     *
+     * @param sections The sections to parse
+     * @return ObjectReader Thread-safe reader binding JSON to partially filled Constellations
+     */
+    public static ObjectReader readerFor(Set<ConstellationSection> sections) {
+        return JSONCodec.readerFor(Constellation.class)
+            .withAttribute(ConstellationSection.class, ConstellationSection.setOf(sections));
+    }
+
+    /**
+     * Read, retaining the source
+     *
+     * Reads a Constellation or Resource, keeping the JSON of each of its sections so that the
+     * sections which are not modified before it is written out again are copied into compact
+     * output verbatim, rather than serialized again.  See RetainedJSON.
+     *
+     * @param json The UTF-8 JSON to read, which must not be changed while the object is in use
+     * @param type Constellation.class or Resource.class
+     * @return T The object read
+     */
+    public static <T> T readRetaining(byte[] json, Class<T> type) throws IOException {
+        return JSONCodec.readerFor(type).withAttribute(RetainedJSON.class, json).readValue(json);
+    }
+
+    /**
+     * Get the pretty-printing writer
+     *
+     * @return ObjectWriter Thread-safe writer producing indented JSON
+     */
+    public static ObjectWriter writer() {
+        return PRETTY_WRITER;
+    }
+
+    /**
+     * Get the compact writer
+     *
+     * @return ObjectWriter Thread-safe writer producing JSON without any whitespace
+     */
+    public static ObjectWriter compactWriter() {
+        return COMPACT_WRITER;
+    }
+
+    /**
+     * Get the JSON factory
+     *
+     * Returns the factory behind the shared mapper, for callers that need to create their own
+     * JsonParser or JsonGenerator over a stream.
+     *
+     * @return JsonFactory The shared factory
+     */
+    public static JsonFactory factory() {
+        return MAPPER.getFactory();
+    }
+}
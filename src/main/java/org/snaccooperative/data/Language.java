@@ -14,6 +14,8 @@
  */
 package org.snaccooperative.data;
 
+import java.util.Objects;
+
 /**
  * Language Class
  *
@@ -55,6 +57,13 @@ public class Language extends AbstractData {
         this.setMaxDateCount(0);
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    protected AbstractData newInstance() {
+        return new Language();
+    }
+
     /**
      * Get the language controlled vocab term
      *
@@ -127,20 +136,23 @@ public class Language extends AbstractData {
      * Set the language controlled vocabulary name
      */
     public void setLanguage(Term language) {
-        this.language = language;
+        this.modified("language");
+        this.language = TermRegistry.canonical(language);
     }
 
     /**
      * Set the script controlled vocabulary name
      */
     public void setScript(Term script) {
-        this.script = script;
+        this.modified("script");
+        this.script = TermRegistry.canonical(script);
     }
 
     /**
      * Set the vocabulary source.
      */
     public void setVocabularySource(String vocab) {
+        this.modified("vocabularySource");
         this.vocabularySource = vocab;
     }
 
@@ -148,17 +160,18 @@ public class Language extends AbstractData {
      * Set the descriptive note for this language
      */
     public void setNote(String note) {
+        this.modified("note");
         this.note = note;
     }
 
     /**
      * {@inheritDoc}
      */
-    public boolean equals(Object other) {
+    public boolean equals(Object other, boolean strict, boolean checkSubcomponents) {
         if (other == null || ! (other instanceof Language))
             return false;
 
-        if (! super.equals(other))
+        if (! super.equals(other, strict, checkSubcomponents))
             return false;
 
         Language l = (Language) other;
@@ -180,4 +193,36 @@ public class Language extends AbstractData {
         return true;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    protected int computeHashCode(boolean strict, boolean checkSubcomponents) {
+        int hash = super.computeHashCode(strict, checkSubcomponents);
+        hash = 31 * hash + Objects.hashCode(this.getVocabularySource());
+        hash = 31 * hash + Objects.hashCode(this.getNote());
+        hash = 31 * hash + Objects.hashCode(this.getScript());
+        hash = 31 * hash + Objects.hashCode(this.getLanguage());
+        return hash;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    protected void freezeFields() {
+        super.freezeFields();
+        this.language = freezeTerm(this.language);
+        this.script = freezeTerm(this.script);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    protected void copyFrom(AbstractData data, DataCopier copier) {
+        super.copyFrom(data, copier);
+        Language other = (Language) data;
+        this.language = copier.copy(other.language);
+        this.script = copier.copy(other.script);
+        this.vocabularySource = other.vocabularySource;
+        this.note = other.note;
+    }
 }
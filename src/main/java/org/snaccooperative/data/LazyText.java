@@ -0,0 +1,230 @@
+/**
+ * Lazy Text File
+ *
+ * Contains the holder for large text payloads that are decoded on demand.
+ *
+ * License:
+ *
+ *
+ * @author Robbie Hott
+ * @license https://opensource.org/licenses/BSD-3-Clause BSD 3-Clause
+ * @copyright 2015 the Rector and Visitors of the University of Virginia, and
+ *            the Regents of the University of California
+ */
+package org.snaccooperative.data;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonValue;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Lazy Text
+ *
+ * Holds a large text payload, such as BiogHist's text or a Resource's XML source.  The text is
+ * either held as an ordinary String or, in the lazy form, as deflate-compressed UTF-8 bytes that
+ * are only decoded into a String the first time the text is asked for.  Most consumers never
+ * look at these payloads, so holding them compressed keeps large working sets of records small.
+ * Lazy text that has not been read is written back out from its UTF-8 bytes, without building a
+ * String.
+ *
+ * Lazy text is produced by readers that carry the attribute keyed by LazyText.class, such as
+ * those from JSONCodec.lazyReaderFor().  Mappers without DataModelModule read and write it as
+ * a plain string.  Instances are safe to share between threads.
+ *
+ * @author Robbie Hott
+ */
+public final class LazyText {
+
+    /**
+     * @var int Payloads shorter than this many characters are not worth compressing
+     */
+    public static final int MIN_COMPRESSED_LENGTH = 1024;
+
+    /**
+     * @var string The decoded text, once known
+     */
+    private volatile String text;
+
+    /**
+     * @var byte[] The deflated UTF-8 bytes of the text, until it is decoded
+     */
+    private volatile byte[] compressed;
+
+    /**
+     * @var int Length of the text in UTF-8 bytes, if compressed
+     */
+    private final int utf8Length;
+
+    /**
+     * @var int The hash code of the text, or 0 if not yet computed
+     */
+    private int hash = 0;
+
+    private LazyText(String text, byte[] compressed, int utf8Length) {
+        this.text = text;
+        this.compressed = compressed;
+        this.utf8Length = utf8Length;
+    }
+
+    /**
+     * Wrap a string
+     *
+     * @param text The text
+     * @return LazyText The text, held as a String, or null if text is null
+     */
+    @JsonCreator(mode = JsonCreator.Mode.DELEGATING)
+    public static LazyText of(String text) {
+        if (text == null)
+            return null;
+        return new LazyText(text, null, 0);
+    }
+
+    /**
+     * Compress a string
+     *
+     * Returns the text in the lazy, compressed form.  Short text, or text that does not shrink
+     * when deflated, is held as a String instead.
+     *
+     * @param text The text
+     * @return LazyText The text, or null if text is null
+     */
+    public static LazyText compress(String text) {
+        if (text == null)
+            return null;
+        if (text.length() < MIN_COMPRESSED_LENGTH)
+            return LazyText.of(text);
+
+        byte[] utf8 = text.getBytes(StandardCharsets.UTF_8);
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try {
+            deflater.setInput(utf8);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(utf8.length / 4 + 64);
+            byte[] buffer = new byte[Math.min(utf8.length, 8192)];
+            while (!deflater.finished()) {
+                int n = deflater.deflate(buffer);
+                out.write(buffer, 0, n);
+                if (out.size() >= utf8.length)
+                    return LazyText.of(text);
+            }
+            return new LazyText(null, out.toByteArray(), utf8.length);
+        } finally {
+            deflater.end();
+        }
+    }
+
+    /**
+     * Get the text
+     *
+     * Decodes the text if it is still compressed.  The decoded String is kept, and the
+     * compressed bytes dropped.
+     *
+     * @return string The text
+     */
+    @JsonValue
+    public String getText() {
+        String text = this.text;
+        if (text == null) {
+            synchronized (this) {
+                text = this.text;
+                if (text == null) {
+                    text = new String(this.inflate(this.compressed), StandardCharsets.UTF_8);
+                    this.text = text;
+                    this.compressed = null;
+                }
+            }
+        }
+        return text;
+    }
+
+    /**
+     * Is the text decoded
+     *
+     * @return boolean True if the text is held as a String, false if it is still compressed
+     */
+    public boolean isDecoded() {
+        return this.text != null;
+    }
+
+    /**
+     * Get the UTF-8 bytes of text that has not been decoded
+     *
+     * Used to write the text out without building a String.
+     *
+     * @return byte[] The UTF-8 encoding of the text, or null if it has already been decoded
+     */
+    byte[] getUTF8() {
+        byte[] compressed = this.compressed;
+        if (compressed == null)
+            return null;
+        return this.inflate(compressed);
+    }
+
+    private byte[] inflate(byte[] compressed) {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(compressed);
+            byte[] utf8 = new byte[this.utf8Length];
+            int n = 0;
+            while (n < utf8.length) {
+                int read = inflater.inflate(utf8, n, utf8.length - n);
+                if (read == 0 && (inflater.finished() || inflater.needsInput() || inflater.needsDictionary()))
+                    break;
+                n += read;
+            }
+            return n == utf8.length ? utf8 : Arrays.copyOf(utf8, n);
+        } catch (DataFormatException e) {
+            throw new IllegalStateException("Corrupt compressed text", e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public boolean equals(Object other) {
+        if (this == other)
+            return true;
+        if (!(other instanceof LazyText))
+            return false;
+        return this.getText().equals(((LazyText) other).getText());
+    }
+
+    /**
+     * Hash Code
+     *
+     * The hash code of the text, computed once.  Text that is still compressed is decoded to
+     * compute it, but stays compressed.
+     *
+     * @return int The hash code
+     */
+    public int hashCode() {
+        int hash = this.hash;
+        if (hash == 0) {
+            String text = this.text;
+            if (text == null) {
+                byte[] utf8 = this.getUTF8();
+                text = utf8 == null ? this.getText() : new String(utf8, StandardCharsets.UTF_8);
+            }
+            hash = text.hashCode();
+            this.hash = hash;
+        }
+        return hash;
+    }
+
+    /**
+     * To String
+     *
+     * @return string The text
+     */
+    public String toString() {
+        return this.getText();
+    }
+}
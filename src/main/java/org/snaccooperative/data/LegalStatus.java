@@ -32,4 +32,11 @@ public class LegalStatus extends AbstractTermData {
         this.setMaxDateCount(0);
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    protected AbstractData newInstance() {
+        return new LegalStatus();
+    }
+
 }
@@ -15,6 +15,8 @@
  */
 package org.snaccooperative.data;
 
+import java.util.Objects;
+
 /**
  * Maintenance Event Class
  *
@@ -102,13 +104,21 @@ public class MaintenanceEvent extends AbstractData {
         this.setMaxDateCount(0);
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    protected AbstractData newInstance() {
+        return new MaintenanceEvent();
+    }
+
     /**
      * Set the event type.
      *
      */
     public void setEventType(Term eventType) {
 
-        this.eventType = eventType;
+        this.modified("eventType");
+        this.eventType = TermRegistry.canonical(eventType);
     }
 
     /**
@@ -117,6 +127,7 @@ public class MaintenanceEvent extends AbstractData {
      */
     public void setEventDateTime(String eventDateTime) {
 
+        this.modified("eventDateTime");
         this.eventDateTime = eventDateTime;
     }
 
@@ -126,6 +137,7 @@ public class MaintenanceEvent extends AbstractData {
      */
     public void setStandardDateTime(String eventDateTime) {
 
+        this.modified("standardDateTime");
         this.standardDateTime = eventDateTime;
     }
 
@@ -135,7 +147,8 @@ public class MaintenanceEvent extends AbstractData {
      */
     public void setAgentType(Term agentType) {
 
-        this.agentType = agentType;
+        this.modified("agentType");
+        this.agentType = TermRegistry.canonical(agentType);
     }
 
     /**
@@ -144,6 +157,7 @@ public class MaintenanceEvent extends AbstractData {
      */
     public void setAgent(String agent) {
 
+        this.modified("agent");
         this.agent = agent;
     }
 
@@ -153,6 +167,7 @@ public class MaintenanceEvent extends AbstractData {
      */
     public void setEventDescription(String eventDescription) {
 
+        this.modified("eventDescription");
         this.eventDescription = eventDescription;
     }
 
@@ -215,12 +230,12 @@ public class MaintenanceEvent extends AbstractData {
      * {@inheritDoc}
      *
      */
-    public boolean equals(Object other) {
+    public boolean equals(Object other, boolean strict, boolean checkSubcomponents) {
 
         if (other == null || ! (other instanceof MaintenanceEvent))
             return false;
 
-        if (!super.equals(other))
+        if (!super.equals(other, strict, checkSubcomponents))
             return false;
 
         MaintenanceEvent m = (MaintenanceEvent) other;
@@ -246,4 +261,41 @@ public class MaintenanceEvent extends AbstractData {
 
         return true;
     }
+
+    /**
+     * {@inheritDoc}
+     */
+    protected int computeHashCode(boolean strict, boolean checkSubcomponents) {
+        int hash = super.computeHashCode(strict, checkSubcomponents);
+        hash = 31 * hash + Objects.hashCode(this.getEventDateTime());
+        hash = 31 * hash + Objects.hashCode(this.getStandardDateTime());
+        hash = 31 * hash + Objects.hashCode(this.getAgent());
+        hash = 31 * hash + Objects.hashCode(this.getEventDescription());
+        hash = 31 * hash + Objects.hashCode(this.getEventType());
+        hash = 31 * hash + Objects.hashCode(this.getAgentType());
+        return hash;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    protected void freezeFields() {
+        super.freezeFields();
+        this.eventType = freezeTerm(this.eventType);
+        this.agentType = freezeTerm(this.agentType);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    protected void copyFrom(AbstractData data, DataCopier copier) {
+        super.copyFrom(data, copier);
+        MaintenanceEvent other = (MaintenanceEvent) data;
+        this.eventType = copier.copy(other.eventType);
+        this.eventDateTime = other.eventDateTime;
+        this.standardDateTime = other.standardDateTime;
+        this.agentType = copier.copy(other.agentType);
+        this.agent = other.agent;
+        this.eventDescription = other.eventDescription;
+    }
 }
@@ -0,0 +1,915 @@
+/**
+ * Model Deserializers File
+ *
+ * Contains the hand-written JSON deserializers for the most common data model classes.
+ *
+ * License:
+ *
+ *
+ * @author Robbie Hott
+ * @license https://opensource.org/licenses/BSD-3-Clause BSD 3-Clause
+ * @copyright 2015 the Rector and Visitors of the University of Virginia, and
+ *            the Regents of the University of California
+ */
+package org.snaccooperative.data;
+
+import com.fasterxml.jackson.core.JacksonException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.deser.ResolvableDeserializer;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+import com.fasterxml.jackson.databind.deser.std.StringDeserializer;
+import com.fasterxml.jackson.databind.util.ClassUtil;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Model Deserializers
+ *
+ * Streaming deserializers for Term, SNACDate, SNACControlMetadata, NameEntry, Constellation and
+ * Resource, the classes that make up the bulk of every record.  They read each property straight off the
+ * parser and call the same setters (or set the same fields) that Jackson's reflective bean
+ * deserializer would, in the order the properties appear, so the objects they build are
+ * identical.  Coercions also match: ids that arrive as strings ("698") or nulls are handled the
+ * same way, and unknown properties are reported through the usual DeserializationContext
+ * machinery, honoring FAIL_ON_UNKNOWN_PROPERTIES.
+ *
+ * Other model classes (Source, Place, etc.) are still bound by the bean deserializer.  These
+ * deserializers are registered by DataModelModule.
+ *
+ * @author Robbie Hott
+ */
+public final class ModelDeserializers {
+
+    private ModelDeserializers() {
+    }
+
+    /**
+     * Data Deserializer
+     *
+     * Base class holding the object-reading loop and the value readers shared by all the model
+     * deserializers.
+     */
+    abstract static class DataDeserializer<T> extends StdDeserializer<T> implements ResolvableDeserializer {
+
+        /**
+         * @var string The derived property written by isEmpty(), which is ignored on input
+         */
+        private static final String EMPTY = "empty";
+
+        /**
+         * @var string[] Names of the properties this deserializer accepts
+         */
+        private final Collection<Object> knownProperties;
+
+        protected DataDeserializer(Class<T> type, List<String> properties) {
+            super(type);
+            this.knownProperties = Collections.unmodifiableList(new ArrayList<Object>(properties));
+        }
+
+        /**
+         * Create the empty object that the properties are read into
+         *
+         * @return T A new object
+         */
+        protected abstract T createInstance();
+
+        /**
+         * Read a property
+         *
+         * The parser is on the first token of the property's value.
+         *
+         * @return boolean true if the property was read, false if it is unknown
+         */
+        protected abstract boolean readProperty(JsonParser p, DeserializationContext ctxt, T bean, String name)
+            throws IOException;
+
+        @Override
+        public T deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+            return this.readObject(p, ctxt, null, null);
+        }
+
+        /**
+         * Read an object, keeping only the given sections
+         *
+         * Properties belonging to a ConstellationSection that is not in the set are skipped
+         * without being bound.  If JSON is to be retained, the range of the source holding each
+         * retainable property is recorded as it is read.
+         *
+         * @param sections The sections to read, or null to read every property
+         * @param retained Where to record the JSON of the properties, or null to record none
+         * @return T The object read
+         */
+        protected T readObject(JsonParser p, DeserializationContext ctxt, Set<ConstellationSection> sections,
+                RetainedJSON retained) throws IOException {
+            JsonToken t = p.currentToken();
+            if (t == JsonToken.START_OBJECT)
+                t = p.nextToken();
+            else if (t != JsonToken.FIELD_NAME && t != JsonToken.END_OBJECT)
+                return this.unexpected(p, ctxt);
+
+            T bean = this.createInstance();
+            p.setCurrentValue(bean);
+            // Attached before binding, so that a setter releases the JSON of any other property
+            // it changes (as setGender() does genders)
+            if (retained != null)
+                this.retainJSON(bean, retained);
+            for (; t == JsonToken.FIELD_NAME; t = p.nextToken()) {
+                String name = p.currentName();
+                p.nextToken();
+                if (sections != null) {
+                    ConstellationSection section = ConstellationSection.forProperty(name);
+                    if (section != null && !sections.contains(section)) {
+                        p.skipChildren();
+                        continue;
+                    }
+                }
+                long start = retained != null && retained.isRetainable(name) ? p.getTokenLocation().getByteOffset() : -1;
+                boolean known;
+                try {
+                    known = this.readProperty(p, ctxt, bean, name);
+                } catch (Exception e) {
+                    throw this.wrap(ctxt, e, bean, name);
+                }
+                if (start >= 0 && known)
+                    retained.retain(name, start, p.getCurrentLocation().getByteOffset());
+                if (!known) {
+                    if (EMPTY.equals(name))
+                        p.skipChildren();
+                    else
+                        this.handleUnknownProperty(p, ctxt, bean, name);
+                }
+            }
+            if (retained != null)
+                retained.capture(bean);
+            return bean;
+        }
+
+        /**
+         * Attach retained JSON to a new object
+         *
+         * Overridden by the deserializers of the classes that can retain their JSON.
+         */
+        protected void retainJSON(T bean, RetainedJSON retained) {
+            throw new UnsupportedOperationException(this.handledType().getName() + " does not retain JSON");
+        }
+
+        @SuppressWarnings("unchecked")
+        private T unexpected(JsonParser p, DeserializationContext ctxt) throws IOException {
+            return (T) ctxt.handleUnexpectedToken(this.handledType(), p);
+        }
+
+        @Override
+        public Collection<Object> getKnownPropertyNames() {
+            return this.knownProperties;
+        }
+
+        @Override
+        public boolean isCachable() {
+            return true;
+        }
+
+        /**
+         * Wrap a failure with the path to the property, as the bean deserializer does
+         */
+        private IOException wrap(DeserializationContext ctxt, Throwable t, Object bean, String name)
+                throws IOException {
+            ClassUtil.throwIfError(t);
+            boolean wrap = ctxt.isEnabled(DeserializationFeature.WRAP_EXCEPTIONS);
+            if (t instanceof IOException) {
+                if (!wrap || !(t instanceof JacksonException))
+                    throw (IOException) t;
+            } else if (!wrap) {
+                ClassUtil.throwIfRTE(t);
+            }
+            return JsonMappingException.wrapWithPath(t, bean, name);
+        }
+
+        /**
+         * Find the deserializer for a value type
+         */
+        protected static JsonDeserializer<Object> find(DeserializationContext ctxt, Class<?> type)
+                throws JsonMappingException {
+            return ctxt.findContextualValueDeserializer(ctxt.constructType(type), null);
+        }
+
+        /**
+         * Find the deserializer for a list of the given element type
+         */
+        protected static JsonDeserializer<Object> findList(DeserializationContext ctxt, Class<?> element)
+                throws JsonMappingException {
+            JavaType type = ctxt.getTypeFactory().constructCollectionType(List.class, element);
+            return ctxt.findContextualValueDeserializer(type, null);
+        }
+
+        /**
+         * Read a string value, coercing scalars as the standard String deserializer does
+         */
+        protected static String readString(JsonParser p, DeserializationContext ctxt) throws IOException {
+            if (p.hasToken(JsonToken.VALUE_STRING))
+                return p.getText();
+            if (p.hasToken(JsonToken.VALUE_NULL))
+                return null;
+            return StringDeserializer.instance.deserialize(p, ctxt);
+        }
+
+        /**
+         * Read a value with the given deserializer, handling null
+         */
+        @SuppressWarnings("unchecked")
+        protected static <V> V read(JsonParser p, DeserializationContext ctxt, JsonDeserializer<Object> deserializer)
+                throws IOException {
+            if (p.hasToken(JsonToken.VALUE_NULL))
+                return (V) deserializer.getNullValue(ctxt);
+            return (V) deserializer.deserialize(p, ctxt);
+        }
+    }
+
+    /**
+     * Abstract Data Deserializer
+     *
+     * Reads the properties common to every AbstractData subclass.
+     */
+    abstract static class AbstractDataDeserializer<T extends AbstractData> extends DataDeserializer<T> {
+
+        /**
+         * @var string[] Names of the AbstractData properties
+         */
+        private static final List<String> COMMON = Arrays.asList(
+            "dataType", "id", "version", "maxDateCount", "snacControlMetadata", "operation", "dates");
+
+        private JsonDeserializer<Object> scmList;
+        private JsonDeserializer<Object> dateList;
+
+        protected AbstractDataDeserializer(Class<T> type, String... properties) {
+            super(type, concat(COMMON, properties));
+        }
+
+        private static List<String> concat(List<String> common, String[] properties) {
+            List<String> all = new ArrayList<>(common);
+            all.addAll(Arrays.asList(properties));
+            return all;
+        }
+
+        /**
+         * Read a property specific to the subclass
+         *
+         * @return boolean true if the property was read, false if it is not one of the subclass's
+         */
+        protected abstract boolean readDataProperty(JsonParser p, DeserializationContext ctxt, T bean, String name)
+            throws IOException;
+
+        @Override
+        public void resolve(DeserializationContext ctxt) throws JsonMappingException {
+            this.scmList = findList(ctxt, SNACControlMetadata.class);
+            this.dateList = findList(ctxt, SNACDate.class);
+        }
+
+        @Override
+        protected boolean readProperty(JsonParser p, DeserializationContext ctxt, T bean, String name)
+                throws IOException {
+            if (this.readDataProperty(p, ctxt, bean, name))
+                return true;
+            switch (name) {
+                case "dataType":
+                    bean.setDataType(readString(p, ctxt));
+                    return true;
+                case "id":
+                    bean.setID(this._parseIntPrimitive(p, ctxt));
+                    return true;
+                case "version":
+                    bean.setVersion(this._parseIntPrimitive(p, ctxt));
+                    return true;
+                case "maxDateCount":
+                    bean.setMaxDateCount(this._parseIntPrimitive(p, ctxt));
+                    return true;
+                case "snacControlMetadata":
+                    bean.setSnacControlMetadata(DataDeserializer.<List<SNACControlMetadata>>read(p, ctxt, this.scmList));
+                    return true;
+                case "operation":
+                    bean.setOperation(readString(p, ctxt));
+                    return true;
+                case "dates":
+                    bean.setDateList(DataDeserializer.<List<SNACDate>>read(p, ctxt, this.dateList));
+                    return true;
+                default:
+                    return false;
+            }
+        }
+    }
+
+    /**
+     * Term Deserializer
+     */
+    public static class TermDeserializer extends DataDeserializer<Term> {
+
+        public TermDeserializer() {
+            super(Term.class, Arrays.asList("type", "id", "term", "uri", "description"));
+        }
+
+        @Override
+        protected Term createInstance() {
+            return new Term();
+        }
+
+        /**
+         * Read a term
+         *
+         * If the TermRegistry is on, or the reader carries Boolean.TRUE as the attribute keyed by
+         * TermRegistry.class, the term is replaced with the registry's shared instance.
+         */
+        @Override
+        public Term deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+            Term term = super.deserialize(p, ctxt);
+            if (TermRegistry.isEnabled() || Boolean.TRUE.equals(ctxt.getAttribute(TermRegistry.class)))
+                return TermRegistry.intern(term);
+            return term;
+        }
+
+        @Override
+        public void resolve(DeserializationContext ctxt) {
+        }
+
+        @Override
+        protected boolean readProperty(JsonParser p, DeserializationContext ctxt, Term term, String name)
+                throws IOException {
+            switch (name) {
+                case "type":
+                    term.setType(readString(p, ctxt));
+                    return true;
+                case "id":
+                    term.setID(this._parseIntPrimitive(p, ctxt));
+                    return true;
+                case "term":
+                    term.setTerm(readString(p, ctxt));
+                    return true;
+                case "uri":
+                    term.setURI(readString(p, ctxt));
+                    return true;
+                case "description":
+                    term.setDescription(readString(p, ctxt));
+                    return true;
+                default:
+                    return false;
+            }
+        }
+    }
+
+    /**
+     * SNACDate Deserializer
+     *
+     * The date values, types and ranges have no single-argument setters, so they are set on the
+     * fields directly, as the bean deserializer does.
+     */
+    public static class SNACDateDeserializer extends AbstractDataDeserializer<SNACDate> {
+
+        private JsonDeserializer<Object> term;
+        private JsonDeserializer<Object> range;
+
+        public SNACDateDeserializer() {
+            super(SNACDate.class, "fromDate", "fromDateOriginal", "fromType", "fromBC", "fromRange", "toDate",
+                "toDateOriginal", "toType", "toBC", "toRange", "isRange", "range", "bc", "note");
+        }
+
+        @Override
+        protected SNACDate createInstance() {
+            return new SNACDate();
+        }
+
+        @Override
+        public void resolve(DeserializationContext ctxt) throws JsonMappingException {
+            super.resolve(ctxt);
+            this.term = find(ctxt, Term.class);
+            this.range = ctxt.findContextualValueDeserializer(
+                ctxt.getTypeFactory().constructMapType(Map.class, String.class, String.class), null);
+        }
+
+        @Override
+        protected boolean readDataProperty(JsonParser p, DeserializationContext ctxt, SNACDate date, String name)
+                throws IOException {
+            switch (name) {
+                case "fromDate":
+                    date.setFromDateValue(readString(p, ctxt));
+                    return true;
+                case "fromDateOriginal":
+                    date.fromDateOriginal = readString(p, ctxt);
+                    return true;
+                case "fromType":
+                    date.fromType = read(p, ctxt, this.term);
+                    return true;
+                case "fromBC":
+                    date.setFromBC(this._parseBooleanPrimitive(p, ctxt));
+                    return true;
+                case "fromRange":
+                    date.setFromRangeValue(DataDeserializer.<Map<String, String>>read(p, ctxt, this.range));
+                    return true;
+                case "toDate":
+                    date.setToDateValue(readString(p, ctxt));
+                    return true;
+                case "toDateOriginal":
+                    date.toDateOriginal = readString(p, ctxt);
+                    return true;
+                case "toType":
+                    date.toType = read(p, ctxt, this.term);
+                    return true;
+                case "toBC":
+                    date.setToBC(this._parseBooleanPrimitive(p, ctxt));
+                    return true;
+                case "toRange":
+                    date.setToRangeValue(DataDeserializer.<Map<String, String>>read(p, ctxt, this.range));
+                    return true;
+                case "isRange":
+                    date.isRange = this._parseBooleanPrimitive(p, ctxt);
+                    return true;
+                case "range":
+                    date.setRange(this._parseBooleanPrimitive(p, ctxt));
+                    return true;
+                case "bc":
+                    date.setBC(this._parseBooleanPrimitive(p, ctxt));
+                    return true;
+                case "note":
+                    date.setNote(readString(p, ctxt));
+                    return true;
+                default:
+                    return false;
+            }
+        }
+    }
+
+    /**
+     * SNACControlMetadata Deserializer
+     */
+    public static class SNACControlMetadataDeserializer extends AbstractDataDeserializer<SNACControlMetadata> {
+
+        private JsonDeserializer<Object> source;
+        private JsonDeserializer<Object> term;
+        private JsonDeserializer<Object> language;
+
+        public SNACControlMetadataDeserializer() {
+            super(SNACControlMetadata.class, "citation", "subCitation", "sourceData", "descriptiveRule", "language",
+                "note", "object");
+        }
+
+        @Override
+        protected SNACControlMetadata createInstance() {
+            return new SNACControlMetadata();
+        }
+
+        @Override
+        public void resolve(DeserializationContext ctxt) throws JsonMappingException {
+            super.resolve(ctxt);
+            this.source = find(ctxt, Source.class);
+            this.term = find(ctxt, Term.class);
+            this.language = find(ctxt, Language.class);
+        }
+
+        @Override
+        protected boolean readDataProperty(JsonParser p, DeserializationContext ctxt, SNACControlMetadata scm,
+                String name) throws IOException {
+            switch (name) {
+                case "citation":
+                    scm.setCitation(DataDeserializer.<Source>read(p, ctxt, this.source));
+                    return true;
+                case "subCitation":
+                    scm.setSubCitation(readString(p, ctxt));
+                    return true;
+                case "sourceData":
+                    scm.setSourceData(readString(p, ctxt));
+                    return true;
+                case "descriptiveRule":
+                    scm.setDescriptiveRule(DataDeserializer.<Term>read(p, ctxt, this.term));
+                    return true;
+                case "language":
+                    scm.setLanguage(DataDeserializer.<Language>read(p, ctxt, this.language));
+                    return true;
+                case "note":
+                    scm.setNote(readString(p, ctxt));
+                    return true;
+                case "object":
+                    scm.setObject(readString(p, ctxt));
+                    return true;
+                default:
+                    return false;
+            }
+        }
+    }
+
+    /**
+     * NameEntry Deserializer
+     */
+    public static class NameEntryDeserializer extends AbstractDataDeserializer<NameEntry> {
+
+        private JsonDeserializer<Object> components;
+        private JsonDeserializer<Object> contributors;
+        private JsonDeserializer<Object> language;
+
+        public NameEntryDeserializer() {
+            super(NameEntry.class, "original", "preferenceScore", "components", "contributors", "language");
+        }
+
+        @Override
+        protected NameEntry createInstance() {
+            return new NameEntry();
+        }
+
+        @Override
+        public void resolve(DeserializationContext ctxt) throws JsonMappingException {
+            super.resolve(ctxt);
+            this.components = findList(ctxt, NameComponent.class);
+            this.contributors = findList(ctxt, Contributor.class);
+            this.language = find(ctxt, Language.class);
+        }
+
+        @Override
+        protected boolean readDataProperty(JsonParser p, DeserializationContext ctxt, NameEntry entry, String name)
+                throws IOException {
+            switch (name) {
+                case "original":
+                    entry.setOriginal(readString(p, ctxt));
+                    return true;
+                case "preferenceScore":
+                    entry.setPreferenceScore(this._parseDoublePrimitive(p, ctxt));
+                    return true;
+                case "components":
+                    entry.setComponents(DataDeserializer.<List<NameComponent>>read(p, ctxt, this.components));
+                    return true;
+                case "contributors":
+                    entry.setContributors(DataDeserializer.<List<Contributor>>read(p, ctxt, this.contributors));
+                    return true;
+                case "language":
+                    entry.setLanguage(DataDeserializer.<Language>read(p, ctxt, this.language));
+                    return true;
+                default:
+                    return false;
+            }
+        }
+    }
+
+    /**
+     * Constellation Deserializer
+     */
+    public static class ConstellationDeserializer extends AbstractDataDeserializer<Constellation> {
+
+        /**
+         * @var string[] Names of the properties whose JSON may be retained: those of the sections
+         */
+        private static final Set<String> RETAINED = new HashSet<>();
+
+        static {
+            for (ConstellationSection section : ConstellationSection.values())
+                RETAINED.addAll(Arrays.asList(section.getPropertyNames()));
+        }
+
+        private JsonDeserializer<Object> term;
+        private JsonDeserializer<Object> nameEntry;
+        private JsonDeserializer<Object> gender;
+        private JsonDeserializer<Object> strings;
+        private JsonDeserializer<Object> sameAsRelations;
+        private JsonDeserializer<Object> entityIDs;
+        private JsonDeserializer<Object> maintenanceEvents;
+        private JsonDeserializer<Object> sources;
+        private JsonDeserializer<Object> legalStatuses;
+        private JsonDeserializer<Object> conventionDeclarations;
+        private JsonDeserializer<Object> languages;
+        private JsonDeserializer<Object> nameEntries;
+        private JsonDeserializer<Object> occupations;
+        private JsonDeserializer<Object> biogHists;
+        private JsonDeserializer<Object> relations;
+        private JsonDeserializer<Object> resourceRelations;
+        private JsonDeserializer<Object> activities;
+        private JsonDeserializer<Object> places;
+        private JsonDeserializer<Object> subjects;
+        private JsonDeserializer<Object> nationalities;
+        private JsonDeserializer<Object> genders;
+        private JsonDeserializer<Object> generalContexts;
+        private JsonDeserializer<Object> structureOrGenealogies;
+        private JsonDeserializer<Object> mandates;
+        private JsonDeserializer<Object> images;
+
+        public ConstellationDeserializer() {
+            super(Constellation.class, "ark", "entityType", "sameAsRelations", "entityIDs", "maintenanceStatus",
+                "maintenanceAgency", "maintenanceEvents", "sources", "legalStatuses", "conventionDeclarations",
+                "languagesUsed", "nameEntries", "preferredNameEntry", "occupations", "biogHists", "relations",
+                "resourceRelations", "activities", "places", "subjects", "nationalities", "genders",
+                "generalContexts", "structureOrGenealogies", "mandates", "status", "flags", "images", "flag",
+                "gender");
+        }
+
+        @Override
+        protected Constellation createInstance() {
+            return new Constellation();
+        }
+
+        /**
+         * Read a constellation
+         *
+         * If the reader carries a set of ConstellationSections as the attribute keyed by
+         * ConstellationSection.class, only those sections are read.  If it carries the source
+         * bytes as the attribute keyed by RetainedJSON.class, the JSON of each section is
+         * retained.  Both apply to the top-level record alone: constellations nested inside the
+         * sections that are kept (such as a resource's repository) are read in full and retain
+         * nothing.
+         */
+        @Override
+        @SuppressWarnings("unchecked")
+        public Constellation deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+            Object sections = ctxt.getAttribute(ConstellationSection.class);
+            Object source = ctxt.getAttribute(RetainedJSON.class);
+            if (sections == null && source == null)
+                return super.deserialize(p, ctxt);
+            ctxt.setAttribute(ConstellationSection.class, null);
+            ctxt.setAttribute(RetainedJSON.class, null);
+            try {
+                RetainedJSON retained = source == null ? null : new RetainedJSON((byte[]) source, RETAINED);
+                return this.readObject(p, ctxt, (Set<ConstellationSection>) sections, retained);
+            } finally {
+                ctxt.setAttribute(ConstellationSection.class, sections);
+                ctxt.setAttribute(RetainedJSON.class, source);
+            }
+        }
+
+        @Override
+        protected void retainJSON(Constellation c, RetainedJSON retained) {
+            c.retainJSON(retained);
+        }
+
+        @Override
+        public void resolve(DeserializationContext ctxt) throws JsonMappingException {
+            super.resolve(ctxt);
+            this.term = find(ctxt, Term.class);
+            this.nameEntry = find(ctxt, NameEntry.class);
+            this.gender = find(ctxt, Gender.class);
+            this.strings = findList(ctxt, String.class);
+            this.sameAsRelations = findList(ctxt, SameAs.class);
+            this.entityIDs = findList(ctxt, EntityId.class);
+            this.maintenanceEvents = findList(ctxt, MaintenanceEvent.class);
+            this.sources = findList(ctxt, Source.class);
+            this.legalStatuses = findList(ctxt, LegalStatus.class);
+            this.conventionDeclarations = findList(ctxt, ConventionDeclaration.class);
+            this.languages = findList(ctxt, Language.class);
+            this.nameEntries = findList(ctxt, NameEntry.class);
+            this.occupations = findList(ctxt, Occupation.class);
+            this.biogHists = findList(ctxt, BiogHist.class);
+            this.relations = findList(ctxt, ConstellationRelation.class);
+            this.resourceRelations = findList(ctxt, ResourceRelation.class);
+            this.activities = findList(ctxt, Activity.class);
+            this.places = findList(ctxt, Place.class);
+            this.subjects = findList(ctxt, Subject.class);
+            this.nationalities = findList(ctxt, Nationality.class);
+            this.genders = findList(ctxt, Gender.class);
+            this.generalContexts = findList(ctxt, GeneralContext.class);
+            this.structureOrGenealogies = findList(ctxt, StructureOrGenealogy.class);
+            this.mandates = findList(ctxt, Mandate.class);
+            this.images = findList(ctxt, Image.class);
+        }
+
+        @Override
+        protected boolean readDataProperty(JsonParser p, DeserializationContext ctxt, Constellation c, String name)
+                throws IOException {
+            switch (name) {
+                case "ark":
+                    c.setArk(readString(p, ctxt));
+                    return true;
+                case "entityType":
+                    c.setEntityType(DataDeserializer.<Term>read(p, ctxt, this.term));
+                    return true;
+                case "sameAsRelations":
+                    c.setSameAsRelations(DataDeserializer.<List<SameAs>>read(p, ctxt, this.sameAsRelations));
+                    return true;
+                case "entityIDs":
+                    c.setEntityIDs(DataDeserializer.<List<EntityId>>read(p, ctxt, this.entityIDs));
+                    return true;
+                case "maintenanceStatus":
+                    c.setMaintenanceStatus(DataDeserializer.<Term>read(p, ctxt, this.term));
+                    return true;
+                case "maintenanceAgency":
+                    c.setMaintenanceAgency(readString(p, ctxt));
+                    return true;
+                case "maintenanceEvents":
+                    c.setMaintenanceEvents(DataDeserializer.<List<MaintenanceEvent>>read(p, ctxt, this.maintenanceEvents));
+                    return true;
+                case "sources":
+                    c.setSources(DataDeserializer.<List<Source>>read(p, ctxt, this.sources));
+                    return true;
+                case "legalStatuses":
+                    c.setLegalStatuses(DataDeserializer.<List<LegalStatus>>read(p, ctxt, this.legalStatuses));
+                    return true;
+                case "conventionDeclarations":
+                    c.setConventionDeclarations(
+                        DataDeserializer.<List<ConventionDeclaration>>read(p, ctxt, this.conventionDeclarations));
+                    return true;
+                case "languagesUsed":
+                    c.setLanguagesUsed(DataDeserializer.<List<Language>>read(p, ctxt, this.languages));
+                    return true;
+                case "nameEntries":
+                    c.setNameEntries(DataDeserializer.<List<NameEntry>>read(p, ctxt, this.nameEntries));
+                    return true;
+                case "preferredNameEntry":
+                    c.setPreferredNameEntry(DataDeserializer.<NameEntry>read(p, ctxt, this.nameEntry));
+                    return true;
+                case "occupations":
+                    c.setOccupations(DataDeserializer.<List<Occupation>>read(p, ctxt, this.occupations));
+                    return true;
+                case "biogHists":
+                    c.setBiogHists(DataDeserializer.<List<BiogHist>>read(p, ctxt, this.biogHists));
+                    return true;
+                case "relations":
+                    c.setRelations(DataDeserializer.<List<ConstellationRelation>>read(p, ctxt, this.relations));
+                    return true;
+                case "resourceRelations":
+                    c.setResourceRelations(DataDeserializer.<List<ResourceRelation>>read(p, ctxt, this.resourceRelations));
+                    return true;
+                case "activities":
+                    c.setActivities(DataDeserializer.<List<Activity>>read(p, ctxt, this.activities));
+                    return true;
+                case "places":
+                    c.setPlaces(DataDeserializer.<List<Place>>read(p, ctxt, this.places));
+                    return true;
+                case "subjects":
+                    c.setSubjects(DataDeserializer.<List<Subject>>read(p, ctxt, this.subjects));
+                    return true;
+                case "nationalities":
+                    c.setNationalities(DataDeserializer.<List<Nationality>>read(p, ctxt, this.nationalities));
+                    return true;
+                case "genders":
+                    c.setGenders(DataDeserializer.<List<Gender>>read(p, ctxt, this.genders));
+                    return true;
+                case "generalContexts":
+                    c.setGeneralContexts(DataDeserializer.<List<GeneralContext>>read(p, ctxt, this.generalContexts));
+                    return true;
+                case "structureOrGenealogies":
+                    c.setStructureOrGenealogies(
+                        DataDeserializer.<List<StructureOrGenealogy>>read(p, ctxt, this.structureOrGenealogies));
+                    return true;
+                case "mandates":
+                    c.setMandates(DataDeserializer.<List<Mandate>>read(p, ctxt, this.mandates));
+                    return true;
+                case "status":
+                    c.setStatus(readString(p, ctxt));
+                    return true;
+                case "flags":
+                    c.flags = DataDeserializer.<List<String>>read(p, ctxt, this.strings);
+                    return true;
+                case "images":
+                    c.setImages(DataDeserializer.<List<Image>>read(p, ctxt, this.images));
+                    return true;
+                case "flag":
+                    c.setFlag(readString(p, ctxt));
+                    return true;
+                case "gender":
+                    c.setGender(DataDeserializer.<Gender>read(p, ctxt, this.gender));
+                    return true;
+                default:
+                    return false;
+            }
+        }
+    }
+
+    /**
+     * Resource Deserializer
+     *
+     * The source is set on the field directly, so that text compressed by a lazy reader stays
+     * compressed.
+     */
+    public static class ResourceDeserializer extends AbstractDataDeserializer<Resource> {
+
+        /**
+         * @var string[] Names of the properties whose JSON may be retained
+         */
+        private static final Set<String> RETAINED = new HashSet<>(Arrays.asList("snacControlMetadata",
+            "documentType", "linkType", "entryType", "repository", "originationNames", "languages", "dates",
+            "source"));
+
+        private JsonDeserializer<Object> term;
+        private JsonDeserializer<Object> repository;
+        private JsonDeserializer<Object> originationNames;
+        private JsonDeserializer<Object> languages;
+        private JsonDeserializer<Object> text;
+
+        public ResourceDeserializer() {
+            super(Resource.class, "documentType", "linkType", "entryType", "link", "title", "extent", "repository",
+                "date", "displayEntry", "originationNames", "languages", "abstract", "source");
+        }
+
+        @Override
+        protected Resource createInstance() {
+            return new Resource();
+        }
+
+        /**
+         * Read a resource
+         *
+         * If the reader carries the source bytes as the attribute keyed by RetainedJSON.class,
+         * the JSON of the structured properties of the top-level resource is retained.
+         */
+        @Override
+        public Resource deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+            Object source = ctxt.getAttribute(RetainedJSON.class);
+            if (source == null)
+                return super.deserialize(p, ctxt);
+            ctxt.setAttribute(RetainedJSON.class, null);
+            try {
+                return this.readObject(p, ctxt, null, new RetainedJSON((byte[]) source, RETAINED));
+            } finally {
+                ctxt.setAttribute(RetainedJSON.class, source);
+            }
+        }
+
+        @Override
+        protected void retainJSON(Resource r, RetainedJSON retained) {
+            r.retainJSON(retained);
+        }
+
+        @Override
+        public void resolve(DeserializationContext ctxt) throws JsonMappingException {
+            super.resolve(ctxt);
+            this.term = find(ctxt, Term.class);
+            this.repository = find(ctxt, Constellation.class);
+            this.originationNames = findList(ctxt, OriginationName.class);
+            this.languages = findList(ctxt, Language.class);
+            this.text = find(ctxt, LazyText.class);
+        }
+
+        @Override
+        protected boolean readDataProperty(JsonParser p, DeserializationContext ctxt, Resource r, String name)
+                throws IOException {
+            switch (name) {
+                case "documentType":
+                    r.setDocumentType(DataDeserializer.<Term>read(p, ctxt, this.term));
+                    return true;
+                case "linkType":
+                    r.setLinkType(DataDeserializer.<Term>read(p, ctxt, this.term));
+                    return true;
+                case "entryType":
+                    r.setEntryType(DataDeserializer.<Term>read(p, ctxt, this.term));
+                    return true;
+                case "link":
+                    r.setLink(readString(p, ctxt));
+                    return true;
+                case "title":
+                    r.setTitle(readString(p, ctxt));
+                    return true;
+                case "extent":
+                    r.setExtent(readString(p, ctxt));
+                    return true;
+                case "repository":
+                    r.setRepository(DataDeserializer.<Constellation>read(p, ctxt, this.repository));
+                    return true;
+                case "date":
+                    r.setDate(readString(p, ctxt));
+                    return true;
+                case "displayEntry":
+                    r.setDisplayEntry(readString(p, ctxt));
+                    return true;
+                case "originationNames":
+                    r.setOriginationNames(DataDeserializer.<List<OriginationName>>read(p, ctxt, this.originationNames));
+                    return true;
+                case "languages":
+                    r.setLanguages(DataDeserializer.<List<Language>>read(p, ctxt, this.languages));
+                    return true;
+                case "abstract":
+                    r.setAbstract(readString(p, ctxt));
+                    return true;
+                case "source":
+                    r.source = read(p, ctxt, this.text);
+                    return true;
+                default:
+                    return false;
+            }
+        }
+    }
+
+    /**
+     * LazyText Deserializer
+     *
+     * Compresses long text if the reader carries the attribute keyed by LazyText.class, and
+     * otherwise holds it as a String.
+     */
+    public static class LazyTextDeserializer extends StdDeserializer<LazyText> {
+
+        public LazyTextDeserializer() {
+            super(LazyText.class);
+        }
+
+        @Override
+        public LazyText deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+            String text = p.hasToken(JsonToken.VALUE_STRING) ? p.getText() : StringDeserializer.instance.deserialize(p, ctxt);
+            if (ctxt.getAttribute(LazyText.class) != null)
+                return LazyText.compress(text);
+            return LazyText.of(text);
+        }
+    }
+}
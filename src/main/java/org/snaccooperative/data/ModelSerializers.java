@@ -0,0 +1,539 @@
+/**
+ * Model Serializers File
+ *
+ * Contains the hand-written JSON serializers for the most common data model classes.
+ *
+ * License:
+ *
+ *
+ * @author Robbie Hott
+ * @license https://opensource.org/licenses/BSD-3-Clause BSD 3-Clause
+ * @copyright 2015 the Rector and Visitors of the University of Virginia, and
+ *            the Regents of the University of California
+ */
+package org.snaccooperative.data;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.json.UTF8JsonGenerator;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.ResolvableSerializer;
+import com.fasterxml.jackson.databind.ser.impl.PropertySerializerMap;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Model Serializers
+ *
+ * Streaming serializers for Term, SNACDate, SNACControlMetadata, NameEntry, Constellation and
+ * Resource, the counterparts of ModelDeserializers.  Each writes its properties directly from the getters
+ * (and its lists from the fields, which the getters would give storage of their own when empty),
+ * in the same order and under the same inclusion rules as the annotated bean serializer: the
+ * classes are NON_DEFAULT, so a property is left out when it equals its value on a newly
+ * constructed object, except for dataType, which is always written.  The output is byte-for-byte
+ * the same as the bean serializer's.
+ *
+ * Constellations and Resources read by JSONCodec.readRetaining() copy the retained JSON of their
+ * unmodified sections into compact output as it was read, so the bytes of those sections are
+ * the input's rather than re-serialized (see RetainedJSON).
+ *
+ * These serializers are registered by DataModelModule.
+ *
+ * @author Robbie Hott
+ */
+public final class ModelSerializers {
+
+    private ModelSerializers() {
+    }
+
+    /**
+     * Data Serializer
+     *
+     * Base class holding the property writers shared by all the model serializers.
+     */
+    abstract static class DataSerializer<T> extends StdSerializer<T> implements ResolvableSerializer {
+
+        private JsonSerializer<Object> term;
+
+        /**
+         * @var PropertySerializerMap Serializers found so far for the runtime classes of values
+         */
+        private PropertySerializerMap dynamic = PropertySerializerMap.emptyForProperties();
+
+        protected DataSerializer(Class<T> type) {
+            super(type);
+        }
+
+        /**
+         * Write the properties of the object
+         */
+        protected abstract void writeProperties(T value, JsonGenerator gen, SerializerProvider provider)
+            throws IOException;
+
+        @Override
+        public void resolve(SerializerProvider provider) throws JsonMappingException {
+            this.term = provider.findValueSerializer(Term.class, null);
+        }
+
+        @Override
+        public void serialize(T value, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            gen.writeStartObject(value);
+            this.writeProperties(value, gen, provider);
+            gen.writeEndObject();
+        }
+
+        /**
+         * Find the serializer for a value's runtime class
+         *
+         * Lookups are cached on this serializer, so each class is only contextualized once.
+         */
+        protected JsonSerializer<Object> serializerFor(Class<?> type, SerializerProvider provider)
+                throws JsonMappingException {
+            PropertySerializerMap map = this.dynamic;
+            JsonSerializer<Object> serializer = map.serializerFor(type);
+            if (serializer == null) {
+                PropertySerializerMap.SerializerAndMapResult result = map.findAndAddSecondarySerializer(type, provider, null);
+                this.dynamic = result.map;
+                serializer = result.serializer;
+            }
+            return serializer;
+        }
+
+        /**
+         * Write a string property, unless it is null
+         */
+        protected static void writeString(JsonGenerator gen, String name, String value) throws IOException {
+            if (value != null)
+                gen.writeStringField(name, value);
+        }
+
+        /**
+         * Write an int property, unless it is zero
+         */
+        protected static void writeInt(JsonGenerator gen, String name, int value) throws IOException {
+            if (value != 0)
+                gen.writeNumberField(name, value);
+        }
+
+        /**
+         * Write a boolean property, unless it is false
+         */
+        protected static void writeBoolean(JsonGenerator gen, String name, boolean value) throws IOException {
+            if (value)
+                gen.writeBooleanField(name, value);
+        }
+
+        /**
+         * Write a Term property, unless it is null
+         */
+        protected void writeTerm(JsonGenerator gen, SerializerProvider provider, String name, Term value)
+                throws IOException {
+            if (value != null) {
+                gen.writeFieldName(name);
+                this.term.serialize(value, gen, provider);
+            }
+        }
+
+        /**
+         * Write an object property, unless it is null
+         */
+        protected void writeObject(JsonGenerator gen, SerializerProvider provider, String name, Object value)
+                throws IOException {
+            if (value != null) {
+                gen.writeFieldName(name);
+                this.serializerFor(value.getClass(), provider).serialize(value, gen, provider);
+            }
+        }
+
+        /**
+         * Write a list property whose default is an empty list
+         *
+         * The list is left out when empty, and written as null when null.
+         */
+        protected void writeList(JsonGenerator gen, SerializerProvider provider, String name, List<?> value)
+                throws IOException {
+            if (value == null) {
+                gen.writeNullField(name);
+            } else if (!value.isEmpty()) {
+                gen.writeFieldName(name);
+                this.writeElements(gen, provider, value);
+            }
+        }
+
+        /**
+         * Write the elements of a list as an array
+         */
+        protected void writeElements(JsonGenerator gen, SerializerProvider provider, List<?> value)
+                throws IOException {
+            int size = value.size();
+            gen.writeStartArray(value, size);
+            Class<?> lastClass = null;
+            JsonSerializer<Object> lastSerializer = null;
+            for (int i = 0; i < size; i++) {
+                Object element = value.get(i);
+                if (element == null) {
+                    provider.defaultSerializeNull(gen);
+                    continue;
+                }
+                Class<?> type = element.getClass();
+                if (type != lastClass) {
+                    lastSerializer = this.serializerFor(type, provider);
+                    lastClass = type;
+                }
+                lastSerializer.serialize(element, gen, provider);
+            }
+            gen.writeEndArray();
+        }
+
+        /**
+         * Get the retained JSON that may be written to a generator
+         *
+         * @param value The object being written, whose changed properties are left out
+         * @return RetainedJSON The retained JSON of the unchanged properties, or null if there is
+         * none or the generator does not write compact JSON
+         */
+        protected static RetainedJSON retained(JsonGenerator gen, RetainedJSON retained, Object value)
+                throws IOException {
+            return retained != null && RetainedJSON.canWrite(gen) ? retained.current(value) : null;
+        }
+
+        /**
+         * Write a property from its retained JSON, if it has any
+         *
+         * @return boolean true if the property was written
+         */
+        protected static boolean writeRetained(JsonGenerator gen, RetainedJSON retained, String name)
+                throws IOException {
+            return retained != null && retained.write(gen, name);
+        }
+
+        /**
+         * Write the properties common to every AbstractData subclass that come before its own
+         */
+        protected void writeHeader(JsonGenerator gen, SerializerProvider provider, AbstractData value)
+                throws IOException {
+            this.writeHeader(gen, provider, value, null);
+        }
+
+        /**
+         * Write the common properties that come first, using any retained JSON
+         */
+        protected void writeHeader(JsonGenerator gen, SerializerProvider provider, AbstractData value,
+                RetainedJSON retained) throws IOException {
+            String dataType = value.getDataType();
+            if (dataType == null)
+                gen.writeNullField("dataType");
+            else
+                gen.writeStringField("dataType", dataType);
+            writeInt(gen, "id", value.getID());
+            writeInt(gen, "version", value.getVersion());
+            if (!writeRetained(gen, retained, "snacControlMetadata"))
+                this.writeList(gen, provider, "snacControlMetadata", value.snacControlMetadata);
+            writeString(gen, "operation", value.getOperation());
+        }
+
+        /**
+         * Write the derived empty flag, which is only written when false
+         */
+        protected static void writeEmpty(JsonGenerator gen, boolean empty) throws IOException {
+            if (!empty)
+                gen.writeBooleanField("empty", false);
+        }
+
+        /**
+         * Write the date list, the last of the AbstractData properties
+         */
+        protected void writeDates(JsonGenerator gen, SerializerProvider provider, AbstractData value)
+                throws IOException {
+            this.writeDates(gen, provider, value, null);
+        }
+
+        /**
+         * Write the date list, using any retained JSON
+         */
+        protected void writeDates(JsonGenerator gen, SerializerProvider provider, AbstractData value,
+                RetainedJSON retained) throws IOException {
+            if (!writeRetained(gen, retained, "dates"))
+                this.writeList(gen, provider, "dates", value.dateList);
+        }
+    }
+
+    /**
+     * Term Serializer
+     */
+    public static class TermSerializer extends DataSerializer<Term> {
+
+        public TermSerializer() {
+            super(Term.class);
+        }
+
+        @Override
+        public void resolve(SerializerProvider provider) {
+        }
+
+        @Override
+        protected void writeProperties(Term term, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            writeString(gen, "type", term.getType());
+            writeInt(gen, "id", term.getID());
+            writeString(gen, "term", term.getTerm());
+            writeString(gen, "uri", term.getURI());
+            writeString(gen, "description", term.getDescription());
+            writeEmpty(gen, term.isEmpty());
+        }
+    }
+
+    /**
+     * SNACDate Serializer
+     */
+    public static class SNACDateSerializer extends DataSerializer<SNACDate> {
+
+        public SNACDateSerializer() {
+            super(SNACDate.class);
+        }
+
+        @Override
+        protected void writeProperties(SNACDate date, JsonGenerator gen, SerializerProvider provider)
+                throws IOException {
+            this.writeHeader(gen, provider, date);
+            writeString(gen, "fromDate", date.getFromDate());
+            writeString(gen, "fromDateOriginal", date.getFromDateOriginal());
+            this.writeTerm(gen, provider, "fromType", date.getFromType());
+            writeBoolean(gen, "fromBC", date.getFromBC());
+            writeRange(gen, "fromRange", date.getFromRangeBounds());
+            writeString(gen, "toDate", date.getToDate());
+            writeString(gen, "toDateOriginal", date.getToDateOriginal());
+            this.writeTerm(gen, provider, "toType", date.getToType());
+            writeBoolean(gen, "toBC", date.getToBC());
+            writeRange(gen, "toRange", date.getToRangeBounds());
+            writeBoolean(gen, "isRange", date.getIsRange());
+            writeString(gen, "note", date.getNote());
+            this.writeDates(gen, provider, date);
+        }
+
+        /**
+         * Write a date range, unless it is the range of a newly constructed date
+         */
+        private static void writeRange(JsonGenerator gen, String name, SNACDate.Range range) throws IOException {
+            if (range == null) {
+                gen.writeNullField(name);
+            } else if (range.entries != null) {
+                gen.writeObjectFieldStart(name);
+                for (Map.Entry<String, String> entry : range.entries.entrySet())
+                    gen.writeStringField(entry.getKey(), entry.getValue());
+                gen.writeEndObject();
+            } else if (!range.isDefault()) {
+                gen.writeObjectFieldStart(name);
+                if (range.hasNotAfter && range.notAfterFirst)
+                    gen.writeStringField(SNACDate.Range.NOT_AFTER, range.notAfter);
+                if (range.hasNotBefore)
+                    gen.writeStringField(SNACDate.Range.NOT_BEFORE, range.notBefore);
+                if (range.hasNotAfter && !range.notAfterFirst)
+                    gen.writeStringField(SNACDate.Range.NOT_AFTER, range.notAfter);
+                gen.writeEndObject();
+            }
+        }
+    }
+
+    /**
+     * SNACControlMetadata Serializer
+     */
+    public static class SNACControlMetadataSerializer extends DataSerializer<SNACControlMetadata> {
+
+        public SNACControlMetadataSerializer() {
+            super(SNACControlMetadata.class);
+        }
+
+        @Override
+        protected void writeProperties(SNACControlMetadata scm, JsonGenerator gen, SerializerProvider provider)
+                throws IOException {
+            // Metadata has no metadata of its own by default, so unlike the other classes an
+            // empty list differs from the default and is written
+            String dataType = scm.getDataType();
+            if (dataType == null)
+                gen.writeNullField("dataType");
+            else
+                gen.writeStringField("dataType", dataType);
+            writeInt(gen, "id", scm.getID());
+            writeInt(gen, "version", scm.getVersion());
+            List<SNACControlMetadata> metadata = scm.snacControlMetadata;
+            if (metadata != null) {
+                gen.writeFieldName("snacControlMetadata");
+                this.writeElements(gen, provider, metadata);
+            }
+            writeString(gen, "operation", scm.getOperation());
+            this.writeObject(gen, provider, "citation", scm.getCitation());
+            writeString(gen, "subCitation", scm.getSubCitation());
+            writeString(gen, "sourceData", scm.getSourceData());
+            this.writeTerm(gen, provider, "descriptiveRule", scm.getDescriptiveRule());
+            this.writeObject(gen, provider, "language", scm.getLanguage());
+            writeString(gen, "note", scm.getNote());
+            writeString(gen, "object", scm.getObject());
+            this.writeDates(gen, provider, scm);
+        }
+    }
+
+    /**
+     * NameEntry Serializer
+     */
+    public static class NameEntrySerializer extends DataSerializer<NameEntry> {
+
+        public NameEntrySerializer() {
+            super(NameEntry.class);
+        }
+
+        @Override
+        protected void writeProperties(NameEntry entry, JsonGenerator gen, SerializerProvider provider)
+                throws IOException {
+            this.writeHeader(gen, provider, entry);
+            writeString(gen, "original", entry.getOriginal());
+            double score = entry.getPreferenceScore();
+            if (Double.doubleToLongBits(score) != Double.doubleToLongBits(0.0))
+                gen.writeNumberField("preferenceScore", score);
+            this.writeList(gen, provider, "components", entry.components);
+            this.writeList(gen, provider, "contributors", entry.contributors);
+            this.writeObject(gen, provider, "language", entry.getLanguage());
+            this.writeDates(gen, provider, entry);
+        }
+    }
+
+    /**
+     * Constellation Serializer
+     */
+    public static class ConstellationSerializer extends DataSerializer<Constellation> {
+
+        public ConstellationSerializer() {
+            super(Constellation.class);
+        }
+
+        @Override
+        protected void writeProperties(Constellation c, JsonGenerator gen, SerializerProvider provider)
+                throws IOException {
+            RetainedJSON retained = retained(gen, c.retainedJSON(), c);
+            this.writeHeader(gen, provider, c, retained);
+            writeString(gen, "ark", c.getArk());
+            if (!writeRetained(gen, retained, "entityType"))
+                this.writeTerm(gen, provider, "entityType", c.getEntityType());
+            if (!writeRetained(gen, retained, "sameAsRelations"))
+                this.writeList(gen, provider, "sameAsRelations", c.sameAsRelations);
+            if (!writeRetained(gen, retained, "entityIDs"))
+                this.writeList(gen, provider, "entityIDs", c.entityIDs);
+            if (!writeRetained(gen, retained, "maintenanceStatus"))
+                this.writeTerm(gen, provider, "maintenanceStatus", c.getMaintenanceStatus());
+            writeString(gen, "maintenanceAgency", c.getMaintenanceAgency());
+            if (!writeRetained(gen, retained, "maintenanceEvents"))
+                this.writeList(gen, provider, "maintenanceEvents", c.maintenanceEvents);
+            if (!writeRetained(gen, retained, "sources"))
+                this.writeList(gen, provider, "sources", c.sources);
+            if (!writeRetained(gen, retained, "legalStatuses"))
+                this.writeList(gen, provider, "legalStatuses", c.legalStatuses);
+            if (!writeRetained(gen, retained, "conventionDeclarations"))
+                this.writeList(gen, provider, "conventionDeclarations", c.conventionDeclarations);
+            if (!writeRetained(gen, retained, "languagesUsed"))
+                this.writeList(gen, provider, "languagesUsed", c.languagesUsed);
+            if (!writeRetained(gen, retained, "nameEntries"))
+                this.writeList(gen, provider, "nameEntries", c.nameEntries);
+            if (!writeRetained(gen, retained, "preferredNameEntry"))
+                this.writeObject(gen, provider, "preferredNameEntry", c.getPreferredNameEntry());
+            if (!writeRetained(gen, retained, "occupations"))
+                this.writeList(gen, provider, "occupations", c.occupations);
+            if (!writeRetained(gen, retained, "biogHists"))
+                this.writeList(gen, provider, "biogHists", c.biogHists);
+            if (!writeRetained(gen, retained, "relations"))
+                this.writeList(gen, provider, "relations", c.relations);
+            if (!writeRetained(gen, retained, "resourceRelations"))
+                this.writeList(gen, provider, "resourceRelations", c.resourceRelations);
+            if (!writeRetained(gen, retained, "activities"))
+                this.writeList(gen, provider, "activities", c.activities);
+            if (!writeRetained(gen, retained, "places"))
+                this.writeList(gen, provider, "places", c.places);
+            if (!writeRetained(gen, retained, "subjects"))
+                this.writeList(gen, provider, "subjects", c.subjects);
+            if (!writeRetained(gen, retained, "nationalities"))
+                this.writeList(gen, provider, "nationalities", c.nationalities);
+            if (!writeRetained(gen, retained, "genders"))
+                this.writeList(gen, provider, "genders", c.genders);
+            if (!writeRetained(gen, retained, "generalContexts"))
+                this.writeList(gen, provider, "generalContexts", c.generalContexts);
+            if (!writeRetained(gen, retained, "structureOrGenealogies"))
+                this.writeList(gen, provider, "structureOrGenealogies", c.structureOrGenealogies);
+            if (!writeRetained(gen, retained, "mandates"))
+                this.writeList(gen, provider, "mandates", c.mandates);
+            writeString(gen, "status", c.getStatus());
+            this.writeList(gen, provider, "flags", c.flags);
+            if (!writeRetained(gen, retained, "images"))
+                this.writeList(gen, provider, "images", c.images);
+            writeEmpty(gen, c.isEmpty());
+            this.writeDates(gen, provider, c, retained);
+        }
+    }
+
+    /**
+     * Resource Serializer
+     */
+    public static class ResourceSerializer extends DataSerializer<Resource> {
+
+        public ResourceSerializer() {
+            super(Resource.class);
+        }
+
+        @Override
+        protected void writeProperties(Resource r, JsonGenerator gen, SerializerProvider provider)
+                throws IOException {
+            RetainedJSON retained = retained(gen, r.retainedJSON(), r);
+            this.writeHeader(gen, provider, r, retained);
+            if (!writeRetained(gen, retained, "documentType"))
+                this.writeTerm(gen, provider, "documentType", r.getDocumentType());
+            if (!writeRetained(gen, retained, "linkType")) {
+                // linkType is deprecated but still part of the JSON format
+                @SuppressWarnings("deprecation")
+                Term linkType = r.getLinkType();
+                this.writeTerm(gen, provider, "linkType", linkType);
+            }
+            if (!writeRetained(gen, retained, "entryType"))
+                this.writeTerm(gen, provider, "entryType", r.getEntryType());
+            writeString(gen, "link", r.getLink());
+            if (!writeRetained(gen, retained, "source"))
+                this.writeObject(gen, provider, "source", r.source);
+            writeString(gen, "title", r.getTitle());
+            writeString(gen, "extent", r.getExtent());
+            if (!writeRetained(gen, retained, "repository"))
+                this.writeObject(gen, provider, "repository", r.getRepository());
+            writeString(gen, "date", r.getDate());
+            writeString(gen, "displayEntry", r.getDisplayEntry());
+            if (!writeRetained(gen, retained, "originationNames"))
+                this.writeList(gen, provider, "originationNames", r.originationNames);
+            if (!writeRetained(gen, retained, "languages"))
+                this.writeList(gen, provider, "languages", r.languages);
+            writeString(gen, "abstract", r.getAbstract());
+            this.writeDates(gen, provider, r, retained);
+        }
+    }
+
+    /**
+     * LazyText Serializer
+     *
+     * Writes text that is still compressed straight from its UTF-8 bytes, leaving it compressed.
+     */
+    public static class LazyTextSerializer extends StdSerializer<LazyText> {
+
+        public LazyTextSerializer() {
+            super(LazyText.class);
+        }
+
+        @Override
+        public void serialize(LazyText value, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            byte[] utf8 = value.getUTF8();
+            if (utf8 == null)
+                gen.writeString(value.getText());
+            else if (gen instanceof UTF8JsonGenerator)
+                gen.writeUTF8String(utf8, 0, utf8.length);
+            else
+                gen.writeString(new String(utf8, StandardCharsets.UTF_8));
+        }
+    }
+}
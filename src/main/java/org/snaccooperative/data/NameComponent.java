@@ -30,4 +30,11 @@ public class NameComponent extends AbstractOrderedComponent {
         this.setMaxDateCount(0);
         this.setDataType("NameComponent");
     }
+
+    /**
+     * {@inheritDoc}
+     */
+    protected AbstractData newInstance() {
+        return new NameComponent();
+    }
 }
@@ -15,7 +15,9 @@
 package org.snaccooperative.data;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Objects;
 
 /**
  * NameEntry Class
@@ -54,7 +56,7 @@ public class NameEntry extends AbstractData {
      *
      * @var snacdataNameComponent[] List of Name Components
      */
-    private List<NameComponent> components;
+    List<NameComponent> components;
 
     /**
      * Contributor List
@@ -69,7 +71,7 @@ public class NameEntry extends AbstractData {
      *
      * @var snacdataContributor[] List of Contributor
      */
-    private List<Contributor> contributors;
+    List<Contributor> contributors;
 
     /**
      * Language
@@ -92,11 +94,18 @@ public class NameEntry extends AbstractData {
     public NameEntry() {
         super();
         this.setDataType("NameEntry");
-        this.components = new ArrayList<>();
-        this.contributors = new ArrayList<>();
+        this.components = Collections.emptyList();
+        this.contributors = Collections.emptyList();
         this.setMaxDateCount(1);
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    protected AbstractData newInstance() {
+        return new NameEntry();
+    }
+
     /**
      * Get the original
      *
@@ -133,6 +142,8 @@ public class NameEntry extends AbstractData {
      */
     public List<NameComponent> getComponents()
     {
+        if (this.isSharedList(this.components))
+            this.components = new ArrayList<>();
         return this.components;
     }
 
@@ -144,6 +155,8 @@ public class NameEntry extends AbstractData {
      */
     public List<Contributor> getContributors()
     {
+        if (this.isSharedList(this.contributors))
+            this.contributors = new ArrayList<>();
         return this.contributors;
     }
 
@@ -177,6 +190,7 @@ public class NameEntry extends AbstractData {
      */
     public void setOriginal(String original) {
 
+        this.modified("original");
         this.original = original;
     }
 
@@ -185,6 +199,7 @@ public class NameEntry extends AbstractData {
      *
      */
     public void setLanguage(Language lang) {
+        this.modified("language");
         this.language = lang;
     }
 
@@ -194,6 +209,8 @@ public class NameEntry extends AbstractData {
      */
     public void addComponent(NameComponent component) {
 
+        this.modified("components");
+        this.components = mutableList(this.components);
         this.components.add(component);
     }
 
@@ -203,15 +220,19 @@ public class NameEntry extends AbstractData {
      */
     public void addContributor(Contributor contributor) {
 
+        this.modified("contributors");
+        this.contributors = mutableList(this.contributors);
         this.contributors.add(contributor);
     }
 
     public void setComponents(List<NameComponent> components) {
-        this.components = new ArrayList<>(components);
+        this.modified("components");
+        this.components = keepList(components);
     }
 
     public void setContributors(List<Contributor> contributors) {
-        this.contributors = new ArrayList<>(contributors);
+        this.modified("contributors");
+        this.contributors = keepList(contributors);
     }
 
     /**
@@ -220,6 +241,7 @@ public class NameEntry extends AbstractData {
      */
     public void setPreferenceScore(double score) {
 
+        this.modified("preferenceScore");
         this.preferenceScore = score;
     }
 
@@ -228,12 +250,12 @@ public class NameEntry extends AbstractData {
      * {@inheritDoc}
      *
      */
-    public boolean equals(Object other) {
+    public boolean equals(Object other, boolean strict, boolean checkSubcomponents) {
 
         if (other == null || ! (other instanceof NameEntry))
             return false;
 
-        if (!super.equals(other))
+        if (!super.equals(other, strict, checkSubcomponents))
             return false;
 
         NameEntry n = (NameEntry) other;
@@ -243,47 +265,72 @@ public class NameEntry extends AbstractData {
         if (this.getPreferenceScore() != n.getPreferenceScore())
             return false;
 
-        if ((this.getLanguage() != null && ! this.getLanguage().equals(n.getLanguage())) ||
-                 (this.getLanguage() == null && n.getLanguage() != null))
+        if (!AbstractData.sameData(this.getLanguage(), n.getLanguage(), strict, checkSubcomponents))
             return false;
 
+        if (checkSubcomponents) {
+            if (!AbstractData.sameElements(this.contributors, n.contributors, strict, checkSubcomponents))
+                return false;
+            if (!AbstractData.sameElements(this.components, n.components, strict, checkSubcomponents))
+                return false;
+        }
+
         return true;
     }
 
     /**
-     * Cleanse all sub-elements
-     *
-     * Removes the ID and Version from sub-elements and updates the operation to be
-     * INSERT.  If the operation is specified by the parameter, this method
-     * will use that operation instead of INSERT.
-     *
+     * {@inheritDoc}
      */
-    public void cleanseSubElements(String operation) {
-        String newOperation = AbstractData.OPERATION_INSERT;
-        if (operation != null) {
-            newOperation = operation;
+    protected int computeHashCode(boolean strict, boolean checkSubcomponents) {
+        int hash = super.computeHashCode(strict, checkSubcomponents);
+        hash = 31 * hash + Objects.hashCode(this.getOriginal());
+        hash = 31 * hash + hashDouble(this.getPreferenceScore());
+        hash = 31 * hash + hashData(this.getLanguage(), strict, checkSubcomponents);
+        if (checkSubcomponents) {
+            hash = 31 * hash + hashUnordered(this.contributors, strict, checkSubcomponents);
+            hash = 31 * hash + hashUnordered(this.components, strict, checkSubcomponents);
         }
+        return hash;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    protected void acceptChildren(DataVisitor visitor) {
+        super.acceptChildren(visitor);
+        acceptAll(visitor, this.contributors);
+        acceptAll(visitor, this.components);
+        accept(visitor, this.language);
+    }
 
-        super.cleanseSubElements(newOperation);
+    /**
+     * {@inheritDoc}
+     */
+    protected void trimLists() {
+        super.trimLists();
+        this.contributors = trimList(this.contributors);
+        this.components = trimList(this.components);
+    }
 
-        for (Contributor c : this.contributors) {
-            c.setID(0);
-            c.setVersion(0);
-            c.setOperation(newOperation);
-            c.cleanseSubElements(newOperation);
-        }
+    /**
+     * {@inheritDoc}
+     */
+    protected void freezeFields() {
+        super.freezeFields();
+        this.contributors = freezeList(this.contributors);
+        this.components = freezeList(this.components);
+    }
 
-        for (NameComponent c : this.components) {
-            c.setID(0);
-            c.setVersion(0);
-            c.setOperation(newOperation);
-            c.cleanseSubElements(newOperation);
-        }
-        if (this.language != null) {
-            this.language.setID(0);
-            this.language.setVersion(0);
-            this.language.setOperation(newOperation);
-            this.language.cleanseSubElements(newOperation);
-        }
+    /**
+     * {@inheritDoc}
+     */
+    protected void copyFrom(AbstractData data, DataCopier copier) {
+        super.copyFrom(data, copier);
+        NameEntry other = (NameEntry) data;
+        this.original = other.original;
+        this.preferenceScore = other.preferenceScore;
+        this.components = copier.copyAll(other.components);
+        this.contributors = copier.copyAll(other.contributors);
+        this.language = copier.copy(other.language);
     }
 }
@@ -14,6 +14,8 @@
  */
 package org.snaccooperative.data;
 
+import java.util.Objects;
+
 /**
  * Occupation Class
  *
@@ -85,6 +87,13 @@ public class Occupation extends AbstractData {
         this.setMaxDateCount(1);
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    protected AbstractData newInstance() {
+        return new Occupation();
+    }
+
     /**
      * Get the Occupation Term for this occupation
      *
@@ -133,7 +142,8 @@ public class Occupation extends AbstractData {
      * Set the occupation controlled vocabulary term
      */
     public void setTerm(Term term) {
-        this.term = term;
+        this.modified("term");
+        this.term = TermRegistry.canonical(term);
     }
 
 
@@ -144,6 +154,7 @@ public class Occupation extends AbstractData {
      * well defined. For example: d699msirr1g-3naumnfaswc
      */
     public void setVocabularySource(String vocab) {
+        this.modified("vocabularySource");
         this.vocabularySource = vocab;
     }
 
@@ -151,18 +162,19 @@ public class Occupation extends AbstractData {
      * Set the descriptive note for this occupation
      */
     public void setNote(String note) {
+        this.modified("note");
         this.note = note;
     }
 
     /**
      * {@inheritDoc}
      */
-    public boolean equals(Object other) {
+    public boolean equals(Object other, boolean strict, boolean checkSubcomponents) {
 
         if (other == null || ! (other instanceof Occupation))
             return false;
 
-        if (! super.equals(other))
+        if (! super.equals(other, strict, checkSubcomponents))
             return false;
 
         Occupation o = (Occupation) other;
@@ -180,5 +192,33 @@ public class Occupation extends AbstractData {
         return true;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    protected int computeHashCode(boolean strict, boolean checkSubcomponents) {
+        int hash = super.computeHashCode(strict, checkSubcomponents);
+        hash = 31 * hash + Objects.hashCode(this.getVocabularySource());
+        hash = 31 * hash + Objects.hashCode(this.getNote());
+        hash = 31 * hash + Objects.hashCode(this.getTerm());
+        return hash;
+    }
 
+    /**
+     * {@inheritDoc}
+     */
+    protected void freezeFields() {
+        super.freezeFields();
+        this.term = freezeTerm(this.term);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    protected void copyFrom(AbstractData data, DataCopier copier) {
+        super.copyFrom(data, copier);
+        Occupation other = (Occupation) data;
+        this.term = copier.copy(other.term);
+        this.vocabularySource = other.vocabularySource;
+        this.note = other.note;
+    }
 }
@@ -15,6 +15,8 @@
  */
 package org.snaccooperative.data;
 
+import java.util.Objects;
+
 /**
  * Resource Relation Origination Name
  *
@@ -42,6 +44,13 @@ public class OriginationName extends AbstractData {
         this.setMaxDateCount(0);
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    protected AbstractData newInstance() {
+        return new OriginationName();
+    }
+
 
     /**
      * Get the name
@@ -59,18 +68,19 @@ public class OriginationName extends AbstractData {
      */
     public void setName(String name)
     {
+        this.modified("name");
         this.name = name;
     }
 
     /**
      * {@inheritDoc}
      */
-    public boolean equals(Object other) {
+    public boolean equals(Object other, boolean strict, boolean checkSubcomponents) {
 
         if (other == null || !(other instanceof OriginationName))
             return false;
 
-        if (!super.equals(other))
+        if (!super.equals(other, strict, checkSubcomponents))
             return false;
 
         OriginationName o = (OriginationName) other;
@@ -79,4 +89,22 @@ public class OriginationName extends AbstractData {
             return false;
         return true;
     }
+
+    /**
+     * {@inheritDoc}
+     */
+    protected int computeHashCode(boolean strict, boolean checkSubcomponents) {
+        int hash = super.computeHashCode(strict, checkSubcomponents);
+        hash = 31 * hash + Objects.hashCode(this.getName());
+        return hash;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    protected void copyFrom(AbstractData data, DataCopier copier) {
+        super.copyFrom(data, copier);
+        OriginationName other = (OriginationName) data;
+        this.name = other.name;
+    }
 }
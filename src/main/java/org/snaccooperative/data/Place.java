@@ -15,10 +15,13 @@
  */
 package org.snaccooperative.data;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Objects;
 
 /**
  * Place
@@ -123,6 +126,7 @@ public class Place extends AbstractData {
      *
      * @var snacdataAddressLine[] address Address of this place
      */
+    @JsonProperty
     private List<AddressLine> address;
 
     /**
@@ -136,19 +140,27 @@ public class Place extends AbstractData {
         super();
         this.setDataType("Place");
         this.setMaxDateCount(1);
-        this.address = new ArrayList<>();
+        this.address = Collections.emptyList();
 
         // Set some default values
         this.confirmed = false;
         this.score = 0;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    protected AbstractData newInstance() {
+        return new Place();
+    }
+
     /**
      * Set the original place name
      *
      */
     public void setOriginal(String original) {
 
+        this.modified("original");
         this.original = original;
     }
 
@@ -159,6 +171,7 @@ public class Place extends AbstractData {
      */
     public void setNote(String note) {
 
+        this.modified("note");
         this.note = note;
     }
 
@@ -168,7 +181,8 @@ public class Place extends AbstractData {
      */
     public void setType(Term type) {
 
-        this.type = type;
+        this.modified("type");
+        this.type = TermRegistry.canonical(type);
     }
 
     /**
@@ -177,7 +191,8 @@ public class Place extends AbstractData {
      */
     public void setRole(Term role) {
 
-        this.role = role;
+        this.modified("role");
+        this.role = TermRegistry.canonical(role);
     }
 
     /**
@@ -188,6 +203,7 @@ public class Place extends AbstractData {
      *
      */
     public void setScore(double score) {
+        this.modified("score");
         this.score = score;
     }
 
@@ -202,6 +218,7 @@ public class Place extends AbstractData {
      * @return boolean True if the confirmed flag was set, false otherwise
      */
     public boolean setConfirmed(boolean confirmed) {
+        this.modified("confirmed");
         if (this.geoTerm == null)
             return false;
         this.confirmed = confirmed;
@@ -218,6 +235,7 @@ public class Place extends AbstractData {
      * @return boolean True if confirmed flag was set, false otherwise
      */
     public boolean confirm() {
+        this.modified("confirmed");
         if (this.getGeoTerm() == null)
             return false;
         this.confirmed = true;
@@ -230,6 +248,7 @@ public class Place extends AbstractData {
      * Remove confirmation that this place is actually the GeoTerm listed.
      */
     public void deconfirm() {
+        this.modified("confirmed");
         this.confirmed = false;
     }
 
@@ -240,6 +259,7 @@ public class Place extends AbstractData {
      *
      */
     public void setGeoTerm(GeoTerm geoTerm) {
+        this.modified("geoplace");
         this.geoTerm = geoTerm;
     }
 
@@ -250,6 +270,8 @@ public class Place extends AbstractData {
      *
      */
     public void addAddressLine(AddressLine addressLine) {
+        this.modified("address");
+        this.address = mutableList(this.address);
         this.address.add(addressLine);
     }
 
@@ -260,6 +282,7 @@ public class Place extends AbstractData {
      *
      */
     public void setAddress(List<AddressLine> address) {
+        this.modified("address");
         this.address = address;
     }
 
@@ -270,7 +293,10 @@ public class Place extends AbstractData {
      *
      * @return snacdataAddressLine[] The address as a set of lines
      */
+    @JsonIgnore
     public List<AddressLine> getAddress() {
+        if (this.isSharedList(this.address))
+            this.address = new ArrayList<>();
         return this.address;
     }
 
@@ -372,12 +398,12 @@ public class Place extends AbstractData {
      * {@inheritDoc}
      *
      */
-    public boolean equals(Object other) {
+    public boolean equals(Object other, boolean strict, boolean checkSubcomponents) {
 
         if (other == null || ! (other instanceof Place))
             return false;
 
-        if (!super.equals(other))
+        if (!super.equals(other, strict, checkSubcomponents))
             return false;
 
         Place p = (Place) other;
@@ -403,33 +429,79 @@ public class Place extends AbstractData {
                  (this.getGeoTerm() == null && p.getGeoTerm() != null))
             return false;
 
-        if (!this.getAddress().containsAll(p.getAddress()))
-            return false;
+        if (strict && !checkSubcomponents) {
+            if (!this.address.containsAll(p.address))
+                return false;
+        } else {
+            for (AddressLine line : p.address) {
+                boolean found = false;
+                for (AddressLine mine : this.address)
+                    found = found || AbstractData.sameData(mine, line, strict, checkSubcomponents);
+                if (!found)
+                    return false;
+            }
+        }
 
         return true;
     }
 
     /**
-     * Cleanse all sub-elements
-     *
-     * Removes the ID and Version from sub-elements and updates the operation to be
-     * INSERT.  If the operation is specified by the parameter, this method
-     * will use that operation instead of INSERT.
-     *
+     * {@inheritDoc}
      */
-    public void cleanseSubElements(String operation) {
-        String newOperation = AbstractData.OPERATION_INSERT;
-        if (operation != null) {
-            newOperation = operation;
-        }
+    protected int computeHashCode(boolean strict, boolean checkSubcomponents) {
+        int hash = super.computeHashCode(strict, checkSubcomponents);
+        hash = 31 * hash + Objects.hashCode(this.getOriginal());
+        hash = 31 * hash + hashDouble(this.getScore());
+        hash = 31 * hash + Boolean.hashCode(this.getConfirmed());
+        hash = 31 * hash + Objects.hashCode(this.getNote());
+        hash = 31 * hash + Objects.hashCode(this.getType());
+        hash = 31 * hash + Objects.hashCode(this.getRole());
+        hash = 31 * hash + Objects.hashCode(this.getGeoTerm());
+        // The address is left out, since equals() only checks that it contains the other's
+        return hash;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    protected void acceptChildren(DataVisitor visitor) {
+        super.acceptChildren(visitor);
+        acceptAll(visitor, this.address);
+    }
 
-        super.cleanseSubElements(newOperation);
+    /**
+     * {@inheritDoc}
+     */
+    protected void trimLists() {
+        super.trimLists();
+        this.address = trimList(this.address);
+    }
 
-        for (AddressLine a : this.address) {
-            a.setID(0);
-            a.setVersion(0);
-            a.setOperation(newOperation);
-            a.cleanseSubElements(newOperation);
-        }
+    /**
+     * {@inheritDoc}
+     */
+    protected void freezeFields() {
+        super.freezeFields();
+        this.address = freezeList(this.address);
+        this.type = freezeTerm(this.type);
+        this.role = freezeTerm(this.role);
+        if (this.geoTerm != null && !this.geoTerm.isFrozen())
+            this.geoTerm = this.geoTerm.deepCopy().freeze();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    protected void copyFrom(AbstractData data, DataCopier copier) {
+        super.copyFrom(data, copier);
+        Place other = (Place) data;
+        this.original = other.original;
+        this.note = other.note;
+        this.type = copier.copy(other.type);
+        this.role = copier.copy(other.role);
+        this.score = other.score;
+        this.confirmed = other.confirmed;
+        this.geoTerm = copier.copy(other.geoTerm);
+        this.address = copier.copyAll(other.address);
     }
 }
@@ -60,6 +60,13 @@ public class ReconciliationResult extends AbstractData {
         this.vector = new HashMap<>();
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    protected AbstractData newInstance() {
+        return new ReconciliationResult();
+    }
+
     /**
      * Set overall strength for this result
      */
@@ -159,4 +166,16 @@ public class ReconciliationResult extends AbstractData {
         this.properties = new HashMap<>();
         this.properties.putAll(prop);
     }
+
+    /**
+     * {@inheritDoc}
+     */
+    protected void copyFrom(AbstractData data, DataCopier copier) {
+        super.copyFrom(data, copier);
+        ReconciliationResult other = (ReconciliationResult) data;
+        this.strength = other.strength;
+        this.identity = copier.copy(other.identity);
+        this.properties = other.properties == null ? null : new HashMap<>(other.properties);
+        this.vector = other.vector == null ? null : new HashMap<>(other.vector);
+    }
 }
@@ -15,12 +15,15 @@
  */
 package org.snaccooperative.data;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
 
 import java.io.File;
+import java.io.OutputStream;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Objects;
 
 /**
  * Resource
@@ -93,9 +96,10 @@ public class Resource extends AbstractData {
      *
      * * resourceRelation/objectXMLWrap
      *
-     * @var string XML source of the resource relation
+     * @var LazyText XML source of the resource relation, which may be held compressed until read
      */
-    private String source = null;
+    @JsonProperty
+    protected LazyText source = null;
 
     /**
      * Title of the archival resource
@@ -148,7 +152,7 @@ public class Resource extends AbstractData {
      * Origination (creator) of the resource
      * @var string[] List of origination names (names of the creators) of this resource.
      */
-    private List<OriginationName> originationNames = null;
+    List<OriginationName> originationNames = null;
 
 
     /**
@@ -156,7 +160,13 @@ public class Resource extends AbstractData {
     *
     * @var snacdataLanguage[] Languages in which this resource was written
     */
-    private List<Language> languages = null;
+    List<Language> languages = null;
+
+    /**
+     * @var RetainedJSON The JSON of the properties not modified since this resource was parsed,
+     * if it was parsed by fromJSONRetaining()
+     */
+    private RetainedJSON retainedJSON = null;
 
     /**
      * Constructor
@@ -166,8 +176,29 @@ public class Resource extends AbstractData {
         super();
         this.setDataType("Resource");
         this.setMaxDateCount(0);
-        this.originationNames = new ArrayList<>();
-        this.languages = new ArrayList<>();
+        this.originationNames = Collections.emptyList();
+        this.languages = Collections.emptyList();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    protected AbstractData newInstance() {
+        return new Resource();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public Resource deepCopy() {
+        return (Resource) super.deepCopy();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public Resource deepCopy(boolean keepIDs, boolean shareTerms) {
+        return (Resource) super.deepCopy(keepIDs, shareTerms);
     }
 
     /**
@@ -184,6 +215,7 @@ public class Resource extends AbstractData {
      *
      */
     public void setTitle(String title) {
+        this.modified("title");
         this.title = title;
     }
 
@@ -203,6 +235,7 @@ public class Resource extends AbstractData {
      *
      */
     public void setAbstract(String abstractStr) {
+        this.modified("abstract");
         this.abstractStr = abstractStr;
     }
 
@@ -220,6 +253,7 @@ public class Resource extends AbstractData {
      *
      */
     public void setExtent(String extent) {
+        this.modified("extent");
         this.extent = extent;
     }
 
@@ -237,6 +271,7 @@ public class Resource extends AbstractData {
      *
      */
     public void setDate(String date) {
+        this.modified("date");
         this.date = date;
     }
 
@@ -254,6 +289,7 @@ public class Resource extends AbstractData {
       *
       */
      public void setDisplayEntry(String displayEntry) {
+         this.modified("displayEntry");
          this.displayEntry = displayEntry;
      }
 
@@ -270,6 +306,7 @@ public class Resource extends AbstractData {
      *
      */
     public void setRepository(Constellation repository) {
+        this.modified("repository");
         this.repository = repository;
     }
 
@@ -279,6 +316,8 @@ public class Resource extends AbstractData {
      * @return snacdataRROriginationName[] List of origination names (names of the creators) of this resource.
      */
     public List<OriginationName> getOriginationNames() {
+        if (this.isSharedList(this.originationNames))
+            this.originationNames = new ArrayList<>();
         return this.originationNames;
     }
 
@@ -287,11 +326,14 @@ public class Resource extends AbstractData {
      *
      */
     public void addOriginationName(OriginationName originationName) {
+        this.modified("originationNames");
+        this.originationNames = mutableList(this.originationNames);
         this.originationNames.add(originationName);
     }
 
     public void setOriginationNames(List<OriginationName> names) {
-        this.originationNames = new ArrayList<>(names);
+        this.modified("originationNames");
+        this.originationNames = keepList(names);
     }
 
     /**
@@ -304,11 +346,14 @@ public class Resource extends AbstractData {
      */
     public List<Language> getLanguages()
     {
+        if (this.isSharedList(this.languages))
+            this.languages = new ArrayList<>();
         return this.languages;
     }
 
     public void setLanguages(List<Language> langs) {
-        this.languages = new ArrayList<>(langs);
+        this.modified("languages");
+        this.languages = keepList(langs);
     }
 
     /**
@@ -353,7 +398,8 @@ public class Resource extends AbstractData {
      *
      */
     public void setEntryType(Term type) {
-        this.entryType = type;
+        this.modified("entryType");
+        this.entryType = TermRegistry.canonical(type);
     }
 
     /**
@@ -401,9 +447,10 @@ public class Resource extends AbstractData {
      * @return string XML source of the resource relation
      *
      */
+    @JsonIgnore
     public String getSource()
     {
-        return this.source;
+        return this.source == null ? null : this.source.getText();
     }
 
 
@@ -412,8 +459,8 @@ public class Resource extends AbstractData {
      *
      */
     public void setDocumentType(Term type) {
-
-        this.documentType = type;
+        this.modified("documentType");
+        this.documentType = TermRegistry.canonical(type);
     }
 
     /**
@@ -422,6 +469,7 @@ public class Resource extends AbstractData {
      */
     public void setLink(String href) {
 
+        this.modified("link");
         this.link = href;
     }
 
@@ -430,17 +478,18 @@ public class Resource extends AbstractData {
      *
      */
     public void setLinkType(Term type) {
-
-        this.linkType = type;
+        this.modified("linkType");
+        this.linkType = TermRegistry.canonical(type);
     }
 
     /**
      * Set the XML source of this resource relation
      *
      */
+    @JsonIgnore
     public void setSource(String xml) {
-
-        this.source = xml;
+        this.modified("source");
+        this.source = LazyText.of(xml);
     }
 
     /**
@@ -450,6 +499,8 @@ public class Resource extends AbstractData {
      *
      */
     public void addLanguage(Language language) {
+        this.modified("languages");
+        this.languages = mutableList(this.languages);
         this.languages.add(language);
     }
 
@@ -458,13 +509,13 @@ public class Resource extends AbstractData {
      * {@inheritDoc}
      *
      */
-    public boolean equals(Object other) {
+    public boolean equals(Object other, boolean strict, boolean checkSubcomponents) {
 
         if (other == null || ! (other instanceof Resource))
             return false;
 
 
-        if (!super.equals(other))
+        if (!super.equals(other, strict, checkSubcomponents))
             return false;
 
         Resource r = (Resource) other;
@@ -494,43 +545,238 @@ public class Resource extends AbstractData {
                  (this.getLinkType() == null && r.getLinkType() != null))
             return false;
 
-        if ((this.getRepository() != null && ! this.getRepository().equals(r.getRepository())) ||
-                 (this.getRepository() == null && r.getRepository() != null))
+        if (!AbstractData.sameData(this.getRepository(), r.getRepository(), strict, checkSubcomponents))
             return false;
 
         return true;
     }
 
-    @Override
-    public int hashCode() {
-        return Resource.toJSON(this).hashCode();
+    /**
+     * {@inheritDoc}
+     */
+    protected int computeHashCode(boolean strict, boolean checkSubcomponents) {
+        int hash = super.computeHashCode(strict, checkSubcomponents);
+        hash = 31 * hash + Objects.hashCode(this.getTitle());
+        hash = 31 * hash + Objects.hashCode(this.getAbstract());
+        hash = 31 * hash + Objects.hashCode(this.source);
+        hash = 31 * hash + Objects.hashCode(this.getExtent());
+        hash = 31 * hash + Objects.hashCode(this.getLink());
+        hash = 31 * hash + Objects.hashCode(this.getDocumentType());
+        hash = 31 * hash + Objects.hashCode(this.getEntryType());
+        hash = 31 * hash + Objects.hashCode(this.getLinkType());
+        hash = 31 * hash + hashData(this.getRepository(), strict, checkSubcomponents);
+        return hash;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    protected void acceptChildren(DataVisitor visitor) {
+        super.acceptChildren(visitor);
+        accept(visitor, this.repository);
+        acceptAll(visitor, this.originationNames);
+        acceptAll(visitor, this.languages);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    protected void trimLists() {
+        super.trimLists();
+        this.originationNames = trimList(this.originationNames);
+        this.languages = trimList(this.languages);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    protected void freezeFields() {
+        super.freezeFields();
+        this.originationNames = freezeList(this.originationNames);
+        this.languages = freezeList(this.languages);
+        this.documentType = freezeTerm(this.documentType);
+        this.linkType = freezeTerm(this.linkType);
+        this.entryType = freezeTerm(this.entryType);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    protected void copyFrom(AbstractData data, DataCopier copier) {
+        super.copyFrom(data, copier);
+        Resource other = (Resource) data;
+        this.documentType = copier.copy(other.documentType);
+        this.linkType = copier.copy(other.linkType);
+        this.entryType = copier.copy(other.entryType);
+        this.link = other.link;
+        this.source = other.source;
+        this.title = other.title;
+        this.abstractStr = other.abstractStr;
+        this.extent = other.extent;
+        this.repository = copier.copy(other.repository);
+        this.date = other.date;
+        this.displayEntry = other.displayEntry;
+        this.originationNames = copier.copyAll(other.originationNames);
+        this.languages = copier.copyAll(other.languages);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void cleanseSubElements(String operation) {
+        super.cleanseSubElements(operation);
+        this.retainedJSON = null;
+    }
+
+    /**
+     * Mark a property modified
+     *
+     * Drops the JSON retained for the property by fromJSONRetaining(), so that it is serialized
+     * again.  Changes made through the objects returned by its getter are also found, by
+     * fingerprint, when the resource is written, so calling this is not required.
+     *
+     * @param property The JSON name of the modified property, such as "languages"
+     */
+    public void markModified(String property) {
+        this.modified(property);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    protected void modified(String property) {
+        super.modified(property);
+        if (this.retainedJSON != null)
+            this.retainedJSON.release(property);
+    }
+
+    /**
+     * Get the retained JSON
+     *
+     * @return RetainedJSON The JSON of the unmodified properties, or null if none is retained
+     */
+    RetainedJSON retainedJSON() {
+        return this.retainedJSON;
+    }
+
+    /**
+     * Set the retained JSON, once the resource has been read from it
+     */
+    void retainJSON(RetainedJSON retained) {
+        this.retainedJSON = retained;
     }
 
     public static Resource fromJSON(String s) {
         try {
-            ObjectMapper om = new ObjectMapper();
-            Resource r = om.readValue(s, Resource.class);
+            Resource r = JSONCodec.readerFor(Resource.class).readValue(s);
             return r;
         } catch (Exception e) {
             return null;
         }
     }
 
+    /**
+     * From JSON, retaining the source
+     *
+     * Reads the whole resource, keeping the JSON of its structured properties (the terms,
+     * repository, origination names, languages, source, metadata and dates) so that those which
+     * are not modified before the resource is written out again are copied into compact output
+     * verbatim.  A property counts as modified once its setter or add method is called, or once
+     * its fingerprint, checked as it is written, differs from the one it had when read (which
+     * catches changes made through the objects and lists returned by the getters).
+     *
+     * @param json The UTF-8 JSON to read, which must not be changed while the resource is in use
+     * @return Resource The resource, or null on failure
+     */
+    public static Resource fromJSONRetaining(byte[] json) {
+        try {
+            return JSONCodec.readRetaining(json, Resource.class);
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    /**
+     * From binary
+     *
+     * Reads a resource written by toBinary().
+     *
+     * @return Resource The resource, or null on failure
+     */
+    public static Resource fromBinary(byte[] data) {
+        try {
+            return BinaryCodec.decode(data, Resource.class);
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    /**
+     * To binary
+     *
+     * Encodes the resource in the compact binary form of BinaryCodec.
+     *
+     * @return byte[] The encoded resource, or null on failure
+     */
+    public static byte[] toBinary(Resource r) {
+        try {
+            return BinaryCodec.encode(r);
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
     public static String toJSON(Resource r) {
+        return Resource.toJSON(r, false);
+    }
+
+    /**
+     * To JSON
+     *
+     * Serializes the resource to a String, either indented or compact (no whitespace).
+     *
+     * @return string The JSON for the resource, or null on failure
+     */
+    public static String toJSON(Resource r, boolean compact) {
         try {
-            ObjectMapper om = new ObjectMapper();
-            om.enable(SerializationFeature.INDENT_OUTPUT);
-            return om.writeValueAsString(r);
+            return (compact ? JSONCodec.compactWriter() : JSONCodec.writer()).writeValueAsString(r);
         } catch (Exception e) {
             return null;
         }
     }
 
+    /**
+     * To JSON
+     *
+     * Writes the indented JSON for the resource straight to the stream, without building a
+     * String.  The stream is flushed but left open.
+     *
+     * @return boolean true on success, false on failure
+     */
+    public static boolean toJSON(Resource r, OutputStream out) {
+        return Resource.toJSON(r, out, false);
+    }
+
+    /**
+     * To JSON
+     *
+     * Writes the JSON for the resource, either indented or compact, straight to the stream.
+     * The stream is flushed but left open.
+     *
+     * @return boolean true on success, false on failure
+     */
+    public static boolean toJSON(Resource r, OutputStream out, boolean compact) {
+        try {
+            (compact ? JSONCodec.compactWriter() : JSONCodec.writer()).writeValue(out, r);
+            return true;
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
     public static Resource readFromFile(File file) {
         try {
-            ObjectMapper om = new ObjectMapper();
-            //om.enable(SerializationFeature.INDENT_OUTPUT);
-            Resource r = om.readValue(file, Resource.class);
+            Resource r = JSONCodec.readerFor(Resource.class).readValue(file);
 
             return r;
         } catch (Exception e) {
@@ -15,6 +15,8 @@
  */
 package org.snaccooperative.data;
 
+import java.util.Objects;
+
 /**
  * Resource Relation
  *
@@ -74,6 +76,13 @@ public class ResourceRelation extends AbstractData {
         this.setMaxDateCount(0);
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    protected AbstractData newInstance() {
+        return new ResourceRelation();
+    }
+
 
     /**
      * Get Role
@@ -147,6 +156,7 @@ public class ResourceRelation extends AbstractData {
      */
     public void setResource(Resource resource) {
 
+        this.modified("resource");
         this.resource = resource;
     }
 
@@ -156,7 +166,8 @@ public class ResourceRelation extends AbstractData {
      */
     public void setRole(Term role) {
 
-        this.role = role;
+        this.modified("role");
+        this.role = TermRegistry.canonical(role);
     }
 
     /**
@@ -165,6 +176,7 @@ public class ResourceRelation extends AbstractData {
      */
     public void setContent(String content) {
 
+        this.modified("content");
         this.content = content;
     }
 
@@ -174,6 +186,7 @@ public class ResourceRelation extends AbstractData {
      */
     public void setNote(String note) {
 
+        this.modified("note");
         this.note = note;
     }
 
@@ -183,12 +196,12 @@ public class ResourceRelation extends AbstractData {
      * {@inheritDoc}
      *
      */
-    public boolean equals(Object other) {
+    public boolean equals(Object other, boolean strict, boolean checkSubcomponents) {
 
         if (other == null || ! (other instanceof ResourceRelation))
             return false;
 
-        if (!super.equals(other))
+        if (!super.equals(other, strict, checkSubcomponents))
             return false;
 
         ResourceRelation r = (ResourceRelation) other;
@@ -199,8 +212,7 @@ public class ResourceRelation extends AbstractData {
                 (this.getNote() == null && r.getNote() != null))
             return false;
 
-        if ((this.getResource() != null && ! this.getResource().equals(r.getResource())) ||
-                 (this.getResource() == null && r.getResource() != null))
+        if (!AbstractData.sameData(this.getResource(), r.getResource(), strict, checkSubcomponents))
             return false;
         if ((this.getRole() != null && ! this.getRole().equals(r.getRole())) ||
                  (this.getRole() == null && r.getRole() != null))
@@ -208,4 +220,44 @@ public class ResourceRelation extends AbstractData {
 
         return true;
     }
+
+    /**
+     * {@inheritDoc}
+     */
+    protected int computeHashCode(boolean strict, boolean checkSubcomponents) {
+        int hash = super.computeHashCode(strict, checkSubcomponents);
+        hash = 31 * hash + Objects.hashCode(this.getContent());
+        hash = 31 * hash + Objects.hashCode(this.getNote());
+        hash = 31 * hash + hashData(this.getResource(), strict, checkSubcomponents);
+        hash = 31 * hash + Objects.hashCode(this.getRole());
+        return hash;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    protected void acceptChildren(DataVisitor visitor) {
+        super.acceptChildren(visitor);
+        accept(visitor, this.resource);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    protected void freezeFields() {
+        super.freezeFields();
+        this.role = freezeTerm(this.role);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    protected void copyFrom(AbstractData data, DataCopier copier) {
+        super.copyFrom(data, copier);
+        ResourceRelation other = (ResourceRelation) data;
+        this.resource = copier.copy(other.resource);
+        this.role = copier.copy(other.role);
+        this.content = other.content;
+        this.note = other.note;
+    }
 }
@@ -0,0 +1,279 @@
+/**
+ * Retained JSON File
+ *
+ * Contains the record of the original JSON of a parsed object's sections.
+ *
+ * License:
+ *
+ *
+ * @author Robbie Hott
+ * @license https://opensource.org/licenses/BSD-3-Clause BSD 3-Clause
+ * @copyright 2015 the Rector and Visitors of the University of Virginia, and
+ *            the Regents of the University of California
+ */
+package org.snaccooperative.data;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.json.JsonGeneratorImpl;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Retained JSON
+ *
+ * Remembers where the JSON of each top-level section of a Constellation or Resource lies in the
+ * bytes it was parsed from, so that sections which have not been modified since can be copied
+ * verbatim into the output instead of being serialized again.  The object drops a section from
+ * here as soon as one of its setters (or add and remove methods) changes it.
+ *
+ * Changes made through the objects and lists returned by the getters are not seen by the
+ * object, so the Fingerprint of each retained section is also taken once reading finishes, and
+ * compared with the section's current fingerprint before its JSON is reused.  A section whose
+ * fingerprint differs is serialized again.  Element fingerprints are summed, so a section whose
+ * elements have only been reordered still counts as unmodified.
+ *
+ * Sections whose JSON spans several lines are not retained, so compact output stays on one line.
+ * Retained sections are only copied into compact JSON output; pretty-printed and binary output
+ * always serialize every section.
+ *
+ * @author Robbie Hott
+ */
+final class RetainedJSON {
+
+    /**
+     * @var byte[] The JSON the object was parsed from, shared by all its sections
+     */
+    private final byte[] source;
+
+    /**
+     * @var string[] The properties that may be retained
+     */
+    private final Collection<String> retainable;
+
+    /**
+     * @var int[] Start and end offset into the source of each retained property
+     */
+    private final Map<String, int[]> ranges;
+
+    /**
+     * @var Fingerprint[] Fingerprint of each retained property as read, or null until captured
+     */
+    private Map<String, Fingerprint> fingerprints = null;
+
+    RetainedJSON(byte[] source, Collection<String> retainable) {
+        this(source, retainable, new HashMap<>());
+    }
+
+    private RetainedJSON(byte[] source, Collection<String> retainable, Map<String, int[]> ranges) {
+        this.source = source;
+        this.retainable = retainable;
+        this.ranges = ranges;
+    }
+
+    /**
+     * Whether a property may be retained
+     *
+     * @return boolean true if the JSON of the property should be retained
+     */
+    boolean isRetainable(String property) {
+        return this.retainable.contains(property);
+    }
+
+    /**
+     * Retain the JSON of a property
+     *
+     * @param property The property name
+     * @param start Offset into the source of the first byte of its value
+     * @param end Offset into the source just past the last byte of its value
+     */
+    void retain(String property, long start, long end) {
+        if (start < 0 || end > this.source.length || start >= end)
+            return;
+        for (int i = (int) start; i < end; i++) {
+            if (this.source[i] == '\n' || this.source[i] == '\r')
+                return;
+        }
+        this.ranges.put(property, new int[] { (int) start, (int) end });
+    }
+
+    /**
+     * Drop the JSON of a property, which has been modified
+     */
+    void release(String property) {
+        this.ranges.remove(property);
+    }
+
+    /**
+     * Record the fingerprints of the retained properties, once the object has been read
+     *
+     * @param bean The object read
+     */
+    void capture(Object bean) throws IOException {
+        this.fingerprints = this.fingerprintRetained(bean);
+    }
+
+    /**
+     * Get the retained JSON that is still current
+     *
+     * Compares the fingerprint of each retained property of the object with the one captured
+     * when it was read.  This retained JSON is not changed, so that objects may be written from
+     * several threads at once.
+     *
+     * @param bean The object about to be written
+     * @return RetainedJSON This, if no retained property has changed, or else a copy without the
+     * changed properties
+     */
+    RetainedJSON current(Object bean) throws IOException {
+        if (this.ranges.isEmpty())
+            return this;
+        if (this.fingerprints == null)
+            return new RetainedJSON(this.source, this.retainable, new HashMap<>());
+        Map<String, Fingerprint> current = this.fingerprintRetained(bean);
+        Map<String, int[]> unchanged = new HashMap<>();
+        for (Map.Entry<String, int[]> range : this.ranges.entrySet()) {
+            String property = range.getKey();
+            if (this.fingerprints.containsKey(property)
+                    && Objects.equals(this.fingerprints.get(property), current.get(property)))
+                unchanged.put(property, range.getValue());
+        }
+        if (unchanged.size() == this.ranges.size())
+            return this;
+        RetainedJSON copy = new RetainedJSON(this.source, this.retainable, unchanged);
+        copy.fingerprints = this.fingerprints;
+        return copy;
+    }
+
+    /**
+     * Fingerprint the retained properties of an object, including their IDs
+     *
+     * @return Fingerprint[] The fingerprint of each retained property the object writes
+     */
+    private Map<String, Fingerprint> fingerprintRetained(Object bean) throws IOException {
+        Map<String, Fingerprint> properties = new HashMap<>();
+        if (this.ranges.isEmpty())
+            return properties;
+        FingerprintGenerator.fingerprint(bean, true, properties);
+        properties.keySet().retainAll(this.ranges.keySet());
+        return properties;
+    }
+
+    /**
+     * Whether retained JSON may be written to a generator
+     *
+     * @return boolean true if the generator writes compact JSON without extra escaping
+     */
+    static boolean canWrite(JsonGenerator gen) {
+        return gen instanceof JsonGeneratorImpl && gen.getPrettyPrinter() == null
+            && gen.getHighestEscapedChar() == 0 && gen.getCharacterEscapes() == null;
+    }
+
+    /**
+     * Write a property from its retained JSON
+     *
+     * @return boolean true if the property was written, false if its JSON is not retained
+     */
+    boolean write(JsonGenerator gen, String property) throws IOException {
+        int[] range = this.ranges.get(property);
+        if (range == null)
+            return false;
+        gen.writeFieldName(property);
+        gen.writeRawValue(new RawJSON(this.source, range[0], range[1] - range[0]));
+        return true;
+    }
+
+    /**
+     * Raw JSON
+     *
+     * A slice of the source, written without quoting or escaping.
+     */
+    private static final class RawJSON implements SerializableString {
+
+        private final byte[] bytes;
+        private final int offset;
+        private final int length;
+
+        RawJSON(byte[] bytes, int offset, int length) {
+            this.bytes = bytes;
+            this.offset = offset;
+            this.length = length;
+        }
+
+        public String getValue() {
+            return new String(this.bytes, this.offset, this.length, StandardCharsets.UTF_8);
+        }
+
+        public int charLength() {
+            return this.getValue().length();
+        }
+
+        public byte[] asUnquotedUTF8() {
+            return Arrays.copyOfRange(this.bytes, this.offset, this.offset + this.length);
+        }
+
+        public int appendUnquotedUTF8(byte[] buffer, int offset) {
+            if (offset + this.length > buffer.length)
+                return -1;
+            System.arraycopy(this.bytes, this.offset, buffer, offset, this.length);
+            return this.length;
+        }
+
+        public int appendUnquoted(char[] buffer, int offset) {
+            String value = this.getValue();
+            if (offset + value.length() > buffer.length)
+                return -1;
+            value.getChars(0, value.length(), buffer, offset);
+            return value.length();
+        }
+
+        public int writeUnquotedUTF8(OutputStream out) throws IOException {
+            out.write(this.bytes, this.offset, this.length);
+            return this.length;
+        }
+
+        public int putUnquotedUTF8(ByteBuffer buffer) {
+            if (this.length > buffer.remaining())
+                return -1;
+            buffer.put(this.bytes, this.offset, this.length);
+            return this.length;
+        }
+
+        // Raw JSON is never written as a quoted string
+
+        public char[] asQuotedChars() {
+            throw new UnsupportedOperationException("Raw JSON cannot be quoted");
+        }
+
+        public byte[] asQuotedUTF8() {
+            throw new UnsupportedOperationException("Raw JSON cannot be quoted");
+        }
+
+        public int appendQuotedUTF8(byte[] buffer, int offset) {
+            throw new UnsupportedOperationException("Raw JSON cannot be quoted");
+        }
+
+        public int appendQuoted(char[] buffer, int offset) {
+            throw new UnsupportedOperationException("Raw JSON cannot be quoted");
+        }
+
+        public int writeQuotedUTF8(OutputStream out) {
+            throw new UnsupportedOperationException("Raw JSON cannot be quoted");
+        }
+
+        public int putQuotedUTF8(ByteBuffer buffer) {
+            throw new UnsupportedOperationException("Raw JSON cannot be quoted");
+        }
+
+        public String toString() {
+            return this.getValue();
+        }
+    }
+}
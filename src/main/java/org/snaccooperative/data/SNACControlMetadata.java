@@ -15,6 +15,8 @@
  */
 package org.snaccooperative.data;
 
+import java.util.Objects;
+
 /**
  * SNAC Control Metadata class
  *
@@ -81,6 +83,13 @@ public class SNACControlMetadata extends AbstractData {
         this.snacControlMetadata = null;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    protected AbstractData newInstance() {
+        return new SNACControlMetadata();
+    }
+
     /**
      * Get the citation
      *
@@ -149,6 +158,7 @@ public class SNACControlMetadata extends AbstractData {
      *
      */
     public void setObject(String object) {
+        this.modified("object");
         this.object = object;
     }
 
@@ -157,6 +167,7 @@ public class SNACControlMetadata extends AbstractData {
      *
      */
     public void setCitation(Source citation) {
+        this.modified("citation");
         this.citation = citation;
     }
 
@@ -165,6 +176,7 @@ public class SNACControlMetadata extends AbstractData {
      *
      */
     public void setSubCitation(String subCitation) {
+        this.modified("subCitation");
         this.subCitation = subCitation;
     }
 
@@ -173,6 +185,7 @@ public class SNACControlMetadata extends AbstractData {
      *
      */
     public void setSourceData(String sourceData) {
+        this.modified("sourceData");
         this.sourceData = sourceData;
     }
 
@@ -181,7 +194,8 @@ public class SNACControlMetadata extends AbstractData {
      *
      */
     public void setDescriptiveRule(Term rule) {
-        this.descriptiveRule = rule;
+        this.modified("descriptiveRule");
+        this.descriptiveRule = TermRegistry.canonical(rule);
     }
 
     /**
@@ -189,6 +203,7 @@ public class SNACControlMetadata extends AbstractData {
      *
      */
     public void setLanguage(Language language) {
+        this.modified("language");
         this.language = language;
     }
 
@@ -197,6 +212,7 @@ public class SNACControlMetadata extends AbstractData {
      *
      */
     public void setNote(String note) {
+        this.modified("note");
         this.note = note;
     }
 
@@ -204,12 +220,12 @@ public class SNACControlMetadata extends AbstractData {
      *
      *
      */
-    public boolean equals(Object other) {
+    public boolean equals(Object other, boolean strict, boolean checkSubcomponents) {
 
         if (other == null || ! (other instanceof SNACControlMetadata))
             return false;
 
-        if (! super.equals(other))
+        if (! super.equals(other, strict, checkSubcomponents))
             return false;
 
         SNACControlMetadata s = (SNACControlMetadata) other;
@@ -224,21 +240,71 @@ public class SNACControlMetadata extends AbstractData {
             return false;
 
         // Citations are special. They are Source objects, but they may not be completely filled in.  In fact, the only thing we may know
-        // about them within an SCM is their ID.  So, for equality, we may only check ID.
+        // about them within an SCM is their ID.  So, for equality, we may only check ID.  Without IDs (not strict), we can only
+        // compare what is filled in.
         if ((this.getCitation() != null && s.getCitation() == null) ||
-            (this.getCitation() == null && s.getCitation() != null) ||
-            (this.getCitation() != null && s.getCitation() != null && this.getCitation().getID() != s.getCitation().getID()))
+            (this.getCitation() == null && s.getCitation() != null))
+            return false;
+        if (strict && this.getCitation() != null && this.getCitation().getID() != s.getCitation().getID())
+            return false;
+        if (!strict && !AbstractData.sameData(this.getCitation(), s.getCitation(), strict, checkSubcomponents))
             return false;
 
         if ((this.getDescriptiveRule() != null && !this.getDescriptiveRule().equals(s.getDescriptiveRule())) ||
                  (this.getDescriptiveRule() == null && s.getDescriptiveRule() != null))
             return false;
 
-        if ((this.getLanguage() != null && ! this.getLanguage().equals(s.getLanguage())) ||
-                 (this.getLanguage() == null && s.getLanguage() != null))
+        if (!AbstractData.sameData(this.getLanguage(), s.getLanguage(), strict, checkSubcomponents))
             return false;
 
         return true;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    protected int computeHashCode(boolean strict, boolean checkSubcomponents) {
+        int hash = super.computeHashCode(strict, checkSubcomponents);
+        hash = 31 * hash + Objects.hashCode(this.getSubCitation());
+        hash = 31 * hash + Objects.hashCode(this.getSourceData());
+        hash = 31 * hash + Objects.hashCode(this.getNote());
+        if (strict)
+            hash = 31 * hash + (this.getCitation() == null ? 0 : this.getCitation().getID());
+        else
+            hash = 31 * hash + hashData(this.getCitation(), strict, checkSubcomponents);
+        hash = 31 * hash + Objects.hashCode(this.getDescriptiveRule());
+        hash = 31 * hash + hashData(this.getLanguage(), strict, checkSubcomponents);
+        return hash;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    protected void acceptChildren(DataVisitor visitor) {
+        super.acceptChildren(visitor);
+        accept(visitor, this.language);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    protected void freezeFields() {
+        super.freezeFields();
+        this.descriptiveRule = freezeTerm(this.descriptiveRule);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    protected void copyFrom(AbstractData data, DataCopier copier) {
+        super.copyFrom(data, copier);
+        SNACControlMetadata other = (SNACControlMetadata) data;
+        this.citation = copier.copy(other.citation);
+        this.subCitation = other.subCitation;
+        this.sourceData = other.sourceData;
+        this.descriptiveRule = copier.copy(other.descriptiveRule);
+        this.language = copier.copy(other.language);
+        this.note = other.note;
+        this.object = other.object;
+    }
 }
@@ -16,19 +16,51 @@
 package org.snaccooperative.data;
 
 
-import java.util.HashMap;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 
 /**
  * SNACDate class
  *
  * Storage class for dates.
  *
+ * Standard dates are held packed into longs (see pack()), which sort in date order, with BC
+ * years negative.  A standard date string in the usual form (yyyy, yyyy-mm or yyyy-mm-dd) is
+ * rebuilt from its packed value when it is read, so only dates in other forms keep their
+ * strings.  The fuzzy ranges of a date are held in one small object, shared by every date
+ * without them.  getStart(), getEnd(), overlaps(), contains() and CHRONOLOGICAL compare the
+ * packed values, so filtering and sorting dates parses and allocates nothing.
+ *
  * @author Robbie Hott
  *
  */
 public class SNACDate extends AbstractData {
 
+    /**
+     * @var long The packed value of an unknown date, which sorts before every other
+     */
+    public static final long UNKNOWN = Long.MIN_VALUE;
+
+    /**
+     * @var Comparator Orders dates by their starts, then their ends, with unknown starts first
+     */
+    public static final Comparator<SNACDate> CHRONOLOGICAL = new Comparator<SNACDate>() {
+        public int compare(SNACDate a, SNACDate b) {
+            int c = Long.compare(a.getStart(), b.getStart());
+            return c != 0 ? c : Long.compare(a.getEnd(), b.getEnd());
+        }
+    };
+
     /**
      * Begin Date
      *
@@ -37,9 +69,15 @@ public class SNACDate extends AbstractData {
      * * dateRange/fromDate/@standardDate
      * * date/@standardDate
      *
-     * @var string Begin date (if range)
+     * @var string Begin date (if range), if it is not in the usual form and so is not rebuilt from
+     * the packed date
      */
-    private String fromDate;
+    protected String fromDate;
+
+    /**
+     * @var long The packed begin date, or UNKNOWN
+     */
+    private long from = UNKNOWN;
 
     /**
      * Original begin date string
@@ -51,7 +89,7 @@ public class SNACDate extends AbstractData {
      *
      * @var string Original string given for the from date
      */
-    private String fromDateOriginal;
+    protected String fromDateOriginal;
 
     /**
      * Begin type
@@ -63,7 +101,7 @@ public class SNACDate extends AbstractData {
      *
      * @var snacdataTerm Type of the from date, a full Term object.
      */
-    private Term fromType;
+    protected Term fromType;
 
     /**
      * Begin date is in BC
@@ -75,7 +113,7 @@ public class SNACDate extends AbstractData {
      *
      * @var boolean If the from date is BC
      */
-    private boolean fromBC = false;
+    protected boolean fromBC = false;
 
     /**
      * Range of fuzziness for begin date
@@ -87,9 +125,9 @@ public class SNACDate extends AbstractData {
      * * date/@notBefore
      * * date/@notAfter
      *
-     * var string[] From date range
+     * @var Range From date range
      */
-    private Map<String, String> fromRange = new HashMap<>();
+    private Range fromRange = Range.NONE;
 
     /**
      * End date
@@ -98,9 +136,15 @@ public class SNACDate extends AbstractData {
      *
      * * dateRange/toDate/@standardDate
      *
-     * @var string End date (if range)
+     * @var string End date (if range), if it is not in the usual form and so is not rebuilt from
+     * the packed date
      */
-    private String toDate;
+    protected String toDate;
+
+    /**
+     * @var long The packed end date, or UNKNOWN
+     */
+    private long to = UNKNOWN;
 
     /**
      * End date original string
@@ -111,7 +155,7 @@ public class SNACDate extends AbstractData {
      *
      * @var string Original string given for the to date
      */
-    private String toDateOriginal;
+    protected String toDateOriginal;
 
     /**
      * End date type
@@ -122,7 +166,7 @@ public class SNACDate extends AbstractData {
      *
      * @var snacdataTerm Type of the "to date", a full Term object.
      */
-    private Term toType;
+    protected Term toType;
 
     /**
      * End date is in BC
@@ -133,7 +177,7 @@ public class SNACDate extends AbstractData {
      *
      * @var boolean If the to date is BC
      */
-    private boolean toBC = false;
+    protected boolean toBC = false;
 
     /**
      * Fuzzy range on End date
@@ -143,17 +187,16 @@ public class SNACDate extends AbstractData {
      * * dateRange/toDate/@notBefore
      * * dateRange/toDate/@notAfter
      *
-     * var string[] To date range
+     * @var Range To date range
      */
-    private Map<String, String> toRange = new HashMap<>();
-    //private toRange = array ("notBefore" => null, "notAfter" => null);
+    private Range toRange = Range.NONE;
 
     /**
      * If this is a dateRange or just a date
      *
      * @var boolean If this SNACDate object contains a range or a single date
      */
-    private boolean isRange = false;
+    protected boolean isRange = false;
 
     /**
      * Descriptive Note
@@ -165,16 +208,19 @@ public class SNACDate extends AbstractData {
      *
      * @var string Note about this date
      */
-    private String note;
+    protected String note;
 
 
     public SNACDate() {
         super();
         this.setDataType("SNACDate");
-        fromRange.put("notBefore", null);
-        fromRange.put("notAfter", null);
-        toRange.put("notBefore", null);
-        toRange.put("notAfter", null);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    protected AbstractData newInstance() {
+        return new SNACDate();
     }
 
     /**
@@ -184,7 +230,7 @@ public class SNACDate extends AbstractData {
      */
     public String getFromDate()
     {
-        return this.fromDate;
+        return this.fromDate != null ? this.fromDate : SNACDate.format(this.from);
     }
 
     /**
@@ -233,7 +279,7 @@ public class SNACDate extends AbstractData {
      */
     public Map<String, String> getFromRange()
     {
-        return this.fromRange;
+        return this.fromRange == null ? null : new RangeMap(false);
     }
 
     /**
@@ -245,7 +291,7 @@ public class SNACDate extends AbstractData {
      */
     public String getToDate()
     {
-        return this.toDate;
+        return this.toDate != null ? this.toDate : SNACDate.format(this.to);
     }
 
     /**
@@ -293,7 +339,7 @@ public class SNACDate extends AbstractData {
      */
     public Map<String,String> getToRange()
     {
-        return this.toRange;
+        return this.toRange == null ? null : new RangeMap(true);
     }
 
     /**
@@ -333,8 +379,8 @@ public class SNACDate extends AbstractData {
      */
     public String toString() {
         String str = "Date: ";
-        if (this.fromDate != null)
-            str += this.fromDate;
+        if (this.getFromDate() != null)
+            str += this.getFromDate();
         else
             str += this.fromDateOriginal;
 
@@ -343,8 +389,8 @@ public class SNACDate extends AbstractData {
 
         if (this.isRange) {
             str += " - ";
-            if (this.toDate != null)
-                str += this.toDate;
+            if (this.getToDate() != null)
+                str += this.getToDate();
             else
                 str += this.toDateOriginal;
 
@@ -362,6 +408,7 @@ public class SNACDate extends AbstractData {
      * what is true, and even using DBUtil functions to convert has not solved the problem
      */
     public void setRange(boolean isRange) {
+        this.modified("isRange");
         this.isRange = isRange;
     }
 
@@ -372,7 +419,9 @@ public class SNACDate extends AbstractData {
      */
     public void setFromBC(boolean arg)
     {
+        this.modified("fromBC");
         this.fromBC = arg;
+        this.from = SNACDate.withEra(this.from, arg);
     }
 
     /**
@@ -382,7 +431,9 @@ public class SNACDate extends AbstractData {
      */
     public void setToBC(boolean arg)
     {
+        this.modified("toBC");
         this.toBC = arg;
+        this.to = SNACDate.withEra(this.to, arg);
     }
 
     /**
@@ -410,18 +461,19 @@ public class SNACDate extends AbstractData {
      * then call setFromBC(), setToBC() or setBC().
      */
     public void setFromDate(String original, String standardDate, Term type) {
-        this.fromDate = this.parseBC(standardDate);
-        this.fromBC = !this.fromDate.equals(standardDate);
+        this.modified("fromDate");
+        this.fromBC = SNACDate.isBC(standardDate);
+        this.setFromDateValue(this.fromBC ? standardDate.substring(1) : standardDate);
         this.fromDateOriginal = original;
-        this.fromType = type;
+        this.fromType = TermRegistry.canonical(type);
     }
 
     /**
      * Set the fuzzy range around the from date
      */
     public void setFromDateRange(String notBefore, String notAfter) {
-        this.fromRange.put("notBefore",notBefore);
-        this.fromRange.put("notAfter",notAfter);
+        this.modified("fromRange");
+        this.fromRange = Range.of(this.fromRange, notBefore, notAfter);
     }
 
     /**
@@ -430,18 +482,19 @@ public class SNACDate extends AbstractData {
      * Set the to date in this object, as well as setting some related private variables.
      */
     public void setToDate(String original, String standardDate, Term type) {
-        this.toDate = this.parseBC(standardDate);
-        this.toBC = !this.toDate.equals(standardDate);
+        this.modified("toDate");
+        this.toBC = SNACDate.isBC(standardDate);
+        this.setToDateValue(this.toBC ? standardDate.substring(1) : standardDate);
         this.toDateOriginal = original;
-        this.toType = type;
+        this.toType = TermRegistry.canonical(type);
     }
 
     /**
      * Set the fuzzy range around the to date
      */
     public void setToDateRange(String notBefore, String notAfter) {
-        this.toRange.put("notBefore", notBefore);
-        this.toRange.put("notAfter", notAfter);
+        this.modified("toRange");
+        this.toRange = Range.of(this.toRange, notBefore, notAfter);
     }
 
     /**
@@ -467,6 +520,7 @@ public class SNACDate extends AbstractData {
      *
      */
     public void setNote(String note) {
+        this.modified("note");
         this.note = note;
     }
 
@@ -488,12 +542,12 @@ public class SNACDate extends AbstractData {
     /**
      * {@inheritDoc}
      */
-    public boolean equals(Object other) {
+    public boolean equals(Object other, boolean strict, boolean checkSubcomponents) {
 
         if (other == null || ! (other instanceof SNACDate))
             return false;
 
-        if (! super.equals(other))
+        if (! super.equals(other, strict, checkSubcomponents))
             return false;
 
         SNACDate d = (SNACDate) other;
@@ -503,8 +557,7 @@ public class SNACDate extends AbstractData {
             return false;
         if (this.getIsRange() != d.getIsRange())
             return false;
-        if ((this.getFromDate() != null && ! this.getFromDate().equals(d.getFromDate())) ||
-                (this.getFromDate() == null && d.getFromDate() != null))
+        if (!SNACDate.sameDate(this.fromDate, this.from, d.fromDate, d.from))
             return false;
         if ((this.getFromDateOriginal() != null && ! this.getFromDateOriginal().equals(d.getFromDateOriginal())) ||
                 (this.getFromDateOriginal() == null && d.getFromDateOriginal() != null))
@@ -512,8 +565,7 @@ public class SNACDate extends AbstractData {
         if ((this.getToDateOriginal() != null && ! this.getToDateOriginal().equals(d.getToDateOriginal())) ||
                 (this.getToDateOriginal() == null && d.getToDateOriginal() != null))
             return false;
-        if ((this.getToDate() != null && ! this.getToDate().equals(d.getToDate())) ||
-                (this.getToDate() == null && d.getToDate() != null))
+        if (!SNACDate.sameDate(this.toDate, this.to, d.toDate, d.to))
             return false;
         if ((this.getNote() != null && ! this.getNote().equals(d.getNote())) ||
                 (this.getNote() == null && d.getNote() != null))
@@ -521,23 +573,8 @@ public class SNACDate extends AbstractData {
 
 
         // handle ranges
-        if (this.getFromRange() != null && d.getFromRange() != null) {
-            if (!this.getFromRange().get("notAfter").equals(d.getFromRange().get("notAfter")) ||
-                    !this.getFromRange().get("notBefore").equals(d.getFromRange().get("notBefore")))
-                return false;
-        } else if ((this.getFromRange() == null && d.getFromRange() != null) ||
-           (this.getFromRange() != null && d.getFromRange() == null)) {
+        if (!Range.same(this.fromRange, d.fromRange) || !Range.same(this.toRange, d.toRange))
             return false;
-        }
-
-        if (this.getToRange() != null && d.getToRange() != null) {
-            if (!this.getToRange().get("notAfter").equals(d.getToRange().get("notAfter")) ||
-                    !this.getToRange().get("notBefore").equals(d.getToRange().get("notBefore")))
-                return false;
-        } else if ((this.getToRange() == null && d.getToRange() != null) ||
-                (this.getToRange() != null && d.getToRange() == null)) {
-            return false;
-        }
 
 
         if ((this.getFromType() != null && ! this.getFromType().equals(d.getFromType())) ||
@@ -549,4 +586,752 @@ public class SNACDate extends AbstractData {
 
         return true;
     }
+
+    /**
+     * {@inheritDoc}
+     */
+    protected int computeHashCode(boolean strict, boolean checkSubcomponents) {
+        int hash = super.computeHashCode(strict, checkSubcomponents);
+        hash = 31 * hash + Boolean.hashCode(this.getFromBC());
+        hash = 31 * hash + Boolean.hashCode(this.getToBC());
+        hash = 31 * hash + Boolean.hashCode(this.getIsRange());
+        hash = 31 * hash + SNACDate.hashDate(this.fromDate, this.from);
+        hash = 31 * hash + Objects.hashCode(this.getFromDateOriginal());
+        hash = 31 * hash + Objects.hashCode(this.getToDateOriginal());
+        hash = 31 * hash + SNACDate.hashDate(this.toDate, this.to);
+        hash = 31 * hash + Objects.hashCode(this.getNote());
+        hash = 31 * hash + Range.hash(this.fromRange);
+        hash = 31 * hash + Range.hash(this.toRange);
+        hash = 31 * hash + Objects.hashCode(this.getFromType());
+        hash = 31 * hash + Objects.hashCode(this.getToType());
+        return hash;
+    }
+
+
+    /**
+     * Set the standard from date, as written in JSON
+     *
+     * @param value The from date, without the minus sign of a BC date
+     */
+    @JsonProperty("fromDate")
+    void setFromDateValue(String value) {
+        long packed = SNACDate.parseStandard(value);
+        this.fromDate = packed == UNKNOWN ? value : null;
+        this.from = SNACDate.withEra(packed == UNKNOWN ? SNACDate.parseLenient(value, 0) : packed, this.fromBC);
+    }
+
+    /**
+     * Set the standard to date, as written in JSON
+     *
+     * @param value The to date, without the minus sign of a BC date
+     */
+    @JsonProperty("toDate")
+    void setToDateValue(String value) {
+        long packed = SNACDate.parseStandard(value);
+        this.toDate = packed == UNKNOWN ? value : null;
+        this.to = SNACDate.withEra(packed == UNKNOWN ? SNACDate.parseLenient(value, 0) : packed, this.toBC);
+    }
+
+    /**
+     * Set the from date range, as written in JSON
+     *
+     * Keys other than notBefore and notAfter are kept, in the order read.
+     *
+     * @param range The range, which may be null
+     */
+    @JsonProperty("fromRange")
+    void setFromRangeValue(Map<String, String> range) {
+        this.fromRange = Range.of(range);
+    }
+
+    /**
+     * Set the to date range, as written in JSON
+     *
+     * Keys other than notBefore and notAfter are kept, in the order read.
+     *
+     * @param range The range, which may be null
+     */
+    @JsonProperty("toRange")
+    void setToRangeValue(Map<String, String> range) {
+        this.toRange = Range.of(range);
+    }
+
+    /**
+     * Get the from date range, as written in JSON
+     *
+     * @return Range The range, or null
+     */
+    Range getFromRangeBounds() {
+        return this.fromRange;
+    }
+
+    /**
+     * Get the to date range, as written in JSON
+     *
+     * @return Range The range, or null
+     */
+    Range getToRangeBounds() {
+        return this.toRange;
+    }
+
+    /**
+     * Get the start
+     *
+     * The earliest day this date may be: the from date, or the notBefore of its range if that is
+     * earlier.  A date given to the year or month starts at the beginning of it.
+     *
+     * @return long The packed start, or UNKNOWN
+     */
+    @JsonIgnore
+    public long getStart() {
+        long start = this.from;
+        if (this.fromRange != null && this.fromRange.earliest != UNKNOWN &&
+                (start == UNKNOWN || this.fromRange.earliest < start))
+            start = this.fromRange.earliest;
+        return start;
+    }
+
+    /**
+     * Get the end
+     *
+     * The latest day this date may be: the to date of a range, or else the from date, or the
+     * notAfter of its range if that is later.  A date given to the year or month ends at the end
+     * of it.
+     *
+     * @return long The packed end, or UNKNOWN if it is open
+     */
+    @JsonIgnore
+    public long getEnd() {
+        long end = this.isRange ? this.to : this.from;
+        Range range = this.isRange ? this.toRange : this.fromRange;
+        if (end != UNKNOWN)
+            end = SNACDate.latest(end);
+        if (range != null && range.latest != UNKNOWN && (end == UNKNOWN || range.latest > end))
+            end = range.latest;
+        return end;
+    }
+
+    /**
+     * Does this date overlap a period
+     *
+     * A date with an unknown start or end is open at that end.  A date with neither is unknown,
+     * and overlaps nothing.
+     *
+     * @param start The packed first day of the period, or UNKNOWN for no limit
+     * @param end The packed last day of the period, or UNKNOWN for no limit
+     * @return boolean True if some day may be both in this date and in the period
+     */
+    public boolean overlaps(long start, long end) {
+        long s = this.getStart();
+        long e = this.getEnd();
+        if (s == UNKNOWN && e == UNKNOWN)
+            return false;
+        return s <= SNACDate.upper(end) && start <= SNACDate.upper(e);
+    }
+
+    /**
+     * Does this date overlap another
+     *
+     * @param other The other date
+     * @return boolean True if some day may be in both dates
+     * @see #overlaps(long, long)
+     */
+    public boolean overlaps(SNACDate other) {
+        long s = other.getStart();
+        long e = other.getEnd();
+        if (s == UNKNOWN && e == UNKNOWN)
+            return false;
+        return this.overlaps(s, e);
+    }
+
+    /**
+     * Does this date contain a day
+     *
+     * @param day The packed day
+     * @return boolean True if the day is within this date's start and end
+     * @see #overlaps(long, long)
+     */
+    public boolean contains(long day) {
+        if (day == UNKNOWN)
+            return false;
+        return this.overlaps(day, day);
+    }
+
+    /**
+     * Does this date contain another
+     *
+     * @param other The other date
+     * @return boolean True if every day the other date may be is within this date's start and end
+     * @see #overlaps(long, long)
+     */
+    public boolean contains(SNACDate other) {
+        long s = this.getStart();
+        long e = this.getEnd();
+        long os = other.getStart();
+        long oe = other.getEnd();
+        if ((s == UNKNOWN && e == UNKNOWN) || (os == UNKNOWN && oe == UNKNOWN))
+            return false;
+        return s <= os && SNACDate.upper(oe) <= SNACDate.upper(e);
+    }
+
+    /**
+     * Pack a date into a long
+     *
+     * Packed dates sort in date order.  A month or day of 0 means it is not given, and sorts
+     * before the first of the year or month.
+     *
+     * @param year The year, negative for BC
+     * @param month The month, 1 to 12, or 0
+     * @param day The day, 1 to 31, or 0
+     * @return long The packed date
+     */
+    public static long pack(int year, int month, int day) {
+        if (month < 0 || month > 12 || day < 0 || day > 31)
+            throw new IllegalArgumentException("Invalid date: " + year + "-" + month + "-" + day);
+        return ((long) year << 9) | (month << 5) | day;
+    }
+
+    /**
+     * Get the year of a packed date
+     *
+     * @param packed The packed date
+     * @return int The year, negative for BC
+     */
+    public static int year(long packed) {
+        return (int) (packed >> 9);
+    }
+
+    /**
+     * Get the month of a packed date
+     *
+     * @param packed The packed date
+     * @return int The month, or 0 if it is not given
+     */
+    public static int month(long packed) {
+        return (int) (packed >> 5) & 15;
+    }
+
+    /**
+     * Get the day of a packed date
+     *
+     * @param packed The packed date
+     * @return int The day, or 0 if it is not given
+     */
+    public static int day(long packed) {
+        return (int) packed & 31;
+    }
+
+    /**
+     * Get the last day of a packed date
+     *
+     * @param packed The packed date, given to the year, month or day
+     * @return long The packed date with a missing month or day filled in with its largest value
+     */
+    public static long latest(long packed) {
+        if (packed == UNKNOWN)
+            return packed;
+        int month = SNACDate.month(packed);
+        int day = SNACDate.day(packed);
+        return SNACDate.pack(SNACDate.year(packed), month == 0 ? 12 : month, day == 0 ? 31 : day);
+    }
+
+    /**
+     * Parse a standard date
+     *
+     * Reads the year, and the month and day if given, of a date such as "1860-08-13" or "-0500".
+     * Anything after them is ignored.
+     *
+     * @param standardDate The date, with a minus sign if it is BC
+     * @return long The packed date, or UNKNOWN if it does not start with a year
+     */
+    public static long parse(String standardDate) {
+        return SNACDate.isBC(standardDate) ? SNACDate.withEra(SNACDate.parseLenient(standardDate, 1), true)
+            : SNACDate.parseLenient(standardDate, 0);
+    }
+
+    /**
+     * Is a standard date BC
+     */
+    private static boolean isBC(String standardDate) {
+        return standardDate != null && !standardDate.isEmpty() && standardDate.charAt(0) == '-';
+    }
+
+    /**
+     * Set the era of a packed date
+     */
+    private static long withEra(long packed, boolean bc) {
+        if (packed == UNKNOWN)
+            return packed;
+        int year = Math.abs(SNACDate.year(packed));
+        return SNACDate.pack(bc ? -year : year, SNACDate.month(packed), SNACDate.day(packed));
+    }
+
+    /**
+     * Treat UNKNOWN as no upper limit
+     */
+    private static long upper(long packed) {
+        return packed == UNKNOWN ? Long.MAX_VALUE : packed;
+    }
+
+    /**
+     * Parse a date in the usual form
+     *
+     * @return long The packed date, or UNKNOWN unless the date is yyyy, yyyy-mm or yyyy-mm-dd, so
+     * that format() gives it back
+     */
+    private static long parseStandard(String s) {
+        if (s == null || (s.length() != 4 && s.length() != 7 && s.length() != 10))
+            return UNKNOWN;
+        int year = SNACDate.digits(s, 0, 4);
+        int month = s.length() > 4 && s.charAt(4) == '-' ? SNACDate.digits(s, 5, 7) : 0;
+        int day = s.length() > 7 && s.charAt(7) == '-' ? SNACDate.digits(s, 8, 10) : 0;
+        if (year < 0 || (s.length() > 4 && (month < 1 || month > 12)) || (s.length() > 7 && (day < 1 || day > 31)))
+            return UNKNOWN;
+        return SNACDate.pack(year, month, day);
+    }
+
+    /**
+     * Parse the digits in part of a string
+     *
+     * @return int The number, or -1 if there is anything but digits
+     */
+    private static int digits(String s, int start, int end) {
+        int n = 0;
+        for (int i = start; i < end; i++) {
+            char c = s.charAt(i);
+            if (c < '0' || c > '9')
+                return -1;
+            n = n * 10 + (c - '0');
+        }
+        return n;
+    }
+
+    /**
+     * Parse the year, month and day at the start of a date
+     *
+     * @param s The date
+     * @param i Where the year starts
+     * @return long The packed date, without its era, or UNKNOWN if there is no year
+     */
+    private static long parseLenient(String s, int i) {
+        if (s == null)
+            return UNKNOWN;
+        int n = s.length();
+        int year = 0;
+        int start = i;
+        while (i < n && i - start < 9 && s.charAt(i) >= '0' && s.charAt(i) <= '9')
+            year = year * 10 + (s.charAt(i++) - '0');
+        if (i == start)
+            return UNKNOWN;
+
+        int month = 0;
+        int day = 0;
+        if (i + 1 < n && s.charAt(i) == '-') {
+            int m = 0;
+            int j = i + 1;
+            while (j < n && j - i <= 2 && s.charAt(j) >= '0' && s.charAt(j) <= '9')
+                m = m * 10 + (s.charAt(j++) - '0');
+            if (j > i + 1 && m >= 1 && m <= 12) {
+                month = m;
+                if (j + 1 < n && s.charAt(j) == '-') {
+                    int d = 0;
+                    int k = j + 1;
+                    while (k < n && k - j <= 2 && s.charAt(k) >= '0' && s.charAt(k) <= '9')
+                        d = d * 10 + (s.charAt(k++) - '0');
+                    if (k > j + 1 && d >= 1 && d <= 31)
+                        day = d;
+                }
+            }
+        }
+        return SNACDate.pack(year, month, day);
+    }
+
+    /**
+     * Write a packed date in the usual form
+     *
+     * @return string The date as yyyy, yyyy-mm or yyyy-mm-dd, without an era, or null if it is
+     * UNKNOWN
+     */
+    private static String format(long packed) {
+        if (packed == UNKNOWN)
+            return null;
+        int year = Math.abs(SNACDate.year(packed));
+        int month = SNACDate.month(packed);
+        int day = SNACDate.day(packed);
+        char[] c = new char[month == 0 ? 4 : day == 0 ? 7 : 10];
+        c[0] = (char) ('0' + year / 1000 % 10);
+        c[1] = (char) ('0' + year / 100 % 10);
+        c[2] = (char) ('0' + year / 10 % 10);
+        c[3] = (char) ('0' + year % 10);
+        if (month != 0) {
+            c[4] = '-';
+            c[5] = (char) ('0' + month / 10);
+            c[6] = (char) ('0' + month % 10);
+        }
+        if (day != 0) {
+            c[7] = '-';
+            c[8] = (char) ('0' + day / 10);
+            c[9] = (char) ('0' + day % 10);
+        }
+        return new String(c);
+    }
+
+    /**
+     * Compare two standard dates, each held either as a string or packed
+     */
+    private static boolean sameDate(String a, long packedA, String b, long packedB) {
+        if (a == null && b == null)
+            return packedA == packedB;
+        return Objects.equals(a, b);
+    }
+
+    /**
+     * Hash a standard date as sameDate() compares it
+     */
+    private static int hashDate(String date, long packed) {
+        return date != null ? date.hashCode() : Long.hashCode(packed);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    protected void freezeFields() {
+        super.freezeFields();
+        this.fromType = freezeTerm(this.fromType);
+        this.toType = freezeTerm(this.toType);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    protected void copyFrom(AbstractData data, DataCopier copier) {
+        super.copyFrom(data, copier);
+        SNACDate other = (SNACDate) data;
+        this.fromDate = other.fromDate;
+        this.from = other.from;
+        this.fromDateOriginal = other.fromDateOriginal;
+        this.fromType = copier.copy(other.fromType);
+        this.fromBC = other.fromBC;
+        this.fromRange = other.fromRange;
+        this.toDate = other.toDate;
+        this.to = other.to;
+        this.toDateOriginal = other.toDateOriginal;
+        this.toType = copier.copy(other.toType);
+        this.toBC = other.toBC;
+        this.toRange = other.toRange;
+        this.isRange = other.isRange;
+        this.note = other.note;
+    }
+
+    /**
+     * Range
+     *
+     * The fuzzy range around a from or to date: its notBefore and notAfter as given, and their
+     * packed values.  Ranges are immutable, and every date without one shares NONE.
+     */
+    static final class Range {
+
+        static final String NOT_BEFORE = "notBefore";
+        static final String NOT_AFTER = "notAfter";
+
+        /**
+         * @var Range The range of a new date, with a null notBefore and notAfter
+         */
+        static final Range NONE = new Range(null, null, true, true, true);
+
+        /**
+         * @var Range A range with neither a notBefore nor a notAfter
+         */
+        static final Range EMPTY = new Range(null, null, false, false, true);
+
+        final String notBefore;
+        final String notAfter;
+        final boolean hasNotBefore;
+        final boolean hasNotAfter;
+
+        /**
+         * @var boolean Whether notAfter is written first.  Ranges read from JSON keep the order
+         * they were read in; others are written as a HashMap of the two wrote them.
+         */
+        final boolean notAfterFirst;
+
+        /**
+         * @var long The packed notBefore, or UNKNOWN
+         */
+        final long earliest;
+
+        /**
+         * @var long The packed last day of the notAfter, or UNKNOWN
+         */
+        final long latest;
+
+        /**
+         * @var string[] Every key of the range in the order written, if it has keys other than
+         * notBefore and notAfter; otherwise null
+         */
+        final Map<String, String> entries;
+
+        private Range(String notBefore, String notAfter, boolean hasNotBefore, boolean hasNotAfter,
+                boolean notAfterFirst) {
+            this.notBefore = notBefore;
+            this.notAfter = notAfter;
+            this.hasNotBefore = hasNotBefore;
+            this.hasNotAfter = hasNotAfter;
+            this.notAfterFirst = notAfterFirst;
+            this.earliest = SNACDate.parse(notBefore);
+            this.latest = SNACDate.latest(SNACDate.parse(notAfter));
+            this.entries = null;
+        }
+
+        private Range(Map<String, String> entries) {
+            this.notBefore = entries.get(NOT_BEFORE);
+            this.notAfter = entries.get(NOT_AFTER);
+            this.hasNotBefore = entries.containsKey(NOT_BEFORE);
+            this.hasNotAfter = entries.containsKey(NOT_AFTER);
+            this.notAfterFirst = Range.notAfterFirst(entries);
+            this.earliest = SNACDate.parse(this.notBefore);
+            this.latest = SNACDate.latest(SNACDate.parse(this.notAfter));
+            this.entries = Collections.unmodifiableMap(entries);
+        }
+
+        static Range of(String notBefore, String notAfter) {
+            if (notBefore == null && notAfter == null)
+                return NONE;
+            return new Range(notBefore, notAfter, true, true, true);
+        }
+
+        /**
+         * Get a range with the given notBefore and notAfter, keeping the other keys of a range
+         */
+        static Range of(Range range, String notBefore, String notAfter) {
+            if (range == null || range.entries == null)
+                return Range.of(notBefore, notAfter);
+            return range.with(NOT_BEFORE, notBefore).with(NOT_AFTER, notAfter);
+        }
+
+        static Range of(Map<String, String> map) {
+            if (map == null)
+                return null;
+            boolean hasNotBefore = map.containsKey(NOT_BEFORE);
+            boolean hasNotAfter = map.containsKey(NOT_AFTER);
+            if (map.size() > (hasNotBefore ? 1 : 0) + (hasNotAfter ? 1 : 0))
+                return new Range(new LinkedHashMap<>(map));
+            if (!hasNotBefore && !hasNotAfter)
+                return EMPTY;
+            boolean notAfterFirst = Range.notAfterFirst(map);
+            if (hasNotBefore && hasNotAfter && notAfterFirst)
+                return Range.of(map.get(NOT_BEFORE), map.get(NOT_AFTER));
+            return new Range(map.get(NOT_BEFORE), map.get(NOT_AFTER), hasNotBefore, hasNotAfter, notAfterFirst);
+        }
+
+        private static boolean notAfterFirst(Map<String, String> map) {
+            for (String key : map.keySet()) {
+                if (NOT_BEFORE.equals(key) || NOT_AFTER.equals(key))
+                    return NOT_AFTER.equals(key);
+            }
+            return true;
+        }
+
+        /**
+         * Is this the range of a new date
+         *
+         * @return boolean True if it has a notBefore and notAfter, both null
+         */
+        boolean isDefault() {
+            return this.entries == null && this.hasNotBefore && this.hasNotAfter
+                && this.notBefore == null && this.notAfter == null;
+        }
+
+        int size() {
+            if (this.entries != null)
+                return this.entries.size();
+            return (this.hasNotBefore ? 1 : 0) + (this.hasNotAfter ? 1 : 0);
+        }
+
+        boolean has(Object key) {
+            if (this.entries != null)
+                return this.entries.containsKey(key);
+            return NOT_BEFORE.equals(key) ? this.hasNotBefore : NOT_AFTER.equals(key) && this.hasNotAfter;
+        }
+
+        String get(Object key) {
+            if (this.entries != null)
+                return this.entries.get(key);
+            return NOT_BEFORE.equals(key) ? this.notBefore : NOT_AFTER.equals(key) ? this.notAfter : null;
+        }
+
+        Range with(String key, String value) {
+            if (this.entries == null && NOT_BEFORE.equals(key))
+                return new Range(value, this.notAfter, true, this.hasNotAfter, this.notAfterFirst);
+            if (this.entries == null && NOT_AFTER.equals(key))
+                return new Range(this.notBefore, value, this.hasNotBefore, true, this.notAfterFirst);
+            Map<String, String> map = this.toMap();
+            map.put(key, value);
+            return Range.of(map);
+        }
+
+        Range without(Object key) {
+            if (!this.has(key))
+                return this;
+            if (this.entries == null && NOT_BEFORE.equals(key))
+                return this.hasNotAfter ? new Range(null, this.notAfter, false, true, this.notAfterFirst) : EMPTY;
+            if (this.entries == null && NOT_AFTER.equals(key))
+                return this.hasNotBefore ? new Range(this.notBefore, null, true, false, this.notAfterFirst) : EMPTY;
+            Map<String, String> map = this.toMap();
+            map.remove(key);
+            return Range.of(map);
+        }
+
+        /**
+         * Get the range as a map
+         *
+         * @return string[] The notAfter and notBefore, and any other keys, in the order they are
+         * written
+         */
+        Map<String, String> toMap() {
+            if (this.entries != null)
+                return new LinkedHashMap<>(this.entries);
+            Map<String, String> map = new LinkedHashMap<>();
+            if (this.hasNotAfter && this.notAfterFirst)
+                map.put(NOT_AFTER, this.notAfter);
+            if (this.hasNotBefore)
+                map.put(NOT_BEFORE, this.notBefore);
+            if (this.hasNotAfter && !this.notAfterFirst)
+                map.put(NOT_AFTER, this.notAfter);
+            return map;
+        }
+
+        /**
+         * Compare two ranges by their notBefore and notAfter
+         */
+        static boolean same(Range a, Range b) {
+            if (a == b)
+                return true;
+            if (a == null || b == null)
+                return false;
+            return Objects.equals(a.notBefore, b.notBefore) && Objects.equals(a.notAfter, b.notAfter);
+        }
+
+        /**
+         * Hash a range as same() compares it
+         */
+        static int hash(Range range) {
+            if (range == null)
+                return 0;
+            return 31 * Objects.hashCode(range.notBefore) + Objects.hashCode(range.notAfter);
+        }
+    }
+
+    /**
+     * Range Map
+     *
+     * The from or to range of this date as a map from "notBefore" and "notAfter" to their values,
+     * as getFromRange() and getToRange() have always returned.  Changes to the map, its entries and
+     * its views change the date.
+     */
+    private final class RangeMap extends AbstractMap<String, String> {
+
+        private final boolean to;
+
+        RangeMap(boolean to) {
+            this.to = to;
+        }
+
+        private Range range() {
+            Range range = this.to ? SNACDate.this.toRange : SNACDate.this.fromRange;
+            return range == null ? Range.EMPTY : range;
+        }
+
+        private void set(Range range) {
+            SNACDate.this.modified(this.to ? "toRange" : "fromRange");
+            if (this.to)
+                SNACDate.this.toRange = range;
+            else
+                SNACDate.this.fromRange = range;
+        }
+
+        public String get(Object key) {
+            return this.range().get(key);
+        }
+
+        public boolean containsKey(Object key) {
+            return this.range().has(key);
+        }
+
+        public String put(String key, String value) {
+            Range range = this.range();
+            this.set(range.with(key, value));
+            return range.get(key);
+        }
+
+        public String remove(Object key) {
+            Range range = this.range();
+            if (range.has(key))
+                this.set(range.without(key));
+            return range.get(key);
+        }
+
+        public void clear() {
+            if (this.range().size() != 0)
+                this.set(Range.EMPTY);
+        }
+
+        public int size() {
+            return this.range().size();
+        }
+
+        public Set<Map.Entry<String, String>> entrySet() {
+            return new AbstractSet<Map.Entry<String, String>>() {
+
+                public Iterator<Map.Entry<String, String>> iterator() {
+                    return new EntryIterator(RangeMap.this.range().toMap());
+                }
+
+                public int size() {
+                    return RangeMap.this.size();
+                }
+
+                public void clear() {
+                    RangeMap.this.clear();
+                }
+            };
+        }
+
+        /**
+         * Iterates over the entries of the range when the iterator was made, changing the date
+         * through remove() and setValue()
+         */
+        private final class EntryIterator implements Iterator<Map.Entry<String, String>> {
+
+            private final Iterator<Map.Entry<String, String>> entries;
+            private Map.Entry<String, String> last;
+
+            EntryIterator(Map<String, String> map) {
+                this.entries = map.entrySet().iterator();
+            }
+
+            public boolean hasNext() {
+                return this.entries.hasNext();
+            }
+
+            public Map.Entry<String, String> next() {
+                Map.Entry<String, String> entry = this.entries.next();
+                this.last = entry;
+                return new AbstractMap.SimpleEntry<String, String>(entry) {
+
+                    public String setValue(String value) {
+                        RangeMap.this.put(this.getKey(), value);
+                        return super.setValue(value);
+                    }
+                };
+            }
+
+            public void remove() {
+                if (this.last == null)
+                    throw new IllegalStateException();
+                RangeMap.this.remove(this.last.getKey());
+                this.last = null;
+            }
+        }
+    }
 }
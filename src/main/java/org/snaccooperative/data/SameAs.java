@@ -15,6 +15,8 @@
  */
 package org.snaccooperative.data;
 
+import java.util.Objects;
+
 /**
  * SameAs data storage class
  *
@@ -48,6 +50,13 @@ public class SameAs extends AbstractData {
         this.setMaxDateCount(0);
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    protected AbstractData newInstance() {
+        return new SameAs();
+    }
+
     /**
      * Get the text of this sameAs or sameAsRelation
      *
@@ -94,6 +103,7 @@ public class SameAs extends AbstractData {
      */
     public void setText(String text) {
 
+        this.modified("text");
         this.text = text;
     }
 
@@ -101,6 +111,7 @@ public class SameAs extends AbstractData {
      * Set the URI of this sameAs or sameAsRelation
      */
     public void setURI(String uri) {
+        this.modified("uri");
         this.uri = uri;
     }
 
@@ -108,18 +119,19 @@ public class SameAs extends AbstractData {
      * Set the type of this sameAs or sameAsRelation
      */
     public void setType(Term type) {
-        this.type = type;
+        this.modified("type");
+        this.type = TermRegistry.canonical(type);
     }
 
     /**
      * {@inheritDoc}
      */
-    public boolean equals(Object other) {
+    public boolean equals(Object other, boolean strict, boolean checkSubcomponents) {
 
         if (other == null || ! (other instanceof SameAs))
             return false;
 
-        if (!super.equals(other))
+        if (!super.equals(other, strict, checkSubcomponents))
             return false;
 
         SameAs s = (SameAs) other;
@@ -137,4 +149,34 @@ public class SameAs extends AbstractData {
 
         return true;
     }
+
+    /**
+     * {@inheritDoc}
+     */
+    protected int computeHashCode(boolean strict, boolean checkSubcomponents) {
+        int hash = super.computeHashCode(strict, checkSubcomponents);
+        hash = 31 * hash + Objects.hashCode(this.getText());
+        hash = 31 * hash + Objects.hashCode(this.getURI());
+        hash = 31 * hash + Objects.hashCode(this.getType());
+        return hash;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    protected void freezeFields() {
+        super.freezeFields();
+        this.type = freezeTerm(this.type);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    protected void copyFrom(AbstractData data, DataCopier copier) {
+        super.copyFrom(data, copier);
+        SameAs other = (SameAs) data;
+        this.text = other.text;
+        this.uri = other.uri;
+        this.type = copier.copy(other.type);
+    }
 }
@@ -15,6 +15,8 @@
 
 package org.snaccooperative.data;
 
+import java.util.Objects;
+
 /**
  * Source
  *
@@ -73,6 +75,13 @@ public class Source extends AbstractData {
         this.setMaxDateCount(0);
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    protected AbstractData newInstance() {
+        return new Source();
+    }
+
     /**
      * Get Language
      *
@@ -154,6 +163,7 @@ public class Source extends AbstractData {
      */
     public void setLanguage(Language language) {
 
+        this.modified("language");
         this.language = language;
     }
 
@@ -162,6 +172,7 @@ public class Source extends AbstractData {
      */
     public void setText(String text) {
 
+        this.modified("text");
         this.text = text;
     }
 
@@ -170,6 +181,7 @@ public class Source extends AbstractData {
      */
     public void setCitation(String citation) {
 
+        this.modified("citation");
         this.citation = citation;
     }
 
@@ -178,6 +190,7 @@ public class Source extends AbstractData {
      */
     public void setDisplayName(String displayName) {
 
+        this.modified("displayName");
         this.displayName = displayName;
     }
 
@@ -186,6 +199,7 @@ public class Source extends AbstractData {
      */
     public void setNote(String note) {
 
+        this.modified("note");
         this.note = note;
     }
 
@@ -193,6 +207,7 @@ public class Source extends AbstractData {
      * Set the URI of this source
      */
     public void setURI(String uri) {
+        this.modified("uri");
         this.uri = uri;
     }
 
@@ -200,19 +215,20 @@ public class Source extends AbstractData {
      * Set the type of this source
      */
     public void setType(Term type) {
-        this.type = type;
+        this.modified("type");
+        this.type = TermRegistry.canonical(type);
     }
 
     /**
      *
      * {@inheritDoc}
      */
-    public boolean equals(Object other) {
+    public boolean equals(Object other, boolean strict, boolean checkSubcomponents) {
 
         if (other == null || ! (other instanceof Source))
             return false;
 
-        if (!super.equals(other))
+        if (!super.equals(other, strict, checkSubcomponents))
             return false;
 
         Source s = (Source) other;
@@ -234,16 +250,58 @@ public class Source extends AbstractData {
         //         (this.getType() == null && other->getType() != null))
         //    return false;
 
-        if ((this.getLanguage() != null && ! this.getLanguage().equals(s.getLanguage())) ||
-                 (this.getLanguage() == null && s.getLanguage() != null))
+        if (!AbstractData.sameData(this.getLanguage(), s.getLanguage(), strict, checkSubcomponents))
             return false;
 
         return true;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    protected int computeHashCode(boolean strict, boolean checkSubcomponents) {
+        int hash = super.computeHashCode(strict, checkSubcomponents);
+        hash = 31 * hash + Objects.hashCode(this.getDisplayName());
+        hash = 31 * hash + Objects.hashCode(this.getText());
+        hash = 31 * hash + Objects.hashCode(this.getURI());
+        hash = 31 * hash + Objects.hashCode(this.getNote());
+        hash = 31 * hash + hashData(this.getLanguage(), strict, checkSubcomponents);
+        return hash;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    protected void acceptChildren(DataVisitor visitor) {
+        super.acceptChildren(visitor);
+        accept(visitor, this.language);
+    }
+
     @Override
     public String toString() {
         return "Source: " + this.citation + ", (" + this.uri + "). Found Data: " + this.text;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    protected void freezeFields() {
+        super.freezeFields();
+        this.type = freezeTerm(this.type);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    protected void copyFrom(AbstractData data, DataCopier copier) {
+        super.copyFrom(data, copier);
+        Source other = (Source) data;
+        this.language = copier.copy(other.language);
+        this.displayName = other.displayName;
+        this.text = other.text;
+        this.note = other.note;
+        this.uri = other.uri;
+        this.citation = other.citation;
+        this.type = copier.copy(other.type);
+    }
 }
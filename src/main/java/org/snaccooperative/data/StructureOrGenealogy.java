@@ -32,4 +32,11 @@ public class StructureOrGenealogy extends AbstractTextData {
         this.setMaxDateCount(0);
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    protected AbstractData newInstance() {
+        return new StructureOrGenealogy();
+    }
+
 }
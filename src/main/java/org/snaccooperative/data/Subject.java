@@ -32,5 +32,12 @@ public class Subject extends AbstractTermData {
         this.setMaxDateCount(0);
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    protected AbstractData newInstance() {
+        return new Subject();
+    }
+
 
 }
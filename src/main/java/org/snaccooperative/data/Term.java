@@ -16,8 +16,11 @@
  */
 package org.snaccooperative.data;
 
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.annotation.JsonInclude;
 
+import java.util.Objects;
+
 /**
  * Vocabulary Term
  *
@@ -27,6 +30,7 @@ import com.fasterxml.jackson.annotation.JsonInclude;
  * @author Robbie Hott
  * @author Tom Laudeman
  */
+@JsonIgnoreProperties(value = { "empty" }, allowGetters = true)
 @JsonInclude(JsonInclude.Include.NON_DEFAULT)
 public class Term {
 
@@ -88,6 +92,11 @@ public class Term {
      * This is the description (in any language) for this particular vocabulary term
      */
     protected String description;
+
+    /**
+     * @var boolean shared Whether this is the TermRegistry's shared instance, which is read-only
+     */
+    private boolean shared;
     
     /**
      * Set the type 
@@ -98,6 +107,7 @@ public class Term {
      */
     public void setType(String type)
     {
+        this.checkNotShared();
         this.type = type;
     }
 
@@ -128,6 +138,7 @@ public class Term {
      *
      */
     public void setID(int id) {
+        this.checkNotShared();
         this.id = id;
     }
     
@@ -147,6 +158,7 @@ public class Term {
      *
      */
     public void setTerm(String term) {
+        this.checkNotShared();
         this.term = term;
     }
 
@@ -164,6 +176,7 @@ public class Term {
      *
      */
     public void setURI(String uri) {
+        this.checkNotShared();
         this.uri = uri;
     }
     
@@ -181,9 +194,60 @@ public class Term {
      *
      */
     public void setDescription(String description) {
+        this.checkNotShared();
         this.description = description;
     }
 
+    /**
+     * Deep copy
+     *
+     * @return Term A new term with the same values, which may be changed even if this one is
+     * read-only
+     */
+    public Term deepCopy() {
+        Term copy = new Term();
+        copy.type = this.type;
+        copy.id = this.id;
+        copy.term = this.term;
+        copy.uri = this.uri;
+        copy.description = this.description;
+        return copy;
+    }
+
+    /**
+     * Share this term
+     *
+     * Makes this term read-only, as the TermRegistry's shared instance of it (or a read-only copy
+     * it hands out), or as a term of a frozen Constellation.
+     *
+     * @return Term This term
+     */
+    Term share() {
+        this.shared = true;
+        return this;
+    }
+
+    /**
+     * Is this term shared
+     *
+     * @return boolean True if this is the TermRegistry's shared instance or one of its read-only
+     * copies, or a term of a frozen Constellation, and so is read-only
+     */
+    boolean isShared() {
+        return this.shared;
+    }
+
+    /**
+     * Check that this term may be changed
+     *
+     * @throws UnsupportedOperationException If this term is shared
+     */
+    private void checkNotShared() {
+        if (this.shared)
+            throw new UnsupportedOperationException("Term " + this.id + " is shared and may not be changed; "
+                + "set a new Term instead");
+    }
+
     /**
      * Is the term empty
      * 
@@ -208,6 +272,9 @@ public class Term {
      * @return boolean true if equal, false otherwise
      */
     public boolean equals(Object other) {
+        // Shared terms are the same object
+        if (this == other)
+            return true;
         // Don't consider it if it's not a Term object
         if (other != null && other instanceof Term) {
             // Check IDs first
@@ -220,13 +287,27 @@ public class Term {
                     return false;
             }
 
-            if (this.getURI().equals(t.getURI()) &&
-                this.getTerm().equals(t.getTerm()) &&
-                this.getDescription().equals(t.getDescription())) {
+            if (Objects.equals(this.getURI(), t.getURI()) &&
+                Objects.equals(this.getTerm(), t.getTerm()) &&
+                Objects.equals(this.getDescription(), t.getDescription())) {
                 return true;
             }
         }
         return false;
     }
 
+    /**
+     * Hash Code
+     *
+     * Terms with an ID are hashed on the ID, as equals() compares them, and others on their term.
+     * A term with an ID may still equal one without, if their URIs, terms and descriptions match,
+     * yet hash differently; AbstractData.sameElements() and diffArray() compare the elements a
+     * hash leaves unmatched one by one for this reason.
+     *
+     * @return int The hash code
+     */
+    public int hashCode() {
+        return this.getID() != 0 ? Integer.hashCode(this.getID()) : Objects.hashCode(this.getTerm());
+    }
+
 }
@@ -0,0 +1,279 @@
+/**
+ * Term Registry File
+ *
+ * Contains the registry of shared vocabulary terms.
+ *
+ * License:
+ *
+ *
+ * @author Robbie Hott
+ * @license https://opensource.org/licenses/BSD-3-Clause BSD 3-Clause
+ * @copyright 2015 the Rector and Visitors of the University of Virginia, and
+ *            the Regents of the University of California
+ */
+package org.snaccooperative.data;
+
+import com.fasterxml.jackson.databind.MappingIterator;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Term Registry
+ *
+ * Holds one shared instance of each controlled vocabulary Term, so that the same term (such as
+ * entity type 698, corporateBody) read in every record and every SNACControlMetadata is one
+ * object, rather than a new copy with its own strings each time.  Terms are registered by ID, or
+ * by type and URI if they have no ID.  Since records do not always give every value of a term
+ * (some leave out its type, for instance), a few variants of each are kept.
+ *
+ * The registry is off by default, so that terms stay mutable.  It may be turned on for the whole
+ * process with setEnabled(), in which case terms are made canonical as they are read from JSON
+ * and as they are passed to the set methods of the data objects, or for one reader at a time
+ * with JSONCodec.sharingReaderFor(), which makes canonical only the terms it reads.
+ *
+ * A term is only replaced by the shared instance if all its values are the same, so no data is
+ * lost.  The shared instances are read-only, since a change to one would change every record
+ * using it; their setters throw UnsupportedOperationException.  While the registry is on, the set
+ * methods always hold a read-only term, never the one passed to them: the shared instance, or a
+ * read-only copy of a term that cannot be shared.  To change the term of a record, set a new Term
+ * on it.
+ *
+ * The registry is filled as terms are seen, and may be preloaded from a vocabulary file.  It is
+ * safe to use from several threads.
+ *
+ * @author Robbie Hott
+ */
+public final class TermRegistry {
+
+    /**
+     * @var int The most variants of a term that are shared
+     */
+    private static final int MAX_VARIANTS = 4;
+
+    /**
+     * @var Term[][] The variants of the shared terms with IDs, by ID
+     */
+    private static final ConcurrentMap<Integer, Term[]> BY_ID = new ConcurrentHashMap<>();
+
+    /**
+     * @var Term[][][] The variants of the shared terms without IDs, by type, then URI
+     */
+    private static final ConcurrentMap<String, ConcurrentMap<String, Term[]>> BY_URI = new ConcurrentHashMap<>();
+
+    /**
+     * @var boolean Whether terms are made canonical
+     */
+    private static volatile boolean enabled = false;
+
+    private TermRegistry() {
+    }
+
+    /**
+     * Get the canonical instance of a term
+     *
+     * If the registry has a term with all the same values, that term is returned.  Otherwise, a
+     * read-only copy of the term is returned, and registered unless enough variants of it are
+     * registered already.  While the registry is off, the term itself is returned.
+     *
+     * @param term The term, which may be null
+     * @return Term The shared term equal to the given one, a read-only copy of the given term, or
+     * the given term if the registry is off
+     */
+    public static Term canonical(Term term) {
+        if (term == null || term.isShared() || !enabled)
+            return term;
+        Term shared = TermRegistry.lookup(term, false);
+        return shared.isShared() ? shared : TermRegistry.copy(shared);
+    }
+
+    /**
+     * Get the canonical instance of a new term
+     *
+     * Registers the term itself rather than a copy, making it read-only.  For terms that nothing
+     * else holds yet, as when they are read.  Whether the registry is on is left to the caller.
+     *
+     * @param term The term, which may be null
+     * @return Term The shared term equal to the given one, or the given term
+     */
+    static Term intern(Term term) {
+        if (term == null || term.isShared())
+            return term;
+        return TermRegistry.lookup(term, true);
+    }
+
+    /**
+     * Register a term
+     *
+     * Makes the term the shared instance for its ID (or type and URI), replacing any variants
+     * registered before.  Records holding the replaced instances keep them.
+     *
+     * @param term The term
+     * @return Term The term, now read-only, or null if it has neither an ID nor a URI
+     */
+    public static Term register(Term term) {
+        if (term == null || (term.getID() == 0 && term.getURI() == null))
+            return null;
+        Term shared = term.isShared() ? term : TermRegistry.copy(term);
+        Term[] variants = new Term[] { shared };
+        if (term.getID() != 0)
+            BY_ID.put(term.getID(), variants);
+        else
+            TermRegistry.byURI(term).put(term.getURI(), variants);
+        return shared;
+    }
+
+    /**
+     * Preload a vocabulary
+     *
+     * Registers each term in a JSON array of terms, in the form Term is written in, so that
+     * records read afterwards share them.  The registered terms take the place of any with the
+     * same IDs.
+     *
+     * @param in The JSON, which is left open
+     * @return int The number of terms registered
+     */
+    public static int preload(InputStream in) throws IOException {
+        int count = 0;
+        try (MappingIterator<Term> terms = JSONCodec.readerFor(Term.class).readValues(in)) {
+            while (terms.hasNextValue()) {
+                if (TermRegistry.register(terms.nextValue()) != null)
+                    count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Get the registered term with an ID
+     *
+     * @param id The vocabulary ID
+     * @return Term The first shared variant of the term, or null if none is registered
+     */
+    public static Term get(int id) {
+        Term[] variants = BY_ID.get(id);
+        return variants == null ? null : variants[0];
+    }
+
+    /**
+     * Get the number of registered terms
+     *
+     * @return int The number of shared terms
+     */
+    public static int size() {
+        int size = 0;
+        for (Term[] variants : BY_ID.values())
+            size += variants.length;
+        for (ConcurrentMap<String, Term[]> byURI : BY_URI.values()) {
+            for (Term[] variants : byURI.values())
+                size += variants.length;
+        }
+        return size;
+    }
+
+    /**
+     * Clear the registry
+     *
+     * The terms already shared by records stay read-only.
+     */
+    public static void clear() {
+        BY_ID.clear();
+        BY_URI.clear();
+    }
+
+    /**
+     * Turn the registry on or off
+     *
+     * While it is off, canonical() returns every term as it is, and only the readers from
+     * JSONCodec.sharingReaderFor() register terms.  It is off by default.
+     *
+     * @param on Whether terms are made canonical
+     */
+    public static void setEnabled(boolean on) {
+        enabled = on;
+    }
+
+    /**
+     * Is the registry on
+     *
+     * @return boolean True if terms are made canonical
+     */
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Look up a term, registering it if it is new
+     *
+     * @param term The term, which is not null or shared
+     * @param inPlace Whether to register the term itself, rather than a copy
+     * @return Term The shared term, or the given term if it cannot be registered
+     */
+    private static Term lookup(Term term, boolean inPlace) {
+        if (term.getID() != 0)
+            return TermRegistry.lookup(BY_ID, term.getID(), term, inPlace);
+        if (term.getURI() != null)
+            return TermRegistry.lookup(TermRegistry.byURI(term), term.getURI(), term, inPlace);
+        return term;
+    }
+
+    /**
+     * Look up a term in a map, registering it if it is new
+     */
+    private static <K> Term lookup(ConcurrentMap<K, Term[]> map, K key, Term term, boolean inPlace) {
+        for (;;) {
+            Term[] variants = map.get(key);
+            int n = variants == null ? 0 : variants.length;
+            for (int i = 0; i < n; i++) {
+                if (TermRegistry.sameValues(variants[i], term))
+                    return variants[i];
+            }
+            if (n == MAX_VARIANTS)
+                return term;
+
+            // The term is made read-only before it is published, so that no thread can find it in
+            // the map while it may still be changed
+            Term shared = inPlace ? term.share() : TermRegistry.copy(term);
+            Term[] added = variants == null ? new Term[1] : Arrays.copyOf(variants, n + 1);
+            added[n] = shared;
+            boolean stored = variants == null ? map.putIfAbsent(key, added) == null : map.replace(key, variants, added);
+            if (stored)
+                return shared;
+        }
+    }
+
+    /**
+     * Get the map of the terms of a term's type without IDs, by URI
+     */
+    private static ConcurrentMap<String, Term[]> byURI(Term term) {
+        String type = term.getType() == null ? "" : term.getType();
+        ConcurrentMap<String, Term[]> byURI = BY_URI.get(type);
+        if (byURI == null) {
+            BY_URI.putIfAbsent(type, new ConcurrentHashMap<>());
+            byURI = BY_URI.get(type);
+        }
+        return byURI;
+    }
+
+    /**
+     * Copy a term into a new read-only term
+     */
+    private static Term copy(Term term) {
+        return term.deepCopy().share();
+    }
+
+    /**
+     * Check whether two terms have all the same values
+     */
+    private static boolean sameValues(Term a, Term b) {
+        return a.getID() == b.getID() &&
+            Objects.equals(a.getType(), b.getType()) &&
+            Objects.equals(a.getTerm(), b.getTerm()) &&
+            Objects.equals(a.getURI(), b.getURI()) &&
+            Objects.equals(a.getDescription(), b.getDescription());
+    }
+}